@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * {@code lapply}, {@code vapply} and {@code sapply} with a small closure.
+ */
+public class ApplyBenchmark extends RBenchmark {
+
+    @Param({"10000"}) public int n;
+
+    @Param({"lapply", "vapply", "sapply", "Map"}) public String op;
+
+    @Override
+    protected String getSetupCode() {
+        return "x <- as.list(seq_len(" + n + ")); f <- function(v) v * 2 + 1\n" +
+                        "kernels <- list(\n" +
+                        "    lapply = function() lapply(x, f),\n" +
+                        "    vapply = function() vapply(x, f, numeric(1)),\n" +
+                        "    sapply = function() sapply(x, f),\n" +
+                        "    Map = function() Map(function(a, b) a + b, x, x)\n" +
+                        ")\n" +
+                        "kernel <- kernels[['" + op + "']]";
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * S3 and S4 dispatch, both at call sites that see a single class and at call sites that see many.
+ */
+public class DispatchBenchmark extends RBenchmark {
+
+    @Param({"S3", "S3megamorphic", "S4", "S4megamorphic"}) public String op;
+
+    @Override
+    protected String getSetupCode() {
+        return "area <- function(s) UseMethod('area')\n" +
+                        "for (i in 1:20) assign(paste0('area.shape', i), local({ k <- i; function(s) k * s$size }))\n" +
+                        "s3 <- lapply(1:20, function(i) structure(list(size = i), class = paste0('shape', i)))\n" +
+                        "setGeneric('volume', function(s) standardGeneric('volume'))\n" +
+                        "for (i in 1:20) { cls <- paste0('Solid', i); setClass(cls, representation(size = 'numeric')); setMethod('volume', cls, local({ k <- i; function(s) k * s@size })) }\n" +
+                        "s4 <- lapply(1:20, function(i) new(paste0('Solid', i), size = i))\n" +
+                        "kernels <- list(\n" +
+                        "    S3 = function() { s <- 0; x <- s3[[1]]; for (i in 1:1000) s <- s + area(x); s },\n" +
+                        "    S3megamorphic = function() { s <- 0; for (i in 1:1000) s <- s + area(s3[[i %% 20L + 1L]]); s },\n" +
+                        "    S4 = function() { s <- 0; x <- s4[[1]]; for (i in 1:1000) s <- s + volume(x); s },\n" +
+                        "    S4megamorphic = function() { s <- 0; for (i in 1:1000) s <- s + volume(s4[[i %% 20L + 1L]]); s }\n" +
+                        ")\n" +
+                        "kernel <- kernels[['" + op + "']]";
+    }
+}
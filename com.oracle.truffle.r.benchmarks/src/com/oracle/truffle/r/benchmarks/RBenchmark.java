@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class of the FastR micro-benchmarks. Each benchmark creates a polyglot {@link Context} per
+ * trial, evaluates the R code returned by {@link #getSetupCode()} and then measures calls of the R
+ * function {@code kernel} defined by that code. The kernels are called without arguments and the
+ * data they work on is created by the setup code, so only the kernel itself is measured.
+ *
+ * The warmup is long enough for the kernels to get compiled, JMH reports each warmup iteration, so
+ * the warmup curve can be read from its output. Run with {@code mx r-jmh}, see
+ * {@code documentation/dev/testing.md}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class RBenchmark {
+
+    private Context context;
+    private Value kernel;
+
+    /**
+     * Returns the R code that creates the benchmark data and defines the function {@code kernel}.
+     */
+    protected abstract String getSetupCode();
+
+    @Setup
+    public void setup() {
+        context = Context.newBuilder("R").allowAllAccess(true).build();
+        context.eval("R", getSetupCode());
+        kernel = context.eval("R", "kernel");
+        if (!kernel.canExecute()) {
+            throw new IllegalStateException("the setup code of " + getClass().getSimpleName() + " does not define a kernel function");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Value run() {
+        return kernel.execute();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * {@code read.table} and {@code read.csv} of a generated file, with and without the column classes
+ * given.
+ */
+public class ReadTableBenchmark extends RBenchmark {
+
+    @Param({"10000"}) public int n;
+
+    @Param({"readTable", "readCsv", "readCsvColClasses"}) public String op;
+
+    @Override
+    protected String getSetupCode() {
+        return "set.seed(1); df <- data.frame(a = runif(" + n + "), b = sample.int(100L, " + n + ", replace = TRUE), c = paste0('s', seq_len(" + n + ")), stringsAsFactors = FALSE)\n" +
+                        "tableFile <- tempfile(fileext = '.txt'); csvFile <- tempfile(fileext = '.csv')\n" +
+                        "write.table(df, tableFile); write.csv(df, csvFile, row.names = FALSE)\n" +
+                        "kernels <- list(\n" +
+                        "    readTable = function() read.table(tableFile),\n" +
+                        "    readCsv = function() read.csv(csvFile),\n" +
+                        "    readCsvColClasses = function() read.csv(csvFile, colClasses = c('numeric', 'integer', 'character'))\n" +
+                        ")\n" +
+                        "kernel <- kernels[['" + op + "']]";
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Regular expression builtins on a character vector, with basic, extended and Perl syntax.
+ */
+public class RegexBenchmark extends RBenchmark {
+
+    @Param({"10000"}) public int n;
+
+    @Param({"grepl", "grepFixed", "sub", "gsubPerl", "regmatches", "strsplit"}) public String op;
+
+    @Override
+    protected String getSetupCode() {
+        return "set.seed(1); x <- paste0('user', sample.int(1000, " + n + ", replace = TRUE), '@host', sample.int(50, " + n + ", replace = TRUE), '.example.org')\n" +
+                        "kernels <- list(\n" +
+                        "    grepl = function() grepl('^user[0-9]+@host4', x),\n" +
+                        "    grepFixed = function() grep('@host1.', x, fixed = TRUE),\n" +
+                        "    sub = function() sub('@.*$', '', x),\n" +
+                        "    gsubPerl = function() gsub('(\\\\d+)', '<\\\\1>', x, perl = TRUE),\n" +
+                        "    regmatches = function() regmatches(x, regexpr('[0-9]+', x)),\n" +
+                        "    strsplit = function() strsplit(x, '[@.]')\n" +
+                        ")\n" +
+                        "kernel <- kernels[['" + op + "']]";
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * {@code saveRDS} and {@code readRDS} of a data frame with numeric, integer, character and factor
+ * columns.
+ */
+public class SerializationBenchmark extends RBenchmark {
+
+    @Param({"100000"}) public int n;
+
+    @Param({"saveRDS", "readRDS", "saveRDSuncompressed", "readRDSuncompressed"}) public String op;
+
+    @Override
+    protected String getSetupCode() {
+        return "set.seed(1); df <- data.frame(a = runif(" + n + "), b = sample.int(100L, " + n + ", replace = TRUE), c = paste0('s', seq_len(" + n + ")), " +
+                        "d = factor(sample(letters, " + n + ", replace = TRUE)), stringsAsFactors = FALSE)\n" +
+                        "file <- tempfile(fileext = '.rds'); rawFile <- tempfile(fileext = '.rds')\n" +
+                        "saveRDS(df, file); saveRDS(df, rawFile, compress = FALSE)\n" +
+                        "kernels <- list(\n" +
+                        "    saveRDS = function() saveRDS(df, file),\n" +
+                        "    readRDS = function() readRDS(file),\n" +
+                        "    saveRDSuncompressed = function() saveRDS(df, rawFile, compress = FALSE),\n" +
+                        "    readRDSuncompressed = function() readRDS(rawFile)\n" +
+                        ")\n" +
+                        "kernel <- kernels[['" + op + "']]";
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * {@code order}, {@code sort}, {@code match} and {@code unique} on integer, double and character
+ * vectors.
+ */
+public class SortingBenchmark extends RBenchmark {
+
+    @Param({"100000"}) public int n;
+
+    @Param({"integer", "double", "character"}) public String type;
+
+    @Param({"order", "sort", "match", "unique"}) public String op;
+
+    @Override
+    protected String getSetupCode() {
+        return "set.seed(1); ints <- sample.int(" + n + " %/% 4L, " + n + ", replace = TRUE)\n" +
+                        "x <- switch('" + type + "', integer = ints, double = ints + runif(" + n + "), character = paste0('k', ints))\n" +
+                        "table <- unique(x)[1:100]\n" +
+                        "kernels <- list(\n" +
+                        "    order = function() order(x),\n" +
+                        "    sort = function() sort(x),\n" +
+                        "    match = function() match(x, table),\n" +
+                        "    unique = function() unique(x)\n" +
+                        ")\n" +
+                        "kernel <- kernels[['" + op + "']]";
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Vector subsetting and sub-assignment, which are executed by the {@code ExtractVectorNode} and the
+ * {@code ReplaceVectorNode}.
+ */
+public class SubsettingBenchmark extends RBenchmark {
+
+    @Param({"100000"}) public int n;
+
+    @Param({"index", "logical", "names", "element", "replace", "replaceElement", "matrix"}) public String op;
+
+    @Override
+    protected String getSetupCode() {
+        return "set.seed(1); x <- runif(" + n + "); idx <- sample.int(" + n + ", " + n + " %/% 10); names(x) <- paste0('n', seq_len(" + n + "))\n" +
+                        "nms <- sample(names(x), 1000); m <- matrix(x, ncol = 10)\n" +
+                        "kernels <- list(\n" +
+                        "    index = function() x[idx],\n" +
+                        "    logical = function() x[x > 0.5],\n" +
+                        "    names = function() x[nms],\n" +
+                        "    element = function() { s <- 0; for (j in idx) s <- s + x[[j]]; s },\n" +
+                        "    replace = function() { y <- x; y[idx] <- 0; y },\n" +
+                        "    replaceElement = function() { y <- x; for (j in idx) y[[j]] <- 0; y },\n" +
+                        "    matrix = function() m[idx %% nrow(m) + 1L, 2:5]\n" +
+                        ")\n" +
+                        "kernel <- kernels[['" + op + "']]";
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Element-wise arithmetic and comparison on double and integer vectors, which is executed by the
+ * {@code BinaryMapNode}.
+ */
+public class VectorArithmeticBenchmark extends RBenchmark {
+
+    @Param({"1000", "1000000"}) public int n;
+
+    @Param({"x + y", "x * 2.5", "i + 1L", "x > y", "(x + y) / (x - y)"}) public String expr;
+
+    @Override
+    protected String getSetupCode() {
+        return "set.seed(1); x <- runif(" + n + "); y <- runif(" + n + "); i <- sample.int(1000L, " + n + ", replace = TRUE)\n" +
+                        "kernel <- function() " + expr;
+    }
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.engine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.r.launcher.StartupTiming;
+import com.oracle.truffle.r.nodes.RASTBuilder;
+import com.oracle.truffle.r.runtime.FileSystemUtils;
+import com.oracle.truffle.r.runtime.RErrorHandling;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RLogger;
+import com.oracle.truffle.r.runtime.RParserFactory;
+import com.oracle.truffle.r.runtime.Utils;
+import com.oracle.truffle.r.runtime.context.Engine.ParseException;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
+
+/**
+ * Cache of parsed R code keyed by a hash of the source text, so a changed text is never served a
+ * stale AST. The first parse of a text records the calls the parser makes to the code builder (see
+ * {@link RecordingCodeBuilder}), later parses of the same text replay them instead of running the
+ * parser. The recordings are kept in an in-memory LRU bounded by {@link FastROptions#ParseCacheSize}
+ * and shared by all contexts, so is the limit: it is taken from the first context that parses
+ * through the cache and the option is ignored in all other contexts. Recordings of files and internal sources (the base package and its
+ * overrides) of at least {@link #MIN_PERSISTENT_LENGTH} characters are also stored in the directory
+ * given by {@link FastROptions#ParseCacheDir}, so that later processes, e.g. repeated runs of the
+ * same {@code Rscript}, share them too. Since every edit of a file adds an entry, the least
+ * recently used files are removed when the directory grows beyond
+ * {@link FastROptions#ParseCacheDirSize}.
+ *
+ * Sources whose parse raises warnings are not cached, since a replay would not raise them again.
+ * The files are accessed through the {@link TruffleFile} API, so the on-disk cache is not used if
+ * the embedder does not allow IO. Files that cannot be read or written are ignored, the source is
+ * then simply parsed.
+ */
+public final class ParseCache {
+
+    private static final TruffleLogger LOGGER = RLogger.getLogger(ParseCache.class.getName());
+
+    private static final int MAGIC = 0x52415354;
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Shorter sources are not worth a file.
+     */
+    private static final int MIN_PERSISTENT_LENGTH = 512;
+
+    /**
+     * Value of {@link FastROptions#ParseCacheDir} that disables the on-disk cache.
+     */
+    private static final String DISABLED = "none";
+
+    private static final String DEFAULT_DIRECTORY = "~/.cache/fastr/parse";
+
+    /**
+     * Temporary files older than this are left over from writers that died.
+     */
+    private static final long STALE_TMP_MILLIS = 60 * 60 * 1000L;
+
+    /**
+     * Recordings in access order, guarded by itself.
+     */
+    private static final LinkedHashMap<String, byte[]> recordings = new LinkedHashMap<>(16, 0.75f, true);
+    private static long recordedBytes;
+
+    /**
+     * Process-wide limit of {@link #recordedBytes}, guarded by {@link #recordings}, {@code -1}
+     * until the first parse.
+     */
+    private static long cacheSize = -1;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong diskHits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private static String parserVersion;
+
+    private ParseCache() {
+        // no instances
+    }
+
+    @TruffleBoundary
+    static List<RSyntaxNode> parse(Source source, RContext context) throws ParseException {
+        long size = getCacheSize(context);
+        TruffleFile dir = isPersistent(source) ? getDirectory(context) : null;
+        if (size == 0 && dir == null) {
+            return RParserFactory.getParser().script(source, new RASTBuilder(true), context.getLanguage());
+        }
+        String key = getKey(source, context);
+        byte[] data = get(key);
+        AtomicLong counter = hits;
+        if (data == null && dir != null) {
+            data = read(dir.resolve(key + ".ast"));
+            if (data != null) {
+                put(key, data);
+                counter = diskHits;
+            }
+        }
+        if (data != null) {
+            try {
+                List<RSyntaxNode> result = RecordingCodeBuilder.replay(source, data, new RASTBuilder(false), context.getLanguage());
+                timestamp(source, "Restored ");
+                counter.incrementAndGet();
+                return result;
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "discarding malformed parse cache entry of " + source.getName(), e);
+                remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        RecordingCodeBuilder builder = new RecordingCodeBuilder(new RASTBuilder(true), source);
+        long warnings = RErrorHandling.getSignalledWarnings();
+        List<RSyntaxNode> result = RParserFactory.getParser().script(source, builder, context.getLanguage());
+        // a replay would not raise the warnings of the parser, e.g. for 1.5L
+        byte[] recorded = RErrorHandling.getSignalledWarnings() == warnings ? builder.finish(result) : null;
+        if (recorded != null) {
+            put(key, recorded);
+            if (dir != null && write(dir, key, recorded)) {
+                evict(dir, context.getNonNegativeIntOption(FastROptions.ParseCacheDirSize) * 1024L * 1024L);
+            }
+        } else {
+            LOGGER.fine(() -> "parse of " + source.getName() + " cannot be cached");
+        }
+        timestamp(source, "Parsed ");
+        return result;
+    }
+
+    private static boolean isPersistent(Source source) {
+        return (source.getPath() != null || source.isInternal()) && source.getLength() >= MIN_PERSISTENT_LENGTH;
+    }
+
+    private static byte[] get(String key) {
+        synchronized (recordings) {
+            return recordings.get(key);
+        }
+    }
+
+    private static long getCacheSize(RContext context) {
+        synchronized (recordings) {
+            long size = context.getNonNegativeIntOption(FastROptions.ParseCacheSize) * 1024L * 1024L;
+            if (cacheSize == -1) {
+                cacheSize = size;
+            } else if (size != cacheSize) {
+                LOGGER.fine(() -> "parse cache size of " + size + " bytes ignored, the cache of all contexts is limited to " + cacheSize + " bytes");
+            }
+            return cacheSize;
+        }
+    }
+
+    private static void put(String key, byte[] data) {
+        synchronized (recordings) {
+            byte[] old = recordings.put(key, data);
+            if (old != null) {
+                recordedBytes -= old.length;
+            }
+            recordedBytes += data.length;
+            evict();
+        }
+    }
+
+    private static void evict() {
+        assert Thread.holdsLock(recordings);
+        Iterator<byte[]> iter = recordings.values().iterator();
+        while (recordedBytes > cacheSize && iter.hasNext()) {
+            recordedBytes -= iter.next().length;
+            iter.remove();
+        }
+    }
+
+    private static void remove(String key) {
+        synchronized (recordings) {
+            byte[] old = recordings.remove(key);
+            if (old != null) {
+                recordedBytes -= old.length;
+            }
+        }
+    }
+
+    private static void timestamp(Source source, String prefix) {
+        if (StartupTiming.ENABLED && source.isInternal()) {
+            StartupTiming.timestamp(prefix + source.getName());
+        }
+    }
+
+    /**
+     * Returns the cache directory, or {@code null} if the on-disk cache is disabled or the
+     * embedder does not allow IO.
+     */
+    private static TruffleFile getDirectory(RContext context) {
+        String dir = context.getOption(FastROptions.ParseCacheDir);
+        if (DISABLED.equals(dir) || context.getNonNegativeIntOption(FastROptions.ParseCacheDirSize) == 0) {
+            return null;
+        }
+        try {
+            TruffleFile file = context.getEnv().getTruffleFile(Utils.tildeExpand(dir.isEmpty() ? DEFAULT_DIRECTORY : dir));
+            // denied IO fails here rather than on the first read
+            return file.getAbsoluteFile();
+        } catch (SecurityException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static byte[] read(TruffleFile file) {
+        try (DataInputStream in = new DataInputStream(file.newInputStream())) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            touch(file);
+            return data;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "cannot read parse cache file " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * The modification time of an entry is its last use, which orders the entries for
+     * {@link #evict(TruffleFile, long)}.
+     */
+    private static void touch(TruffleFile file) {
+        try {
+            file.setLastModifiedTime(FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException | RuntimeException e) {
+            // the entry is merely evicted earlier
+        }
+    }
+
+    private static boolean write(TruffleFile dir, String key, byte[] data) {
+        TruffleFile tmp = null;
+        try {
+            dir.createDirectories();
+            // concurrent writers each use their own file, the last move wins
+            tmp = dir.resolve(key + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(tmp.newOutputStream(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(data.length);
+                out.write(data);
+            }
+            tmp.move(dir.resolve(key + ".ast"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            tmp = null;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "cannot write parse cache file in " + dir, e);
+            return false;
+        } finally {
+            if (tmp != null) {
+                try {
+                    FileSystemUtils.deleteIfExists(tmp);
+                } catch (IOException | RuntimeException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final TruffleFile file;
+        private final long size;
+        private final long lastUsed;
+
+        Entry(TruffleFile file, long size, long lastUsed) {
+            this.file = file;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the directory holds at most {@code limit}
+     * bytes, and temporary files left behind by writers that died. Other processes may evict the
+     * same files concurrently, so files that disappear are simply skipped.
+     */
+    private static void evict(TruffleFile dir, long limit) {
+        ArrayList<Entry> entries = new ArrayList<>();
+        long total = 0;
+        long staleTime = System.currentTimeMillis() - STALE_TMP_MILLIS;
+        try (DirectoryStream<TruffleFile> stream = dir.newDirectoryStream()) {
+            for (TruffleFile file : stream) {
+                try {
+                    String name = file.getName();
+                    if (name.endsWith(".ast")) {
+                        Entry entry = new Entry(file, file.size(), file.getLastModifiedTime().toMillis());
+                        entries.add(entry);
+                        total += entry.size;
+                    } else if (name.endsWith(".tmp") && file.getLastModifiedTime().toMillis() < staleTime) {
+                        FileSystemUtils.deleteIfExists(file);
+                    }
+                } catch (NoSuchFileException e) {
+                    // removed meanwhile
+                }
+            }
+            if (total <= limit) {
+                return;
+            }
+            entries.sort(Comparator.comparingLong(e -> e.lastUsed));
+            for (Entry entry : entries) {
+                if (total <= limit) {
+                    break;
+                }
+                FileSystemUtils.deleteIfExists(entry.file);
+                total -= entry.size;
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "cannot evict parse cache files in " + dir, e);
+        }
+    }
+
+    /**
+     * The key covers the text and the parser, whose calls to the code builder may differ between
+     * builds.
+     */
+    private static String getKey(Source source, RContext context) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw RInternalError.shouldNotReachHere(e);
+        }
+        digest.update(getParserVersion(context).getBytes(StandardCharsets.UTF_8));
+        CharSequence text = source.getCharacters();
+        byte[] buffer = new byte[8192];
+        int pos = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            buffer[pos++] = (byte) c;
+            buffer[pos++] = (byte) (c >>> 8);
+            if (pos == buffer.length) {
+                digest.update(buffer);
+                pos = 0;
+            }
+        }
+        digest.update(buffer, 0, pos);
+        StringBuilder str = new StringBuilder();
+        for (byte b : digest.digest()) {
+            str.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return str.toString();
+    }
+
+    private static synchronized String getParserVersion(RContext context) {
+        if (parserVersion == null) {
+            Class<?> parserClass = RParserFactory.getParser().getClass();
+            String version = FORMAT_VERSION + ":" + parserClass.getName();
+            try {
+                CodeSource codeSource = parserClass.getProtectionDomain().getCodeSource();
+                URL location = codeSource == null ? null : codeSource.getLocation();
+                if (location != null && "file".equals(location.getProtocol())) {
+                    // the parser is part of the language home, which is readable even if IO is denied
+                    TruffleFile file = context.getEnv().getInternalTruffleFile(Paths.get(location.toURI()).toString());
+                    version += ":" + file.getLastModifiedTime().toMillis() + ":" + file.size();
+                }
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                // the format version and class name have to do
+            }
+            parserVersion = version;
+        }
+        return parserVersion;
+    }
+
+    public static long getCacheSize() {
+        synchronized (recordings) {
+            return cacheSize;
+        }
+    }
+
+    /**
+     * Replaces the process-wide limit given by {@link FastROptions#ParseCacheSize}, intended for
+     * testing.
+     */
+    public static void setCacheSize(long size) {
+        synchronized (recordings) {
+            cacheSize = size;
+            evict();
+        }
+    }
+
+    /**
+     * Number of parses restored from the in-memory cache.
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of parses restored from a file of the on-disk cache.
+     */
+    public static long getDiskHits() {
+        return diskHits.get();
+    }
+
+    /**
+     * Number of parses that ran the parser.
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+}
@@ -159,7 +159,9 @@ final class REngine implements Engine, Engine.Timings {
         MaterializedFrame baseFrame = RRuntime.createNonFunctionFrame("base");
         REnvironment.baseInitialize(baseFrame, globalFrame);
         context.getStateRFFI().initializeVariables(context);
+        StartupTiming.timestamp("Before Base Loaded");
         RBuiltinPackages.loadBase(context.getLanguage(), baseFrame);
+        StartupTiming.timestamp("After Base Loaded");
         RGraphics.initialize(context);
         if (context.getOption(LoadProfiles)) {
             StartupTiming.timestamp("Before Profiles Loaded");
@@ -245,7 +247,12 @@ final class REngine implements Engine, Engine.Timings {
 
     @Override
     public Object parseAndEval(Source source, MaterializedFrame frame, boolean printResult) throws ParseException {
-        List<RSyntaxNode> list = parseSource(source);
+        return parseAndEval(source, frame, printResult, true);
+    }
+
+    @Override
+    public Object parseAndEval(Source source, MaterializedFrame frame, boolean printResult, boolean useParseCache) throws ParseException {
+        List<RSyntaxNode> list = useParseCache ? ParseCache.parse(source, context) : parseSource(source);
         try {
             Object lastValue = RNull.instance;
             for (RSyntaxNode node : list) {
@@ -280,14 +287,23 @@ final class REngine implements Engine, Engine.Timings {
 
     @Override
     public ParsedExpression parse(Source source, boolean keepSource) throws ParseException {
-        RParserFactory.Parser parser = RParserFactory.getParser();
-        RASTBuilder builder = new RASTBuilder(true);
-        List<RSyntaxNode> script = parser.script(source, builder, context.getLanguage());
+        List<RSyntaxNode> script;
+        ParserMetadata parseData;
+        if (keepSource) {
+            // the parse data (tokens) are not cached
+            RParserFactory.Parser parser = RParserFactory.getParser();
+            RASTBuilder builder = new RASTBuilder(true);
+            script = parser.script(source, builder, context.getLanguage());
+            parseData = builder.getParseData();
+        } else {
+            script = ParseCache.parse(source, context);
+            parseData = null;
+        }
         Object[] data = new Object[script.size()];
         for (int i = 0; i < script.size(); i++) {
             data[i] = RASTUtils.createLanguageElement(script.get(i));
         }
-        return new ParsedExpression(RDataFactory.createExpression(data), builder.getParseData());
+        return new ParsedExpression(RDataFactory.createExpression(data), parseData);
     }
 
     @Override
@@ -363,6 +379,13 @@ final class REngine implements Engine, Engine.Timings {
     }
 
     private EngineRootNode createRScriptRoot(Source fullSource, MaterializedFrame frame) {
+        try {
+            // a script without syntax errors yields the same statements when parsed as a whole
+            List<RSyntaxNode> statements = ParseCache.parse(fullSource, context);
+            return EngineRootNode.createEngineRoot(this, context, statements, createSourceSection(fullSource, statements), frame, true);
+        } catch (ParseException e) {
+            // parse statement by statement so that the statements before the error are executed
+        }
         URI uri = fullSource.getURI();
         String file = fullSource.getPath();
         ArrayList<RSyntaxNode> statements = new ArrayList<>(128);
@@ -0,0 +1,523 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.context.TruffleRLanguage;
+import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.REmpty;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.nodes.RCodeBuilder;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
+
+/**
+ * Code builder that forwards all calls to a delegate and records them in a compact binary form, so
+ * that the same sequence of calls can later be replayed on a fresh builder by {@link #replay}
+ * without running the parser. Nodes are referred to by the order in which they were created and
+ * source sections by their character range in the parsed {@link Source}. Parse data tokens are not
+ * recorded, the replayed ASTs are only meant to be evaluated.
+ *
+ * A parse that involves anything the format cannot express (attributes, sections of another source
+ * introduced by {@code #line} directives, nodes not created by this builder, unexpected constants)
+ * is not recorded and {@link #finish} returns {@code null}.
+ */
+final class RecordingCodeBuilder implements RCodeBuilder<RSyntaxNode> {
+
+    private static final byte CALL = 1;
+    private static final byte CONSTANT = 2;
+    private static final byte LOOKUP = 3;
+    private static final byte SPECIAL_LOOKUP = 4;
+    private static final byte FUNCTION = 5;
+    private static final byte END = 6;
+
+    private static final byte CONSTANT_NULL = 1;
+    private static final byte CONSTANT_EMPTY = 2;
+    private static final byte CONSTANT_LOGICAL = 3;
+    private static final byte CONSTANT_INTEGER = 4;
+    private static final byte CONSTANT_DOUBLE = 5;
+    private static final byte CONSTANT_COMPLEX = 6;
+    private static final byte CONSTANT_STRING = 7;
+    private static final byte CONSTANT_STRING_NA = 8;
+
+    private static final byte ASSIGNED_TO_NONE = 0;
+    private static final byte ASSIGNED_TO_STRING = 1;
+    private static final byte ASSIGNED_TO_NODE = 2;
+
+    private static final int NO_SECTION = -1;
+    private static final int SECTION_UNAVAILABLE = -2;
+    private static final int SECTION_LAZY_DEPARSE = -3;
+    private static final int SECTION_INTERNAL = -4;
+
+    private final RCodeBuilder<RSyntaxNode> delegate;
+    private final Source source;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final IdentityHashMap<RSyntaxNode, Integer> nodeIds = new IdentityHashMap<>();
+    private final HashMap<String, Integer> stringIds = new HashMap<>();
+    private int nodeCount;
+
+    /**
+     * Cleared as soon as a call cannot be recorded, from then on the calls are only forwarded.
+     */
+    private boolean recording = true;
+
+    RecordingCodeBuilder(RCodeBuilder<RSyntaxNode> delegate, Source source) {
+        this.delegate = delegate;
+        this.source = source;
+    }
+
+    /**
+     * Returns the recorded calls together with the indexes of the {@code result} nodes, or
+     * {@code null} if the parse could not be recorded.
+     */
+    byte[] finish(List<RSyntaxNode> result) {
+        if (recording) {
+            try {
+                out.writeByte(END);
+                out.writeInt(result.size());
+                for (RSyntaxNode node : result) {
+                    writeNode(node);
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw RInternalError.shouldNotReachHere(e);
+            }
+        }
+        return recording ? bytes.toByteArray() : null;
+    }
+
+    @Override
+    public void modifyLastToken(RCodeToken newToken) {
+        delegate.modifyLastToken(newToken);
+    }
+
+    @Override
+    public void modifyLastTokenIf(RCodeToken oldToken, RCodeToken newToken) {
+        delegate.modifyLastTokenIf(oldToken, newToken);
+    }
+
+    @Override
+    public void token(SourceSection src, RCodeToken token, String text) {
+        delegate.token(src, token, text);
+    }
+
+    @Override
+    public RSyntaxNode call(SourceSection src, RSyntaxNode lhs, List<Argument<RSyntaxNode>> arguments, DynamicObject attributes) {
+        RSyntaxNode result = delegate.call(src, lhs, arguments, attributes);
+        if (attributes != null) {
+            recording = false;
+        }
+        if (recording) {
+            try {
+                out.writeByte(CALL);
+                writeSection(src);
+                writeNode(lhs);
+                writeArguments(arguments);
+            } catch (IOException e) {
+                throw RInternalError.shouldNotReachHere(e);
+            }
+        }
+        return created(result);
+    }
+
+    @Override
+    public RSyntaxNode constant(SourceSection src, Object value) {
+        RSyntaxNode result = delegate.constant(src, value);
+        if (recording) {
+            try {
+                out.writeByte(CONSTANT);
+                writeSection(src);
+                writeConstant(value);
+            } catch (IOException e) {
+                throw RInternalError.shouldNotReachHere(e);
+            }
+        }
+        return created(result);
+    }
+
+    @Override
+    public RSyntaxNode specialLookup(SourceSection src, String symbol, boolean functionLookup) {
+        return lookup(SPECIAL_LOOKUP, delegate.specialLookup(src, symbol, functionLookup), src, symbol, functionLookup);
+    }
+
+    @Override
+    public RSyntaxNode lookup(SourceSection src, String symbol, boolean functionLookup) {
+        return lookup(LOOKUP, delegate.lookup(src, symbol, functionLookup), src, symbol, functionLookup);
+    }
+
+    private RSyntaxNode lookup(byte op, RSyntaxNode result, SourceSection src, String symbol, boolean functionLookup) {
+        if (recording) {
+            try {
+                out.writeByte(op);
+                writeSection(src);
+                writeString(symbol);
+                out.writeBoolean(functionLookup);
+            } catch (IOException e) {
+                throw RInternalError.shouldNotReachHere(e);
+            }
+        }
+        return created(result);
+    }
+
+    @Override
+    public RSyntaxNode function(TruffleRLanguage language, SourceSection src, List<Argument<RSyntaxNode>> arguments, RSyntaxNode body, Object assignedTo) {
+        RSyntaxNode result = delegate.function(language, src, arguments, body, assignedTo);
+        if (recording) {
+            try {
+                out.writeByte(FUNCTION);
+                writeSection(src);
+                writeArguments(arguments);
+                writeNode(body);
+                if (assignedTo == null) {
+                    out.writeByte(ASSIGNED_TO_NONE);
+                } else if (assignedTo instanceof String) {
+                    out.writeByte(ASSIGNED_TO_STRING);
+                    writeString((String) assignedTo);
+                } else if (assignedTo instanceof RSyntaxNode) {
+                    out.writeByte(ASSIGNED_TO_NODE);
+                    writeNode((RSyntaxNode) assignedTo);
+                } else {
+                    recording = false;
+                }
+            } catch (IOException e) {
+                throw RInternalError.shouldNotReachHere(e);
+            }
+        }
+        return created(result);
+    }
+
+    @Override
+    public RootCallTarget rootFunction(TruffleRLanguage language, SourceSection src, List<Argument<RSyntaxNode>> arguments, RSyntaxNode body, String name) {
+        // the result is not a node that could be referred to
+        recording = false;
+        return delegate.rootFunction(language, src, arguments, body, name);
+    }
+
+    @Override
+    public List<Argument<RSyntaxNode>> getFunctionExprArgs(Object args) {
+        recording = false;
+        return delegate.getFunctionExprArgs(args);
+    }
+
+    @Override
+    public void setContext(CodeBuilderContext context) {
+        if (context != CodeBuilderContext.DEFAULT) {
+            recording = false;
+        }
+        delegate.setContext(context);
+    }
+
+    @Override
+    public CodeBuilderContext getContext() {
+        return delegate.getContext();
+    }
+
+    private RSyntaxNode created(RSyntaxNode node) {
+        if (recording) {
+            nodeIds.put(node, nodeCount);
+        }
+        nodeCount++;
+        return node;
+    }
+
+    private void writeNode(RSyntaxNode node) throws IOException {
+        if (node == null) {
+            out.writeInt(-1);
+            return;
+        }
+        Integer id = nodeIds.get(node);
+        if (id == null) {
+            recording = false;
+            out.writeInt(-1);
+        } else {
+            out.writeInt(id);
+        }
+    }
+
+    private void writeArguments(List<Argument<RSyntaxNode>> arguments) throws IOException {
+        out.writeInt(arguments.size());
+        for (Argument<RSyntaxNode> arg : arguments) {
+            writeSection(arg.source);
+            writeString(arg.name);
+            writeNode(arg.value);
+        }
+    }
+
+    private void writeSection(SourceSection src) throws IOException {
+        if (src == null) {
+            out.writeInt(NO_SECTION);
+        } else if (src == RSyntaxNode.SOURCE_UNAVAILABLE) {
+            out.writeInt(SECTION_UNAVAILABLE);
+        } else if (src == RSyntaxNode.LAZY_DEPARSE) {
+            out.writeInt(SECTION_LAZY_DEPARSE);
+        } else if (src == RSyntaxNode.INTERNAL) {
+            out.writeInt(SECTION_INTERNAL);
+        } else if (!src.isAvailable() || !source.equals(src.getSource())) {
+            recording = false;
+            out.writeInt(NO_SECTION);
+        } else {
+            out.writeInt(src.getCharIndex());
+            out.writeInt(src.getCharLength());
+        }
+    }
+
+    /**
+     * Strings are written in full on their first occurrence, later occurrences only refer to it.
+     * The characters are written as UTF-16 so that any string survives the round trip.
+     */
+    private void writeString(String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        Integer id = stringIds.get(s);
+        if (id != null) {
+            out.writeInt(id);
+        } else {
+            int newId = stringIds.size();
+            stringIds.put(s, newId);
+            out.writeInt(newId);
+            out.writeInt(s.length());
+            out.writeChars(s);
+        }
+    }
+
+    private void writeConstant(Object value) throws IOException {
+        if (value == RNull.instance) {
+            out.writeByte(CONSTANT_NULL);
+        } else if (value == REmpty.instance) {
+            out.writeByte(CONSTANT_EMPTY);
+        } else if (value instanceof Byte) {
+            out.writeByte(CONSTANT_LOGICAL);
+            out.writeByte((byte) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(CONSTANT_INTEGER);
+            out.writeInt((int) value);
+        } else if (value instanceof Double) {
+            // raw bits keep NA apart from NaN
+            out.writeByte(CONSTANT_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits((double) value));
+        } else if (value instanceof RComplex) {
+            RComplex complex = (RComplex) value;
+            out.writeByte(CONSTANT_COMPLEX);
+            out.writeLong(Double.doubleToRawLongBits(complex.getRealPart()));
+            out.writeLong(Double.doubleToRawLongBits(complex.getImaginaryPart()));
+        } else if (value instanceof String) {
+            // NA is recognized by identity and must not be turned into a plain "NA"
+            if (RRuntime.isNA((String) value)) {
+                out.writeByte(CONSTANT_STRING_NA);
+            } else {
+                out.writeByte(CONSTANT_STRING);
+                writeString((String) value);
+            }
+        } else {
+            recording = false;
+        }
+    }
+
+    /**
+     * Replays calls recorded by a {@link RecordingCodeBuilder} for a source with the same text as
+     * {@code source} on {@code builder} and returns the resulting top-level nodes. Throws an
+     * {@link IOException} if the data is malformed.
+     */
+    static List<RSyntaxNode> replay(Source source, byte[] data, RCodeBuilder<RSyntaxNode> builder, TruffleRLanguage language) throws IOException {
+        return new Replay(source, data, builder, language).run();
+    }
+
+    private static final class Replay {
+        private final Source source;
+        private final DataInputStream in;
+        private final RCodeBuilder<RSyntaxNode> builder;
+        private final TruffleRLanguage language;
+        private final ArrayList<RSyntaxNode> nodes = new ArrayList<>();
+        private final ArrayList<String> strings = new ArrayList<>();
+
+        Replay(Source source, byte[] data, RCodeBuilder<RSyntaxNode> builder, TruffleRLanguage language) {
+            this.source = source;
+            this.in = new DataInputStream(new ByteArrayInputStream(data));
+            this.builder = builder;
+            this.language = language;
+        }
+
+        List<RSyntaxNode> run() throws IOException {
+            while (true) {
+                byte op = in.readByte();
+                switch (op) {
+                    case CALL: {
+                        SourceSection src = readSection();
+                        RSyntaxNode lhs = readNode();
+                        nodes.add(builder.call(src, lhs, readArguments()));
+                        break;
+                    }
+                    case CONSTANT: {
+                        SourceSection src = readSection();
+                        nodes.add(builder.constant(src, readConstant()));
+                        break;
+                    }
+                    case LOOKUP:
+                    case SPECIAL_LOOKUP: {
+                        SourceSection src = readSection();
+                        String symbol = readString();
+                        boolean functionLookup = in.readBoolean();
+                        nodes.add(op == LOOKUP ? builder.lookup(src, symbol, functionLookup) : builder.specialLookup(src, symbol, functionLookup));
+                        break;
+                    }
+                    case FUNCTION: {
+                        SourceSection src = readSection();
+                        List<Argument<RSyntaxNode>> arguments = readArguments();
+                        RSyntaxNode body = readNode();
+                        Object assignedTo;
+                        byte kind = in.readByte();
+                        if (kind == ASSIGNED_TO_NONE) {
+                            assignedTo = null;
+                        } else if (kind == ASSIGNED_TO_STRING) {
+                            assignedTo = readString();
+                        } else if (kind == ASSIGNED_TO_NODE) {
+                            assignedTo = readNode();
+                        } else {
+                            throw new IOException("invalid function name kind " + kind);
+                        }
+                        nodes.add(builder.function(language, src, arguments, body, assignedTo));
+                        break;
+                    }
+                    case END: {
+                        int count = in.readInt();
+                        ArrayList<RSyntaxNode> result = new ArrayList<>(count);
+                        for (int i = 0; i < count; i++) {
+                            result.add(readNode());
+                        }
+                        return result;
+                    }
+                    default:
+                        throw new IOException("invalid operation " + op);
+                }
+            }
+        }
+
+        private RSyntaxNode readNode() throws IOException {
+            int id = in.readInt();
+            if (id == -1) {
+                return null;
+            }
+            if (id < 0 || id >= nodes.size()) {
+                throw new IOException("invalid node reference " + id);
+            }
+            return nodes.get(id);
+        }
+
+        private List<Argument<RSyntaxNode>> readArguments() throws IOException {
+            int count = in.readInt();
+            ArrayList<Argument<RSyntaxNode>> arguments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                SourceSection src = readSection();
+                String name = readString();
+                arguments.add(RCodeBuilder.argument(src, name, readNode()));
+            }
+            return arguments;
+        }
+
+        private SourceSection readSection() throws IOException {
+            int index = in.readInt();
+            switch (index) {
+                case NO_SECTION:
+                    return null;
+                case SECTION_UNAVAILABLE:
+                    return RSyntaxNode.SOURCE_UNAVAILABLE;
+                case SECTION_LAZY_DEPARSE:
+                    return RSyntaxNode.LAZY_DEPARSE;
+                case SECTION_INTERNAL:
+                    return RSyntaxNode.INTERNAL;
+                default:
+                    int length = in.readInt();
+                    if (index < 0 || length < 0 || index + length > source.getLength()) {
+                        throw new IOException("invalid source section " + index + "+" + length);
+                    }
+                    return source.createSection(index, length);
+            }
+        }
+
+        private String readString() throws IOException {
+            int id = in.readInt();
+            if (id == -1) {
+                return null;
+            } else if (id < strings.size()) {
+                return strings.get(id);
+            } else if (id == strings.size()) {
+                int length = in.readInt();
+                if (length < 0 || length > in.available() / 2) {
+                    throw new IOException("invalid string length " + length);
+                }
+                char[] chars = new char[length];
+                for (int i = 0; i < length; i++) {
+                    chars[i] = in.readChar();
+                }
+                String s = new String(chars);
+                strings.add(s);
+                return s;
+            } else {
+                throw new IOException("invalid string reference " + id);
+            }
+        }
+
+        private Object readConstant() throws IOException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case CONSTANT_NULL:
+                    return RNull.instance;
+                case CONSTANT_EMPTY:
+                    return REmpty.instance;
+                case CONSTANT_LOGICAL:
+                    return in.readByte();
+                case CONSTANT_INTEGER:
+                    return in.readInt();
+                case CONSTANT_DOUBLE:
+                    return Double.longBitsToDouble(in.readLong());
+                case CONSTANT_COMPLEX:
+                    double re = Double.longBitsToDouble(in.readLong());
+                    return RComplex.valueOf(re, Double.longBitsToDouble(in.readLong()));
+                case CONSTANT_STRING:
+                    return readString();
+                case CONSTANT_STRING_NA:
+                    return RRuntime.STRING_NA;
+                default:
+                    throw new IOException("invalid constant tag " + tag);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.library.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Minimal encoder of the {@code pprof} profile format, i.e. the gzip compressed
+ * {@code perftools.profiles.Profile} protocol buffer message, for CPU samples. Each sample has two
+ * values, the number of samples and the (estimated) CPU time in nanoseconds, and each location a
+ * single line. The message is encoded by hand to avoid a dependency on the protobuf runtime.
+ */
+final class PprofWriter {
+
+    // field numbers of perftools.profiles.Profile
+    private static final int PROFILE_SAMPLE_TYPE = 1;
+    private static final int PROFILE_SAMPLE = 2;
+    private static final int PROFILE_LOCATION = 4;
+    private static final int PROFILE_FUNCTION = 5;
+    private static final int PROFILE_STRING_TABLE = 6;
+    private static final int PROFILE_TIME_NANOS = 9;
+    private static final int PROFILE_DURATION_NANOS = 10;
+    private static final int PROFILE_PERIOD_TYPE = 11;
+    private static final int PROFILE_PERIOD = 12;
+    private static final int VALUE_TYPE_TYPE = 1;
+    private static final int VALUE_TYPE_UNIT = 2;
+    private static final int SAMPLE_LOCATION_ID = 1;
+    private static final int SAMPLE_VALUE = 2;
+    private static final int LOCATION_ID = 1;
+    private static final int LOCATION_LINE = 4;
+    private static final int LINE_FUNCTION_ID = 1;
+    private static final int LINE_LINE = 2;
+    private static final int FUNCTION_ID = 1;
+    private static final int FUNCTION_NAME = 2;
+    private static final int FUNCTION_SYSTEM_NAME = 3;
+    private static final int FUNCTION_FILENAME = 4;
+    private static final int FUNCTION_START_LINE = 5;
+
+    private static final int WIRETYPE_VARINT = 0;
+    private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+
+    private final long periodNanos;
+    private final long timeNanos;
+    private final long durationNanos;
+
+    private final HashMap<String, Long> strings = new HashMap<>();
+    private final ByteArrayOutputStream stringTable = new ByteArrayOutputStream();
+    private final IdentityHashMap<Object, Long> functionIds = new IdentityHashMap<>();
+    private final ByteArrayOutputStream functions = new ByteArrayOutputStream();
+    private final HashMap<Long, Long> locationIds = new HashMap<>();
+    private final ByteArrayOutputStream locations = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream samples = new ByteArrayOutputStream();
+
+    PprofWriter(long periodNanos, long timeNanos, long durationNanos) {
+        this.periodNanos = periodNanos;
+        this.timeNanos = timeNanos;
+        this.durationNanos = durationNanos;
+        // the first entry of the string table must be the empty string
+        getString("");
+    }
+
+    /**
+     * Returns the id of the function identified by {@code key}, adding it to the profile if
+     * necessary.
+     */
+    long getFunctionId(Object key, String name, String fileName, int startLine) {
+        Long id = functionIds.get(key);
+        if (id == null) {
+            id = (long) functionIds.size() + 1;
+            functionIds.put(key, id);
+            ByteArrayOutputStream function = new ByteArrayOutputStream();
+            writeVarintField(function, FUNCTION_ID, id);
+            writeVarintField(function, FUNCTION_NAME, getString(name));
+            writeVarintField(function, FUNCTION_SYSTEM_NAME, getString(name));
+            writeVarintField(function, FUNCTION_FILENAME, getString(fileName));
+            writeVarintField(function, FUNCTION_START_LINE, startLine);
+            writeMessageField(functions, PROFILE_FUNCTION, function);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the location of {@code line} in the given function, adding it to the
+     * profile if necessary.
+     */
+    long getLocationId(long functionId, int line) {
+        long key = (functionId << 32) | (line & 0xffffffffL);
+        Long id = locationIds.get(key);
+        if (id == null) {
+            id = (long) locationIds.size() + 1;
+            locationIds.put(key, id);
+            ByteArrayOutputStream lineMessage = new ByteArrayOutputStream();
+            writeVarintField(lineMessage, LINE_FUNCTION_ID, functionId);
+            writeVarintField(lineMessage, LINE_LINE, line);
+            ByteArrayOutputStream location = new ByteArrayOutputStream();
+            writeVarintField(location, LOCATION_ID, id);
+            writeMessageField(location, LOCATION_LINE, lineMessage);
+            writeMessageField(locations, PROFILE_LOCATION, location);
+        }
+        return id;
+    }
+
+    /**
+     * Adds a sample, {@code locationIds} are ordered from the innermost frame.
+     */
+    void addSample(long[] sampleLocationIds, long count) {
+        ByteArrayOutputStream packedIds = new ByteArrayOutputStream();
+        for (long id : sampleLocationIds) {
+            writeVarint(packedIds, id);
+        }
+        ByteArrayOutputStream packedValues = new ByteArrayOutputStream();
+        writeVarint(packedValues, count);
+        writeVarint(packedValues, count * periodNanos);
+        ByteArrayOutputStream sample = new ByteArrayOutputStream();
+        writeMessageField(sample, SAMPLE_LOCATION_ID, packedIds);
+        writeMessageField(sample, SAMPLE_VALUE, packedValues);
+        writeMessageField(samples, PROFILE_SAMPLE, sample);
+    }
+
+    void write(OutputStream out) throws IOException {
+        ByteArrayOutputStream profile = new ByteArrayOutputStream();
+        writeMessageField(profile, PROFILE_SAMPLE_TYPE, valueType("samples", "count"));
+        writeMessageField(profile, PROFILE_SAMPLE_TYPE, valueType("cpu", "nanoseconds"));
+        samples.writeTo(profile);
+        locations.writeTo(profile);
+        functions.writeTo(profile);
+        ByteArrayOutputStream periodType = valueType("cpu", "nanoseconds");
+        // the string table must come after all the strings have been added
+        stringTable.writeTo(profile);
+        writeVarintField(profile, PROFILE_TIME_NANOS, timeNanos);
+        writeVarintField(profile, PROFILE_DURATION_NANOS, durationNanos);
+        writeMessageField(profile, PROFILE_PERIOD_TYPE, periodType);
+        writeVarintField(profile, PROFILE_PERIOD, periodNanos);
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        profile.writeTo(gzip);
+        gzip.finish();
+        gzip.flush();
+    }
+
+    private ByteArrayOutputStream valueType(String type, String unit) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        writeVarintField(result, VALUE_TYPE_TYPE, getString(type));
+        writeVarintField(result, VALUE_TYPE_UNIT, getString(unit));
+        return result;
+    }
+
+    private long getString(String s) {
+        Long index = strings.get(s);
+        if (index == null) {
+            index = (long) strings.size();
+            strings.put(s, index);
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeTag(stringTable, PROFILE_STRING_TABLE, WIRETYPE_LENGTH_DELIMITED);
+            writeVarint(stringTable, bytes.length);
+            stringTable.write(bytes, 0, bytes.length);
+        }
+        return index;
+    }
+
+    private static void writeVarintField(ByteArrayOutputStream out, int field, long value) {
+        writeTag(out, field, WIRETYPE_VARINT);
+        writeVarint(out, value);
+    }
+
+    private static void writeMessageField(ByteArrayOutputStream out, int field, ByteArrayOutputStream message) {
+        writeTag(out, field, WIRETYPE_LENGTH_DELIMITED);
+        writeVarint(out, message.size());
+        byte[] bytes = message.toByteArray();
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeTag(ByteArrayOutputStream out, int field, int wireType) {
+        writeVarint(out, (field << 3) | wireType);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+}
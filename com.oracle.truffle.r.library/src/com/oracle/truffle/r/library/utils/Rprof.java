@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Function;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -51,6 +52,7 @@ import com.oracle.truffle.r.nodes.instrumentation.RInstrumentation;
 import com.oracle.truffle.r.runtime.RArguments;
 import com.oracle.truffle.r.runtime.RCaller;
 import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RSource;
 import com.oracle.truffle.r.runtime.Utils;
@@ -80,9 +82,22 @@ import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
  * and then the {@code N} is used in line number references of the form {@code N#L},which precede
  * the function name.
  *
+ * If the R option {@code fastr.rprof.format} is {@code "collapsed"} or {@code "pprof"}, the stacks
+ * are instead sampled by {@link RprofSampler} and written in the collapsed stack format used by
+ * flame graph tools or as a {@code pprof} profile. Memory and line profiling are not supported in
+ * these formats, although the frames carry their line numbers anyway. A {@code pprof} profile
+ * always overwrites the file, {@code append} is ignored with a warning.
  */
 public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryCopyTracer.Listener {
 
+    private static final String FORMAT_OPTION = "fastr.rprof.format";
+
+    private enum Format {
+        RPROF,
+        COLLAPSED,
+        PPROF
+    }
+
     static {
         Casts casts = new Casts(Rprof.class);
         casts.arg(0, "filename").mustBe(stringValue()).asStringVector().mustBe(singleElement()).findFirst();
@@ -108,18 +123,32 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
             if (profState != null && profState.out() != null) {
                 endProfiling();
             }
+            Format format = getFormat();
+            boolean appendToFile = append;
+            if (append && format == Format.PPROF) {
+                // a pprof profile is a single gzip stream, another one cannot be appended
+                warning(RError.Message.GENERIC, "Rprof: 'append' is not supported in the pprof format, the file is overwritten");
+                appendToFile = false;
+            }
             try {
-                PrintStream out = new PrintStream(new FileOutputStream(filename, append));
+                PrintStream out = new PrintStream(new FileOutputStream(filename, appendToFile));
                 if (gcProfiling) {
                     warning(RError.Message.GENERIC, "Rprof: gc profiling not supported");
                 }
+                // interval is in seconds, we convert to millis
+                long intervalInMillis = (long) (1E3 * intervalD);
+                if (format != Format.RPROF) {
+                    if (memProfiling || lineProfiling) {
+                        warning(RError.Message.GENERIC, "Rprof: memory and line profiling not supported in the " + format.name().toLowerCase() + " format");
+                    }
+                    profState.initialize(out, format, new RprofSampler(intervalInMillis));
+                    return RNull.instance;
+                }
                 if (memProfiling) {
                     RDataFactory.addListener(LISTENER);
                     MemoryCopyTracer.addListener(this);
                     MemoryCopyTracer.setTracingState(true);
                 }
-                // interval is in seconds, we convert to millis
-                long intervalInMillis = (long) (1E3 * intervalD);
                 StatementListener statementListener = new StatementListener();
                 ProfileThread profileThread = new ProfileThread(intervalInMillis, statementListener);
                 profileThread.setDaemon(true);
@@ -132,6 +161,22 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
         return RNull.instance;
     }
 
+    private Format getFormat() {
+        Object value = RContext.getInstance().stateROptions.getValue(FORMAT_OPTION);
+        if (value == null || value == RNull.instance) {
+            return Format.RPROF;
+        }
+        String name = RRuntime.asString(value);
+        if (name != null) {
+            for (Format format : Format.values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+        }
+        throw error(RError.Message.GENERIC, String.format("Rprof: invalid '%s' option, must be one of \"rprof\", \"collapsed\" or \"pprof\"", FORMAT_OPTION));
+    }
+
     private static final RDataFactory.Listener LISTENER = new RDataFactory.Listener() {
         @Override
         @TruffleBoundary
@@ -272,6 +317,8 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
         private boolean lineProfiling;
         private boolean memoryProfiling;
         private MemoryQuad memoryQuad;
+        private Format format = Format.RPROF;
+        private RprofSampler sampler;
 
         public static final class MemoryQuad {
             public long smallV;
@@ -311,10 +358,45 @@ public abstract class Rprof extends RExternalBuiltinNode.Arg8 implements MemoryC
             this.lineProfiling = lineProfilingA;
             this.memoryProfiling = memoryProfilingA;
             this.memoryQuad = memoryProfilingA ? new MemoryQuad() : null;
+            this.format = Format.RPROF;
+            this.sampler = null;
+        }
+
+        public void initialize(PrintStream outA, Format formatA, RprofSampler samplerA) {
+            setOut(outA);
+            this.format = formatA;
+            this.sampler = samplerA;
+            this.profileThread = null;
+            this.statementListener = null;
+            this.lineProfiling = false;
+            this.memoryProfiling = false;
+            this.memoryQuad = null;
+        }
+
+        private void cleanupSampler() {
+            Map<RprofSampler.Sample, long[]> samples = sampler.stop();
+            PrintStream out = this.out();
+            if (format == Format.COLLAPSED) {
+                RprofSampler.writeCollapsed(samples, out);
+            } else {
+                try {
+                    RprofSampler.writePprof(samples, sampler.getIntervalInMillis(), sampler.getStartTime(), out);
+                } catch (IOException ex) {
+                    // PrintStream does not throw
+                    throw RInternalError.shouldNotReachHere(ex);
+                }
+            }
+            out.close();
+            this.setOut(null);
+            sampler = null;
         }
 
         @Override
         public void cleanup(int status) {
+            if (sampler != null) {
+                cleanupSampler();
+                return;
+            }
             profileThread.running = false;
             HashMap<String, Integer> fileMap = null;
             PrintStream out = this.out();
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.library.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.EventBinding;
+import com.oracle.truffle.api.instrumentation.EventContext;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNode;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNodeFactory;
+import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.nodes.function.FunctionDefinitionNode;
+import com.oracle.truffle.r.nodes.instrumentation.RInstrumentation;
+import com.oracle.truffle.r.runtime.RArguments;
+import com.oracle.truffle.r.runtime.RCaller;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxElement;
+
+/**
+ * Sampling profiler used by {@code Rprof} for the {@code collapsed} and {@code pprof} formats.
+ *
+ * Instead of instrumenting every statement, only the function roots are instrumented to maintain a
+ * shadow stack of R functions per thread. A separate thread takes a snapshot of all shadow stacks
+ * at the sampling interval, so the stacks of all contexts running in the engine are sampled, and
+ * counts identical stacks. The snapshots are taken without synchronization with the running
+ * threads, which may very rarely produce a slightly wrong stack, but keeps the cost of a call
+ * down to a push and a pop.
+ *
+ * Each frame is identified by the function and the line it executes, i.e. the line of the call of
+ * the next frame, or the first line of the function for the innermost frame. The lines come from
+ * the source sections of the R syntax, which are also the source of {@code srcref}s.
+ */
+final class RprofSampler {
+
+    /**
+     * A shadow stack, written by a single R thread and read by the sampling thread.
+     */
+    private static final class ShadowStack {
+        private FunctionDefinitionNode[] functions = new FunctionDefinitionNode[64];
+        private RSyntaxElement[] calls = new RSyntaxElement[64];
+        private volatile int depth;
+
+        void push(FunctionDefinitionNode function, RSyntaxElement call) {
+            int d = depth;
+            if (d == functions.length) {
+                functions = Arrays.copyOf(functions, d * 2);
+                calls = Arrays.copyOf(calls, d * 2);
+            }
+            functions[d] = function;
+            calls[d] = call;
+            depth = d + 1;
+        }
+
+        void pop() {
+            int d = depth;
+            if (d > 0) {
+                depth = d - 1;
+            }
+        }
+
+        /**
+         * Returns a snapshot of the stack, or {@code null} if it is empty.
+         */
+        Sample snapshot() {
+            int d = depth;
+            FunctionDefinitionNode[] f = functions;
+            RSyntaxElement[] c = calls;
+            d = Math.min(d, Math.min(f.length, c.length));
+            if (d == 0) {
+                return null;
+            }
+            FunctionDefinitionNode[] sampleFunctions = new FunctionDefinitionNode[d];
+            int[] lines = new int[d];
+            for (int i = 0; i < d; i++) {
+                sampleFunctions[i] = f[i];
+                // the line executed in frame i is the line of the call of frame i + 1
+                RSyntaxElement call = i + 1 < d ? c[i + 1] : null;
+                lines[i] = getLine(call != null ? call : f[i]);
+            }
+            return new Sample(sampleFunctions, lines);
+        }
+    }
+
+    /**
+     * A sampled stack, outermost frame first.
+     */
+    static final class Sample {
+        final FunctionDefinitionNode[] functions;
+        final int[] lines;
+        private final int hash;
+
+        Sample(FunctionDefinitionNode[] functions, int[] lines) {
+            this.functions = functions;
+            this.lines = lines;
+            this.hash = Arrays.hashCode(functions) * 31 + Arrays.hashCode(lines);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Sample)) {
+                return false;
+            }
+            Sample other = (Sample) obj;
+            return hash == other.hash && Arrays.equals(functions, other.functions) && Arrays.equals(lines, other.lines);
+        }
+    }
+
+    private final long intervalInMillis;
+    private final ThreadLocal<ShadowStack> stacks = new ThreadLocal<>();
+    private final CopyOnWriteArrayList<ShadowStack> allStacks = new CopyOnWriteArrayList<>();
+    /**
+     * Number of samples of each stack, only accessed by the sampling thread until it is stopped.
+     */
+    private final HashMap<Sample, long[]> samples = new HashMap<>();
+    private final EventBinding<?> binding;
+    private final Thread samplingThread;
+    private final long startTime = System.currentTimeMillis();
+    private volatile boolean running = true;
+
+    RprofSampler(long intervalInMillis) {
+        this.intervalInMillis = Math.max(1, intervalInMillis);
+        SourceSectionFilter filter = SourceSectionFilter.newBuilder().tagIs(StandardTags.RootTag.class).build();
+        this.binding = RInstrumentation.getInstrumenter().attachExecutionEventFactory(filter, new ExecutionEventNodeFactory() {
+            @Override
+            public ExecutionEventNode create(EventContext context) {
+                RootNode root = context.getInstrumentedNode().getRootNode();
+                return root instanceof FunctionDefinitionNode ? new ShadowStackNode((FunctionDefinitionNode) root) : null;
+            }
+        });
+        this.samplingThread = new Thread(this::sample, "Rprof sampler");
+        samplingThread.setDaemon(true);
+        samplingThread.start();
+    }
+
+    private final class ShadowStackNode extends ExecutionEventNode {
+        private final FunctionDefinitionNode function;
+
+        ShadowStackNode(FunctionDefinitionNode function) {
+            this.function = function;
+        }
+
+        @Override
+        protected void onEnter(VirtualFrame frame) {
+            enter(function, RArguments.getCall(frame));
+        }
+
+        @Override
+        protected void onReturnValue(VirtualFrame frame, Object result) {
+            exit();
+        }
+
+        @Override
+        protected void onReturnExceptional(VirtualFrame frame, Throwable exception) {
+            exit();
+        }
+    }
+
+    @TruffleBoundary
+    private void enter(FunctionDefinitionNode function, RCaller caller) {
+        RCaller call = RCaller.unwrapPromiseCaller(caller);
+        getStack().push(function, RCaller.isValidCaller(call) ? call.getSyntaxNode() : null);
+    }
+
+    @TruffleBoundary
+    private void exit() {
+        getStack().pop();
+    }
+
+    private ShadowStack getStack() {
+        ShadowStack stack = stacks.get();
+        if (stack == null) {
+            stack = new ShadowStack();
+            stacks.set(stack);
+            allStacks.add(stack);
+        }
+        return stack;
+    }
+
+    private void sample() {
+        while (running) {
+            try {
+                Thread.sleep(intervalInMillis);
+            } catch (InterruptedException ex) {
+                // stopped
+            }
+            if (!running) {
+                break;
+            }
+            for (ShadowStack stack : allStacks) {
+                Sample sample = stack.snapshot();
+                if (sample != null) {
+                    samples.computeIfAbsent(sample, s -> new long[1])[0]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops sampling and returns the number of samples of each stack.
+     */
+    Map<Sample, long[]> stop() {
+        running = false;
+        binding.dispose();
+        samplingThread.interrupt();
+        try {
+            samplingThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return samples;
+    }
+
+    long getIntervalInMillis() {
+        return intervalInMillis;
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Writes the stacks in the collapsed format understood by {@code flamegraph.pl} and similar
+     * tools, i.e. one line per distinct stack with the semicolon separated frames followed by the
+     * number of samples.
+     */
+    static void writeCollapsed(Map<Sample, long[]> samples, PrintStream out) {
+        StringBuilder line = new StringBuilder();
+        for (Map.Entry<Sample, long[]> entry : samples.entrySet()) {
+            line.setLength(0);
+            Sample sample = entry.getKey();
+            for (int i = 0; i < sample.functions.length; i++) {
+                if (i > 0) {
+                    line.append(';');
+                }
+                // ';' and ' ' are separators in this format
+                line.append(getFrameName(sample.functions[i], sample.lines[i]).replace(';', ':').replace(' ', '_'));
+            }
+            out.print(line);
+            out.print(' ');
+            out.println(entry.getValue()[0]);
+        }
+    }
+
+    /**
+     * Writes the samples as a gzip compressed {@code pprof} profile.
+     */
+    static void writePprof(Map<Sample, long[]> samples, long intervalInMillis, long startTime, OutputStream out) throws IOException {
+        PprofWriter writer = new PprofWriter(intervalInMillis * 1000000L, startTime * 1000000L, (System.currentTimeMillis() - startTime) * 1000000L);
+        for (Map.Entry<Sample, long[]> entry : samples.entrySet()) {
+            Sample sample = entry.getKey();
+            long[] locations = new long[sample.functions.length];
+            for (int i = 0; i < locations.length; i++) {
+                FunctionDefinitionNode function = sample.functions[i];
+                SourceSection section = function.getSourceSection();
+                String path = section == null ? null : RSource.getPath(section.getSource());
+                long functionId = writer.getFunctionId(function, getFunctionName(function), path == null ? "" : path, section == null ? 0 : section.getStartLine());
+                // pprof expects the innermost frame first
+                locations[locations.length - 1 - i] = writer.getLocationId(functionId, sample.lines[i]);
+            }
+            writer.addSample(locations, entry.getValue()[0]);
+        }
+        writer.write(out);
+    }
+
+    private static String getFunctionName(RootNode function) {
+        String name = function.getName();
+        return name == null ? "<anonymous>" : name;
+    }
+
+    private static String getFrameName(FunctionDefinitionNode function, int line) {
+        SourceSection section = function.getSourceSection();
+        String path = section == null ? null : RSource.getPath(section.getSource());
+        if (path == null) {
+            return getFunctionName(function);
+        }
+        return getFunctionName(function) + " (" + path.substring(path.lastIndexOf('/') + 1) + ':' + line + ')';
+    }
+
+    private static int getLine(Object node) {
+        SourceSection section = node instanceof RSyntaxElement ? ((RSyntaxElement) node).getSourceSection() : ((RootNode) node).getSourceSection();
+        return section == null ? 0 : section.getStartLine();
+    }
+}
@@ -113,7 +113,7 @@ public final class RBuiltinPackages implements RBuiltinLookup {
         try {
             RContext.getInstance().setLoadingBase(true);
             try {
-                RContext.getEngine().parseAndEval(baseSource, baseFrame, false);
+                RContext.getEngine().parseAndEval(baseSource, baseFrame, false, true);
             } catch (ParseException e) {
                 throw new RInternalError(e, "error while parsing base source from %s", baseSource.getName());
             }
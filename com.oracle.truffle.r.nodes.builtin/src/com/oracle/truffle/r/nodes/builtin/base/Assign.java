@@ -158,14 +158,14 @@ public abstract class Assign extends RBuiltinNode.Arg4 {
         }
 
         protected FrameDescriptor getFrameDescriptor(REnvironment env) {
-            return frameProfile.profile(env.getFrame(frameAccessProfile)).getFrameDescriptor();
+            return frameProfile.profile(env.getBindingsFrame(frameAccessProfile)).getFrameDescriptor();
         }
 
-        @Specialization(guards = {"getFrameDescriptor(env) == envDesc", "write.getName().equals(name)"})
+        @Specialization(guards = {"env.isFrameAccessible()", "getFrameDescriptor(env) == envDesc", "write.getName().equals(name)"})
         protected void assignCached(VirtualFrame frame, REnvironment env, @SuppressWarnings("unused") String name, Object value,
-                        @Cached("env.getFrame().getFrameDescriptor()") @SuppressWarnings("unused") FrameDescriptor envDesc,
+                        @Cached("getFrameDescriptor(env)") @SuppressWarnings("unused") FrameDescriptor envDesc,
                         @Cached("createWrite(name, envDesc)") ResolvedWriteSuperFrameVariableNode write) {
-            write.execute(frame, value, frameProfile.profile(env.getFrame(frameAccessProfile)));
+            write.execute(frame, value, frameProfile.profile(env.getBindingsFrame(frameAccessProfile)));
         }
 
         @Specialization(replaces = "assignCached")
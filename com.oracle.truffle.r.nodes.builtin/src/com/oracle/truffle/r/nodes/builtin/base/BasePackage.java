@@ -54,6 +54,7 @@ import com.oracle.truffle.r.nodes.builtin.base.fastpaths.StopifnotFastPath;
 import com.oracle.truffle.r.nodes.builtin.base.fastpaths.SubscriptDataFrameFastPathNodeGen;
 import com.oracle.truffle.r.nodes.builtin.base.fastpaths.SubsetDataFrameFastPath;
 import com.oracle.truffle.r.nodes.builtin.base.fastpaths.SubsetDataFrameFastPathNodeGen;
+import com.oracle.truffle.r.nodes.builtin.base.fastpaths.TapplyFastPathNodeGen;
 import com.oracle.truffle.r.nodes.builtin.base.fastpaths.VectorFastPathsFactory.ComplexFastPathNodeGen;
 import com.oracle.truffle.r.nodes.builtin.base.fastpaths.VectorFastPathsFactory.DoubleFastPathNodeGen;
 import com.oracle.truffle.r.nodes.builtin.base.fastpaths.VectorFastPathsFactory.IntegerFastPathNodeGen;
@@ -166,6 +167,14 @@ import com.oracle.truffle.r.nodes.builtin.fastr.FastRUseDebugMakevars;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRUseDebugMakevarsNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastrDqrls;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastrDqrlsNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRAllocProfile;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRAllocProfileNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRAllocSites;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRAllocSitesNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRCopyProfile;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRCopyProfileNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRCopySites;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRCopySitesNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmem;
 import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmemNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmemShow;
@@ -471,6 +480,7 @@ public class BasePackage extends RBuiltinPackage {
         add(FastRContext.FastRContextClose.class, FastRContext.FastRContextClose::new);
         add(FastRContext.GetChannel.class, FastRContextFactory.GetChannelNodeGen::create);
         add(FastRContext.ChannelPoll.class, FastRContextFactory.ChannelPollNodeGen::create);
+        add(FastRContext.ChannelStats.class, FastRContextFactory.ChannelStatsNodeGen::create);
         add(FastRContext.ChannelReceive.class, FastRContextFactory.ChannelReceiveNodeGen::create);
         add(FastRContext.ChannelSelect.class, FastRContextFactory.ChannelSelectNodeGen::create);
         add(FastRContext.ChannelSend.class, FastRContextFactory.ChannelSendNodeGen::create);
@@ -529,6 +539,10 @@ public class BasePackage extends RBuiltinPackage {
         add(FastRTree.class, FastRTreeNodeGen::create);
         add(FastRTreeStats.class, FastRTreeStatsNodeGen::create);
         add(FastRUseDebugMakevars.class, FastRUseDebugMakevarsNodeGen::create);
+        add(FastRAllocProfile.class, FastRAllocProfileNodeGen::create);
+        add(FastRAllocSites.class, FastRAllocSitesNodeGen::create);
+        add(FastRCopyProfile.class, FastRCopyProfileNodeGen::create);
+        add(FastRCopySites.class, FastRCopySitesNodeGen::create);
         add(FastRprofmem.class, FastRprofmemNodeGen::create);
         add(FastRprofmemShow.class, FastRprofmemShowNodeGen::create);
         add(FastRprofmemSource.class, FastRprofmemSourceNodeGen::create);
@@ -704,7 +718,7 @@ public class BasePackage extends RBuiltinPackage {
         add(OldClass.class, OldClassNodeGen::create);
         add(OnExit.class, OnExitNodeGen::create);
         add(OptionsFunctions.Options.class, OptionsFunctionsFactory.OptionsNodeGen::create);
-        add(Order.class, OrderNodeGen::create);
+        add(Order.class, Order::create);
         add(PCREConfig.class, PCREConfigNodeGen::create);
         add(PMatch.class, PMatchNodeGen::create);
         add(PMinMax.PMax.class, PMinMaxNodeGen.PMaxNodeGen::create);
@@ -749,6 +763,7 @@ public class BasePackage extends RBuiltinPackage {
         add(RowMeans.class, RowMeansNodeGen::create);
         add(RowSums.class, RowSumsNodeGen::create);
         add(RowsumFunctions.Rowsum.class, RowsumFunctionsFactory.RowsumNodeGen::create);
+        add(RowsumFunctions.GroupReduce.class, RowsumFunctionsFactory.GroupReduceNodeGen::create);
         add(S3DispatchFunctions.NextMethod.class, S3DispatchFunctionsFactory.NextMethodNodeGen::create);
         add(S3DispatchFunctions.UseMethod.class, S3DispatchFunctionsFactory.UseMethodNodeGen::create);
         add(Sample.class, SampleNodeGen::create);
@@ -920,6 +935,7 @@ public class BasePackage extends RBuiltinPackage {
         addFastPath(baseFrame, "double", DoubleFastPathNodeGen::create, RVisibility.ON);
         addFastPath(baseFrame, "complex", ComplexFastPathNodeGen::create, RVisibility.ON);
         addFastPath(baseFrame, "intersect", IntersectFastPathNodeGen::create, RVisibility.ON);
+        addFastPath(baseFrame, "tapply", TapplyFastPathNodeGen::create, RVisibility.ON);
         addFastPath(baseFrame, "pmax", FastPathFactory.EVALUATE_ARGS);
         addFastPath(baseFrame, "pmin", FastPathFactory.EVALUATE_ARGS);
         addFastPath(baseFrame, "cbind", FastPathFactory.FORCED_EAGER_ARGS);
@@ -55,7 +55,10 @@ import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RegExp;
+import com.oracle.truffle.r.runtime.RegExpCache;
+import com.oracle.truffle.r.runtime.TRegexPattern;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
@@ -224,15 +227,35 @@ public class GrepFunctions {
         }
 
         protected PCRERFFI.Result compilePerlPattern(String pattern, boolean ignoreCase) {
-            int cflags = ignoreCase ? PCRERFFI.CASELESS : 0;
-            long tables = maketablesNode.execute();
-            PCRERFFI.Result pcre = compileNode.execute(pattern, cflags, tables);
-            if (pcre.result == 0) {
-                // TODO output warning if pcre.errorMessage not NULL
-                throw error(RError.Message.INVALID_REGEXP, pattern);
+            return compilePerlPattern(pattern, ignoreCase ? PCRERFFI.CASELESS : 0);
+        }
+
+        /**
+         * Returns the compiled pattern from the context's {@link RegExpCache} or compiles it. The
+         * character tables are created by every {@code maketables} call, so they are not a part of
+         * the key and are only created when the pattern is not cached.
+         */
+        protected PCRERFFI.Result compilePerlPattern(String pattern, int cflags) {
+            RegExpCache.ContextStateImpl cache = RContext.getInstance().stateRegExpCache;
+            PCRERFFI.Result pcre = (PCRERFFI.Result) cache.get(RegExpCache.Engine.PCRE, pattern, cflags, 0);
+            if (pcre == null) {
+                long tables = maketablesNode.execute();
+                pcre = compileNode.execute(pattern, cflags, tables);
+                if (pcre.result == 0) {
+                    // TODO output warning if pcre.errorMessage not NULL
+                    throw error(RError.Message.INVALID_REGEXP, pattern);
+                }
+                cache.put(RegExpCache.Engine.PCRE, pattern, cflags, 0, pcre);
             }
             return pcre;
         }
+
+        /**
+         * Returns the compiled {@link Pattern} from the context's {@link RegExpCache}.
+         */
+        protected static Pattern getPattern(String regex, int flags) {
+            return RContext.getInstance().stateRegExpCache.getPattern(regex, flags);
+        }
     }
 
     protected static final class GrepCommonCodeNode extends CommonCodeNode {
@@ -323,22 +346,33 @@ public class GrepFunctions {
         }
 
         protected static void findAllMatches(boolean[] result, String pattern, RAbstractStringVector vector, boolean fixed, boolean ignoreCase) {
+            TRegexPattern tregex = fixed ? null : Regexpr.getTRegex(pattern, ignoreCase);
+            Pattern compiled = fixed || tregex != null ? null : Regexpr.getPattern(pattern, ignoreCase);
+            if (tregex == null && ParallelStrings.useParallel(result.length)) {
+                String[] data = ParallelStrings.getStrings(vector);
+                ParallelStrings.forEach(result.length, (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        String text = data[i];
+                        if (!RRuntime.isNA(text)) {
+                            result[i] = fixed ? text.contains(pattern) : compiled.matcher(text).find();
+                        }
+                    }
+                });
+                return;
+            }
             for (int i = 0; i < result.length; i++) {
                 String text = vector.getDataAt(i);
                 if (!RRuntime.isNA(text)) {
                     if (fixed) {
                         result[i] = text.contains(pattern);
+                    } else if (tregex != null) {
+                        result[i] = tregex.find(text);
                     } else {
-                        result[i] = findMatch(pattern, text, ignoreCase);
+                        result[i] = compiled.matcher(text).find();
                     }
                 }
             }
         }
-
-        protected static boolean findMatch(String pattern, String text, boolean ignoreCase) {
-            Matcher m = Regexpr.getPatternMatcher(pattern, text, ignoreCase);
-            return m.find();
-        }
     }
 
     public static CommonCodeNode createCommon() {
@@ -482,14 +516,36 @@ public class GrepFunctions {
                 }
 
                 PCRERFFI.Result pcre = null;
+                Pattern compiled = null;
+                TRegexPattern tregex = null;
                 if (fixed) {
                     // TODO case
+                    if (gsub) {
+                        compiled = getPattern(pattern, Pattern.LITERAL);
+                    }
                 } else if (perl) {
                     pcre = compilePerlPattern(pattern, ignoreCase);
                 } else {
                     pattern = RegExp.checkPreDefinedClasses(pattern);
+                    if (TRegexPattern.isEnabled() && !endsWithEscape(replacement)) {
+                        tregex = TRegexPattern.compile(pattern, false, true);
+                    }
+                    if (tregex == null) {
+                        compiled = getPattern(pattern, Pattern.DOTALL);
+                    }
                 }
                 String preparedReplacement = null;
+                if (fixed) {
+                    preparedReplacement = gsub ? convertGroups(replacement.replace("$", "\\$"), 0) : replacement.replace("\\\\", "\\");
+                } else if (compiled != null) {
+                    // the group count only depends on the pattern (not on the input)
+                    preparedReplacement = convertGroups(replacement.replace("$", "\\$"), compiled.matcher("").groupCount());
+                }
+                if (!perl && tregex == null && ParallelStrings.useParallel(len)) {
+                    RStringVector ret = RDataFactory.createStringVector(replaceParallel(ParallelStrings.getStrings(vector), pattern, compiled, preparedReplacement, fixed, gsub), vector.isComplete());
+                    ret.copyAttributesFrom(vector);
+                    return ret;
+                }
                 String[] result = new String[len];
                 for (int i = 0; i < len; i++) {
                     String input = vector.getDataAt(i);
@@ -500,19 +556,7 @@ public class GrepFunctions {
 
                     String value;
                     if (fixed) {
-                        if (gsub) {
-                            if (preparedReplacement == null) {
-                                preparedReplacement = replacement.replace("$", "\\$");
-                                preparedReplacement = convertGroups(preparedReplacement, 0);
-                            }
-                            value = Pattern.compile(pattern, Pattern.LITERAL).matcher(input).replaceAll(preparedReplacement);
-                        } else {
-                            int ix = input.indexOf(pattern);
-                            if (preparedReplacement == null) {
-                                preparedReplacement = replacement.replace("\\\\", "\\");
-                            }
-                            value = ix < 0 ? input : input.substring(0, ix) + preparedReplacement + input.substring(ix + pattern.length());
-                        }
+                        value = replace(input, pattern, compiled, preparedReplacement, true, gsub);
                     } else if (perl) {
                         int lastEndOffset = 0;
                         int lastEndIndex = 0;
@@ -572,18 +616,10 @@ public class GrepFunctions {
                             }
                             value = sb.toString();
                         }
+                    } else if (tregex != null) {
+                        value = tregexReplace(tregex, input, replacement, gsub);
                     } else {
-                        Matcher matcher = Pattern.compile(pattern, Pattern.DOTALL).matcher(input);
-                        if (preparedReplacement == null) {
-                            preparedReplacement = replacement.replace("$", "\\$");
-                            // matcher.groupCount() only depends on the pattern (not on the input)
-                            preparedReplacement = convertGroups(preparedReplacement, matcher.groupCount());
-                        }
-                        if (gsub) {
-                            value = matcher.replaceAll(preparedReplacement);
-                        } else {
-                            value = matcher.replaceFirst(preparedReplacement);
-                        }
+                        value = replace(input, pattern, compiled, preparedReplacement, false, gsub);
                     }
                     result[i] = value;
                 }
@@ -595,6 +631,31 @@ public class GrepFunctions {
             }
         }
 
+        /**
+         * Replacement of a fixed or {@link Pattern} match, {@code compiled} is {@code null} for
+         * fixed {@code sub}.
+         */
+        private static String replace(String input, String pattern, Pattern compiled, String preparedReplacement, boolean fixed, boolean gsub) {
+            if (fixed && !gsub) {
+                int ix = input.indexOf(pattern);
+                return ix < 0 ? input : input.substring(0, ix) + preparedReplacement + input.substring(ix + pattern.length());
+            }
+            Matcher matcher = compiled.matcher(input);
+            return gsub ? matcher.replaceAll(preparedReplacement) : matcher.replaceFirst(preparedReplacement);
+        }
+
+        @TruffleBoundary
+        private static String[] replaceParallel(String[] data, String pattern, Pattern compiled, String preparedReplacement, boolean fixed, boolean gsub) {
+            String[] result = new String[data.length];
+            ParallelStrings.forEach(data.length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    String input = data[i];
+                    result[i] = RRuntime.isNA(input) ? input : replace(input, pattern, compiled, preparedReplacement, fixed, gsub);
+                }
+            });
+            return result;
+        }
+
         private static RAbstractStringVector appendMissingNewLine(RAbstractStringVector vector) {
             String[] newElems = null;
             for (int i = 0; i < vector.getLength(); i++) {
@@ -728,6 +789,54 @@ public class GrepFunctions {
         }
 
         @TruffleBoundary
+        private static boolean endsWithEscape(String replacement) {
+            int n = 0;
+            for (int i = replacement.length() - 1; i >= 0 && replacement.charAt(i) == '\\'; i--) {
+                n++;
+            }
+            return (n & 1) != 0;
+        }
+
+        /**
+         * Equivalent of {@link Matcher#replaceAll} and {@link Matcher#replaceFirst} with the
+         * replacement prepared by {@link #convertGroups}: {@code \\1} to {@code \\9} are
+         * replaced with the groups (or nothing if there is no such group), any other escaped
+         * character with itself.
+         */
+        private static String tregexReplace(TRegexPattern tregex, String input, String replacement, boolean gsub) {
+            int[] match = tregex.match(input, 0);
+            if (match == null) {
+                return input;
+            }
+            StringBuilder sb = new StringBuilder(input.length() + replacement.length());
+            int last = 0;
+            do {
+                sb.append(input, last, match[0]);
+                for (int i = 0; i < replacement.length(); i++) {
+                    char c = replacement.charAt(i);
+                    if (c == '\\') {
+                        c = replacement.charAt(++i);
+                        if (c >= '1' && c <= '9') {
+                            int group = c - '0';
+                            if (group < tregex.getGroupCount() && match[2 * group] >= 0) {
+                                sb.append(input, match[2 * group], match[2 * group + 1]);
+                            }
+                            continue;
+                        }
+                    }
+                    sb.append(c);
+                }
+                last = match[1];
+                if (!gsub) {
+                    break;
+                }
+                int offset = match[1] == match[0] ? match[1] + 1 : match[1];
+                match = offset <= input.length() ? tregex.match(input, offset) : null;
+            } while (match != null);
+            sb.append(input, last, input.length());
+            return sb.toString();
+        }
+
         private static String convertGroups(String value, int groupCount) {
             StringBuilder result = new StringBuilder();
             int i = 0;
@@ -1008,10 +1117,21 @@ public class GrepFunctions {
                     list.add(new Info(-1, -1, null, null, captureNames));
                 }
             } else {
-                Matcher m = getPatternMatcher(pattern, text, ignoreCase);
-                while (m.find()) {
-                    // R starts counting at index 1
-                    list.add(new Info(m.start() + 1, m.end() - m.start(), null, null, null));
+                TRegexPattern tregex = getTRegex(pattern, ignoreCase);
+                if (tregex != null) {
+                    int offset = 0;
+                    int[] match;
+                    while (offset <= text.length() && (match = tregex.match(text, offset)) != null) {
+                        // R starts counting at index 1
+                        list.add(new Info(match[0] + 1, match[1] - match[0], null, null, null));
+                        offset = match[1] == match[0] ? match[1] + 1 : match[1];
+                    }
+                } else {
+                    Matcher m = getPattern(pattern, ignoreCase).matcher(text);
+                    while (m.find()) {
+                        // R starts counting at index 1
+                        list.add(new Info(m.start() + 1, m.end() - m.start(), null, null, null));
+                    }
                 }
             }
             if (list.size() > 0) {
@@ -1022,15 +1142,25 @@ public class GrepFunctions {
         }
 
         @TruffleBoundary
-        private static Matcher getPatternMatcher(String pattern, String text, boolean ignoreCase) {
-            String actualPattern = pattern;
+        private static Pattern getPattern(String pattern, boolean ignoreCase) {
+            return CommonCodeNode.getPattern(stripLeadingStar(pattern), Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0));
+        }
 
+        /**
+         * Returns the pattern compiled by TRegex if it is enabled and supports the pattern.
+         */
+        @TruffleBoundary
+        private static TRegexPattern getTRegex(String pattern, boolean ignoreCase) {
+            return TRegexPattern.isEnabled() ? TRegexPattern.compile(stripLeadingStar(pattern), ignoreCase, true) : null;
+        }
+
+        private static String stripLeadingStar(String pattern) {
             // If a pattern starts with a '*', GnuR virtually prepends an empty string literal to
             // the star. This won't match anything, so just remove '*' from the pattern.
             if (pattern.length() > 0 && pattern.charAt(0) == '*') {
-                actualPattern = pattern.substring(1);
+                return pattern.substring(1);
             }
-            return Pattern.compile(actualPattern, Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0)).matcher(text);
+            return pattern;
         }
     }
 
@@ -1157,7 +1287,7 @@ public class GrepFunctions {
 
         @TruffleBoundary
         private static Matcher getPatternMatcher(String pattern, String text, boolean ignoreCase) {
-            return Pattern.compile(pattern, Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0)).matcher(text);
+            return CommonCodeNode.getPattern(pattern, Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE : 0)).matcher(text);
         }
     }
 
@@ -1497,7 +1627,6 @@ public class GrepFunctions {
             // treat split = NULL as split = ""
             RAbstractStringVector split = splitArg.getLength() == 0 ? RDataFactory.createStringVectorFromScalar("") : splitArg;
             String[] splits = new String[split.getLength()];
-            long pcreTables = perl ? common.maketablesNode.execute() : 0;
             PCRERFFI.Result[] pcreSplits = perl ? new PCRERFFI.Result[splits.length] : null;
 
             na.enable(x);
@@ -1506,15 +1635,12 @@ public class GrepFunctions {
                 splits[i] = fixed || perl ? split.getDataAt(i) : RegExp.checkPreDefinedClasses(split.getDataAt(i));
                 if (perl) {
                     if (!currentSplit.isEmpty()) {
-                        pcreSplits[i] = common.compileNode.execute(currentSplit, 0, pcreTables);
-                        if (pcreSplits[i].result == 0) {
-                            // TODO output warning if pcre.errorMessage not NULL
-                            throw error(RError.Message.INVALID_REGEXP, currentSplit);
-                        }
+                        pcreSplits[i] = common.compilePerlPattern(currentSplit, 0);
                         // TODO pcre_study for vectors > 10 ? (cf GnuR)
                     }
                 }
             }
+            String[][] pieces = perl ? null : splitParallel(x, splits, fixed);
             for (int i = 0; i < x.getLength(); i++) {
                 String data = x.getDataAt(i);
                 assert data != null;
@@ -1537,7 +1663,8 @@ public class GrepFunctions {
                             if (perl) {
                                 resultItem = splitPerl(data, pcreSplits[i % splits.length]);
                             } else {
-                                resultItem = splitIntl(data, currentSplit, fixed);
+                                String[] parts = pieces != null ? pieces[i] : splitIntl(data, currentSplit, null, fixed);
+                                resultItem = RDataFactory.createStringVector(parts, RDataFactory.COMPLETE_VECTOR);
                             }
                             if (resultItem.getLength() == 0) {
                                 if (fixed) {
@@ -1571,14 +1698,54 @@ public class GrepFunctions {
             }
         }
 
-        private static RStringVector splitIntl(String input, String separator, boolean fixed) {
+        /**
+         * Splits the elements of long vectors in parallel if the split is not done by PCRE. The
+         * result is {@code null} for short vectors, as are the elements of the result for empty or
+         * {@code NA} inputs and splits.
+         */
+        private String[][] splitParallel(RAbstractStringVector x, String[] splits, boolean fixed) {
+            if (!ParallelStrings.useParallel(x.getLength())) {
+                return null;
+            }
+            Pattern[] patterns = new Pattern[splits.length];
+            if (!fixed) {
+                for (int i = 0; i < splits.length; i++) {
+                    String split = splits[i];
+                    if (!RRuntime.isNA(split) && !split.isEmpty()) {
+                        try {
+                            patterns[i] = CommonCodeNode.getPattern(split, 0);
+                        } catch (PatternSyntaxException e) {
+                            throw error(Message.INVALID_REGEXP_REASON, split, e.getMessage());
+                        }
+                    }
+                }
+            }
+            String[] data = ParallelStrings.getStrings(x);
+            String[][] pieces = new String[data.length][];
+            ParallelStrings.forEach(data.length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    String input = data[i];
+                    String split = splits[i % splits.length];
+                    if (!RRuntime.isNA(input) && !input.isEmpty() && !RRuntime.isNA(split) && !split.isEmpty()) {
+                        pieces[i] = splitIntl(input, split, patterns[i % splits.length], fixed);
+                    }
+                }
+            });
+            return pieces;
+        }
+
+        /**
+         * Splits {@code input} by a fixed or regex {@code separator}, whose pattern is looked up in
+         * the cache if {@code compiled} is {@code null}.
+         */
+        private static String[] splitIntl(String input, String separator, Pattern compiled, boolean fixed) {
             assert !RRuntime.isNA(input);
 
             if (fixed) {
                 ArrayList<String> matches = new ArrayList<>();
                 int idx = input.indexOf(separator);
                 if (idx < 0) {
-                    return RDataFactory.createStringVector(input);
+                    return new String[]{input};
                 }
                 int lastIdx = 0;
                 while (idx > -1) {
@@ -1593,12 +1760,12 @@ public class GrepFunctions {
                 if (!m.isEmpty()) {
                     matches.add(m);
                 }
-                return RDataFactory.createStringVector(matches.toArray(new String[matches.size()]), false);
+                return matches.toArray(new String[matches.size()]);
             } else {
                 if (input.equals(separator)) {
-                    return RDataFactory.createStringVector("");
+                    return new String[]{""};
                 } else {
-                    return RDataFactory.createStringVector(input.split(separator), true);
+                    return (compiled != null ? compiled : CommonCodeNode.getPattern(separator, 0)).split(input);
                 }
             }
         }
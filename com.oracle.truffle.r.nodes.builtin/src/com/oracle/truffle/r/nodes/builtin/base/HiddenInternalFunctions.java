@@ -243,14 +243,15 @@ public class HiddenInternalFunctions {
             }
             String dbPath = datafile.getDataAt(0);
             String packageName = RContext.getInstance().getEnv().getTruffleFile(dbPath).getName();
-            byte[] dbData = RContext.getInstance().stateLazyDBCache.getData(dbPath);
             int dotIndex;
             if ((dotIndex = packageName.lastIndexOf('.')) > 0) {
                 packageName = packageName.substring(0, dotIndex);
             }
             int offset = key.getDataAt(0);
             int length = key.getDataAt(1);
-            int outlen = getOutlen(dbData, offset); // length of uncompressed data
+            // only the bytes of this key are copied out of the (memory mapped) database
+            byte[] dbData = RContext.getInstance().stateLazyDBCache.getData(dbPath, offset, length);
+            int outlen = getOutlen(dbData); // length of uncompressed data
             byte[] udata = null;
             boolean rc = true;
             /*
@@ -261,8 +262,7 @@ public class HiddenInternalFunctions {
              * compression=2 and compression=3 is that type='Z' is only possible for the latter.
              */
             if (compression == 0) {
-                udata = new byte[length];
-                System.arraycopy(dbData, offset, udata, 0, length);
+                udata = dbData;
             } else {
                 udata = new byte[outlen];
                 if (compression == 2 || compression == 3) {
@@ -272,12 +272,12 @@ public class HiddenInternalFunctions {
                         return RNull.instance;
                     }
                     byte[] data = new byte[length - 5];
-                    System.arraycopy(dbData, offset + 5, data, 0, data.length);
+                    System.arraycopy(dbData, 5, data, 0, data.length);
                     rc = RCompression.uncompress(type, udata, data);
                 } else {
                     // GnuR treats any other value as 1
                     byte[] data = new byte[length - 4];
-                    System.arraycopy(dbData, offset + 4, data, 0, data.length);
+                    System.arraycopy(dbData, 4, data, 0, data.length);
                     rc = RCompression.uncompress(RCompression.Type.GZIP, udata, data);
                 }
             }
@@ -310,9 +310,9 @@ public class HiddenInternalFunctions {
             }
         }
 
-        private static int getOutlen(byte[] dbData, int offset) {
+        private static int getOutlen(byte[] dbData) {
             ByteBuffer dataLengthBuf = ByteBuffer.allocate(4);
-            dataLengthBuf.put(dbData, offset, 4);
+            dataLengthBuf.put(dbData, 0, 4);
             dataLengthBuf.position(0);
             return dataLengthBuf.getInt();
         }
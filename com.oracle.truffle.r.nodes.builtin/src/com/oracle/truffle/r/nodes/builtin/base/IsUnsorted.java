@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -41,6 +41,8 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractRawVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 import com.oracle.truffle.r.runtime.ops.BinaryCompare;
 
 // TODO support strictly
@@ -52,6 +54,7 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
     @Child private BinaryMapBooleanFunctionNode gt = new BinaryMapBooleanFunctionNode(BinaryCompare.GREATER_THAN.createOperation());
 
     private final ConditionProfile strictlyProfile = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile knownSortedProfile = ConditionProfile.createBinaryProfile();
 
     static {
         Casts casts = new Casts(IsUnsorted.class);
@@ -60,6 +63,9 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
 
     @Specialization
     protected byte isUnsorted(RAbstractDoubleVector x, boolean strictly) {
+        if (isKnownAscending(x, strictly)) {
+            return RRuntime.LOGICAL_FALSE;
+        }
         double last = x.getDataAt(0);
         for (int k = 1; k < x.getLength(); k++) {
             double current = x.getDataAt(k);
@@ -79,6 +85,9 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
 
     @Specialization
     protected byte isUnsorted(RAbstractIntVector x, boolean strictly) {
+        if (isKnownAscending(x, strictly)) {
+            return RRuntime.LOGICAL_FALSE;
+        }
         int last = x.getDataAt(0);
         for (int k = 1; k < x.getLength(); k++) {
             int current = x.getDataAt(k);
@@ -115,6 +124,14 @@ public abstract class IsUnsorted extends RBuiltinNode.Arg2 {
         return RRuntime.LOGICAL_FALSE;
     }
 
+    /**
+     * Vectors produced e.g. by {@code sort} record that they are sorted, which makes the scan
+     * unnecessary unless strict ordering is requested.
+     */
+    private boolean isKnownAscending(RAbstractVector x, boolean strictly) {
+        return knownSortedProfile.profile(!strictly && x.getSortedness() == Sortedness.ASCENDING);
+    }
+
     protected CmpNode createCmpNode() {
         return CmpNodeGen.create();
     }
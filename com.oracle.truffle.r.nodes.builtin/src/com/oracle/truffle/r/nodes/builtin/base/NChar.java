@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -29,6 +29,7 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.lengthGt;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.profiles.ConditionProfile;
@@ -121,14 +122,18 @@ public abstract class NChar extends RBuiltinNode.Arg4 {
         int len = vector.getLength();
         int[] result = new int[len];
         boolean isComplete = true;
-        loopProfile.profileCounted(len);
-        for (int i = 0; loopProfile.inject(i < len); i++) {
-            String item = vector.getDataAt(i);
-            if (RRuntime.isNA(item)) {
-                result[i] = keepNA ? RRuntime.INT_NA : 2;
-                isComplete = !keepNA;
-            } else {
-                result[i] = item.length();
+        if (ParallelStrings.useParallel(len)) {
+            isComplete = ncharParallel(ParallelStrings.getStrings(vector), result, keepNA);
+        } else {
+            loopProfile.profileCounted(len);
+            for (int i = 0; loopProfile.inject(i < len); i++) {
+                String item = vector.getDataAt(i);
+                if (RRuntime.isNA(item)) {
+                    result[i] = keepNA ? RRuntime.INT_NA : 2;
+                    isComplete = !keepNA;
+                } else {
+                    result[i] = item.length();
+                }
             }
         }
         RIntVector resultVector = RDataFactory.createIntVector(result, isComplete, getDimNode.getDimensions(vector), extractNamesNode.execute(vector));
@@ -139,6 +144,28 @@ public abstract class NChar extends RBuiltinNode.Arg4 {
         return resultVector;
     }
 
+    /**
+     * Fills {@code result} in parallel, returns whether it is complete.
+     */
+    @TruffleBoundary
+    private static boolean ncharParallel(String[] data, int[] result, boolean keepNA) {
+        int naLength = keepNA ? RRuntime.INT_NA : 2;
+        ParallelStrings.forEach(data.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                String item = data[i];
+                result[i] = RRuntime.isNA(item) ? naLength : item.length();
+            }
+        });
+        if (keepNA) {
+            for (int i = 0; i < result.length; i++) {
+                if (RRuntime.isNA(result[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     private int convertType(String type) {
         // The string in type is matched partially e.g. 'c' is 'chars', but 'charsxyz' is invalid
         for (int i = 0; i < TYPES.length; i++) {
@@ -2,7 +2,7 @@
  * Copyright (c) 1995, 1996, 1997  Robert Gentleman and Ross Ihaka
  * Copyright (c) 1995-2014, The R Core Team
  * Copyright (c) 2002-2008, The R Foundation
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -63,6 +63,7 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 
 @RBuiltin(name = "order", kind = INTERNAL, parameterNames = {"na.last", "decreasing", "..."}, behavior = PURE)
@@ -77,6 +78,28 @@ public abstract class Order extends RPrecedenceBuiltinNode {
     private final BranchProfile error = BranchProfile.create();
     private final ConditionProfile notRemoveNAs = ConditionProfile.createBinaryProfile();
     private final ValueProfile vectorProfile = ValueProfile.createClassProfile();
+    private final ConditionProfile sortedProfile = ConditionProfile.createBinaryProfile();
+
+    /**
+     * Vectors at least this long are sorted by {@link RadixOrder}.
+     */
+    private final int radixThreshold;
+
+    protected Order(int radixThreshold) {
+        this.radixThreshold = radixThreshold;
+    }
+
+    public static Order create() {
+        return OrderNodeGen.create(RadixOrder.AUTO_THRESHOLD);
+    }
+
+    /**
+     * Creates the node used for {@code method = "radix"}, which uses the radix sort wherever the
+     * keys allow it.
+     */
+    public static Order createRadix() {
+        return OrderNodeGen.create(RadixOrder.RADIX_THRESHOLD);
+    }
 
     /**
      * For use by {@link RadixSort}.
@@ -85,11 +108,16 @@ public abstract class Order extends RPrecedenceBuiltinNode {
 
     private static final int[] SINCS = {1073790977, 268460033, 67121153, 16783361, 4197377, 1050113, 262913, 65921, 16577, 4193, 1073, 281, 77, 23, 8, 1, 0};
 
-    private RIntVector executeOrderVector1(RAbstractVector vIn, byte naLast, boolean dec) {
+    private RAbstractIntVector executeOrderVector1(RAbstractVector vIn, byte naLast, boolean dec) {
         RAbstractVector v = vectorProfile.profile(vIn);
         int n = v.getLength();
         reportWork(n);
 
+        if (sortedProfile.profile(v.getSortedness() == (dec ? Sortedness.DESCENDING : Sortedness.ASCENDING))) {
+            // no NAs to remove and the (stable) order of a sorted vector is the identity
+            return RDataFactory.createIntSequence(1, 1, n);
+        }
+
         int[] indx = createIndexes(v, n, naLast);
         initOrderVector1().execute(indx, v, naLast, dec, true);
         for (int i = 0; i < indx.length; i++) {
@@ -142,7 +170,7 @@ public abstract class Order extends RPrecedenceBuiltinNode {
     private OrderVector1Node initOrderVector1() {
         if (orderVector1Node == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
-            orderVector1Node = insert(OrderVector1NodeGen.create());
+            orderVector1Node = insert(OrderVector1NodeGen.create(radixThreshold));
         }
         return orderVector1Node;
     }
@@ -269,7 +297,14 @@ public abstract class Order extends RPrecedenceBuiltinNode {
         for (int i = 0; i < indx.length; i++) {
             indx[i] = i;
         }
-        orderVector(indx, args.getArguments(), RRuntime.fromLogical(naLast), decreasing);
+        Object[] vectors = args.getArguments();
+        if (n >= radixThreshold && RadixOrder.canSort(vectors)) {
+            RadixOrder.sort(indx, vectors, RRuntime.fromLogical(naLast), decreasing);
+        } else if (ParallelOrder.useParallel(n)) {
+            ParallelOrder.sort(indx, vectors, RRuntime.fromLogical(naLast), decreasing);
+        } else {
+            orderVector(indx, vectors, RRuntime.fromLogical(naLast), decreasing);
+        }
         for (int i = 0; i < indx.length; i++) {
             indx[i] = indx[i] + 1;
         }
@@ -322,6 +357,12 @@ public abstract class Order extends RPrecedenceBuiltinNode {
 
     abstract static class OrderVector1Node extends RBaseNode {
         private final ConditionProfile decProfile = ConditionProfile.createBinaryProfile();
+        private final ConditionProfile radixProfile = ConditionProfile.createBinaryProfile();
+        private final int radixThreshold;
+
+        protected OrderVector1Node(int radixThreshold) {
+            this.radixThreshold = radixThreshold;
+        }
 
         public abstract Object execute(int[] v, Object dv, byte naLast, boolean dec, boolean sortNA);
 
@@ -483,6 +524,9 @@ public abstract class Order extends RPrecedenceBuiltinNode {
         }
 
         private void sort(int[] indx, RAbstractDoubleVector dv, int lo, int hi, boolean dec) {
+            if (radixProfile.profile(hi - lo + 1 >= radixThreshold) && RadixOrder.sort(indx, dv, lo, hi, dec)) {
+                return;
+            }
             int t = 0;
             for (; SINCS[t] > hi - lo + 1; t++) {
             }
@@ -511,6 +555,10 @@ public abstract class Order extends RPrecedenceBuiltinNode {
         }
 
         private void sort(int[] indx, RAbstractIntVector dv, int lo, int hi, boolean dec) {
+            if (radixProfile.profile(hi - lo + 1 >= radixThreshold)) {
+                RadixOrder.sort(indx, dv, lo, hi, dec);
+                return;
+            }
             int t = 0;
             for (; SINCS[t] > hi - lo + 1; t++) {
             }
@@ -749,8 +797,35 @@ public abstract class Order extends RPrecedenceBuiltinNode {
 
         @Specialization
         protected int lcmp(RAbstractLogicalVector v, int i, int j, boolean naLast) {
-            byte x = v.getDataAt(i);
-            byte y = v.getDataAt(j);
+            return compare(v.getDataAt(i), v.getDataAt(j), naLast);
+        }
+
+        @Specialization
+        protected int icmp(RAbstractIntVector v, int i, int j, boolean naLast) {
+            return compare(v.getDataAt(i), v.getDataAt(j), naLast);
+        }
+
+        @Specialization
+        protected int rcmp(RAbstractDoubleVector v, int i, int j, boolean naLast) {
+            return compare(v.getDataAt(i), v.getDataAt(j), naLast);
+        }
+
+        @Specialization
+        protected int scmp(RAbstractStringVector v, int i, int j, boolean naLast) {
+            return compare(v.getDataAt(i), v.getDataAt(j), naLast);
+        }
+
+        @Specialization
+        protected int ccmp(RAbstractComplexVector v, int i, int j, boolean naLast) {
+            return compare(v.getDataAt(i), v.getDataAt(j), naLast);
+        }
+
+        /*
+         * The comparisons are static so that they can be used outside of the node, e.g. by
+         * ParallelOrder.
+         */
+
+        static int compare(byte x, byte y, boolean naLast) {
             boolean nax = RRuntime.isNA(x);
             boolean nay = RRuntime.isNA(y);
             if (nax && nay) {
@@ -771,10 +846,7 @@ public abstract class Order extends RPrecedenceBuiltinNode {
             return 0;
         }
 
-        @Specialization
-        protected int icmp(RAbstractIntVector v, int i, int j, boolean naLast) {
-            int x = v.getDataAt(i);
-            int y = v.getDataAt(j);
+        static int compare(int x, int y, boolean naLast) {
             boolean nax = RRuntime.isNA(x);
             boolean nay = RRuntime.isNA(y);
             if (nax && nay) {
@@ -795,10 +867,7 @@ public abstract class Order extends RPrecedenceBuiltinNode {
             return 0;
         }
 
-        @Specialization
-        protected int rcmp(RAbstractDoubleVector v, int i, int j, boolean naLast) {
-            double x = v.getDataAt(i);
-            double y = v.getDataAt(j);
+        static int compare(double x, double y, boolean naLast) {
             boolean nax = RRuntime.isNAorNaN(x);
             boolean nay = RRuntime.isNAorNaN(y);
             if (nax && nay) {
@@ -819,10 +888,7 @@ public abstract class Order extends RPrecedenceBuiltinNode {
             return 0;
         }
 
-        @Specialization
-        protected int scmp(RAbstractStringVector v, int i, int j, boolean naLast) {
-            String x = v.getDataAt(i);
-            String y = v.getDataAt(j);
+        static int compare(String x, String y, boolean naLast) {
             boolean nax = RRuntime.isNA(x);
             boolean nay = RRuntime.isNA(y);
             if (nax && nay) {
@@ -843,10 +909,7 @@ public abstract class Order extends RPrecedenceBuiltinNode {
             return 0;
         }
 
-        @Specialization
-        protected int ccmp(RAbstractComplexVector v, int i, int j, boolean naLast) {
-            RComplex x = v.getDataAt(i);
-            RComplex y = v.getDataAt(j);
+        static int compare(RComplex x, RComplex y, boolean naLast) {
             // compare real parts
             boolean nax = RRuntime.isNA(x.getRealPart());
             boolean nay = RRuntime.isNA(y.getRealPart());
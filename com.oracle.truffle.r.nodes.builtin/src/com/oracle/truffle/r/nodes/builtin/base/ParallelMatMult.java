@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+
+/**
+ * Tiled double matrix product for {@link MatMult} and {@link CrossprodCommon} on large matrices.
+ * The result is split into tiles of {@link #TILE_ROWS} x {@link #TILE_COLS} elements which are
+ * computed independently in the common fork-join pool. For every tile, the inner dimension is
+ * processed in panels of {@link #PANEL_DEPTH}: the panels of both inputs are first copied into
+ * contiguous column-major buffers (which also gets rid of the strides used by {@code crossprod}),
+ * and the tile is then updated column by column with {@code c[i] += a[i] * b} loops over unit
+ * stride arrays, which the compiler can vectorize. NA and NaN handling is left to the caller like
+ * for the sequential product.
+ */
+final class ParallelMatMult {
+
+    private static final int TILE_ROWS = 128;
+    private static final int TILE_COLS = 128;
+    private static final int PANEL_DEPTH = 256;
+
+    private ParallelMatMult() {
+        // no instances
+    }
+
+    /**
+     * Whether a product of the given dimensions should be computed in parallel according to
+     * {@link FastROptions#ParallelMatMultThreshold}.
+     */
+    @TruffleBoundary
+    static boolean useParallel(int aRows, int aCols, int bCols) {
+        int threshold = RContext.getInstance().getNonNegativeIntOption(FastROptions.ParallelMatMultThreshold);
+        return threshold > 0 && (long) aRows * aCols * bCols >= threshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Computes {@code result = a %*% b}, with the same meaning of the parameters as in
+     * {@link MatMult#doubleMatrixMultiply}. If {@code mirrored}, tiles below the diagonal are
+     * skipped.
+     */
+    @TruffleBoundary
+    static void multiply(double[] a, double[] b, double[] result, int aRows, int aCols, int bCols, int aRowStride, int aColStride, int bRowStride, int bColStride, boolean mirrored) {
+        int rowTiles = (aRows + TILE_ROWS - 1) / TILE_ROWS;
+        int colTiles = (bCols + TILE_COLS - 1) / TILE_COLS;
+        int[] tiles = new int[rowTiles * colTiles];
+        int count = 0;
+        for (int c = 0; c < colTiles; c++) {
+            for (int r = 0; r < rowTiles; r++) {
+                if (!mirrored || (c + 1) * TILE_COLS > r * TILE_ROWS) {
+                    tiles[count++] = c * rowTiles + r;
+                }
+            }
+        }
+        Product product = new Product(a, b, result, aRows, aCols, bCols, aRowStride, aColStride, bRowStride, bColStride);
+        ForkJoinPool.commonPool().invoke(new TileTask(product, tiles, rowTiles, 0, count));
+    }
+
+    private static final class Product {
+        private final double[] a;
+        private final double[] b;
+        private final double[] result;
+        private final int aRows;
+        private final int aCols;
+        private final int bCols;
+        private final int aRowStride;
+        private final int aColStride;
+        private final int bRowStride;
+        private final int bColStride;
+
+        Product(double[] a, double[] b, double[] result, int aRows, int aCols, int bCols, int aRowStride, int aColStride, int bRowStride, int bColStride) {
+            this.a = a;
+            this.b = b;
+            this.result = result;
+            this.aRows = aRows;
+            this.aCols = aCols;
+            this.bCols = bCols;
+            this.aRowStride = aRowStride;
+            this.aColStride = aColStride;
+            this.bRowStride = bRowStride;
+            this.bColStride = bColStride;
+        }
+
+        /**
+         * Computes the tile starting at {@code row0} and {@code col0}, the buffers are reused
+         * between the tiles of one task.
+         */
+        void computeTile(int row0, int col0, double[] aPanel, double[] bPanel, double[] c) {
+            int rows = Math.min(TILE_ROWS, aRows - row0);
+            int cols = Math.min(TILE_COLS, bCols - col0);
+            for (int i = 0; i < rows * cols; i++) {
+                c[i] = 0;
+            }
+            for (int k0 = 0; k0 < aCols; k0 += PANEL_DEPTH) {
+                int depth = Math.min(PANEL_DEPTH, aCols - k0);
+                // aPanel[k * rows + i] = a[row0 + i, k0 + k]
+                for (int k = 0; k < depth; k++) {
+                    int src = (k0 + k) * aColStride + row0 * aRowStride;
+                    int dst = k * rows;
+                    for (int i = 0; i < rows; i++) {
+                        aPanel[dst + i] = a[src];
+                        src += aRowStride;
+                    }
+                }
+                // bPanel[j * depth + k] = b[k0 + k, col0 + j]
+                for (int j = 0; j < cols; j++) {
+                    int src = (col0 + j) * bColStride + k0 * bRowStride;
+                    int dst = j * depth;
+                    for (int k = 0; k < depth; k++) {
+                        bPanel[dst + k] = b[src];
+                        src += bRowStride;
+                    }
+                }
+                for (int j = 0; j < cols; j++) {
+                    int cOffset = j * rows;
+                    int bOffset = j * depth;
+                    for (int k = 0; k < depth; k++) {
+                        double x = bPanel[bOffset + k];
+                        int aOffset = k * rows;
+                        for (int i = 0; i < rows; i++) {
+                            c[cOffset + i] += aPanel[aOffset + i] * x;
+                        }
+                    }
+                }
+            }
+            for (int j = 0; j < cols; j++) {
+                System.arraycopy(c, j * rows, result, (col0 + j) * aRows + row0, rows);
+            }
+        }
+    }
+
+    /**
+     * Computes the tiles {@code tiles[lo..hi)}, each tile is encoded as
+     * {@code colTile * rowTiles + rowTile}.
+     */
+    @SuppressWarnings("serial")
+    private static final class TileTask extends RecursiveAction {
+        private final Product product;
+        private final int[] tiles;
+        private final int rowTiles;
+        private final int lo;
+        private final int hi;
+
+        TileTask(Product product, int[] tiles, int rowTiles, int lo, int hi) {
+            this.product = product;
+            this.tiles = tiles;
+            this.rowTiles = rowTiles;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new TileTask(product, tiles, rowTiles, lo, mid), new TileTask(product, tiles, rowTiles, mid, hi));
+                return;
+            }
+            double[] aPanel = new double[TILE_ROWS * PANEL_DEPTH];
+            double[] bPanel = new double[PANEL_DEPTH * TILE_COLS];
+            double[] c = new double[TILE_ROWS * TILE_COLS];
+            for (int t = lo; t < hi; t++) {
+                int tile = tiles[t];
+                product.computeTile((tile % rowTiles) * TILE_ROWS, (tile / rowTiles) * TILE_COLS, aPanel, bPanel, c);
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.nodes.builtin.base.Order.CmpNode;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+
+/**
+ * Multi-key {@code order} for long vectors whose keys cannot be handled by {@link RadixOrder}. The
+ * index array is split into chunks that are merge-sorted in parallel in the common fork-join pool
+ * and then merged, again in parallel, by splitting the longer run at its median and the shorter one
+ * at the corresponding position. The comparison is the same as in {@link Order} (keys compared by
+ * {@link CmpNode} and ties broken by index), so the result is identical to the sequential shellsort.
+ */
+final class ParallelOrder {
+
+    /**
+     * Ranges up to this length are sorted or merged sequentially.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Total ordering of two (0-based) indexes, returns a positive number if {@code i} sorts after
+     * {@code j}.
+     */
+    @FunctionalInterface
+    interface IndexComparator {
+        int compare(int i, int j);
+    }
+
+    private ParallelOrder() {
+        // no instances
+    }
+
+    /**
+     * Whether vectors of length {@code n} should be ordered in parallel according to
+     * {@link FastROptions#ParallelOrderThreshold}.
+     */
+    @TruffleBoundary
+    static boolean useParallel(int n) {
+        int threshold = RContext.getInstance().getNonNegativeIntOption(FastROptions.ParallelOrderThreshold);
+        return threshold > 0 && n >= threshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    @TruffleBoundary
+    static void sort(int[] indx, Object[] vectors, boolean naLast, boolean dec) {
+        IndexComparator[] keys = new IndexComparator[vectors.length];
+        for (int k = 0; k < vectors.length; k++) {
+            keys[k] = createKeyComparator(vectors[k], naLast);
+        }
+        IndexComparator cmp = (i, j) -> {
+            for (int k = 0; k < keys.length; k++) {
+                int c = keys[k].compare(i, j);
+                if (c != 0) {
+                    return dec ? -c : c;
+                }
+            }
+            return Integer.compare(i, j);
+        };
+        ForkJoinPool.commonPool().invoke(new SortTask(indx, new int[indx.length], 0, indx.length, cmp));
+    }
+
+    private static IndexComparator createKeyComparator(Object v, boolean naLast) {
+        if (v instanceof RAbstractIntVector) {
+            RAbstractIntVector vec = (RAbstractIntVector) v;
+            return (i, j) -> CmpNode.compare(vec.getDataAt(i), vec.getDataAt(j), naLast);
+        } else if (v instanceof RAbstractDoubleVector) {
+            RAbstractDoubleVector vec = (RAbstractDoubleVector) v;
+            return (i, j) -> CmpNode.compare(vec.getDataAt(i), vec.getDataAt(j), naLast);
+        } else if (v instanceof RAbstractLogicalVector) {
+            RAbstractLogicalVector vec = (RAbstractLogicalVector) v;
+            return (i, j) -> CmpNode.compare(vec.getDataAt(i), vec.getDataAt(j), naLast);
+        } else if (v instanceof RAbstractStringVector) {
+            RAbstractStringVector vec = (RAbstractStringVector) v;
+            return (i, j) -> CmpNode.compare(vec.getDataAt(i), vec.getDataAt(j), naLast);
+        } else if (v instanceof RAbstractComplexVector) {
+            RAbstractComplexVector vec = (RAbstractComplexVector) v;
+            return (i, j) -> CmpNode.compare(vec.getDataAt(i), vec.getDataAt(j), naLast);
+        }
+        throw RInternalError.shouldNotReachHere("unexpected vector type in order: " + v.getClass().getSimpleName());
+    }
+
+    /**
+     * Sorts {@code a[lo..hi)}, using the same range of {@code tmp} as scratch space.
+     */
+    @SuppressWarnings("serial")
+    private static final class SortTask extends RecursiveAction {
+        private final int[] a;
+        private final int[] tmp;
+        private final int lo;
+        private final int hi;
+        private final IndexComparator cmp;
+
+        SortTask(int[] a, int[] tmp, int lo, int hi, IndexComparator cmp) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+            this.cmp = cmp;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= SEQUENTIAL_THRESHOLD) {
+                mergeSort(a, tmp, lo, hi, cmp);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(a, tmp, lo, mid, cmp), new SortTask(a, tmp, mid, hi, cmp));
+            if (cmp.compare(a[mid - 1], a[mid]) <= 0) {
+                // already in order
+                return;
+            }
+            new MergeTask(a, lo, mid, mid, hi, tmp, lo, cmp).invoke();
+            new CopyTask(tmp, a, lo, hi).invoke();
+        }
+    }
+
+    /**
+     * Merges the sorted runs {@code src[lo1..hi1)} and {@code src[lo2..hi2)} into {@code dst}
+     * starting at {@code dstLo}.
+     */
+    @SuppressWarnings("serial")
+    private static final class MergeTask extends RecursiveAction {
+        private final int[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final int[] dst;
+        private final int dstLo;
+        private final IndexComparator cmp;
+
+        MergeTask(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int dstLo, IndexComparator cmp) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.dstLo = dstLo;
+            this.cmp = cmp;
+        }
+
+        @Override
+        protected void compute() {
+            int len1 = hi1 - lo1;
+            int len2 = hi2 - lo2;
+            if (len1 + len2 <= SEQUENTIAL_THRESHOLD) {
+                merge(src, lo1, hi1, lo2, hi2, dst, dstLo, cmp);
+                return;
+            }
+            // the comparison is a total order, so it does not matter which run the pivot is from
+            int split1;
+            int split2;
+            if (len1 >= len2) {
+                split1 = (lo1 + hi1) >>> 1;
+                split2 = lowerBound(src, lo2, hi2, src[split1], cmp);
+            } else {
+                split2 = (lo2 + hi2) >>> 1;
+                split1 = lowerBound(src, lo1, hi1, src[split2], cmp);
+            }
+            int dstSplit = dstLo + (split1 - lo1) + (split2 - lo2);
+            invokeAll(new MergeTask(src, lo1, split1, lo2, split2, dst, dstLo, cmp), new MergeTask(src, split1, hi1, split2, hi2, dst, dstSplit, cmp));
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class CopyTask extends RecursiveAction {
+        private final int[] src;
+        private final int[] dst;
+        private final int lo;
+        private final int hi;
+
+        CopyTask(int[] src, int[] dst, int lo, int hi) {
+            this.src = src;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= SEQUENTIAL_THRESHOLD * 8) {
+                System.arraycopy(src, lo, dst, lo, hi - lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new CopyTask(src, dst, lo, mid), new CopyTask(src, dst, mid, hi));
+        }
+    }
+
+    /**
+     * Returns the first position in {@code a[lo..hi)} whose element does not sort before
+     * {@code x}.
+     */
+    private static int lowerBound(int[] a, int lo, int hi, int x, IndexComparator cmp) {
+        int l = lo;
+        int h = hi;
+        while (l < h) {
+            int m = (l + h) >>> 1;
+            if (cmp.compare(a[m], x) < 0) {
+                l = m + 1;
+            } else {
+                h = m;
+            }
+        }
+        return l;
+    }
+
+    private static void merge(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int dstLo, IndexComparator cmp) {
+        int i = lo1;
+        int j = lo2;
+        int d = dstLo;
+        while (i < hi1 && j < hi2) {
+            if (cmp.compare(src[j], src[i]) < 0) {
+                dst[d++] = src[j++];
+            } else {
+                dst[d++] = src[i++];
+            }
+        }
+        System.arraycopy(src, i, dst, d, hi1 - i);
+        System.arraycopy(src, j, dst, d + hi1 - i, hi2 - j);
+    }
+
+    private static void mergeSort(int[] a, int[] tmp, int lo, int hi, IndexComparator cmp) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            for (int i = lo + 1; i < hi; i++) {
+                int x = a[i];
+                int j = i;
+                while (j > lo && cmp.compare(a[j - 1], x) > 0) {
+                    a[j] = a[j - 1];
+                    j--;
+                }
+                a[j] = x;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(a, tmp, lo, mid, cmp);
+        mergeSort(a, tmp, mid, hi, cmp);
+        if (cmp.compare(a[mid - 1], a[mid]) <= 0) {
+            return;
+        }
+        merge(a, lo, mid, mid, hi, tmp, lo, cmp);
+        System.arraycopy(tmp, lo, a, lo, hi - lo);
+    }
+}
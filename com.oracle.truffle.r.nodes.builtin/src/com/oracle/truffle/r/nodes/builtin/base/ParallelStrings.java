@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+
+/**
+ * Element-wise loops of the string builtins over long character vectors executed in chunks in the
+ * common fork-join pool. Every element is written to its own slot of a preallocated result array,
+ * so the order of the results does not depend on the scheduling. The loop bodies run on the pool
+ * threads, which are not attached to any context, so they may only work with plain Java data (see
+ * {@link #getStrings}), precompiled {@link java.util.regex.Pattern}s and the like, but not with
+ * nodes, profiles, R vectors backed by native memory or anything that needs
+ * {@link RContext#getInstance()}.
+ */
+final class ParallelStrings {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Processes the elements {@code [from, to)}.
+     */
+    @FunctionalInterface
+    interface RangeAction {
+        void apply(int from, int to);
+    }
+
+    private ParallelStrings() {
+        // no instances
+    }
+
+    /**
+     * Whether vectors of length {@code n} should be processed in parallel according to
+     * {@link FastROptions#ParallelStringThreshold}.
+     */
+    @TruffleBoundary
+    static boolean useParallel(int n) {
+        int threshold = RContext.getInstance().getNonNegativeIntOption(FastROptions.ParallelStringThreshold);
+        return threshold > 0 && n >= threshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Returns the elements of the vector as an array that can be read from any thread.
+     */
+    @TruffleBoundary
+    static String[] getStrings(RAbstractStringVector vector) {
+        if (vector instanceof RStringVector) {
+            return ((RStringVector) vector).getReadonlyStringData();
+        }
+        String[] result = new String[vector.getLength()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = vector.getDataAt(i);
+        }
+        return result;
+    }
+
+    @TruffleBoundary
+    static void forEach(int n, RangeAction action) {
+        ForkJoinPool.commonPool().invoke(new ChunkTask(0, n, action));
+    }
+
+    /**
+     * Applies {@code function} to the elements and their indexes, {@code NA} is mapped to
+     * {@code NA}.
+     */
+    @TruffleBoundary
+    static String[] map(String[] data, BiFunction<String, Integer, String> function) {
+        String[] result = new String[data.length];
+        forEach(data.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                String value = data[i];
+                result[i] = RRuntime.isNA(value) ? RRuntime.STRING_NA : function.apply(value, i);
+            }
+        });
+        return result;
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ChunkTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final RangeAction action;
+
+        ChunkTask(int from, int to, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                action.apply(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, mid, action), new ChunkTask(mid, to, action));
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
+
+/**
+ * Stable index sort used by {@link Order} for integer, logical, factor and double keys. Small key
+ * ranges (factors, logicals, small integers) are sorted with a single counting pass, everything
+ * else with an LSD radix sort over bytes. Doubles are mapped to longs with the usual IEEE trick
+ * (flip all bits but the sign of negative values) so that the signed ordering of the keys matches
+ * the numeric ordering of the values. Decreasing order is obtained by complementing the keys, which
+ * keeps the sort stable, i.e. ties stay in the order of their indexes like in the shellsort used
+ * for short vectors.
+ */
+final class RadixOrder {
+
+    /**
+     * Vectors at least this long are sorted with the radix sort when {@code order} is called
+     * directly, shorter vectors are left to the shellsort whose constant factors are lower.
+     */
+    static final int AUTO_THRESHOLD = 1024;
+
+    /**
+     * Threshold used for an explicit {@code method = "radix"}.
+     */
+    static final int RADIX_THRESHOLD = 2;
+
+    /**
+     * Key ranges up to this size (or up to the number of keys) are sorted by counting.
+     */
+    private static final int COUNTING_RANGE = 1 << 16;
+
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX_SIZE = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX_SIZE - 1;
+
+    private RadixOrder() {
+        // no instances
+    }
+
+    /**
+     * Sorts {@code indx[lo..hi]} by the values of {@code dv}. {@code NA} values are not treated
+     * specially, they are ordered as the smallest integer value like in the shellsort.
+     */
+    @TruffleBoundary
+    static void sort(int[] indx, RAbstractIntVector dv, int lo, int hi, boolean dec) {
+        int n = hi - lo + 1;
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            int x = dv.getDataAt(indx[lo + i]);
+            keys[i] = dec ? ~x : x;
+        }
+        sortByKeys(indx, lo, keys);
+    }
+
+    /**
+     * Sorts {@code indx[lo..hi]} by the values of {@code dv}. Returns {@code false} without
+     * modifying {@code indx} if the range contains {@code NA} or {@code NaN}, whose ordering is
+     * left to the caller.
+     */
+    @TruffleBoundary
+    static boolean sort(int[] indx, RAbstractDoubleVector dv, int lo, int hi, boolean dec) {
+        int n = hi - lo + 1;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            double d = dv.getDataAt(indx[lo + i]);
+            if (Double.isNaN(d)) {
+                return false;
+            }
+            long key = doubleKey(d);
+            keys[i] = dec ? ~key : key;
+        }
+        sortByKeys(indx, lo, keys);
+        return true;
+    }
+
+    /**
+     * Whether all the vectors of a multi-key {@code order} can be sorted by {@link #sort(int[],
+     * Object[], boolean, boolean)}.
+     */
+    static boolean canSort(Object[] vectors) {
+        for (Object v : vectors) {
+            if (!(v instanceof RAbstractIntVector || v instanceof RAbstractLogicalVector || v instanceof RAbstractDoubleVector)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Multi-key variant: sorts stably by the last vector first and then by each preceding one, so
+     * that the result is ordered lexicographically with ties broken by index. {@code NA} and
+     * {@code NaN} are placed like {@link Order.CmpNode} does, i.e. last if {@code naLast} with the
+     * whole ordering reversed for {@code dec}.
+     */
+    @TruffleBoundary
+    static void sort(int[] indx, Object[] vectors, boolean naLast, boolean dec) {
+        int n = indx.length;
+        for (int k = vectors.length - 1; k >= 0; k--) {
+            Object v = vectors[k];
+            if (v instanceof RAbstractDoubleVector) {
+                RAbstractDoubleVector dv = (RAbstractDoubleVector) v;
+                long[] keys = new long[n];
+                for (int i = 0; i < n; i++) {
+                    double d = dv.getDataAt(indx[i]);
+                    long key = Double.isNaN(d) ? (naLast ? Long.MAX_VALUE : Long.MIN_VALUE) : doubleKey(d);
+                    keys[i] = dec ? ~key : key;
+                }
+                sortByKeys(indx, 0, keys);
+            } else {
+                int[] keys = new int[n];
+                if (v instanceof RAbstractIntVector) {
+                    RAbstractIntVector iv = (RAbstractIntVector) v;
+                    for (int i = 0; i < n; i++) {
+                        int key = intKey(iv.getDataAt(indx[i]), naLast);
+                        keys[i] = dec ? ~key : key;
+                    }
+                } else {
+                    RAbstractLogicalVector lv = (RAbstractLogicalVector) v;
+                    for (int i = 0; i < n; i++) {
+                        byte b = lv.getDataAt(indx[i]);
+                        int key = intKey(RRuntime.isNA(b) ? RRuntime.INT_NA : b, naLast);
+                        keys[i] = dec ? ~key : key;
+                    }
+                }
+                sortByKeys(indx, 0, keys);
+            }
+        }
+    }
+
+    /**
+     * Maps an integer value to a key such that {@code NA} is either the smallest or the largest
+     * key. Non-NA values are shifted down by one in the latter case to make room for {@code NA}.
+     */
+    private static int intKey(int x, boolean naLast) {
+        if (RRuntime.isNA(x)) {
+            return naLast ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        }
+        return naLast ? x - 1 : x;
+    }
+
+    /**
+     * Maps a non-NaN double to a long whose signed ordering is the numeric ordering of the double.
+     * Negative zero is normalized so that it ties with positive zero.
+     */
+    private static long doubleKey(double d) {
+        long bits = Double.doubleToRawLongBits(d == 0.0 ? 0.0 : d);
+        return bits < 0 ? bits ^ Long.MAX_VALUE : bits;
+    }
+
+    /**
+     * Stably reorders {@code indx[lo..lo + keys.length)} by ascending {@code keys}, where
+     * {@code keys[i]} is the key of {@code indx[lo + i]}.
+     */
+    private static void sortByKeys(int[] indx, int lo, int[] keys) {
+        int n = keys.length;
+        if (n < 2) {
+            return;
+        }
+        int min = keys[0];
+        int max = keys[0];
+        for (int i = 1; i < n; i++) {
+            int key = keys[i];
+            if (key < min) {
+                min = key;
+            } else if (key > max) {
+                max = key;
+            }
+        }
+        if (min == max) {
+            return;
+        }
+        long range = (long) max - min;
+        if (range < COUNTING_RANGE || range < n) {
+            countingSort(indx, lo, keys, min, (int) range + 1);
+            return;
+        }
+
+        int[] src = new int[n];
+        System.arraycopy(indx, lo, src, 0, n);
+        int[] dst = new int[n];
+        int[] srcKeys = keys;
+        int[] dstKeys = new int[n];
+        int[] counts = new int[RADIX_SIZE];
+        for (int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS) {
+            for (int i = 0; i < RADIX_SIZE; i++) {
+                counts[i] = 0;
+            }
+            for (int i = 0; i < n; i++) {
+                counts[((srcKeys[i] ^ Integer.MIN_VALUE) >>> shift) & RADIX_MASK]++;
+            }
+            if (counts[((srcKeys[0] ^ Integer.MIN_VALUE) >>> shift) & RADIX_MASK] == n) {
+                // all keys share this digit
+                continue;
+            }
+            toOffsets(counts);
+            for (int i = 0; i < n; i++) {
+                int key = srcKeys[i];
+                int pos = counts[((key ^ Integer.MIN_VALUE) >>> shift) & RADIX_MASK]++;
+                dst[pos] = src[i];
+                dstKeys[pos] = key;
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+            tmp = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tmp;
+        }
+        System.arraycopy(src, 0, indx, lo, n);
+    }
+
+    private static void sortByKeys(int[] indx, int lo, long[] keys) {
+        int n = keys.length;
+        if (n < 2) {
+            return;
+        }
+        int[] src = new int[n];
+        System.arraycopy(indx, lo, src, 0, n);
+        int[] dst = new int[n];
+        long[] srcKeys = keys;
+        long[] dstKeys = new long[n];
+        int[] counts = new int[RADIX_SIZE];
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            for (int i = 0; i < RADIX_SIZE; i++) {
+                counts[i] = 0;
+            }
+            for (int i = 0; i < n; i++) {
+                counts[(int) ((srcKeys[i] ^ Long.MIN_VALUE) >>> shift) & RADIX_MASK]++;
+            }
+            if (counts[(int) ((srcKeys[0] ^ Long.MIN_VALUE) >>> shift) & RADIX_MASK] == n) {
+                // all keys share this digit
+                continue;
+            }
+            toOffsets(counts);
+            for (int i = 0; i < n; i++) {
+                long key = srcKeys[i];
+                int pos = counts[(int) ((key ^ Long.MIN_VALUE) >>> shift) & RADIX_MASK]++;
+                dst[pos] = src[i];
+                dstKeys[pos] = key;
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+            long[] tmpKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tmpKeys;
+        }
+        System.arraycopy(src, 0, indx, lo, n);
+    }
+
+    private static void countingSort(int[] indx, int lo, int[] keys, int min, int range) {
+        int n = keys.length;
+        int[] counts = new int[range];
+        for (int i = 0; i < n; i++) {
+            counts[keys[i] - min]++;
+        }
+        toOffsets(counts);
+        int[] src = new int[n];
+        System.arraycopy(indx, lo, src, 0, n);
+        for (int i = 0; i < n; i++) {
+            indx[lo + counts[keys[i] - min]++] = src[i];
+        }
+    }
+
+    /**
+     * Turns digit counts into the starting positions of the digits' buckets.
+     */
+    private static void toOffsets(int[] counts) {
+        int sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            int c = counts[i];
+            counts[i] = sum;
+            sum += c;
+        }
+    }
+}
@@ -22,10 +22,12 @@ package com.oracle.truffle.r.nodes.builtin.base;
 
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.and;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.doubleValue;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.gte0;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.instanceOf;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.integerValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.not;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.nullValue;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.numericValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
@@ -38,8 +40,11 @@ import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RFunction;
 import com.oracle.truffle.r.runtime.data.RIntVector;
@@ -47,6 +52,7 @@ import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.ops.na.NACheck;
@@ -154,4 +160,288 @@ public class RowsumFunctions {
             return result;
         }
     }
+
+    /**
+     * Reduces the values of {@code x} by the groups given by the 1-based codes {@code g}, e.g. a
+     * factor, in a single pass and without splitting {@code x}. This is the common core of the
+     * {@code tapply} fast path (see {@code TapplyFastPath}) and can be called from R code as
+     * {@code .Internal(.fastr.groupReduce(x, g, ngroups, fun, na.rm))}. Elements with {@code NA}
+     * code are ignored and groups without any elements are {@code NA}. The values of the other
+     * groups are the same as those of calling the R function {@code fun} on the elements of the
+     * group.
+     *
+     * {@code NULL} is returned if the result cannot be computed without the R function, i.e. if it
+     * would have a different type or the R function would emit a warning (integer overflow in
+     * {@code sum}, no non-missing values in {@code min} or {@code max}, full precision sum) or if
+     * the codes are out of range. Callers then have to use the generic computation.
+     */
+    @RBuiltin(name = ".fastr.groupReduce", kind = INTERNAL, parameterNames = {"x", "g", "ngroups", "fun", "na.rm"}, behavior = PURE)
+    public abstract static class GroupReduce extends RBuiltinNode.Arg5 {
+
+        public enum Reducer {
+            SUM("sum"),
+            MEAN("mean"),
+            MIN("min"),
+            MAX("max"),
+            LENGTH("length"),
+            VAR("var");
+
+            private final String name;
+
+            Reducer(String name) {
+                this.name = name;
+            }
+
+            public String getName() {
+                return name;
+            }
+
+            public static Reducer fromName(String name) {
+                for (Reducer reducer : values()) {
+                    if (reducer.name.equals(name)) {
+                        return reducer;
+                    }
+                }
+                return null;
+            }
+        }
+
+        static {
+            Casts casts = new Casts(GroupReduce.class);
+            casts.arg("x").mustBe(numericValue(), RError.Message.INVALID_ARGUMENT, "x");
+            casts.arg("g").mustNotBeMissing().asIntegerVector();
+            casts.arg("ngroups").asIntegerVector().findFirst().mustNotBeNA().mustBe(gte0(), RError.Message.MUST_BE_NONNEGATIVE, "ngroups");
+            casts.arg("fun").mustBe(stringValue()).asStringVector().findFirst();
+            casts.arg("na.rm").asLogicalVector().findFirst().mustNotBeNA(RError.Message.INVALID_LOGICAL).map(toBoolean());
+        }
+
+        @Specialization
+        protected Object groupReduce(RAbstractVector x, RAbstractIntVector g, int ngroups, String fun, boolean naRm) {
+            Reducer reducer = Reducer.fromName(fun);
+            if (reducer == null) {
+                throw error(RError.Message.INVALID_ARGUMENT, "fun");
+            }
+            if (x.getLength() != g.getLength()) {
+                throw error(RError.Message.NOT_ALL_SAME_LENGTH);
+            }
+            RAbstractVector result = reduce(x, g, ngroups, reducer, naRm);
+            return result == null ? RNull.instance : result;
+        }
+
+        /**
+         * Computes the grouped reduction, see {@link GroupReduce}. {@code x} must be an integer,
+         * logical or double vector of the same length as {@code g}.
+         */
+        @TruffleBoundary
+        public static RAbstractVector reduce(RAbstractVector x, RAbstractIntVector g, int ngroups, Reducer reducer, boolean naRm) {
+            int n = x.getLength();
+            int[] counts = new int[ngroups];
+            for (int i = 0; i < n; i++) {
+                int code = g.getDataAt(i);
+                if (!RRuntime.isNA(code)) {
+                    if (code < 1 || code > ngroups) {
+                        return null;
+                    }
+                    counts[code - 1]++;
+                }
+            }
+            if (reducer == Reducer.LENGTH) {
+                for (int i = 0; i < ngroups; i++) {
+                    if (counts[i] == 0) {
+                        counts[i] = RRuntime.INT_NA;
+                    }
+                }
+                return RDataFactory.createIntVector(counts, RDataFactory.COMPLETE_VECTOR);
+            }
+            if (x instanceof RAbstractDoubleVector) {
+                if (reducer == Reducer.SUM && RContext.getInstance().getOption(FastROptions.FullPrecisionSum)) {
+                    return null;
+                }
+                return reduceDouble(getDoubleValues(x), g, counts, reducer, naRm);
+            }
+            if (reducer == Reducer.MEAN || reducer == Reducer.VAR) {
+                return reduceDouble(getDoubleValues(x), g, counts, reducer, naRm);
+            }
+            return reduceInt(getIntValues(x), g, counts, reducer, naRm);
+        }
+
+        private static int[] getIntValues(RAbstractVector x) {
+            int n = x.getLength();
+            int[] values = new int[n];
+            if (x instanceof RAbstractIntVector) {
+                RAbstractIntVector xi = (RAbstractIntVector) x;
+                for (int i = 0; i < n; i++) {
+                    values[i] = xi.getDataAt(i);
+                }
+            } else {
+                RAbstractLogicalVector xl = (RAbstractLogicalVector) x;
+                for (int i = 0; i < n; i++) {
+                    values[i] = RRuntime.logical2int(xl.getDataAt(i));
+                }
+            }
+            return values;
+        }
+
+        private static double[] getDoubleValues(RAbstractVector x) {
+            int n = x.getLength();
+            double[] values = new double[n];
+            if (x instanceof RAbstractDoubleVector) {
+                RAbstractDoubleVector xd = (RAbstractDoubleVector) x;
+                for (int i = 0; i < n; i++) {
+                    values[i] = xd.getDataAt(i);
+                }
+            } else {
+                int[] xi = getIntValues(x);
+                for (int i = 0; i < n; i++) {
+                    values[i] = RRuntime.int2double(xi[i]);
+                }
+            }
+            return values;
+        }
+
+        private static RAbstractVector reduceInt(int[] x, RAbstractIntVector g, int[] counts, Reducer reducer, boolean naRm) {
+            int ngroups = counts.length;
+            long[] acc = new long[ngroups];
+            boolean[] seen = new boolean[ngroups];
+            boolean[] na = new boolean[ngroups];
+            for (int i = 0; i < x.length; i++) {
+                int code = g.getDataAt(i);
+                if (RRuntime.isNA(code)) {
+                    continue;
+                }
+                int group = code - 1;
+                int value = x[i];
+                if (RRuntime.isNA(value)) {
+                    na[group] |= !naRm;
+                } else if (reducer == Reducer.SUM) {
+                    acc[group] += value;
+                } else if (!seen[group] || (reducer == Reducer.MIN ? value < acc[group] : value > acc[group])) {
+                    acc[group] = value;
+                }
+                seen[group] |= !RRuntime.isNA(value);
+            }
+            int[] result = new int[ngroups];
+            boolean complete = RDataFactory.COMPLETE_VECTOR;
+            for (int i = 0; i < ngroups; i++) {
+                if (counts[i] == 0 || na[i]) {
+                    result[i] = RRuntime.INT_NA;
+                    complete = RDataFactory.INCOMPLETE_VECTOR;
+                } else if (reducer != Reducer.SUM && !seen[i]) {
+                    // min/max warn and return an infinite double
+                    return null;
+                } else if (acc[i] < Integer.MIN_VALUE || acc[i] > Integer.MAX_VALUE || RRuntime.isNA((int) acc[i])) {
+                    // sum warns about the overflow
+                    return null;
+                } else {
+                    result[i] = (int) acc[i];
+                }
+            }
+            return RDataFactory.createIntVector(result, complete);
+        }
+
+        private static RAbstractVector reduceDouble(double[] x, RAbstractIntVector g, int[] counts, Reducer reducer, boolean naRm) {
+            int ngroups = counts.length;
+            double[] acc = new double[ngroups];
+            int[] nobs = new int[ngroups];
+            // the NA or NaN result of a group, if any
+            double[] nan = new double[ngroups];
+            boolean[] hasNaN = new boolean[ngroups];
+            for (int i = 0; i < x.length; i++) {
+                int code = g.getDataAt(i);
+                if (RRuntime.isNA(code)) {
+                    continue;
+                }
+                int group = code - 1;
+                double value = x[i];
+                if (Double.isNaN(value)) {
+                    if (naRm) {
+                        continue;
+                    }
+                    // NA takes precedence over NaN, mean returns the first one like the builtin
+                    if (!hasNaN[group] || (reducer != Reducer.MEAN && RRuntime.isNA(value))) {
+                        nan[group] = value;
+                        hasNaN[group] = true;
+                    }
+                    continue;
+                }
+                switch (reducer) {
+                    case SUM:
+                    case MEAN:
+                    case VAR:
+                        acc[group] += value;
+                        break;
+                    case MIN:
+                        acc[group] = nobs[group] == 0 || value < acc[group] ? value : acc[group];
+                        break;
+                    case MAX:
+                        acc[group] = nobs[group] == 0 || value > acc[group] ? value : acc[group];
+                        break;
+                    default:
+                        throw RInternalError.shouldNotReachHere();
+                }
+                nobs[group]++;
+            }
+            double[] result = new double[ngroups];
+            for (int i = 0; i < ngroups; i++) {
+                if (counts[i] == 0) {
+                    result[i] = RRuntime.DOUBLE_NA;
+                } else if (hasNaN[i]) {
+                    // var is NA for any NA or NaN
+                    result[i] = reducer == Reducer.VAR ? RRuntime.DOUBLE_NA : nan[i];
+                } else if (reducer == Reducer.MEAN) {
+                    result[i] = acc[i] / nobs[i];
+                } else if (reducer == Reducer.VAR) {
+                    result[i] = nobs[i] <= 1 ? RRuntime.DOUBLE_NA : acc[i] / nobs[i];
+                } else if (nobs[i] == 0 && reducer != Reducer.SUM) {
+                    // min/max warn and return an infinite value
+                    return null;
+                } else {
+                    result[i] = acc[i];
+                }
+            }
+            if (reducer == Reducer.VAR) {
+                variance(x, g, counts, nobs, result);
+            }
+            boolean complete = RDataFactory.COMPLETE_VECTOR;
+            for (int i = 0; i < ngroups; i++) {
+                if (RRuntime.isNA(result[i])) {
+                    complete = RDataFactory.INCOMPLETE_VECTOR;
+                }
+            }
+            return RDataFactory.createDoubleVector(result, complete);
+        }
+
+        /**
+         * Turns the group means in {@code result} into variances. The means are refined by a second
+         * pass like in {@code cov} and the squared deviations summed in a third one.
+         */
+        private static void variance(double[] x, RAbstractIntVector g, int[] counts, int[] nobs, double[] result) {
+            int ngroups = counts.length;
+            double[] correction = new double[ngroups];
+            for (int i = 0; i < x.length; i++) {
+                int code = g.getDataAt(i);
+                if (!RRuntime.isNA(code) && !Double.isNaN(x[i])) {
+                    correction[code - 1] += x[i] - result[code - 1];
+                }
+            }
+            double[] sum = new double[ngroups];
+            for (int i = 0; i < ngroups; i++) {
+                if (Double.isFinite(result[i])) {
+                    result[i] += correction[i] / nobs[i];
+                }
+            }
+            for (int i = 0; i < x.length; i++) {
+                int code = g.getDataAt(i);
+                if (!RRuntime.isNA(code) && !Double.isNaN(x[i])) {
+                    double dev = x[i] - result[code - 1];
+                    sum[code - 1] += dev * dev;
+                }
+            }
+            for (int i = 0; i < ngroups; i++) {
+                if (!RRuntime.isNA(result[i]) && counts[i] != 0) {
+                    result[i] = sum[i] / (nobs[i] - 1);
+                }
+            }
+        }
+    }
 }
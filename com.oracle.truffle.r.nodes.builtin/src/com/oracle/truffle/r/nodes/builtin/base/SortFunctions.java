@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -60,6 +60,7 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractListVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 
 /**
  * The internal functions mandated by {@code base/sort.R}. N.B. We use the standard JDK sorting
@@ -131,19 +132,37 @@ public class SortFunctions {
 
     protected static RDoubleVector jdkSort(RAbstractDoubleVector vec, boolean decreasing) {
         double[] data = vec.materialize().getDataCopy();
-        return RDataFactory.createDoubleVector(sort(data, decreasing), vec.isComplete());
+        RDoubleVector result = RDataFactory.createDoubleVector(sort(data, decreasing), vec.isComplete());
+        // NA and NaN are sorted as the largest values
+        if (data.length > 0 && !Double.isNaN(data[decreasing ? 0 : data.length - 1])) {
+            result.setSortedness(getSortedness(decreasing));
+        }
+        return result;
     }
 
     protected static RIntVector jdkSort(RAbstractIntVector vec, boolean decreasing) {
         int[] data = vec.materialize().getDataCopy();
-        return RDataFactory.createIntVector(sort(data, decreasing), vec.isComplete());
+        RIntVector result = RDataFactory.createIntVector(sort(data, decreasing), vec.isComplete());
+        // NA is sorted as the smallest value
+        if (data.length > 0 && !RRuntime.isNA(data[decreasing ? data.length - 1 : 0])) {
+            result.setSortedness(getSortedness(decreasing));
+        }
+        return result;
     }
 
     protected static RStringVector jdkSort(RAbstractStringVector vec, boolean decreasing) {
         String[] data = vec.materialize().getDataCopy();
+        /*
+         * No sortedness: the order of String.compareTo is not the collation used by order or
+         * is.unsorted, which moreover depends on the current locale.
+         */
         return RDataFactory.createStringVector(sort(data, decreasing), vec.isComplete());
     }
 
+    private static Sortedness getSortedness(boolean decreasing) {
+        return decreasing ? Sortedness.DESCENDING : Sortedness.ASCENDING;
+    }
+
     protected static RLogicalVector jdkSort(RAbstractLogicalVector vec, boolean decreasing) {
         byte[] data = vec.materialize().getDataCopy();
         return RDataFactory.createLogicalVector(sort(data, decreasing), vec.isComplete());
@@ -153,6 +172,9 @@ public class SortFunctions {
      * In GnuR this is a shell sort variant, see
      * <a href = "https://stat.ethz.ch/R-manual/R-devel/library/base/html/sort.html>here">here</a>.
      * The JDK does not have a shell sort so for now we just use the default JDK sort (quicksort).
+     * Integer and double results record their {@link Sortedness} so that {@code is.unsorted},
+     * {@code unique}, {@code match} etc. can take advantage of it. String results are not tagged,
+     * because the order of {@code String.compareTo} is not the collation used by {@code order}.
      *
      * N.B. The R code strips out {@code NA} and {@code NaN} values before calling the builtin.
      */
@@ -265,11 +287,12 @@ public class SortFunctions {
      * This a helper function for the code in sort.R. It does NOT return the input vectors sorted,
      * but returns an {@link RIntVector} of indices (positions) indicating the sort order (Or
      * {@link RNull#instance} if no vectors). In short it is a special variant of {@code order}. For
-     * now we delegate to {@code order} and do not implement the {@code retgrp} argument.
+     * now we delegate to an {@code order} node that uses {@link RadixOrder} regardless of the
+     * vector length and do not implement the {@code retgrp} argument.
      */
     @RBuiltin(name = "radixsort", kind = INTERNAL, parameterNames = {"na.last", "decreasing", "retgrp", "sortstr", "..."}, behavior = PURE)
     public abstract static class RadixSort extends RBuiltinNode.Arg5 {
-        @Child private Order orderNode = OrderNodeGen.create();
+        @Child private Order orderNode = Order.createRadix();
 
         static {
             Casts casts = new Casts(RadixSort.class);
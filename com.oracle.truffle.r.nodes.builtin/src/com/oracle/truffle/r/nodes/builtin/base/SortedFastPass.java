@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -36,10 +36,14 @@ import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
 import com.oracle.truffle.r.runtime.data.RIntSequence;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 
 /**
- * Fast path check if a vector is already sorted. For now we simply return {@code FALSE}. This
- * should be improved.
+ * Fast path check if a vector is already sorted. Only the information that is available without
+ * looking at the data is used, i.e. the stride of sequences and the {@link Sortedness} recorded by
+ * {@code sort}, otherwise we return {@code FALSE}. Vectors with a known sortedness contain no
+ * {@code NA}s, so {@code nalast} does not matter.
  */
 @RBuiltin(name = "sorted_fpass", kind = INTERNAL, parameterNames = {"x", "decr", "nalast"}, behavior = PURE)
 public abstract class SortedFastPass extends RBuiltinNode.Arg3 {
@@ -61,6 +65,11 @@ public abstract class SortedFastPass extends RBuiltinNode.Arg3 {
         }
     }
 
+    @Specialization
+    protected byte isSorted(RAbstractVector x, boolean decr, @SuppressWarnings("unused") byte nalast) {
+        return RRuntime.asLogical(x.getSortedness() == (decr ? Sortedness.DESCENDING : Sortedness.ASCENDING));
+    }
+
     @Fallback
     public byte isSorted(@SuppressWarnings("unused") Object x, @SuppressWarnings("unused") Object decr, @SuppressWarnings("unused") Object nalast) {
         return RRuntime.LOGICAL_FALSE;
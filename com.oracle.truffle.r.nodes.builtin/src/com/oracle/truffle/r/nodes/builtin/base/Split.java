@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -25,8 +25,6 @@ package com.oracle.truffle.r.nodes.builtin.base;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
-import java.util.Arrays;
-
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -49,7 +47,9 @@ import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 
 /**
  * The {@code split} internal. Internal version of 'split' is invoked from 'split.default' function
- * implemented in R, which makes sure that the second argument is always a R factor.
+ * implemented in R, which makes sure that the second argument is always a R factor. The elements of
+ * each level are counted first, so that the result vectors are allocated with their exact size and
+ * filled in a second pass.
  *
  * TODO Can we find a way to efficiently write the specializations as generics? The code is
  * identical except for the argument type.
@@ -64,9 +64,6 @@ public abstract class Split extends RBuiltinNode.Arg2 {
     @Child private RFactorNodes.GetLevels getLevelNode = new RFactorNodes.GetLevels();
     @Child private GetSplitNames getSplitNames = GetSplitNamesNodeGen.create();
 
-    private static final int INITIAL_SIZE = 5;
-    private static final int SCALE_FACTOR = 2;
-
     static {
         Casts.noCasts(Split.class);
     }
@@ -75,187 +72,147 @@ public abstract class Split extends RBuiltinNode.Arg2 {
     protected RList split(RAbstractVector x, RAbstractIntVector f,
                     @Cached("x.access()") VectorAccess xAccess,
                     @Cached("f.access()") VectorAccess fAccess) {
-        try (SequentialIterator xIter = xAccess.access(x); SequentialIterator fIter = fAccess.access(f)) {
-            RStringVector names = getLevelNode.execute(f);
-            int nLevels = getNLevels(names);
-            int[] collectResultSize = new int[nLevels];
-            Object[] results = new Object[nLevels];
+        RStringVector names = getLevelNode.execute(f);
+        int nLevels = getNLevels(names);
+        int length = x.getLength();
+
+        // first pass: count the elements of each level so that the results have the exact size
+        int[] collectResultSize = new int[nLevels];
+        try (SequentialIterator fIter = fAccess.access(f)) {
+            for (int i = 0; i < length; i++) {
+                fAccess.nextWithWrap(fIter);
+                if (!fAccess.isNA(fIter)) {
+                    // a factor is a 1-based int vector
+                    collectResultSize[fAccess.getInt(fIter) - 1]++;
+                }
+            }
+        }
 
+        // second pass: fill the results
+        int[] collectIndex = new int[nLevels];
+        Object[] results = new Object[nLevels];
+        RStringVector[] resultNames = getSplitNames.getNames(x, f, fAccess, nLevels, collectResultSize);
+        try (SequentialIterator xIter = xAccess.access(x); SequentialIterator fIter = fAccess.access(f)) {
             switch (xAccess.getType()) {
                 case Character: {
-                    // Initialize result arrays
-                    String[][] collectResults = new String[nLevels][INITIAL_SIZE];
-
-                    // perform split
+                    String[][] collectResults = new String[nLevels][];
+                    for (int i = 0; i < nLevels; i++) {
+                        collectResults[i] = new String[collectResultSize[i]];
+                    }
                     while (xAccess.next(xIter)) {
                         fAccess.nextWithWrap(fIter);
                         if (!fAccess.isNA(fIter)) {
-                            // a factor is a 1-based int vector
                             int resultIndex = fAccess.getInt(fIter) - 1;
-                            String[] collect = collectResults[resultIndex];
-                            if (collect.length == collectResultSize[resultIndex]) {
-                                collectResults[resultIndex] = collect = Arrays.copyOf(collect, collect.length * SCALE_FACTOR);
-                            }
-                            collect[collectResultSize[resultIndex]++] = xAccess.getString(xIter);
+                            collectResults[resultIndex][collectIndex[resultIndex]++] = xAccess.getString(xIter);
                         }
                     }
-
-                    RStringVector[] resultNames = getSplitNames.getNames(x, fAccess, fIter, nLevels, collectResultSize);
                     for (int i = 0; i < nLevels; i++) {
-                        results[i] = RDataFactory.createStringVector(Arrays.copyOfRange(collectResults[i], 0, collectResultSize[i]), x.isComplete(),
-                                        (resultNames != null) ? resultNames[i] : null);
+                        results[i] = RDataFactory.createStringVector(collectResults[i], x.isComplete(), (resultNames != null) ? resultNames[i] : null);
                     }
                     break;
                 }
                 case Complex: {
-                    // Initialize result arrays
-                    double[][] collectResults = new double[nLevels][INITIAL_SIZE * 2];
-
-                    // perform split
+                    double[][] collectResults = new double[nLevels][];
+                    for (int i = 0; i < nLevels; i++) {
+                        collectResults[i] = new double[collectResultSize[i] * 2];
+                    }
                     while (xAccess.next(xIter)) {
                         fAccess.nextWithWrap(fIter);
                         if (!fAccess.isNA(fIter)) {
-                            // a factor is a 1-based int vector
                             int resultIndex = fAccess.getInt(fIter) - 1;
                             double[] collect = collectResults[resultIndex];
-                            if (collect.length == collectResultSize[resultIndex] * 2) {
-                                collectResults[resultIndex] = collect = Arrays.copyOf(collect, collect.length * SCALE_FACTOR);
-                            }
-                            collect[collectResultSize[resultIndex] * 2] = xAccess.getComplexR(xIter);
-                            collect[collectResultSize[resultIndex] * 2 + 1] = xAccess.getComplexI(xIter);
-                            collectResultSize[resultIndex]++;
+                            int index = collectIndex[resultIndex]++;
+                            collect[index * 2] = xAccess.getComplexR(xIter);
+                            collect[index * 2 + 1] = xAccess.getComplexI(xIter);
                         }
                     }
-
-                    RStringVector[] resultNames = getSplitNames.getNames(x, fAccess, fIter, nLevels, collectResultSize);
                     for (int i = 0; i < nLevels; i++) {
-                        results[i] = RDataFactory.createComplexVector(Arrays.copyOfRange(collectResults[i], 0, collectResultSize[i] * 2), x.isComplete(),
-                                        (resultNames != null) ? resultNames[i] : null);
+                        results[i] = RDataFactory.createComplexVector(collectResults[i], x.isComplete(), (resultNames != null) ? resultNames[i] : null);
                     }
                     break;
                 }
                 case Double: {
-                    // Initialize result arrays
-                    double[][] collectResults = new double[nLevels][INITIAL_SIZE];
-
-                    // perform split
+                    double[][] collectResults = new double[nLevels][];
+                    for (int i = 0; i < nLevels; i++) {
+                        collectResults[i] = new double[collectResultSize[i]];
+                    }
                     while (xAccess.next(xIter)) {
                         fAccess.nextWithWrap(fIter);
                         if (!fAccess.isNA(fIter)) {
-                            // a factor is a 1-based int vector
                             int resultIndex = fAccess.getInt(fIter) - 1;
-                            double[] collect = collectResults[resultIndex];
-                            if (collect.length == collectResultSize[resultIndex]) {
-                                collectResults[resultIndex] = collect = Arrays.copyOf(collect, collect.length * SCALE_FACTOR);
-                            }
-                            collect[collectResultSize[resultIndex]++] = xAccess.getDouble(xIter);
+                            collectResults[resultIndex][collectIndex[resultIndex]++] = xAccess.getDouble(xIter);
                         }
                     }
-
-                    RStringVector[] resultNames = getSplitNames.getNames(x, fAccess, fIter, nLevels, collectResultSize);
                     for (int i = 0; i < nLevels; i++) {
-                        results[i] = RDataFactory.createDoubleVector(Arrays.copyOfRange(collectResults[i], 0, collectResultSize[i]), x.isComplete(),
-                                        (resultNames != null) ? resultNames[i] : null);
+                        results[i] = RDataFactory.createDoubleVector(collectResults[i], x.isComplete(), (resultNames != null) ? resultNames[i] : null);
                     }
                     break;
                 }
                 case Integer: {
-                    // Initialize result arrays
-                    int[][] collectResults = new int[nLevels][INITIAL_SIZE];
-
-                    // perform split
+                    int[][] collectResults = new int[nLevels][];
+                    for (int i = 0; i < nLevels; i++) {
+                        collectResults[i] = new int[collectResultSize[i]];
+                    }
                     while (xAccess.next(xIter)) {
                         fAccess.nextWithWrap(fIter);
                         if (!fAccess.isNA(fIter)) {
-                            // a factor is a 1-based int vector
                             int resultIndex = fAccess.getInt(fIter) - 1;
-                            int[] collect = collectResults[resultIndex];
-                            if (collect.length == collectResultSize[resultIndex]) {
-                                collectResults[resultIndex] = collect = Arrays.copyOf(collect, collect.length * SCALE_FACTOR);
-                            }
-                            collect[collectResultSize[resultIndex]++] = xAccess.getInt(xIter);
+                            collectResults[resultIndex][collectIndex[resultIndex]++] = xAccess.getInt(xIter);
                         }
                     }
-
-                    RStringVector[] resultNames = getSplitNames.getNames(x, fAccess, fIter, nLevels, collectResultSize);
                     for (int i = 0; i < nLevels; i++) {
-                        results[i] = RDataFactory.createIntVector(Arrays.copyOfRange(collectResults[i], 0, collectResultSize[i]), x.isComplete(),
-                                        (resultNames != null) ? resultNames[i] : null);
+                        results[i] = RDataFactory.createIntVector(collectResults[i], x.isComplete(), (resultNames != null) ? resultNames[i] : null);
                     }
                     break;
                 }
                 case List: {
-                    // Initialize result arrays
-                    Object[][] collectResults = new Object[nLevels][INITIAL_SIZE];
-
-                    // perform split
+                    Object[][] collectResults = new Object[nLevels][];
+                    for (int i = 0; i < nLevels; i++) {
+                        collectResults[i] = new Object[collectResultSize[i]];
+                    }
                     while (xAccess.next(xIter)) {
                         fAccess.nextWithWrap(fIter);
                         if (!fAccess.isNA(fIter)) {
-                            // a factor is a 1-based int vector
                             int resultIndex = fAccess.getInt(fIter) - 1;
-                            Object[] collect = collectResults[resultIndex];
-                            if (collect.length == collectResultSize[resultIndex]) {
-                                collectResults[resultIndex] = collect = Arrays.copyOf(collect, collect.length * SCALE_FACTOR);
-                            }
-                            collect[collectResultSize[resultIndex]++] = xAccess.getListElement(xIter);
+                            collectResults[resultIndex][collectIndex[resultIndex]++] = xAccess.getListElement(xIter);
                         }
                     }
-
-                    RStringVector[] resultNames = getSplitNames.getNames(x, fAccess, fIter, nLevels, collectResultSize);
                     for (int i = 0; i < nLevels; i++) {
-                        results[i] = RDataFactory.createList(Arrays.copyOfRange(collectResults[i], 0, collectResultSize[i]),
-                                        (resultNames != null) ? resultNames[i] : null);
+                        results[i] = RDataFactory.createList(collectResults[i], (resultNames != null) ? resultNames[i] : null);
                     }
                     break;
                 }
                 case Logical: {
-                    // Initialize result arrays
-                    byte[][] collectResults = new byte[nLevels][INITIAL_SIZE];
-
-                    // perform split
+                    byte[][] collectResults = new byte[nLevels][];
+                    for (int i = 0; i < nLevels; i++) {
+                        collectResults[i] = new byte[collectResultSize[i]];
+                    }
                     while (xAccess.next(xIter)) {
                         fAccess.nextWithWrap(fIter);
                         if (!fAccess.isNA(fIter)) {
-                            // a factor is a 1-based int vector
                             int resultIndex = fAccess.getInt(fIter) - 1;
-                            byte[] collect = collectResults[resultIndex];
-                            if (collect.length == collectResultSize[resultIndex]) {
-                                collectResults[resultIndex] = collect = Arrays.copyOf(collect, collect.length * SCALE_FACTOR);
-                            }
-                            collect[collectResultSize[resultIndex]++] = xAccess.getLogical(xIter);
+                            collectResults[resultIndex][collectIndex[resultIndex]++] = xAccess.getLogical(xIter);
                         }
                     }
-
-                    RStringVector[] resultNames = getSplitNames.getNames(x, fAccess, fIter, nLevels, collectResultSize);
                     for (int i = 0; i < nLevels; i++) {
-                        results[i] = RDataFactory.createLogicalVector(Arrays.copyOfRange(collectResults[i], 0, collectResultSize[i]), x.isComplete(),
-                                        (resultNames != null) ? resultNames[i] : null);
+                        results[i] = RDataFactory.createLogicalVector(collectResults[i], x.isComplete(), (resultNames != null) ? resultNames[i] : null);
                     }
                     break;
                 }
                 case Raw: {
-                    // Initialize result arrays
-                    byte[][] collectResults = new byte[nLevels][INITIAL_SIZE];
-
-                    // perform split
+                    byte[][] collectResults = new byte[nLevels][];
+                    for (int i = 0; i < nLevels; i++) {
+                        collectResults[i] = new byte[collectResultSize[i]];
+                    }
                     while (xAccess.next(xIter)) {
                         fAccess.nextWithWrap(fIter);
                         if (!fAccess.isNA(fIter)) {
-                            // a factor is a 1-based int vector
                             int resultIndex = fAccess.getInt(fIter) - 1;
-                            byte[] collect = collectResults[resultIndex];
-                            if (collect.length == collectResultSize[resultIndex]) {
-                                collectResults[resultIndex] = collect = Arrays.copyOf(collect, collect.length * SCALE_FACTOR);
-                            }
-                            collect[collectResultSize[resultIndex]++] = xAccess.getRaw(xIter);
+                            collectResults[resultIndex][collectIndex[resultIndex]++] = xAccess.getRaw(xIter);
                         }
                     }
-
-                    RStringVector[] resultNames = getSplitNames.getNames(x, fAccess, fIter, nLevels, collectResultSize);
                     for (int i = 0; i < nLevels; i++) {
-                        results[i] = RDataFactory.createRawVector(Arrays.copyOfRange(collectResults[i], 0, collectResultSize[i]),
-                                        (resultNames != null) ? resultNames[i] : null);
+                        results[i] = RDataFactory.createRawVector(collectResults[i], (resultNames != null) ? resultNames[i] : null);
                     }
                     break;
                 }
@@ -276,7 +233,7 @@ public abstract class Split extends RBuiltinNode.Arg2 {
         private final ConditionProfile namesProfile = ConditionProfile.createBinaryProfile();
         @Child private GetNamesAttributeNode getNamesNode = GetNamesAttributeNode.create();
 
-        private RStringVector[] getNames(RAbstractVector x, VectorAccess fAccess, SequentialIterator fIter, int nLevels, int[] collectResultSize) {
+        private RStringVector[] getNames(RAbstractVector x, RAbstractIntVector f, VectorAccess fAccess, int nLevels, int[] collectResultSize) {
             RStringVector xNames = getNamesNode.getNames(x);
             if (namesProfile.profile(xNames != null)) {
                 String[][] namesArr = new String[nLevels][];
@@ -284,7 +241,9 @@ public abstract class Split extends RBuiltinNode.Arg2 {
                 for (int i = 0; i < nLevels; i++) {
                     namesArr[i] = new String[collectResultSize[i]];
                 }
-                execute(fAccess, fIter, xNames, namesArr, resultNamesIdxs);
+                try (SequentialIterator fIter = fAccess.access(f)) {
+                    execute(fAccess, fIter, xNames, namesArr, resultNamesIdxs);
+                }
                 RStringVector[] resultNames = new RStringVector[nLevels];
                 for (int i = 0; i < nLevels; i++) {
                     resultNames[i] = RDataFactory.createStringVector(namesArr[i], xNames.isComplete());
@@ -302,9 +261,11 @@ public abstract class Split extends RBuiltinNode.Arg2 {
             try (SequentialIterator namesIter = namesAccess.access(names)) {
                 while (namesAccess.next(namesIter)) {
                     fAccess.nextWithWrap(fIter);
-                    int resultIndex = fAccess.getInt(fIter) - 1; // a factor is a 1-based int
-                                                                 // vector
-                    namesArr[resultIndex][resultNamesIdxs[resultIndex]++] = namesAccess.getString(namesIter);
+                    if (!fAccess.isNA(fIter)) {
+                        // a factor is a 1-based int vector
+                        int resultIndex = fAccess.getInt(fIter) - 1;
+                        namesArr[resultIndex][resultNamesIdxs[resultIndex]++] = namesAccess.getString(namesIter);
+                    }
                 }
             }
         }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -26,6 +26,7 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
@@ -60,6 +61,9 @@ public class StartsEndsWithFunctions {
             if (resultLen == 0) {
                 return RDataFactory.createEmptyLogicalVector();
             }
+            if (ParallelStrings.useParallel(resultLen)) {
+                return doItParallel(ParallelStrings.getStrings(xVec), ParallelStrings.getStrings(prefixVec), resultLen, startsWith);
+            }
             byte[] data = new byte[resultLen];
             if (singlePrefixProfile.profile(prefixLen == 1)) {
                 String prefix = prefixVec.getDataAt(0);
@@ -92,6 +96,30 @@ public class StartsEndsWithFunctions {
             }
             return RDataFactory.createLogicalVector(data, naCheck.neverSeenNA());
         }
+
+        @TruffleBoundary
+        private static Object doItParallel(String[] xs, String[] prefixes, int resultLen, boolean startsWith) {
+            byte[] data = new byte[resultLen];
+            ParallelStrings.forEach(resultLen, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    String x = xs[i % xs.length];
+                    String prefix = prefixes[i % prefixes.length];
+                    if (RRuntime.isNA(x) || RRuntime.isNA(prefix)) {
+                        data[i] = RRuntime.LOGICAL_NA;
+                    } else {
+                        data[i] = RRuntime.asLogical(startsWith ? x.startsWith(prefix) : x.endsWith(prefix));
+                    }
+                }
+            });
+            boolean complete = true;
+            for (int i = 0; i < resultLen; i++) {
+                if (RRuntime.isNA(data[i])) {
+                    complete = false;
+                    break;
+                }
+            }
+            return RDataFactory.createLogicalVector(data, complete);
+        }
     }
 
     @RBuiltin(name = "startsWith", kind = INTERNAL, parameterNames = {"x", "prefix"}, behavior = PURE)
@@ -2,7 +2,7 @@
  * Copyright (c) 1995, 1996, 1997  Robert Gentleman and Ross Ihaka
  * Copyright (c) 1995-2014, The R Core Team
  * Copyright (c) 2002-2008, The R Foundation
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -31,7 +31,6 @@ import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
-import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.nodes.builtin.base.ToLowerOrUpper.StringMapNode;
 import com.oracle.truffle.r.runtime.RError;
@@ -53,8 +52,7 @@ public abstract class Strtrim extends RBuiltinNode.Arg2 {
 
     @Specialization
     protected RStringVector srtrim(RAbstractStringVector x, RAbstractIntVector width,
-                    @Cached("create()") StringMapNode mapNode,
-                    @Cached("createBinaryProfile()") ConditionProfile fitsProfile) {
+                    @Cached("create()") StringMapNode mapNode) {
         int len = x.getLength();
         int nw = width.getLength();
         if (nw == 0 || nw < len && (len % nw != 0)) {
@@ -68,10 +66,12 @@ public abstract class Strtrim extends RBuiltinNode.Arg2 {
                 throw error(RError.Message.INVALID_ARGUMENT, "width");
             }
         }
+        int[] widths = width.getReadonlyData();
         BiFunction<String, Integer, String> function = (element, i) -> {
             // TODO multibyte character handling
-            int w = width.getDataAt(i % nw);
-            if (fitsProfile.profile(w >= element.length())) {
+            int w = widths[i % nw];
+            // no profile, the function may run on the threads of the parallel map
+            if (w >= element.length()) {
                 return element;
             } else {
                 return substring(element, w);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -26,6 +26,7 @@ import com.oracle.truffle.api.dsl.Cached;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.api.profiles.ConditionProfile;
@@ -69,6 +70,11 @@ public abstract class Substr extends RBuiltinNode.Arg3 {
     @Specialization(guards = {"!emptyArg(arg)", "!wrongParams(start, stop)"})
     protected RStringVector substr(RAbstractStringVector arg, RAbstractIntVector start, RAbstractIntVector stop,
                     @Cached("create()") UnaryCopyAttributesNode copyAttributesNode) {
+        if (ParallelStrings.useParallel(arg.getLength())) {
+            RStringVector result = substrParallel(ParallelStrings.getStrings(arg), start.getReadonlyData(), stop.getReadonlyData());
+            copyAttributesNode.execute(result, arg);
+            return result;
+        }
         String[] res = new String[arg.getLength()];
         na.enable(arg);
         na.enable(start);
@@ -85,33 +91,55 @@ public abstract class Substr extends RBuiltinNode.Arg3 {
         return result;
     }
 
+    @TruffleBoundary
+    private static RStringVector substrParallel(String[] data, int[] starts, int[] stops) {
+        String[] res = new String[data.length];
+        ParallelStrings.forEach(data.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                String x = data[i];
+                int start = starts[i % starts.length];
+                int stop = stops[i % stops.length];
+                if (RRuntime.isNA(x) || RRuntime.isNA(start) || RRuntime.isNA(stop)) {
+                    res[i] = RRuntime.STRING_NA;
+                } else if (isLegalRange(x, start, stop)) {
+                    res[i] = x.substring(start - 1, stop);
+                } else {
+                    res[i] = substringIllegalRange(x, start, stop);
+                }
+            }
+        });
+        boolean complete = true;
+        for (int i = 0; i < res.length; i++) {
+            if (RRuntime.isNA(res[i])) {
+                complete = false;
+                break;
+            }
+        }
+        return RDataFactory.createStringVector(res, complete);
+    }
+
     private String substr0(String x, int start, int stop) {
         if (naIndexesProfile.profile(na.check(x) || na.check(start) || na.check(stop))) {
             return RRuntime.STRING_NA;
         } else {
-            int length = x.length();
-            boolean startGreaterThanStop = start > stop;
-            boolean startLessOrEqualZero = start <= 0;
-            boolean stopLessOrEqualZero = stop <= 0;
-            boolean startGreaterThanLength = start > length;
-            boolean stopGreaterThanLength = stop > length;
-            boolean wrongRange = startGreaterThanStop || startLessOrEqualZero || stopLessOrEqualZero || startGreaterThanLength || stopGreaterThanLength;
-            int newStart = start;
-            int newStop = stop;
-            if (wrongRange) {
-                everSeenIllegalRange.enter();
-                if (startGreaterThanStop || (startLessOrEqualZero && stopLessOrEqualZero) || (startGreaterThanLength && stopGreaterThanLength)) {
-                    return "";
-                }
-                if (startLessOrEqualZero) {
-                    newStart = 1;
-                }
-                if (stopGreaterThanLength) {
-                    newStop = length;
-                }
+            if (isLegalRange(x, start, stop)) {
+                return x.substring(start - 1, stop);
             }
-            return x.substring(newStart - 1, newStop);
+            everSeenIllegalRange.enter();
+            return substringIllegalRange(x, start, stop);
+        }
+    }
+
+    private static boolean isLegalRange(String x, int start, int stop) {
+        return start > 0 && start <= stop && stop <= x.length();
+    }
+
+    private static String substringIllegalRange(String x, int start, int stop) {
+        int length = x.length();
+        if (start > stop || (start <= 0 && stop <= 0) || (start > length && stop > length)) {
+            return "";
         }
+        return x.substring(Math.max(start, 1) - 1, Math.min(stop, length));
     }
 
     // protected static boolean rangeOk(String x, int start, int stop) {
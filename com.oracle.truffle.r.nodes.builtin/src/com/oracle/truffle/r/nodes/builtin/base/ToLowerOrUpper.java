@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -74,14 +74,23 @@ public abstract class ToLowerOrUpper {
             return elementFunction(value, 0, function);
         }
 
+        /**
+         * Long vectors are processed in parallel (see {@link ParallelStrings}), so
+         * {@code function} must not depend on nodes or the context.
+         */
         public RStringVector apply(RAbstractStringVector vector, BiFunction<String, Integer, String> function) {
-            na.enable(vector);
             int length = lengthProfile.profile(vector.getLength());
-            String[] stringVector = new String[length];
-            loopProfile.profileCounted(length);
-            for (int i = 0; loopProfile.inject(i < length); i++) {
-                String value = vector.getDataAt(i);
-                stringVector[i] = elementFunction(value, i, function);
+            String[] stringVector;
+            if (ParallelStrings.useParallel(length)) {
+                stringVector = ParallelStrings.map(ParallelStrings.getStrings(vector), function);
+            } else {
+                na.enable(vector);
+                stringVector = new String[length];
+                loopProfile.profileCounted(length);
+                for (int i = 0; loopProfile.inject(i < length); i++) {
+                    String value = vector.getDataAt(i);
+                    stringVector[i] = elementFunction(value, i, function);
+                }
             }
             RStringVector result = RDataFactory.createStringVector(stringVector, vector.isComplete(), getDimNode.getDimensions(vector), extractNames.execute(vector));
             copyAttributes.execute(vector, result);
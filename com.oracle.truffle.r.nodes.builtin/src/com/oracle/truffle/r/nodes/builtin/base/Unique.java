@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -60,6 +60,7 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractRawVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 
 @RBuiltin(name = "unique", kind = INTERNAL, parameterNames = {"x", "incomparables", "fromLast", "nmax"}, behavior = PURE)
 // TODO A more efficient implementation is in order; GNU R uses hash tables so perhaps we should
@@ -70,6 +71,7 @@ public abstract class Unique extends RBuiltinNode.Arg4 {
     private static final long BIG_THRESHOLD = 100;
 
     private final ConditionProfile bigProfile = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile sortedProfile = ConditionProfile.createBinaryProfile();
 
     static {
         Casts casts = new Casts(Unique.class);
@@ -123,6 +125,42 @@ public abstract class Unique extends RBuiltinNode.Arg4 {
         }
     }
 
+    /*
+     * Vectors with known sortedness have no NAs and equal values are adjacent, so a single pass
+     * comparing each element to the previous one is enough. The result is strictly sorted in the
+     * same direction.
+     */
+    private static RIntVector uniqueSorted(RAbstractIntVector vec) {
+        int[] data = new int[vec.getLength()];
+        int ind = 0;
+        for (int i = 0; i < vec.getLength(); i++) {
+            int val = vec.getDataAt(i);
+            if (ind == 0 || data[ind - 1] != val) {
+                data[ind++] = val;
+            }
+        }
+        RIntVector result = RDataFactory.createIntVector(ind == data.length ? data : Arrays.copyOf(data, ind), RDataFactory.COMPLETE_VECTOR);
+        result.setSortedness(vec.getSortedness());
+        return result;
+    }
+
+    private static RDoubleVector uniqueSorted(RAbstractDoubleVector vec, byte fromLast) {
+        double[] data = new double[vec.getLength()];
+        int ind = 0;
+        for (int i = 0; i < vec.getLength(); i++) {
+            double val = vec.getDataAt(i);
+            if (ind == 0 || data[ind - 1] != val) {
+                data[ind++] = val;
+            } else if (fromLast == RRuntime.LOGICAL_TRUE) {
+                // 0 and -0 are equal
+                data[ind - 1] = val;
+            }
+        }
+        RDoubleVector result = RDataFactory.createDoubleVector(ind == data.length ? data : Arrays.copyOf(data, ind), RDataFactory.COMPLETE_VECTOR);
+        result.setSortedness(vec.getSortedness());
+        return result;
+    }
+
     @Specialization(replaces = "doUniqueCachedString")
     protected RStringVector doUnique(RAbstractStringVector vec, byte incomparables, byte fromLast, int nmax) {
         return doUniqueCachedString(vec, incomparables, fromLast, nmax, RAbstractStringVector.class);
@@ -264,6 +302,9 @@ public abstract class Unique extends RBuiltinNode.Arg4 {
                     @Cached("vecIn.getClass()") Class<? extends RAbstractIntVector> vecClass) {
         RAbstractIntVector vec = vecClass.cast(vecIn);
         reportWork(vec.getLength());
+        if (sortedProfile.profile(vec.getSortedness() != Sortedness.UNKNOWN)) {
+            return uniqueSorted(vec);
+        }
         if (bigProfile.profile(vec.getLength() * (long) vec.getLength() > BIG_THRESHOLD)) {
             NonRecursiveHashSetInt set = new NonRecursiveHashSetInt();
             int[] data = new int[16];
@@ -396,6 +437,9 @@ public abstract class Unique extends RBuiltinNode.Arg4 {
     @Specialization
     protected RDoubleVector doUnique(RAbstractDoubleVector vec, byte incomparables, byte fromLast, int nmax) {
         reportWork(vec.getLength());
+        if (sortedProfile.profile(vec.getSortedness() != Sortedness.UNKNOWN)) {
+            return uniqueSorted(vec, fromLast);
+        }
         if (bigProfile.profile(vec.getLength() * (long) vec.getLength() > BIG_THRESHOLD)) {
             NonRecursiveHashSetDouble set = new NonRecursiveHashSetDouble(vec.getLength());
             double[] data = new double[vec.getLength()];
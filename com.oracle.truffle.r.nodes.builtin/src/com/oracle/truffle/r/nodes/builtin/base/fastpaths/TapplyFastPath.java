@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base.fastpaths;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.base.RowsumFunctions.GroupReduce;
+import com.oracle.truffle.r.nodes.builtin.base.RowsumFunctions.GroupReduce.Reducer;
+import com.oracle.truffle.r.nodes.helpers.InheritsCheckNode;
+import com.oracle.truffle.r.nodes.helpers.RFactorNodes;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.data.RMissing;
+import com.oracle.truffle.r.runtime.data.RPromise;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.runtime.nodes.RFastPathNode;
+
+/**
+ * {@code tapply(X, INDEX, FUN)} with a single factor {@code INDEX} and one of the common reducers
+ * {@code sum}, {@code mean}, {@code min}, {@code max}, {@code length} or {@code var} as
+ * {@code FUN} (optionally with {@code na.rm}) is computed by {@link GroupReduce} in one pass over
+ * {@code X}, instead of splitting {@code X} and calling {@code FUN} for every group. The result is
+ * the same one-dimensional array with the levels as dimnames and {@code NA} for empty groups.
+ */
+public abstract class TapplyFastPath extends RFastPathNode {
+
+    @Child private InheritsCheckNode factorCheck = InheritsCheckNode.createFactor();
+    @Child private RFactorNodes.GetLevels getLevels = RFactorNodes.GetLevels.create();
+
+    @Specialization(limit = "3", guards = {"fun == cachedFun", "reducer != null"})
+    protected Object tapply(RAbstractVector x, RAbstractIntVector index, @SuppressWarnings("unused") RFunction fun, RArgsValuesAndNames dots,
+                    @SuppressWarnings("unused") RMissing defaultValue, @SuppressWarnings("unused") RMissing simplify,
+                    @SuppressWarnings("unused") @Cached("fun") RFunction cachedFun,
+                    @Cached("getReducer(fun)") Reducer reducer) {
+        if (x.isObject() || !(x instanceof RAbstractIntVector || x instanceof RAbstractDoubleVector || x instanceof RAbstractLogicalVector)) {
+            return null;
+        }
+        if (x.getLength() == 0 || x.getLength() != index.getLength() || !factorCheck.execute(index)) {
+            return null;
+        }
+        RStringVector levels = getLevels.execute(index);
+        byte naRm = getNaRm(dots, reducer);
+        if (levels == null || naRm == RRuntime.LOGICAL_NA) {
+            return null;
+        }
+        return reduce(x, index, levels, reducer, RRuntime.fromLogical(naRm));
+    }
+
+    @Fallback
+    @SuppressWarnings("unused")
+    protected Object fallback(Object x, Object index, Object fun, Object dots, Object defaultValue, Object simplify) {
+        return null;
+    }
+
+    /**
+     * Returns the reducer if {@code fun} is the base function of that name (or {@code stats::var}),
+     * a user defined function of the same name does not qualify.
+     */
+    @TruffleBoundary
+    protected static Reducer getReducer(RFunction fun) {
+        if (fun.isBuiltin()) {
+            Reducer reducer = Reducer.fromName(fun.getRBuiltin().getName());
+            return reducer == Reducer.MEAN || reducer == Reducer.VAR ? null : reducer;
+        }
+        if (fun == getValue(REnvironment.baseNamespaceEnv(), "mean")) {
+            return Reducer.MEAN;
+        }
+        REnvironment stats = REnvironment.getRegisteredNamespace("stats");
+        if (stats != null && fun == getValue(stats, "var")) {
+            return Reducer.VAR;
+        }
+        return null;
+    }
+
+    private static Object getValue(REnvironment env, String name) {
+        Object value = env.get(name);
+        if (value instanceof RPromise) {
+            RPromise promise = (RPromise) value;
+            return promise.isEvaluated() ? promise.getValue() : null;
+        }
+        return value;
+    }
+
+    /**
+     * The only argument passed on to {@code FUN} can be a logical {@code na.rm}, returns
+     * {@link RRuntime#LOGICAL_NA} for anything else.
+     */
+    private static byte getNaRm(RArgsValuesAndNames dots, Reducer reducer) {
+        if (dots.getLength() == 0) {
+            return RRuntime.LOGICAL_FALSE;
+        }
+        if (dots.getLength() != 1 || reducer == Reducer.LENGTH || !"na.rm".equals(dots.getSignature().getName(0))) {
+            return RRuntime.LOGICAL_NA;
+        }
+        Object value = dots.getArgument(0);
+        if (value instanceof Byte) {
+            return (byte) value;
+        } else if (value instanceof RAbstractLogicalVector && ((RAbstractLogicalVector) value).getLength() == 1) {
+            return ((RAbstractLogicalVector) value).getDataAt(0);
+        }
+        return RRuntime.LOGICAL_NA;
+    }
+
+    @TruffleBoundary
+    private static Object reduce(RAbstractVector x, RAbstractIntVector index, RStringVector levels, Reducer reducer, boolean naRm) {
+        boolean hasGroup = false;
+        for (int i = 0; i < index.getLength() && !hasGroup; i++) {
+            hasGroup = !RRuntime.isNA(index.getDataAt(i));
+        }
+        if (!hasGroup) {
+            // tapply returns a logical array in this case
+            return null;
+        }
+        RAbstractVector result = GroupReduce.reduce(x, index, levels.getLength(), reducer, naRm);
+        if (result != null) {
+            result.setDimensions(new int[]{levels.getLength()});
+            result.setDimNames(RDataFactory.createList(new Object[]{levels.copy()}));
+        }
+        return result;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -35,6 +35,7 @@ import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
 import com.oracle.truffle.r.runtime.nodes.RNode;
 
@@ -54,6 +55,7 @@ public abstract class UpdateSubscriptSpecial2 extends IndexingSpecial2Common {
             if (RRuntime.isNA(value)) {
                 vector.setComplete(false);
             }
+            vector.setSortedness(Sortedness.UNKNOWN);
             return vector;
         }
     }
@@ -71,6 +73,7 @@ public abstract class UpdateSubscriptSpecial2 extends IndexingSpecial2Common {
             if (RRuntime.isNA(value)) {
                 vector.setComplete(false);
             }
+            vector.setSortedness(Sortedness.UNKNOWN);
             return vector;
         }
     }
@@ -88,6 +91,7 @@ public abstract class UpdateSubscriptSpecial2 extends IndexingSpecial2Common {
             if (RRuntime.isNA(value)) {
                 vector.setComplete(false);
             }
+            vector.setSortedness(Sortedness.UNKNOWN);
             return vector;
         }
     }
@@ -121,6 +125,7 @@ public abstract class UpdateSubscriptSpecial2 extends IndexingSpecial2Common {
             } else {
                 access.setDouble(iter, matrixIndex(vector, index1, index2), value);
             }
+            vector.setSortedness(Sortedness.UNKNOWN);
             return vector;
         }
     }
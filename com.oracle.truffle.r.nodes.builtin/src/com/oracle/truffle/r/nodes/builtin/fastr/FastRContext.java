@@ -586,7 +586,26 @@ public class FastRContext {
                 if (res != null) {
                     return RDataFactory.createList(new Object[]{id, res});
                 }
+                if (ind == 0) {
+                    // no message on any of the channels, do not starve the senders
+                    Thread.yield();
+                }
             }
         }
     }
+
+    @RBuiltin(name = ".fastr.channel.stats", kind = PRIMITIVE, parameterNames = {"id"}, behavior = COMPLEX)
+    public abstract static class ChannelStats extends RBuiltinNode.Arg1 {
+
+        static {
+            Casts casts = new Casts(ChannelStats.class);
+            CastsHelper.id(casts);
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RList stats(int id) {
+            return RChannel.getStatistics(id);
+        }
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr.memprof;
+
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.gte;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.singleElement;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
+import static com.oracle.truffle.r.runtime.RVisibility.OFF;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.IO;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.RError.Message;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.instrument.memprof.AllocationSiteProfiler;
+
+/**
+ * Starts or stops the {@link AllocationSiteProfiler}. If {@code file} is not empty, the changes of
+ * the allocation sites are appended to it every {@code interval} seconds. Stopping the profiler
+ * returns the final statistics in the format of {@code .fastr.allocsites}.
+ */
+@RBuiltin(name = ".fastr.allocprof", visibility = OFF, kind = PRIMITIVE, parameterNames = {"on", "file", "sampleBytes", "interval"}, behavior = IO)
+public abstract class FastRAllocProfile extends RBuiltinNode.Arg4 {
+
+    static {
+        Casts casts = new Casts(FastRAllocProfile.class);
+        casts.arg("on").asLogicalVector().mustBe(singleElement()).findFirst().map(toBoolean());
+        casts.arg("file").asStringVector().mustBe(singleElement()).findFirst();
+        casts.arg("sampleBytes").asDoubleVector().mustBe(singleElement()).findFirst().mustBe(gte(0.0));
+        casts.arg("interval").asDoubleVector().mustBe(singleElement()).findFirst().mustBe(gte(0.0));
+    }
+
+    @Override
+    public Object[] getDefaultParameterValues() {
+        return new Object[]{RRuntime.LOGICAL_TRUE, "", 512 * 1024.0, 10.0};
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected Object allocProfile(boolean on, String file, double sampleBytes, double interval) {
+        if (!on) {
+            List<AllocationSiteProfiler.Site> sites = AllocationSiteProfiler.stop();
+            return sites == null ? RNull.instance : FastRAllocSites.createReport(sites, false);
+        }
+        PrintStream out = null;
+        if (!file.isEmpty()) {
+            try {
+                out = new PrintStream(RContext.getInstance().getEnv().getTruffleFile(file).newOutputStream(StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+            } catch (IOException ex) {
+                throw error(Message.GENERIC, String.format(".fastr.allocprof: cannot open file '%s'", file));
+            }
+        }
+        AllocationSiteProfiler.start((long) sampleBytes, out, (long) (interval * 1000));
+        return RNull.instance;
+    }
+}
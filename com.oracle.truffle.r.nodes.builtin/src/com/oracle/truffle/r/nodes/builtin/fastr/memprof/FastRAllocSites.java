@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr.memprof;
+
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.singleElement;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.IO;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.instrument.memprof.AllocationSiteProfiler;
+import com.oracle.truffle.r.runtime.instrument.memprof.AllocationSiteProfiler.Site;
+
+/**
+ * Returns the statistics of the running {@link AllocationSiteProfiler} as a list of columns
+ * {@code function}, {@code location}, {@code type}, {@code count} and {@code bytes}, sorted by
+ * decreasing {@code bytes}. If {@code live} is {@code TRUE}, the counts and bytes are those of the
+ * objects that are still alive and the sites without live objects are omitted.
+ */
+@RBuiltin(name = ".fastr.allocsites", kind = PRIMITIVE, parameterNames = {"live"}, behavior = IO)
+public abstract class FastRAllocSites extends RBuiltinNode.Arg1 {
+
+    private static final String[] NAMES = {"function", "location", "type", "count", "bytes"};
+
+    static {
+        Casts casts = new Casts(FastRAllocSites.class);
+        casts.arg("live").asLogicalVector().mustBe(singleElement()).findFirst().map(toBoolean());
+    }
+
+    @Override
+    public Object[] getDefaultParameterValues() {
+        return new Object[]{RRuntime.LOGICAL_FALSE};
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected Object allocSites(boolean live) {
+        List<Site> sites = AllocationSiteProfiler.getActiveSites();
+        return sites == null ? RNull.instance : createReport(sites, live);
+    }
+
+    static RList createReport(List<Site> allSites, boolean live) {
+        ArrayList<Site> sites = new ArrayList<>(allSites.size());
+        for (Site site : allSites) {
+            if (!live || site.getLiveCount() > 0) {
+                sites.add(site);
+            }
+        }
+        sites.sort((s1, s2) -> Long.compare(live ? s2.getLiveBytes() : s2.getBytes(), live ? s1.getLiveBytes() : s1.getBytes()));
+        int n = sites.size();
+        String[] function = new String[n];
+        String[] location = new String[n];
+        String[] type = new String[n];
+        double[] count = new double[n];
+        double[] bytes = new double[n];
+        boolean complete = true;
+        for (int i = 0; i < n; i++) {
+            Site site = sites.get(i);
+            function[i] = site.getFunction();
+            location[i] = site.getLocation() == null ? RRuntime.STRING_NA : site.getLocation();
+            complete &= site.getLocation() != null;
+            type[i] = site.getType();
+            count[i] = live ? site.getLiveCount() : site.getCount();
+            bytes[i] = live ? site.getLiveBytes() : site.getBytes();
+        }
+        Object[] columns = {RDataFactory.createStringVector(function, RDataFactory.COMPLETE_VECTOR), RDataFactory.createStringVector(location, complete),
+                        RDataFactory.createStringVector(type, RDataFactory.COMPLETE_VECTOR), RDataFactory.createDoubleVector(count, RDataFactory.COMPLETE_VECTOR),
+                        RDataFactory.createDoubleVector(bytes, RDataFactory.COMPLETE_VECTOR)};
+        return RDataFactory.createList(columns, RDataFactory.createStringVector(NAMES, RDataFactory.COMPLETE_VECTOR));
+    }
+}
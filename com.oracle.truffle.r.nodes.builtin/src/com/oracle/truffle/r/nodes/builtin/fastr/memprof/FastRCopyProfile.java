@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr.memprof;
+
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.singleElement;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
+import static com.oracle.truffle.r.runtime.RVisibility.OFF;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.IO;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import java.util.List;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.instrument.memprof.CopySiteProfiler;
+
+/**
+ * Starts or stops the {@link CopySiteProfiler}. Stopping the profiler returns the final statistics
+ * in the format of {@code .fastr.copysites}.
+ */
+@RBuiltin(name = ".fastr.copyprof", visibility = OFF, kind = PRIMITIVE, parameterNames = {"on"}, behavior = IO)
+public abstract class FastRCopyProfile extends RBuiltinNode.Arg1 {
+
+    static {
+        Casts casts = new Casts(FastRCopyProfile.class);
+        casts.arg("on").asLogicalVector().mustBe(singleElement()).findFirst().map(toBoolean());
+    }
+
+    @Override
+    public Object[] getDefaultParameterValues() {
+        return new Object[]{RRuntime.LOGICAL_TRUE};
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected Object copyProfile(boolean on) {
+        if (!on) {
+            List<CopySiteProfiler.Site> sites = CopySiteProfiler.stop();
+            return sites == null ? RNull.instance : FastRCopySites.createReport(sites, Integer.MAX_VALUE);
+        }
+        CopySiteProfiler.start();
+        return RNull.instance;
+    }
+}
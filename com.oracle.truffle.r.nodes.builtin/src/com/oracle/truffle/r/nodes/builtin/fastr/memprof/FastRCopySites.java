@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr.memprof;
+
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.gte;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.singleElement;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.IO;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.instrument.memprof.CopySiteProfiler;
+import com.oracle.truffle.r.runtime.instrument.memprof.CopySiteProfiler.Site;
+
+/**
+ * Returns the {@code top} sites of the running {@link CopySiteProfiler} with the most copied bytes
+ * as a list of columns {@code function}, {@code location}, {@code reason}, {@code type},
+ * {@code count} and {@code bytes}.
+ */
+@RBuiltin(name = ".fastr.copysites", kind = PRIMITIVE, parameterNames = {"top"}, behavior = IO)
+public abstract class FastRCopySites extends RBuiltinNode.Arg1 {
+
+    private static final String[] NAMES = {"function", "location", "reason", "type", "count", "bytes"};
+
+    static {
+        Casts casts = new Casts(FastRCopySites.class);
+        casts.arg("top").asIntegerVector().mustBe(singleElement()).findFirst().replaceNA(Integer.MAX_VALUE).mustBe(gte(0));
+    }
+
+    @Override
+    public Object[] getDefaultParameterValues() {
+        return new Object[]{20};
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected Object copySites(int top) {
+        List<Site> sites = CopySiteProfiler.getActiveSites();
+        return sites == null ? RNull.instance : createReport(sites, top);
+    }
+
+    static RList createReport(List<Site> allSites, int top) {
+        ArrayList<Site> sites = new ArrayList<>(allSites);
+        sites.sort((s1, s2) -> Long.compare(s2.getBytes(), s1.getBytes()));
+        int n = Math.min(top, sites.size());
+        String[] function = new String[n];
+        String[] location = new String[n];
+        String[] reason = new String[n];
+        String[] type = new String[n];
+        double[] count = new double[n];
+        double[] bytes = new double[n];
+        boolean complete = true;
+        for (int i = 0; i < n; i++) {
+            Site site = sites.get(i);
+            function[i] = site.getFunction();
+            location[i] = site.getLocation() == null ? RRuntime.STRING_NA : site.getLocation();
+            complete &= site.getLocation() != null;
+            reason[i] = site.getReason().getDescription();
+            type[i] = site.getType();
+            count[i] = site.getCount();
+            bytes[i] = site.getBytes();
+        }
+        Object[] columns = {RDataFactory.createStringVector(function, RDataFactory.COMPLETE_VECTOR), RDataFactory.createStringVector(location, complete),
+                        RDataFactory.createStringVector(reason, RDataFactory.COMPLETE_VECTOR), RDataFactory.createStringVector(type, RDataFactory.COMPLETE_VECTOR),
+                        RDataFactory.createDoubleVector(count, RDataFactory.COMPLETE_VECTOR), RDataFactory.createDoubleVector(bytes, RDataFactory.COMPLETE_VECTOR)};
+        return RDataFactory.createList(columns, RDataFactory.createStringVector(NAMES, RDataFactory.COMPLETE_VECTOR));
+    }
+}
@@ -47,6 +47,7 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess.RandomIterator;
 import com.oracle.truffle.r.runtime.ops.na.NACheck;
@@ -85,6 +86,7 @@ abstract class WriteIndexedVectorNode extends Node {
                     @Cached("createWrite()") WriteIndexedVectorAccessNode write) {
         try (RandomIterator leftIter = leftAccess.randomAccess(left); RandomIterator rightIter = rightAccess.randomAccess(right)) {
             write.apply(leftIter, leftAccess, positions, rightIter, rightAccess, right, positionTargetDimensions);
+            left.setSortedness(Sortedness.UNKNOWN);
 
             if (completeVectorProfile.profile(left.isComplete())) {
                 if (!(leftAccess.na.neverSeenNA() && rightAccess.na.neverSeenNA())) {
@@ -102,6 +104,7 @@ abstract class WriteIndexedVectorNode extends Node {
         VectorAccess rightAccess = right.slowPathAccess();
         try (RandomIterator leftIter = leftAccess.randomAccess(left); RandomIterator rightIter = rightAccess.randomAccess(right)) {
             write.apply(leftIter, leftAccess, positions, rightIter, rightAccess, right, positionTargetDimensions);
+            left.setSortedness(Sortedness.UNKNOWN);
         }
     }
 }
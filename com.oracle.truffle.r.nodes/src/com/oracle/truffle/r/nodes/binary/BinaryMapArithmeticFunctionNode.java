@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -25,6 +25,7 @@ package com.oracle.truffle.r.nodes.binary;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.primitive.BinaryMapNAFunctionNode;
+import com.oracle.truffle.r.nodes.primitive.ParallelBinaryMap;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.data.RComplex;
@@ -76,6 +77,20 @@ public final class BinaryMapArithmeticFunctionNode extends BinaryMapNAFunctionNo
         return null;
     }
 
+    @Override
+    public ParallelBinaryMap.Operation getParallelOperation() {
+        if (arithmetic instanceof Add) {
+            return ParallelBinaryMap.Operation.ADD;
+        } else if (arithmetic instanceof Subtract) {
+            return ParallelBinaryMap.Operation.SUBTRACT;
+        } else if (arithmetic instanceof Multiply) {
+            return ParallelBinaryMap.Operation.MULTIPLY;
+        } else if (arithmetic instanceof Div) {
+            return ParallelBinaryMap.Operation.DIVIDE;
+        }
+        return null;
+    }
+
     private boolean isSequenceMulArithmetic() {
         return arithmetic instanceof Multiply || arithmetic instanceof IntegerDiv || arithmetic instanceof Div;
     }
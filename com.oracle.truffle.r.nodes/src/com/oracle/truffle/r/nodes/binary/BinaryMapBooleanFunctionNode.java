@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -24,10 +24,12 @@ package com.oracle.truffle.r.nodes.binary;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.r.nodes.primitive.BinaryMapNAFunctionNode;
+import com.oracle.truffle.r.nodes.primitive.ParallelBinaryMap;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RLogical;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.ops.BinaryCompare;
 import com.oracle.truffle.r.runtime.ops.BinaryLogic.And;
 import com.oracle.truffle.r.runtime.ops.BinaryLogic.Or;
 import com.oracle.truffle.r.runtime.ops.BooleanOperation;
@@ -51,6 +53,29 @@ public final class BinaryMapBooleanFunctionNode extends BinaryMapNAFunctionNode
         return null;
     }
 
+    @Override
+    public ParallelBinaryMap.Operation getParallelOperation() {
+        if (operation instanceof BinaryCompare) {
+            switch (operation.opName()) {
+                case "==":
+                    return ParallelBinaryMap.Operation.EQUAL;
+                case "!=":
+                    return ParallelBinaryMap.Operation.NOT_EQUAL;
+                case "<":
+                    return ParallelBinaryMap.Operation.LESS;
+                case "<=":
+                    return ParallelBinaryMap.Operation.LESS_EQUAL;
+                case ">":
+                    return ParallelBinaryMap.Operation.GREATER;
+                case ">=":
+                    return ParallelBinaryMap.Operation.GREATER_EQUAL;
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+
     @Override
     protected boolean introducesNA() {
         return false;
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -50,6 +50,7 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractRawVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 import com.oracle.truffle.r.runtime.ops.na.NAProfile;
 
@@ -62,6 +63,7 @@ public abstract class MatchInternalNode extends RBaseNode {
     @Node.Child private CastStringNode castString;
 
     private final ConditionProfile bigTableProfile = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile sortedTableProfile = ConditionProfile.createBinaryProfile();
 
     private RAbstractStringVector castString(RAbstractVector operand) {
         if (castString == null) {
@@ -132,6 +134,9 @@ public abstract class MatchInternalNode extends RBaseNode {
     @Specialization(guards = {"x.getLength() != 1", "!isSequence(table)"})
     @CompilerDirectives.TruffleBoundary
     protected RIntVector match(RAbstractIntVector x, RAbstractIntVector table, int nomatch) {
+        if (sortedTableProfile.profile(table.getSortedness() != Sortedness.UNKNOWN)) {
+            return matchSorted(x, table, nomatch);
+        }
         int[] result = initResult(x.getLength(), nomatch);
         boolean matchAll = true;
         NonRecursiveHashMapInt hashTable;
@@ -274,6 +279,9 @@ public abstract class MatchInternalNode extends RBaseNode {
     @Specialization(guards = "x.getLength() != 1")
     @CompilerDirectives.TruffleBoundary
     protected RIntVector match(RAbstractDoubleVector x, RAbstractDoubleVector table, int nomatch) {
+        if (sortedTableProfile.profile(table.getSortedness() != Sortedness.UNKNOWN)) {
+            return matchSorted(x, table, nomatch);
+        }
         int[] result = initResult(x.getLength(), nomatch);
         boolean matchAll = true;
         NonRecursiveHashMapDouble hashTable;
@@ -824,6 +832,84 @@ public abstract class MatchInternalNode extends RBaseNode {
         return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
     }
 
+    /*
+     * Tables with known sortedness (e.g. produced by sort) contain no NAs and are searched without
+     * building a hash table: by merging if x is sorted in the same direction, otherwise by binary
+     * search. In both cases the first position of a value in the table is found.
+     */
+    private static RIntVector matchSorted(RAbstractIntVector x, RAbstractIntVector table, int nomatch) {
+        int[] result = initResult(x.getLength(), nomatch);
+        boolean matchAll = true;
+        boolean ascending = table.getSortedness() == Sortedness.ASCENDING;
+        boolean merge = x.getSortedness() == table.getSortedness();
+        int length = table.getLength();
+        int j = 0;
+        for (int i = 0; i < result.length; i++) {
+            int xx = x.getDataAt(i);
+            if (merge) {
+                while (j < length && (ascending ? table.getDataAt(j) < xx : table.getDataAt(j) > xx)) {
+                    j++;
+                }
+            } else {
+                int lo = 0;
+                int hi = length;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    int val = table.getDataAt(mid);
+                    if (ascending ? val < xx : val > xx) {
+                        lo = mid + 1;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                j = lo;
+            }
+            if (j < length && table.getDataAt(j) == xx) {
+                result[i] = j + 1;
+            } else {
+                matchAll = false;
+            }
+        }
+        return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
+    }
+
+    private static RIntVector matchSorted(RAbstractDoubleVector x, RAbstractDoubleVector table, int nomatch) {
+        int[] result = initResult(x.getLength(), nomatch);
+        boolean matchAll = true;
+        boolean ascending = table.getSortedness() == Sortedness.ASCENDING;
+        boolean merge = x.getSortedness() == table.getSortedness();
+        int length = table.getLength();
+        int j = 0;
+        for (int i = 0; i < result.length; i++) {
+            double xx = x.getDataAt(i);
+            if (merge) {
+                while (j < length && (ascending ? table.getDataAt(j) < xx : table.getDataAt(j) > xx)) {
+                    j++;
+                }
+            } else {
+                int lo = 0;
+                int hi = length;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    double val = table.getDataAt(mid);
+                    if (ascending ? val < xx : val > xx) {
+                        lo = mid + 1;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                j = lo;
+            }
+            // NA and NaN in x compare false to everything, so they never match
+            if (j < length && table.getDataAt(j) == xx) {
+                result[i] = j + 1;
+            } else {
+                matchAll = false;
+            }
+        }
+        return RDataFactory.createIntVector(result, setCompleteState(matchAll, nomatch));
+    }
+
     private static int[] initResult(int length, int nomatch) {
         int[] result = new int[length];
         Arrays.fill(result, nomatch);
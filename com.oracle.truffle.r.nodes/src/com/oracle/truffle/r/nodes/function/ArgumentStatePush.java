@@ -38,7 +38,6 @@ import com.oracle.truffle.r.runtime.data.RFunction;
 import com.oracle.truffle.r.runtime.data.RPairList;
 import com.oracle.truffle.r.runtime.data.RSharingAttributeStorage;
 import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
-import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 
 /**
  * A {@link ArgumentStatePush} is used to bump up state transition for function arguments. <br>
@@ -104,9 +103,8 @@ public abstract class ArgumentStatePush extends Node {
             if (writeArgMask != -1) {
                 if (frameSlot == null) {
                     CompilerDirectives.transferToInterpreterAndInvalidate();
-                    synchronized (FrameSlotChangeMonitor.class) {
-                        frameSlot = frame.getFrameDescriptor().findOrAddFrameSlot(writeArgMask, FrameSlotKind.Object);
-                    }
+                    // the frame descriptor is thread safe and racing threads get the same slot
+                    frameSlot = frame.getFrameDescriptor().findOrAddFrameSlot(writeArgMask, FrameSlotKind.Object);
                 }
                 frame.setObject(frameSlot, shareable);
             }
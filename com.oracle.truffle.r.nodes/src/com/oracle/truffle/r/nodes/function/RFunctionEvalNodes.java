@@ -418,10 +418,12 @@ public class RFunctionEvalNodes {
             if (argsFrameSlot == null || funFrameSlot == null) {
                 assert funFrameSlot == null;
                 CompilerDirectives.transferToInterpreterAndInvalidate();
-                synchronized (FrameSlotChangeMonitor.class) {
-                    argsFrameSlot = FrameSlotChangeMonitor.findOrAddFrameSlot(evalFrame.getFrameDescriptor(), RFrameSlot.FunctionEvalNodeArgsIdentifier, FrameSlotKind.Object);
-                    funFrameSlot = FrameSlotChangeMonitor.findOrAddFrameSlot(evalFrame.getFrameDescriptor(), RFrameSlot.FunctionEvalNodeFunIdentifier, FrameSlotKind.Object);
-                }
+                /*
+                 * Each slot is added atomically by the monitor and racing threads get the same
+                 * slots, so the pair does not need to be added atomically.
+                 */
+                argsFrameSlot = FrameSlotChangeMonitor.findOrAddFrameSlot(evalFrame.getFrameDescriptor(), RFrameSlot.FunctionEvalNodeArgsIdentifier, FrameSlotKind.Object);
+                funFrameSlot = FrameSlotChangeMonitor.findOrAddFrameSlot(evalFrame.getFrameDescriptor(), RFrameSlot.FunctionEvalNodeFunIdentifier, FrameSlotKind.Object);
             }
             try {
                 // the two slots are used to pass the explicit args and the called function to the
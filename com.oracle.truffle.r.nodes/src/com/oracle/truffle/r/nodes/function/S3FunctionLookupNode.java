@@ -47,6 +47,7 @@ import com.oracle.truffle.r.runtime.RDispatch;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.S3DispatchCache;
 import com.oracle.truffle.r.runtime.Utils;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
@@ -452,23 +453,38 @@ public abstract class S3FunctionLookupNode extends RBaseNode {
 
         @TruffleBoundary
         private Result executeInternal(String genericName, RStringVector type, String group, MaterializedFrame callerFrame, MaterializedFrame genericDefFrame) {
-            LookupOperation op = (lookupFrame, name, inMethodsTable) -> {
-                return ReadVariableNode.lookupFunction(name, lookupFrame, inMethodsTable, true);
-            };
-
-            GetMethodsTable getTable = () -> {
-                FrameSlot slot = genericDefFrame == null ? null : genericDefFrame.getFrameDescriptor().findFrameSlot(RRuntime.RS3MethodsTable);
-                if (slot == null) {
-                    return null;
+            Object methodsTable = getMethodsTable(genericDefFrame);
+
+            // megamorphic call sites still avoid the lookup if the same one was done before
+            S3DispatchCache.ContextStateImpl cache = RContext.getInstance().stateS3DispatchCache;
+            S3DispatchCache.Key key = null;
+            S3DispatchCache.Recorder recorder = null;
+            if (cache.isEnabled() && type != null) {
+                key = S3DispatchCache.createKey(genericName, group, type, nextMethod, defaultMethod, callerFrame, methodsTable);
+                Result cached = (Result) cache.get(key);
+                if (cached != null) {
+                    return cached;
                 }
-                try {
-                    return FrameSlotChangeMonitor.getObject(slot, genericDefFrame);
-                } catch (FrameSlotTypeException e) {
-                    throw RInternalError.shouldNotReachHere();
+                recorder = cache.startRecording();
+            }
+
+            S3DispatchCache.Recorder reads = recorder;
+            LookupOperation op = (lookupFrame, name, inMethodsTable) -> {
+                RFunction function = ReadVariableNode.lookupFunction(name, lookupFrame, inMethodsTable, true);
+                if (reads != null) {
+                    if (inMethodsTable) {
+                        reads.recordTableRead(lookupFrame, name, function);
+                    } else {
+                        reads.recordRead(lookupFrame, name, function);
+                    }
                 }
+                return function;
             };
 
-            Result result = performLookup(callerFrame, genericName, group, type, nextMethod, defaultMethod, op, getTable);
+            Result result = performLookup(callerFrame, genericName, group, type, nextMethod, defaultMethod, op, () -> methodsTable);
+            if (result != null && recorder != null) {
+                cache.put(key, recorder, result);
+            }
 
             if (result == null) {
                 if (throwsError) {
@@ -483,5 +499,17 @@ public abstract class S3FunctionLookupNode extends RBaseNode {
             }
             return result;
         }
+
+        private static Object getMethodsTable(MaterializedFrame genericDefFrame) {
+            FrameSlot slot = genericDefFrame == null ? null : genericDefFrame.getFrameDescriptor().findFrameSlot(RRuntime.RS3MethodsTable);
+            if (slot == null) {
+                return null;
+            }
+            try {
+                return FrameSlotChangeMonitor.getObject(slot, genericDefFrame);
+            } catch (FrameSlotTypeException e) {
+                throw RInternalError.shouldNotReachHere();
+            }
+        }
     }
 }
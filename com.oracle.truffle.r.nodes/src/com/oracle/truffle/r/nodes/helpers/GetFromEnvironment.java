@@ -73,14 +73,14 @@ public abstract class GetFromEnvironment extends RBaseNode {
     }
 
     protected FrameDescriptor getFrameDescriptor(REnvironment env) {
-        return frameProfile.profile(env.getFrame(frameAccessProfile)).getFrameDescriptor();
+        return frameProfile.profile(env.getBindingsFrame(frameAccessProfile)).getFrameDescriptor();
     }
 
-    @Specialization(guards = {"getFrameDescriptor(env) == envDesc", "read.getIdentifier().equals(name)"})
+    @Specialization(guards = {"env.isFrameAccessible()", "getFrameDescriptor(env) == envDesc", "read.getIdentifier().equals(name)"})
     protected Object getCached(VirtualFrame frame, REnvironment env, @SuppressWarnings("unused") String name,
-                    @Cached("env.getFrame().getFrameDescriptor()") @SuppressWarnings("unused") FrameDescriptor envDesc,
+                    @Cached("getFrameDescriptor(env)") @SuppressWarnings("unused") FrameDescriptor envDesc,
                     @Cached("createRead(name)") LocalReadVariableNode read) {
-        return read.execute(frame, frameProfile.profile(env.getFrame(frameAccessProfile)));
+        return read.execute(frame, frameProfile.profile(env.getBindingsFrame(frameAccessProfile)));
     }
 
     @Specialization(replaces = "getCached")
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -97,6 +97,14 @@ public abstract class BinaryMapFunctionNode extends RBaseNode {
 
     }
 
+    /**
+     * Returns the operation of this node if it can be computed by {@link ParallelBinaryMap} for
+     * complete operands, or <code>null</code>.
+     */
+    public ParallelBinaryMap.Operation getParallelOperation() {
+        return null;
+    }
+
     /**
      * Returns <code>true</code> if the result can always be considered complete.
      */
@@ -38,6 +38,7 @@ import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector.RMaterializedVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 import com.oracle.truffle.r.runtime.data.RRaw;
 import com.oracle.truffle.r.runtime.data.RScalarVector;
 import com.oracle.truffle.r.runtime.data.RSharingAttributeStorage;
@@ -166,6 +167,7 @@ final class BinaryMapVectorNode extends BinaryMapNode {
     private final ConditionProfile shareRight;
     private final ConditionProfile leftIsNAProfile;
     private final ConditionProfile rightIsNAProfile;
+    private final ConditionProfile parallelProfile;
 
     // compile-time optimization flags
     private final boolean mayContainMetadata;
@@ -173,6 +175,7 @@ final class BinaryMapVectorNode extends BinaryMapNode {
     private final boolean mayShareLeft;
     private final boolean mayShareRight;
     private final boolean isGeneric;
+    private final ParallelBinaryMap.Operation parallelOperation;
 
     BinaryMapVectorNode(BinaryMapFunctionNode function, RAbstractVector left, RAbstractVector right, RType argumentType, RType resultType, boolean copyAttributes, boolean isGeneric) {
         super(function, left, right, argumentType, resultType);
@@ -198,6 +201,9 @@ final class BinaryMapVectorNode extends BinaryMapNode {
         this.copyAttributes = mayContainMetadata ? CopyAttributesNodeGen.create(copyAttributes) : null;
         this.maxLengthProfile = ConditionProfile.createBinaryProfile();
         this.isGeneric = isGeneric;
+        ParallelBinaryMap.Operation operation = function.getParallelOperation();
+        this.parallelOperation = operation != null && operation.supports(argumentType, resultType) ? operation : null;
+        this.parallelProfile = parallelOperation != null ? ConditionProfile.createBinaryProfile() : null;
     }
 
     @Override
@@ -241,11 +247,25 @@ final class BinaryMapVectorNode extends BinaryMapNode {
 
                 assert left.getLength() == leftLength;
                 assert right.getLength() == rightLength;
-                if (mayShareLeft && left.getRType() == resultType && shareLeft.profile(leftLength == maxLength && ((RSharingAttributeStorage) left).isTemporary())) {
+                /*
+                 * The parallel map always allocates its result and takes precedence over the reuse of
+                 * a temporary operand: on an integer overflow it gives up and the sequential map
+                 * below recomputes the result, which needs the operands unchanged.
+                 */
+                RAbstractVector parallelResult = null;
+                if (parallelOperation != null && parallelProfile.profile(maxLength >= ParallelBinaryMap.MIN_PARALLEL_LENGTH && ParallelBinaryMap.useParallel(maxLength))) {
+                    parallelResult = ParallelBinaryMap.apply(parallelOperation, argumentType, left, leftLength, right, rightLength);
+                }
+                if (parallelResult != null) {
+                    target = parallelResult;
+                } else if (mayShareLeft && left.getRType() == resultType && shareLeft.profile(leftLength == maxLength && ((RSharingAttributeStorage) left).isTemporary())) {
                     target = left;
+                    // the values are overwritten in place, so any recorded order no longer holds
+                    target.setSortedness(Sortedness.UNKNOWN);
                     vectorNode.execute(function, leftLength, rightLength, left, leftAccess, leftIter, left, leftAccess, leftIter, right, rightAccess, rightIter);
                 } else if (mayShareRight && right.getRType() == resultType && shareRight.profile(rightLength == maxLength && ((RSharingAttributeStorage) right).isTemporary())) {
                     target = right;
+                    target.setSortedness(Sortedness.UNKNOWN);
                     vectorNode.execute(function, leftLength, rightLength, right, rightAccess, rightIter, left, leftAccess, leftIter, right, rightAccess, rightIter);
                 } else {
                     if (resultAccess == null) {
@@ -258,7 +278,10 @@ final class BinaryMapVectorNode extends BinaryMapNode {
                     }
                 }
                 RBaseNode.reportWork(this, maxLength);
-                target.setComplete(function.isComplete());
+                if (parallelResult == null) {
+                    // the parallel map determines the completeness of its result
+                    target.setComplete(function.isComplete());
+                }
             }
             if (mayContainMetadata) {
                 target = copyAttributes.execute(target, left, leftLength, right, rightLength);
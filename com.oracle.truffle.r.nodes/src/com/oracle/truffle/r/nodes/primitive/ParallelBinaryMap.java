@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.primitive;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+
+/**
+ * Element-wise arithmetic ({@code + - * /}) and comparisons of long, complete double or integer
+ * vectors for {@link BinaryMapNode}. The index range is split into chunks that are computed in
+ * parallel in the common fork-join pool, each by a plain loop over the backing arrays that the
+ * compiler can vectorize. Only operands of the same length or a scalar and a vector are handled,
+ * recycling of longer operands is left to the sequential map. Since the operands are complete,
+ * the {@code NA} checks of the sequential map are not needed; {@code NaN} still compares as
+ * {@code NA}. Integer overflow aborts the parallel map so that the sequential map produces the
+ * {@code NA} values and the warning.
+ */
+public final class ParallelBinaryMap {
+
+    /**
+     * Ranges up to this length are computed sequentially, vectors shorter than twice this length
+     * are never computed in parallel.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+
+    static final int MIN_PARALLEL_LENGTH = 2 * SEQUENTIAL_THRESHOLD;
+
+    private static final int NA_RESULT = 1;
+    private static final int OVERFLOW = 2;
+
+    public enum Operation {
+        ADD,
+        SUBTRACT,
+        MULTIPLY,
+        DIVIDE,
+        EQUAL,
+        NOT_EQUAL,
+        LESS,
+        LESS_EQUAL,
+        GREATER,
+        GREATER_EQUAL;
+
+        private boolean isComparison() {
+            return ordinal() >= EQUAL.ordinal();
+        }
+
+        /**
+         * Whether the operation can be computed in parallel for the given argument and result type
+         * of the {@link BinaryMapNode}.
+         */
+        boolean supports(RType argumentType, RType resultType) {
+            if (isComparison()) {
+                return resultType == RType.Logical && (argumentType == RType.Double || argumentType == RType.Integer);
+            } else if (argumentType == RType.Double) {
+                return resultType == RType.Double;
+            } else {
+                return argumentType == RType.Integer && resultType == RType.Integer && this != DIVIDE;
+            }
+        }
+    }
+
+    /**
+     * Computes the flags of the range {@code [lo..hi)} of the result.
+     */
+    @FunctionalInterface
+    private interface Kernel {
+        int apply(int lo, int hi);
+    }
+
+    private ParallelBinaryMap() {
+        // no instances
+    }
+
+    /**
+     * Whether vectors of length {@code n} should be mapped in parallel according to
+     * {@link FastROptions#ParallelArithmeticThreshold}.
+     */
+    @TruffleBoundary
+    static boolean useParallel(int n) {
+        int threshold = RContext.getInstance().getNonNegativeIntOption(FastROptions.ParallelArithmeticThreshold);
+        return threshold > 0 && n >= threshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Returns the result of {@code op} applied to {@code left} and {@code right}, or {@code null}
+     * if the operands are not supported or an integer overflow occurred. The completeness of the
+     * result is set.
+     */
+    @TruffleBoundary
+    static RAbstractVector apply(Operation op, RType argumentType, RAbstractVector left, int leftLength, RAbstractVector right, int rightLength) {
+        if (!(leftLength == rightLength || leftLength == 1 || rightLength == 1) || !left.isComplete() || !right.isComplete()) {
+            return null;
+        }
+        if (op == Operation.GREATER || op == Operation.GREATER_EQUAL) {
+            // x > y is computed as y < x, which saves the loops of two operations
+            return apply(op == Operation.GREATER ? Operation.LESS : Operation.LESS_EQUAL, argumentType, right, rightLength, left, leftLength);
+        }
+        int n = Math.max(leftLength, rightLength);
+        if (argumentType == RType.Double) {
+            if (!(left instanceof RAbstractDoubleVector && right instanceof RAbstractDoubleVector)) {
+                return null;
+            }
+            double[] a = leftLength == 1 ? null : getDoubleData(left);
+            double[] b = rightLength == 1 ? null : getDoubleData(right);
+            if ((a == null && leftLength != 1) || (b == null && rightLength != 1)) {
+                return null;
+            }
+            double as = a == null ? ((RAbstractDoubleVector) left).getDataAt(0) : 0;
+            double bs = b == null ? ((RAbstractDoubleVector) right).getDataAt(0) : 0;
+            if (op.isComparison()) {
+                byte[] r = new byte[n];
+                int flags = invoke(n, (lo, hi) -> compareDouble(op, a, as, b, bs, r, lo, hi));
+                return RDataFactory.createLogicalVector(r, (flags & NA_RESULT) == 0);
+            } else {
+                double[] r = new double[n];
+                invoke(n, (lo, hi) -> mapDouble(op, a, as, b, bs, r, lo, hi));
+                return RDataFactory.createDoubleVector(r, RDataFactory.COMPLETE_VECTOR);
+            }
+        } else {
+            if (!(left instanceof RAbstractIntVector && right instanceof RAbstractIntVector)) {
+                return null;
+            }
+            int[] a = leftLength == 1 ? null : getIntData(left);
+            int[] b = rightLength == 1 ? null : getIntData(right);
+            if ((a == null && leftLength != 1) || (b == null && rightLength != 1)) {
+                return null;
+            }
+            int as = a == null ? ((RAbstractIntVector) left).getDataAt(0) : 0;
+            int bs = b == null ? ((RAbstractIntVector) right).getDataAt(0) : 0;
+            if (op.isComparison()) {
+                byte[] r = new byte[n];
+                invoke(n, (lo, hi) -> compareInt(op, a, as, b, bs, r, lo, hi));
+                return RDataFactory.createLogicalVector(r, RDataFactory.COMPLETE_VECTOR);
+            } else {
+                int[] r = new int[n];
+                int flags = invoke(n, (lo, hi) -> mapInt(op, a, as, b, bs, r, lo, hi));
+                return (flags & OVERFLOW) != 0 ? null : RDataFactory.createIntVector(r, RDataFactory.COMPLETE_VECTOR);
+            }
+        }
+    }
+
+    private static double[] getDoubleData(RAbstractVector v) {
+        // native memory is left to the sequential map
+        return v instanceof RDoubleVector ? ((RDoubleVector) v).getInternalManagedData() : null;
+    }
+
+    private static int[] getIntData(RAbstractVector v) {
+        return v instanceof RIntVector ? ((RIntVector) v).getInternalManagedData() : null;
+    }
+
+    private static int invoke(int n, Kernel kernel) {
+        return ForkJoinPool.commonPool().invoke(new MapTask(kernel, 0, n));
+    }
+
+    /*
+     * The kernels below switch on the operation and the shape of the operands once per chunk, so
+     * that every combination is a plain loop over the arrays.
+     */
+
+    private static int mapDouble(Operation op, double[] a, double as, double[] b, double bs, double[] r, int lo, int hi) {
+        switch (op) {
+            case ADD:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = as + b[i];
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = a[i] + bs;
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = a[i] + b[i];
+                    }
+                }
+                break;
+            case SUBTRACT:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = as - b[i];
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = a[i] - bs;
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = a[i] - b[i];
+                    }
+                }
+                break;
+            case MULTIPLY:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = as * b[i];
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = a[i] * bs;
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = a[i] * b[i];
+                    }
+                }
+                break;
+            case DIVIDE:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = as / b[i];
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = a[i] / bs;
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = a[i] / b[i];
+                    }
+                }
+                break;
+            default:
+                throw RInternalError.shouldNotReachHere();
+        }
+        return 0;
+    }
+
+    private static int mapInt(Operation op, int[] a, int as, int[] b, int bs, int[] r, int lo, int hi) {
+        // the integer NA is an overflow too
+        boolean overflow = false;
+        switch (op) {
+            case ADD:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        long x = (long) as + b[i];
+                        int result = (int) x;
+                        overflow |= result != x | result == RRuntime.INT_NA;
+                        r[i] = result;
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        long x = (long) a[i] + bs;
+                        int result = (int) x;
+                        overflow |= result != x | result == RRuntime.INT_NA;
+                        r[i] = result;
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        long x = (long) a[i] + b[i];
+                        int result = (int) x;
+                        overflow |= result != x | result == RRuntime.INT_NA;
+                        r[i] = result;
+                    }
+                }
+                break;
+            case SUBTRACT:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        long x = (long) as - b[i];
+                        int result = (int) x;
+                        overflow |= result != x | result == RRuntime.INT_NA;
+                        r[i] = result;
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        long x = (long) a[i] - bs;
+                        int result = (int) x;
+                        overflow |= result != x | result == RRuntime.INT_NA;
+                        r[i] = result;
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        long x = (long) a[i] - b[i];
+                        int result = (int) x;
+                        overflow |= result != x | result == RRuntime.INT_NA;
+                        r[i] = result;
+                    }
+                }
+                break;
+            case MULTIPLY:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        long x = (long) as * b[i];
+                        int result = (int) x;
+                        overflow |= result != x | result == RRuntime.INT_NA;
+                        r[i] = result;
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        long x = (long) a[i] * bs;
+                        int result = (int) x;
+                        overflow |= result != x | result == RRuntime.INT_NA;
+                        r[i] = result;
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        long x = (long) a[i] * b[i];
+                        int result = (int) x;
+                        overflow |= result != x | result == RRuntime.INT_NA;
+                        r[i] = result;
+                    }
+                }
+                break;
+            default:
+                throw RInternalError.shouldNotReachHere();
+        }
+        return overflow ? OVERFLOW : 0;
+    }
+
+    private static int compareDouble(Operation op, double[] a, double as, double[] b, double bs, byte[] r, int lo, int hi) {
+        if ((a == null && Double.isNaN(as)) || (b == null && Double.isNaN(bs))) {
+            Arrays.fill(r, lo, hi, RRuntime.LOGICAL_NA);
+            return NA_RESULT;
+        }
+        switch (op) {
+            case EQUAL:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(as == b[i]);
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] == bs);
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] == b[i]);
+                    }
+                }
+                break;
+            case NOT_EQUAL:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(as != b[i]);
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] != bs);
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] != b[i]);
+                    }
+                }
+                break;
+            case LESS:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(as < b[i]);
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] < bs);
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] < b[i]);
+                    }
+                }
+                break;
+            case LESS_EQUAL:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(as <= b[i]);
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] <= bs);
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] <= b[i]);
+                    }
+                }
+                break;
+            default:
+                throw RInternalError.shouldNotReachHere();
+        }
+        // NaN compares as NA
+        int flags = a == null ? 0 : markNaN(a, r, lo, hi);
+        return b == null ? flags : flags | markNaN(b, r, lo, hi);
+    }
+
+    private static int markNaN(double[] x, byte[] r, int lo, int hi) {
+        int flags = 0;
+        for (int i = lo; i < hi; i++) {
+            if (Double.isNaN(x[i])) {
+                r[i] = RRuntime.LOGICAL_NA;
+                flags = NA_RESULT;
+            }
+        }
+        return flags;
+    }
+
+    private static int compareInt(Operation op, int[] a, int as, int[] b, int bs, byte[] r, int lo, int hi) {
+        switch (op) {
+            case EQUAL:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(as == b[i]);
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] == bs);
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] == b[i]);
+                    }
+                }
+                break;
+            case NOT_EQUAL:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(as != b[i]);
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] != bs);
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] != b[i]);
+                    }
+                }
+                break;
+            case LESS:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(as < b[i]);
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] < bs);
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] < b[i]);
+                    }
+                }
+                break;
+            case LESS_EQUAL:
+                if (a == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(as <= b[i]);
+                    }
+                } else if (b == null) {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] <= bs);
+                    }
+                } else {
+                    for (int i = lo; i < hi; i++) {
+                        r[i] = RRuntime.asLogical(a[i] <= b[i]);
+                    }
+                }
+                break;
+            default:
+                throw RInternalError.shouldNotReachHere();
+        }
+        return 0;
+    }
+
+    /**
+     * Applies the kernel to {@code [lo..hi)} and returns the union of the flags of all chunks.
+     */
+    @SuppressWarnings("serial")
+    private static final class MapTask extends RecursiveTask<Integer> {
+        private final Kernel kernel;
+        private final int lo;
+        private final int hi;
+
+        MapTask(Kernel kernel, int lo, int hi) {
+            this.kernel = kernel;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo <= SEQUENTIAL_THRESHOLD) {
+                return kernel.apply(lo, hi);
+            }
+            int mid = (lo + hi) >>> 1;
+            MapTask first = new MapTask(kernel, lo, mid);
+            first.fork();
+            int flags = new MapTask(kernel, mid, hi).compute();
+            return flags | first.join();
+        }
+    }
+}
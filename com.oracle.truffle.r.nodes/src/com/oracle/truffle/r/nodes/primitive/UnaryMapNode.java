@@ -39,6 +39,7 @@ import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector.RMaterializedVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 import com.oracle.truffle.r.runtime.data.RScalarVector;
 import com.oracle.truffle.r.runtime.data.RSharingAttributeStorage;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
@@ -149,6 +150,8 @@ final class UnaryMapVectorNode extends UnaryMapNode {
             try (SequentialIterator operandIter = operandAccess.access(operand)) {
                 if (mayShareOperand && operand.getRType() == resultType && shareOperand.profile(((RSharingAttributeStorage) operand).isTemporary())) {
                     target = operand;
+                    // the values are overwritten in place, so any recorded order no longer holds
+                    target.setSortedness(Sortedness.UNKNOWN);
                     vectorNode.execute(function, operandLength, operandAccess, operandIter, operandAccess, operandIter);
                 } else {
                     if (resultAccess == null) {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -23,39 +23,227 @@
 package com.oracle.truffle.r.runtime;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.r.runtime.context.FastROptions;
 import com.oracle.truffle.r.runtime.context.RContext;
 
+/**
+ * Cache of the lazy-load databases ({@code .rdb} files) used by {@code lazyLoadDBfetch}. The files
+ * are memory mapped rather than read into the heap and the mappings are shared read-only by all
+ * contexts. Callers only copy out the byte range of the key they fetch. The cache is an LRU bounded
+ * by the total size of the mapped files, see {@link FastROptions#LazyDBCacheSize}; the most
+ * recently used file is never evicted, so a single database larger than the limit still works.
+ * Since the mappings are shared, so is the limit: it is taken from the first context that
+ * initializes the cache and the option is ignored in all other contexts.
+ *
+ * A file is re-mapped if its size or modification time changed since it was mapped, which is
+ * checked once per context and file, or after {@code lazyLoadDBflush}.
+ */
 public class LazyDBCache {
 
+    private static final TruffleLogger LOGGER = RLogger.getLogger(LazyDBCache.class.getName());
+
+    private static final class MappedDB {
+        private final MappedByteBuffer buffer;
+        private final long size;
+        private final long lastModified;
+
+        MappedDB(MappedByteBuffer buffer, long size, long lastModified) {
+            this.buffer = buffer;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Mapped files in access order, guarded by itself.
+     */
+    private static final LinkedHashMap<String, MappedDB> mappedFiles = new LinkedHashMap<>(16, 0.75f, true);
+    private static long mappedBytes;
+
+    /**
+     * Process-wide limit of {@link #mappedBytes}, guarded by {@link #mappedFiles}, {@code -1} until
+     * the first context is initialized.
+     */
+    private static long cacheSize = -1;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+    private static final AtomicLong bytesRead = new AtomicLong();
+
     public static final class ContextStateImpl implements RContext.ContextState {
-        private final Map<String, byte[]> dbCache = new HashMap<>();
-
-        public byte[] getData(String dbPath) {
-            byte[] dbData = dbCache.get(dbPath);
-            if (dbData == null) {
-                try {
-                    dbData = Files.readAllBytes(FileSystems.getDefault().getPath(dbPath));
-                } catch (IOException ex) {
-                    // unexpected
-                    throw RInternalError.shouldNotReachHere(ex);
+        /**
+         * Files whose mapping has been checked for staleness in this context.
+         */
+        private final Set<String> validated = new HashSet<>();
+
+        @Override
+        public RContext.ContextState initialize(RContext context) {
+            long size = context.getNonNegativeIntOption(FastROptions.LazyDBCacheSize) * 1024L * 1024L;
+            synchronized (mappedFiles) {
+                if (cacheSize == -1) {
+                    cacheSize = size;
+                } else if (size != cacheSize) {
+                    LOGGER.fine(() -> "lazy DB cache size of " + size + " bytes ignored, the cache of all contexts is limited to " + cacheSize + " bytes");
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Returns a copy of the {@code length} bytes at {@code offset} of the given database.
+         */
+        @TruffleBoundary
+        public byte[] getData(String dbPath, int offset, int length) {
+            ByteBuffer buffer = getBuffer(dbPath).duplicate();
+            byte[] result = new byte[length];
+            buffer.position(offset);
+            buffer.get(result);
+            bytesRead.addAndGet(length);
+            return result;
+        }
+
+        private MappedByteBuffer getBuffer(String dbPath) {
+            boolean validate = validated.add(dbPath);
+            synchronized (mappedFiles) {
+                MappedDB db = mappedFiles.get(dbPath);
+                if (db != null && (!validate || isCurrent(dbPath, db))) {
+                    hits.incrementAndGet();
+                    return db.buffer;
                 }
-                dbCache.put(dbPath, dbData);
+                misses.incrementAndGet();
+                if (db != null) {
+                    mappedFiles.remove(dbPath);
+                    mappedBytes -= db.size;
+                }
+                db = map(dbPath);
+                mappedFiles.put(dbPath, db);
+                mappedBytes += db.size;
+                evict();
+                return db.buffer;
             }
-            return dbData;
         }
 
         public void remove(String dbPath) {
             // no an error if missing
-            dbCache.remove(dbPath);
+            validated.remove(dbPath);
+            synchronized (mappedFiles) {
+                MappedDB db = mappedFiles.remove(dbPath);
+                if (db != null) {
+                    mappedBytes -= db.size;
+                }
+            }
+        }
+
+        @Override
+        public void beforeDispose(RContext context) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine(String.format("lazy DB cache: %d hits, %d misses, %d evictions, %d bytes read, %d bytes mapped", hits.get(), misses.get(), evictions.get(), bytesRead.get(),
+                                getMappedBytes()));
+            }
         }
 
         public static ContextStateImpl newContextState() {
             return new ContextStateImpl();
         }
     }
+
+    /**
+     * Evicts the least recently used files, the last one is the one just mapped. Must be called
+     * while holding {@link #mappedFiles}.
+     */
+    private static void evict() {
+        Iterator<MappedDB> iter = mappedFiles.values().iterator();
+        while (mappedBytes > cacheSize && mappedFiles.size() > 1) {
+            MappedDB eldest = iter.next();
+            iter.remove();
+            mappedBytes -= eldest.size;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static boolean isCurrent(String dbPath, MappedDB db) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(getPath(dbPath), BasicFileAttributes.class);
+            return attrs.size() == db.size && attrs.lastModifiedTime().toMillis() == db.lastModified;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static MappedDB map(String dbPath) {
+        Path path = getPath(dbPath);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            long size = channel.size();
+            // the mapping stays valid after the channel is closed
+            return new MappedDB(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), size, lastModified);
+        } catch (IOException ex) {
+            // unexpected
+            throw RInternalError.shouldNotReachHere(ex);
+        }
+    }
+
+    private static Path getPath(String dbPath) {
+        return FileSystems.getDefault().getPath(dbPath);
+    }
+
+    public static long getCacheSize() {
+        synchronized (mappedFiles) {
+            return cacheSize;
+        }
+    }
+
+    /**
+     * Replaces the process-wide limit given by {@link FastROptions#LazyDBCacheSize}, intended for
+     * testing.
+     */
+    public static void setCacheSize(long size) {
+        synchronized (mappedFiles) {
+            cacheSize = size;
+            evict();
+        }
+    }
+
+    public static long getMappedBytes() {
+        synchronized (mappedFiles) {
+            return mappedBytes;
+        }
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Number of bytes copied out of the mapped files.
+     */
+    public static long getBytesRead() {
+        return bytesRead.get();
+    }
 }
@@ -23,8 +23,11 @@
 package com.oracle.truffle.r.runtime;
 
 import java.io.IOException;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.RootCallTarget;
@@ -41,6 +44,7 @@ import com.oracle.truffle.r.runtime.data.Closure;
 import com.oracle.truffle.r.runtime.data.RAttributable;
 import com.oracle.truffle.r.runtime.data.RAttributesLayout;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RFunction;
 import com.oracle.truffle.r.runtime.data.RPairList;
 import com.oracle.truffle.r.runtime.data.RList;
@@ -60,17 +64,26 @@ import java.util.concurrent.TimeUnit;
 /**
  * Implementation of a channel abstraction used for communication between parallel contexts in
  * shared memory space.
+ *
+ * Messages are not serialized: atomic vectors (and other values that do not refer to environments
+ * or language objects) are made permanently shared and handed over by reference, only lists,
+ * environments, promises and functions are converted, see {@link Output}. Each direction of a
+ * channel is a bounded lock-free {@link MessageQueue} that also keeps the throughput and latency
+ * statistics reported by {@link #getStatistics(int)}.
  */
 public class RChannel {
 
-    // TODO: cheaper way of serializing data (re-usable buffer?)
-
     private static final int INITIAL_CHANNEL_NUM = 4;
     private static final int CHANNEL_NUM_GROW_FACTOR = 2;
-    private static final int QUEUE_CAPACITY = 1;
+    private static final int QUEUE_CAPACITY = 16;
 
+    /*
+     * Both arrays are only modified while holding the create semaphore. The channels array is
+     * never updated in place: each change publishes a modified copy through the volatile field, so
+     * that channels can be looked up without locking.
+     */
     private static int[] keys = new int[INITIAL_CHANNEL_NUM];
-    private static RChannel[] channels = new RChannel[INITIAL_CHANNEL_NUM];
+    private static volatile RChannel[] channels = new RChannel[INITIAL_CHANNEL_NUM];
 
     private static final int CLOSED_CHANNEL_KEY = -1;
 
@@ -79,8 +92,180 @@ public class RChannel {
      */
     private static final Semaphore create = new Semaphore(1, true);
 
-    private final ArrayBlockingQueue<Object> masterToClient = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
-    private final ArrayBlockingQueue<Object> clientToMaster = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final MessageQueue masterToClient = new MessageQueue(QUEUE_CAPACITY);
+    private final MessageQueue clientToMaster = new MessageQueue(QUEUE_CAPACITY);
+
+    /**
+     * Bounded lock-free multi-producer multi-consumer queue (the array-based algorithm by D.
+     * Vyukov). Usually there is a single producer and a single consumer on each side of a
+     * channel, so the CAS operations hardly ever fail. Blocked producers and consumers spin for
+     * a short while and then park; the other side unparks them, and they also wake up
+     * periodically, so a missed wakeup can only delay them.
+     */
+    private static final class MessageQueue {
+        private static final int SPINS = 64;
+        private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private final int mask;
+        private final AtomicReferenceArray<Object> buffer;
+        private final AtomicLongArray sequences;
+        /**
+         * Time when the message in the slot was enqueued. Written before and read after the
+         * (volatile) sequence of the slot.
+         */
+        private final long[] timestamps;
+        private final AtomicLong enqueuePos = new AtomicLong();
+        private final AtomicLong dequeuePos = new AtomicLong();
+
+        private volatile Thread waitingProducer;
+        private volatile Thread waitingConsumer;
+
+        // statistics
+        private final AtomicLong messages = new AtomicLong();
+        private final AtomicLong latencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        private final AtomicLong producerWaitNanos = new AtomicLong();
+        private final AtomicLong consumerWaitNanos = new AtomicLong();
+
+        MessageQueue(int capacity) {
+            assert Integer.bitCount(capacity) == 1;
+            mask = capacity - 1;
+            buffer = new AtomicReferenceArray<>(capacity);
+            sequences = new AtomicLongArray(capacity);
+            timestamps = new long[capacity];
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(Object msg) {
+            long pos = enqueuePos.get();
+            while (true) {
+                int index = (int) pos & mask;
+                long diff = sequences.get(index) - pos;
+                if (diff == 0) {
+                    if (enqueuePos.compareAndSet(pos, pos + 1)) {
+                        buffer.lazySet(index, msg);
+                        timestamps[index] = System.nanoTime();
+                        sequences.set(index, pos + 1);
+                        LockSupport.unpark(waitingConsumer);
+                        return true;
+                    }
+                    pos = enqueuePos.get();
+                } else if (diff < 0) {
+                    // full
+                    return false;
+                } else {
+                    pos = enqueuePos.get();
+                }
+            }
+        }
+
+        Object poll() {
+            long pos = dequeuePos.get();
+            while (true) {
+                int index = (int) pos & mask;
+                long diff = sequences.get(index) - (pos + 1);
+                if (diff == 0) {
+                    if (dequeuePos.compareAndSet(pos, pos + 1)) {
+                        Object msg = buffer.get(index);
+                        long latency = System.nanoTime() - timestamps[index];
+                        buffer.lazySet(index, null);
+                        sequences.set(index, pos + mask + 1);
+                        LockSupport.unpark(waitingProducer);
+                        recordMessage(latency);
+                        return msg;
+                    }
+                    pos = dequeuePos.get();
+                } else if (diff < 0) {
+                    // empty
+                    return null;
+                } else {
+                    pos = dequeuePos.get();
+                }
+            }
+        }
+
+        void put(Object msg) throws InterruptedException {
+            if (offer(msg)) {
+                return;
+            }
+            long start = System.nanoTime();
+            int spins = 0;
+            while (!offer(msg)) {
+                if (spins++ < SPINS) {
+                    Thread.yield();
+                } else {
+                    waitingProducer = Thread.currentThread();
+                    if (!offer(msg)) {
+                        LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                    } else {
+                        waitingProducer = null;
+                        break;
+                    }
+                    waitingProducer = null;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            producerWaitNanos.addAndGet(System.nanoTime() - start);
+        }
+
+        /**
+         * Waits at most {@code timeoutNanos} (forever if not positive) for a message, returns
+         * {@code null} on timeout.
+         */
+        Object take(long timeoutNanos) throws InterruptedException {
+            Object msg = poll();
+            if (msg != null) {
+                return msg;
+            }
+            long start = System.nanoTime();
+            int spins = 0;
+            while ((msg = poll()) == null) {
+                long waited = System.nanoTime() - start;
+                if (timeoutNanos > 0 && waited >= timeoutNanos) {
+                    break;
+                }
+                if (spins++ < SPINS) {
+                    Thread.yield();
+                } else {
+                    waitingConsumer = Thread.currentThread();
+                    if ((msg = poll()) == null) {
+                        LockSupport.parkNanos(this, timeoutNanos > 0 ? Math.min(MAX_PARK_NANOS, timeoutNanos - waited) : MAX_PARK_NANOS);
+                    }
+                    waitingConsumer = null;
+                    if (msg != null) {
+                        break;
+                    }
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            consumerWaitNanos.addAndGet(System.nanoTime() - start);
+            return msg;
+        }
+
+        private void recordMessage(long latency) {
+            messages.incrementAndGet();
+            latencyNanos.addAndGet(latency);
+            long max;
+            while (latency > (max = maxLatencyNanos.get()) && !maxLatencyNanos.compareAndSet(max, latency)) {
+                // retry
+            }
+        }
+
+        RDoubleVector getStatistics() {
+            long count = messages.get();
+            double[] data = new double[]{count, producerWaitNanos.get() / 1e6, consumerWaitNanos.get() / 1e6, count == 0 ? 0 : latencyNanos.get() / 1e6 / count,
+                            maxLatencyNanos.get() / 1e6};
+            return RDataFactory.createDoubleVector(data, RDataFactory.COMPLETE_VECTOR, RDataFactory.createStringVector(STATISTICS_NAMES, RDataFactory.COMPLETE_VECTOR));
+        }
+    }
+
+    private static final String[] STATISTICS_NAMES = {"messages", "send.wait.ms", "receive.wait.ms", "latency.mean.ms", "latency.max.ms"};
 
     public static int createChannel(int key) {
         if (key <= 0) {
@@ -135,7 +320,9 @@ public class RChannel {
             }
             if (freeSlot != -1) {
                 keys[freeSlot] = key;
-                channels[freeSlot] = new RChannel();
+                RChannel[] channelsTmp = channels.clone();
+                channelsTmp[freeSlot] = new RChannel();
+                channels = channelsTmp;
                 return new int[]{freeSlot, key};
             } else {
                 int[] keysTmp = new int[keys.length * CHANNEL_NUM_GROW_FACTOR];
@@ -186,7 +373,9 @@ public class RChannel {
                 }
             }
             keys[actualId] = CLOSED_CHANNEL_KEY;
-            channels[actualId] = null;
+            RChannel[] channelsTmp = channels.clone();
+            channelsTmp[actualId] = null;
+            channels = channelsTmp;
         } catch (InterruptedException x) {
             throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "error closing channel");
         } finally {
@@ -196,18 +385,13 @@ public class RChannel {
 
     private static RChannel getChannelFromId(int id) {
         int actualId = Math.abs(id);
-        try {
-            create.acquire();
-            if (actualId == 0 || actualId >= channels.length || channels[actualId] == null) {
-                throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel with specified id does not exist");
-            }
-            RChannel channel = channels[actualId];
-            return channel;
-        } catch (InterruptedException x) {
-            throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "error transmitting through channel");
-        } finally {
-            create.release();
+        // lock-free, see the comment at the channels field
+        RChannel[] currentChannels = channels;
+        RChannel channel = actualId < currentChannels.length ? currentChannels[actualId] : null;
+        if (actualId == 0 || channel == null) {
+            throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel with specified id does not exist");
         }
+        return channel;
     }
 
     public static void send(int id, Object data) {
@@ -224,16 +408,11 @@ public class RChannel {
     public static Object receive(int id) {
         RChannel channel = getChannelFromId(id);
         try {
-            ArrayBlockingQueue<Object> queue = id < 0 ? channel.masterToClient : channel.clientToMaster;
+            MessageQueue queue = id < 0 ? channel.masterToClient : channel.clientToMaster;
+            // timeout for testing
+            // if no msg is send due to an error .take() will block forever
             int timeout = RContext.getInstance().getNonNegativeIntOption(ChannelReceiveTimeout);
-            Object msg;
-            if (timeout > 0) {
-                // timeout for testing
-                // if no msg is send due to an error .take() will block forever
-                msg = queue.poll(timeout, TimeUnit.SECONDS);
-            } else {
-                msg = queue.take();
-            }
+            Object msg = queue.take(TimeUnit.SECONDS.toNanos(timeout));
             if (msg != null) {
                 Input in = new Input();
                 return in.processedReceivedMessage(msg);
@@ -254,6 +433,20 @@ public class RChannel {
         return null;
     }
 
+    /**
+     * Returns the statistics of both directions of the channel as seen from the side identified by
+     * {@code id}: a list with elements {@code sent} and {@code received}, each a named vector with
+     * the number of messages, the total time (in ms) senders waited for a free slot and receivers
+     * for a message, and the mean and maximal time messages spent in the queue.
+     */
+    public static RList getStatistics(int id) {
+        RChannel channel = getChannelFromId(id);
+        MessageQueue sent = id > 0 ? channel.masterToClient : channel.clientToMaster;
+        MessageQueue received = id > 0 ? channel.clientToMaster : channel.masterToClient;
+        return RDataFactory.createList(new Object[]{sent.getStatistics(), received.getStatistics()},
+                        RDataFactory.createStringVector(new String[]{"sent", "received"}, RDataFactory.COMPLETE_VECTOR));
+    }
+
     private static class TransmitterCommon extends RSerialize.RefCounter {
 
         protected static class SerializedRef {
@@ -23,6 +23,7 @@
 package com.oracle.truffle.r.runtime;
 
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -198,26 +199,46 @@ public class RCompression {
         }
     }
 
-    public static byte[] bzipUncompressFromFile(String path) throws IOException {
+    /**
+     * Returns a stream of the data uncompressed by a {@code bzip2} subprocess. The exit code of the
+     * process is checked when the end of the stream is reached.
+     */
+    public static InputStream bzipUncompressStreamFromFile(String path) throws IOException {
         String[] command = new String[]{"bzip2", "-dc", path};
         ProcessBuilder pb = new ProcessBuilder(command);
         pb.redirectError(Redirect.INHERIT);
         Process p = pb.start();
-        InputStream is = p.getInputStream();
-        ProcessOutputManager.OutputThreadVariable readThread = new ProcessOutputManager.OutputThreadVariable(command[0], is);
-        readThread.start();
-        try {
-            int rc = p.waitFor();
-            if (rc == 0) {
-                readThread.join();
-                return Arrays.copyOf(readThread.getData(), readThread.getTotalRead());
-            } else {
-                throw new IOException("bzip2 error code: " + rc);
+        return new FilterInputStream(p.getInputStream()) {
+            @Override
+            public int read() throws IOException {
+                return checkEOF(super.read());
             }
-        } catch (InterruptedException ex) {
-            // fall through
-        }
-        throw new IOException();
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return checkEOF(super.read(b, off, len));
+            }
+
+            private int checkEOF(int result) throws IOException {
+                if (result == -1) {
+                    try {
+                        int rc = p.waitFor();
+                        if (rc != 0) {
+                            throw new IOException("bzip2 error code: " + rc);
+                        }
+                    } catch (InterruptedException ex) {
+                        throw new IOException();
+                    }
+                }
+                return result;
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                p.destroy();
+            }
+        };
     }
 
     public static void bzipCompressToFile(byte[] data, String path, boolean append) throws IOException {
@@ -134,6 +134,10 @@ public class RErrorHandling {
          * {@code true} if in {@link #printWarnings}.
          */
         private boolean inPrintWarning;
+        /**
+         * Number of warnings signalled, whether or not they were handled.
+         */
+        private long signalledWarnings;
 
         /**
          * {@code .signalSimpleWarning} in "conditions.R".
@@ -288,6 +292,14 @@ public class RErrorHandling {
         return entry.getGPBits() != 0;
     }
 
+    /**
+     * Returns the number of warnings signalled so far in the current context, e.g. to find out
+     * whether an operation raised a warning even if a handler took care of it.
+     */
+    public static long getSignalledWarnings() {
+        return getRErrorHandlingState().signalledWarnings;
+    }
+
     @TruffleBoundary
     public static String geterrmessage() {
         return getRErrorHandlingState().errMsg;
@@ -661,6 +673,7 @@ public class RErrorHandling {
          * destroy any visibility setting made by the calling builtin prior to this call.
          */
         ContextStateImpl errorHandlingState = getRErrorHandlingState();
+        errorHandlingState.signalledWarnings++;
         RFunction f = errorHandlingState.getDotSignalSimpleWarning();
         if (f != null) {
             RContext.getRRuntimeASTAccess().callback(f, new Object[]{warningMessage, call});
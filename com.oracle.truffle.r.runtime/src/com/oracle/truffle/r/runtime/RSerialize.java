@@ -28,13 +28,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -61,7 +67,10 @@ import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.api.source.SourceSection;
 import com.oracle.truffle.r.launcher.RVersionNumber;
 import com.oracle.truffle.r.runtime.RError.Message;
+import com.oracle.truffle.r.runtime.conn.ConnectionSupport;
 import com.oracle.truffle.r.runtime.conn.RConnection;
+import com.oracle.truffle.r.runtime.conn.RConnection.SeekMode;
+import com.oracle.truffle.r.runtime.conn.RConnection.SeekRWMode;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.Closure;
 import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
@@ -69,12 +78,15 @@ import com.oracle.truffle.r.runtime.data.RAttributable;
 import com.oracle.truffle.r.runtime.data.RAttributesLayout;
 import com.oracle.truffle.r.runtime.data.RBaseObject;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.REmpty;
 import com.oracle.truffle.r.runtime.data.RExternalPtr;
 import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RPairList;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector.RMaterializedVector;
+import com.oracle.truffle.r.runtime.data.RMappedVector;
 import com.oracle.truffle.r.runtime.data.RMissing;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RPromise;
@@ -323,11 +335,39 @@ public class RSerialize {
 
     @TruffleBoundary
     public static Object unserialize(RConnection conn) throws IOException {
+        int threshold = RContext.getInstance().getNonNegativeIntOption(FastROptions.MappedVectorThreshold);
+        String path = threshold > 0 ? ConnectionSupport.getUncompressedFilePath(conn) : null;
+        if (path != null) {
+            SeekableByteChannel channel = RContext.getInstance().getEnv().getTruffleFile(path).newByteChannel(EnumSet.of(StandardOpenOption.READ));
+            if (channel instanceof FileChannel) {
+                try (FileChannel file = (FileChannel) channel) {
+                    return unserializeMapped(conn, file, threshold * 1024L);
+                }
+            }
+            // the file system of the embedding cannot map this file, read it from the connection
+            channel.close();
+        }
         Input instance = trace() ? new TracingInput(conn) : new Input(conn);
         Object result = instance.unserialize();
         return result;
     }
 
+    /**
+     * Reads directly from {@code channel}, the file of {@code conn}, so that atomic vectors of at
+     * least {@code threshold} bytes can be memory mapped, see {@link RMappedVector}. The connection
+     * is positioned after the object afterwards.
+     */
+    private static Object unserializeMapped(RConnection conn, FileChannel channel, long threshold) throws IOException {
+        long start = conn.seek(0, SeekMode.ENQUIRE, SeekRWMode.READ);
+        channel.position(start);
+        InputStream is = Channels.newInputStream(channel);
+        Input instance = trace() ? new TracingInput(is, null, null, null) : new Input(is);
+        ((XdrInputFormat) instance.stream).enableMapping(channel, threshold);
+        Object result = instance.unserialize();
+        conn.seek(((XdrInputFormat) instance.stream).getFilePosition(), SeekMode.START, SeekRWMode.READ);
+        return result;
+    }
+
     @TruffleBoundary
     public static Object unserialize(RAbstractRawVector data) {
         byte[] buffer = data.materialize().getReadonlyData();
@@ -739,14 +779,18 @@ public class RSerialize {
 
                 case INTSXP: {
                     int len = stream.readInt();
+                    if (!Flags.hasAttr(flags) && stream.canMap(len * (long) Integer.BYTES)) {
+                        result = RDataFactory.createMappedIntVector(stream.map(len * (long) Integer.BYTES), len);
+                        break;
+                    }
                     int[] data = new int[len];
+                    stream.readInts(data);
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
                     for (int i = 0; i < len; i++) {
-                        int intVal = stream.readInt();
-                        if (intVal == RRuntime.INT_NA) {
+                        if (data[i] == RRuntime.INT_NA) {
                             complete = false;
+                            break;
                         }
-                        data[i] = intVal;
                     }
                     result = RDataFactory.createIntVector(data, complete);
                     break;
@@ -771,14 +815,18 @@ public class RSerialize {
 
                 case REALSXP: {
                     int len = stream.readInt();
+                    if (!Flags.hasAttr(flags) && stream.canMap(len * (long) Double.BYTES)) {
+                        result = RDataFactory.createMappedDoubleVector(stream.map(len * (long) Double.BYTES), len);
+                        break;
+                    }
                     double[] data = new double[len];
+                    stream.readDoubles(data);
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
                     for (int i = 0; i < len; i++) {
-                        double doubleVal = stream.readDouble();
-                        if (RRuntime.isNA(doubleVal)) {
+                        if (RRuntime.isNA(data[i])) {
                             complete = false;
+                            break;
                         }
-                        data[i] = doubleVal;
                     }
                     result = RDataFactory.createDoubleVector(data, complete);
                     break;
@@ -787,23 +835,21 @@ public class RSerialize {
                 case CPLXSXP: {
                     int len = stream.readInt();
                     double[] data = new double[2 * len];
+                    stream.readDoubles(data);
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
                     for (int i = 0; i < len; i++) {
                         int ix = 2 * i;
-                        double reVal = stream.readDouble();
+                        double reVal = data[ix];
                         if (RRuntime.isNA(reVal)) {
                             complete = false;
                         }
-                        double imVal = stream.readDouble();
+                        double imVal = data[ix + 1];
                         if (RRuntime.isNA(imVal)) {
                             complete = false;
                         }
                         if (RRuntime.isNA(reVal) && RRuntime.isNA(imVal)) {
                             data[ix] = RRuntime.COMPLEX_NA_REAL_PART;
                             data[ix + 1] = RRuntime.COMPLEX_NA_IMAGINARY_PART;
-                        } else {
-                            data[ix] = reVal;
-                            data[ix + 1] = imVal;
                         }
                     }
                     result = RDataFactory.createComplexVector(data, complete);
@@ -1078,6 +1124,34 @@ public class RSerialize {
 
         abstract void readRaw(byte[] data) throws IOException;
 
+        void readInts(int[] data) throws IOException {
+            for (int i = 0; i < data.length; i++) {
+                data[i] = readInt();
+            }
+        }
+
+        void readDoubles(double[] data) throws IOException {
+            for (int i = 0; i < data.length; i++) {
+                data[i] = readDouble();
+            }
+        }
+
+        /**
+         * Whether the next {@code size} bytes can be memory mapped by {@link #map(long)}.
+         */
+        @SuppressWarnings("unused")
+        boolean canMap(long size) {
+            return false;
+        }
+
+        /**
+         * Maps the next {@code size} bytes in chunks of {@link RMappedVector#CHUNK_SIZE} and skips
+         * them.
+         */
+        @SuppressWarnings("unused")
+        ByteBuffer[] map(long size) throws IOException {
+            throw RInternalError.shouldNotReachHere();
+        }
     }
 
     @SuppressWarnings("unused")
@@ -1183,6 +1257,13 @@ public class RSerialize {
 
         private final WeakHashMap<String, WeakReference<String>> strings = RContext.getInstance().stringMap;
 
+        /**
+         * The file read by {@link #is} if vectors of at least {@link #mapThreshold} bytes should be
+         * memory mapped.
+         */
+        private FileChannel file;
+        private long mapThreshold;
+
         XdrInputFormat(InputStream is) {
             super(is);
             if (is instanceof PByteArrayInputStream) {
@@ -1218,6 +1299,74 @@ public class RSerialize {
             ensureData(data.length).readRaw(data);
         }
 
+        void enableMapping(FileChannel channel, long threshold) {
+            assert !(is instanceof PByteArrayInputStream);
+            this.file = channel;
+            this.mapThreshold = threshold;
+        }
+
+        /**
+         * The position in {@link #file} of the next byte to be decoded.
+         */
+        long getFilePosition() throws IOException {
+            return file.position() - (defaultBuffer.size - defaultBuffer.offset);
+        }
+
+        @Override
+        boolean canMap(long size) {
+            return file != null && size >= mapThreshold;
+        }
+
+        @Override
+        ByteBuffer[] map(long size) throws IOException {
+            long position = getFilePosition();
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((size + RMappedVector.CHUNK_SIZE - 1) / RMappedVector.CHUNK_SIZE)];
+            for (int i = 0; i < chunks.length; i++) {
+                long offset = (long) i * RMappedVector.CHUNK_SIZE;
+                chunks[i] = file.map(FileChannel.MapMode.READ_ONLY, position + offset, Math.min(RMappedVector.CHUNK_SIZE, size - offset));
+            }
+            // skip the mapped data
+            long buffered = defaultBuffer.size - defaultBuffer.offset;
+            if (size <= buffered) {
+                defaultBuffer.offset += (int) size;
+            } else {
+                file.position(position + size);
+                defaultBuffer.offset = defaultBuffer.size = 0;
+            }
+            return chunks;
+        }
+
+        /*
+         * Atomic vectors are decoded in bulk by big-endian (i.e., XDR) views of the buffer, in
+         * pieces that fit into the default buffer.
+         */
+
+        @Override
+        void readInts(int[] data) throws IOException {
+            int maxCount = defaultBuffer.buf.length / Integer.BYTES;
+            int pos = 0;
+            while (pos < data.length) {
+                int count = Math.min(data.length - pos, maxCount);
+                Buffer buffer = ensureData(count * Integer.BYTES);
+                ByteBuffer.wrap(buffer.buf, buffer.offset, count * Integer.BYTES).asIntBuffer().get(data, pos, count);
+                buffer.offset += count * Integer.BYTES;
+                pos += count;
+            }
+        }
+
+        @Override
+        void readDoubles(double[] data) throws IOException {
+            int maxCount = defaultBuffer.buf.length / Double.BYTES;
+            int pos = 0;
+            while (pos < data.length) {
+                int count = Math.min(data.length - pos, maxCount);
+                Buffer buffer = ensureData(count * Double.BYTES);
+                ByteBuffer.wrap(buffer.buf, buffer.offset, count * Double.BYTES).asDoubleBuffer().get(data, pos, count);
+                buffer.offset += count * Double.BYTES;
+                pos += count;
+            }
+        }
+
         private Buffer ensureData(int n) throws IOException {
             Buffer usedBuffer;
             if (n > defaultBuffer.buf.length) {
@@ -1309,6 +1458,18 @@ public class RSerialize {
 
         abstract void flush() throws IOException;
 
+        void writeInts(int[] values) throws IOException {
+            for (int value : values) {
+                writeInt(value);
+            }
+        }
+
+        void writeDoubles(double[] values) throws IOException {
+            for (double value : values) {
+                writeDouble(value);
+            }
+        }
+
     }
 
     private static class XdrOutputFormat extends POutputStream {
@@ -1385,6 +1546,34 @@ public class RSerialize {
             buf[offset++] = (byte) (valueBits & 0xff);
         }
 
+        /**
+         * Encodes the values in buffer-sized blocks, which is considerably faster than encoding
+         * them one by one.
+         */
+        @Override
+        void writeInts(int[] values) throws IOException {
+            int pos = 0;
+            while (pos < values.length) {
+                ensureSpace(4);
+                int n = Math.min(values.length - pos, (buf.length - offset) >> 2);
+                ByteBuffer.wrap(buf, offset, n << 2).asIntBuffer().put(values, pos, n);
+                offset += n << 2;
+                pos += n;
+            }
+        }
+
+        @Override
+        void writeDoubles(double[] values) throws IOException {
+            int pos = 0;
+            while (pos < values.length) {
+                ensureSpace(8);
+                int n = Math.min(values.length - pos, (buf.length - offset) >> 3);
+                ByteBuffer.wrap(buf, offset, n << 3).asDoubleBuffer().put(values, pos, n);
+                offset += n << 3;
+                pos += n;
+            }
+        }
+
         private void ensureSpace(int n) throws IOException {
             if (offset + n > buf.length) {
                 flushBuffer();
@@ -1579,6 +1768,12 @@ public class RSerialize {
 
                             case INTSXP:
                             case LGLSXP: {
+                                if (obj instanceof RIntVector) {
+                                    int[] data = ((RIntVector) obj).getReadonlyData();
+                                    stream.writeInt(data.length);
+                                    stream.writeInts(data);
+                                    break;
+                                }
                                 // logicals are written as ints
                                 RAbstractVector vector = (RAbstractVector) obj;
                                 VectorAccess access = vector.slowPathAccess();
@@ -1592,6 +1787,12 @@ public class RSerialize {
                             }
 
                             case REALSXP: {
+                                if (obj instanceof RDoubleVector) {
+                                    double[] data = ((RDoubleVector) obj).getReadonlyData();
+                                    stream.writeInt(data.length);
+                                    stream.writeDoubles(data);
+                                    break;
+                                }
                                 RAbstractDoubleVector vector = (RAbstractDoubleVector) obj;
                                 VectorAccess access = vector.slowPathAccess();
                                 try (SequentialIterator iter = access.access(vector)) {
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+
+/**
+ * Cache of the compiled patterns of the {@code grep} family of builtins. Compiling a regular
+ * expression is usually much more expensive than matching it against a single string, and scripts
+ * tend to use the same few patterns over and over, so the compiled patterns are kept per context in
+ * an LRU map keyed by the engine, the pattern and the compilation flags. The number of entries is
+ * limited by {@link FastROptions#RegExpCacheSize}, zero disables the cache.
+ */
+public final class RegExpCache {
+
+    private static final TruffleLogger LOGGER = RLogger.getLogger(RegExpCache.class.getName());
+
+    public enum Engine {
+        /**
+         * {@link java.util.regex.Pattern}.
+         */
+        JAVA,
+        /**
+         * The PCRE library, the cached value is the result of the compile call.
+         */
+        PCRE,
+        /**
+         * {@link TRegexPattern}.
+         */
+        TREGEX
+    }
+
+    private static final class Key {
+        private final Engine engine;
+        private final String pattern;
+        private final int flags;
+        /**
+         * Additional engine specific part of the key, e.g. the PCRE character tables.
+         */
+        private final long extra;
+
+        Key(Engine engine, String pattern, int flags, long extra) {
+            this.engine = engine;
+            this.pattern = pattern;
+            this.flags = flags;
+            this.extra = extra;
+        }
+
+        @Override
+        public int hashCode() {
+            return (pattern.hashCode() * 31 + flags) * 31 + engine.ordinal() + Long.hashCode(extra);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return engine == other.engine && flags == other.flags && extra == other.extra && pattern.equals(other.pattern);
+        }
+    }
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private RegExpCache() {
+        // no instances
+    }
+
+    public static final class ContextStateImpl implements RContext.ContextState {
+        /**
+         * Compiled patterns in access order, guarded by {@code this}.
+         */
+        private final LinkedHashMap<Key, Object> patterns = new LinkedHashMap<>(16, 0.75f, true);
+        private int cacheSize;
+
+        @Override
+        public RContext.ContextState initialize(RContext context) {
+            cacheSize = context.getNonNegativeIntOption(FastROptions.RegExpCacheSize);
+            return this;
+        }
+
+        /**
+         * Returns the compiled {@link Pattern} for the given regular expression and flags.
+         *
+         * @throws java.util.regex.PatternSyntaxException if the expression is not valid
+         */
+        @TruffleBoundary
+        public Pattern getPattern(String regex, int flags) {
+            Key key = new Key(Engine.JAVA, regex, flags, 0);
+            Pattern result = (Pattern) get(key);
+            if (result == null) {
+                result = Pattern.compile(regex, flags);
+                put(key, result);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the cached value compiled by {@code engine} or {@code null} if there is none, in
+         * which case the caller compiles the pattern and stores it with {@link #put}.
+         */
+        @TruffleBoundary
+        public Object get(Engine engine, String pattern, int flags, long extra) {
+            return get(new Key(engine, pattern, flags, extra));
+        }
+
+        @TruffleBoundary
+        public void put(Engine engine, String pattern, int flags, long extra, Object compiled) {
+            put(new Key(engine, pattern, flags, extra), compiled);
+        }
+
+        private synchronized Object get(Key key) {
+            Object result = patterns.get(key);
+            if (result != null) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+            return result;
+        }
+
+        private synchronized void put(Key key, Object compiled) {
+            if (cacheSize == 0) {
+                return;
+            }
+            patterns.put(key, compiled);
+            Iterator<Object> iter = patterns.values().iterator();
+            while (patterns.size() > cacheSize) {
+                iter.next();
+                iter.remove();
+                evictions.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void beforeDispose(RContext context) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine(String.format("regexp cache: %d hits, %d misses, %d evictions", hits.get(), misses.get(), evictions.get()));
+            }
+        }
+
+        public static ContextStateImpl newContextState() {
+            return new ContextStateImpl();
+        }
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static long getEvictions() {
+        return evictions.get();
+    }
+}
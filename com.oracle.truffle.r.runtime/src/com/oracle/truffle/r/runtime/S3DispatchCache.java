@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.api.nodes.InvalidAssumptionException;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RPromise;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
+import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor.LookupResult;
+
+/**
+ * Cache of S3 method lookups for call sites whose inline caches are megamorphic. The cache is kept
+ * per context in an LRU map keyed by the generic, the group, the class vector, the frame descriptor
+ * of the caller frame and the {@code .__S3MethodsTable__.} environment. The size of the map is
+ * limited by {@link FastROptions#S3DispatchCacheSize}, zero disables the cache.
+ *
+ * An entry records every variable read the lookup depended on: reads starting in the caller frame
+ * are re-expressed as {@link FrameSlotChangeMonitor#lookup} results, which are invalidated when the
+ * bindings or the environment hierarchy change, reads in the methods table are guarded by the
+ * version of its frame descriptor and the values of the slots that were found. An entry is only
+ * used while all of them are unchanged, otherwise the lookup is performed and recorded again.
+ */
+public final class S3DispatchCache {
+
+    private static final TruffleLogger LOGGER = RLogger.getLogger(S3DispatchCache.class.getName());
+
+    /**
+     * Placeholder for values that cannot be compared, e.g. unevaluated promises.
+     */
+    private static final Object UNKNOWN = new Object();
+
+    public static final class Key {
+        private final String generic;
+        private final String group;
+        private final String[] classes;
+        private final boolean nextMethod;
+        private final boolean defaultMethod;
+        private final FrameDescriptor callerDescriptor;
+        private final Object methodsTable;
+        private final int hash;
+
+        private Key(String generic, String group, String[] classes, boolean nextMethod, boolean defaultMethod, FrameDescriptor callerDescriptor, Object methodsTable) {
+            this.generic = generic;
+            this.group = group;
+            this.classes = classes;
+            this.nextMethod = nextMethod;
+            this.defaultMethod = defaultMethod;
+            this.callerDescriptor = callerDescriptor;
+            this.methodsTable = methodsTable;
+            int h = generic.hashCode() * 31 + Arrays.hashCode(classes);
+            h = h * 31 + System.identityHashCode(callerDescriptor);
+            h = h * 31 + System.identityHashCode(methodsTable);
+            this.hash = (h * 31 + (group == null ? 0 : group.hashCode())) * 4 + (nextMethod ? 2 : 0) + (defaultMethod ? 1 : 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && callerDescriptor == other.callerDescriptor && methodsTable == other.methodsTable && nextMethod == other.nextMethod &&
+                            defaultMethod == other.defaultMethod && generic.equals(other.generic) && (group == null ? other.group == null : group.equals(other.group)) &&
+                            Arrays.equals(classes, other.classes);
+        }
+
+        /**
+         * The key stored in the map must not share the class vector's data.
+         */
+        private Key copy() {
+            return new Key(generic, group, classes.clone(), nextMethod, defaultMethod, callerDescriptor, methodsTable);
+        }
+    }
+
+    /**
+     * Collects the reads of a single lookup, see {@link ContextStateImpl#put}.
+     */
+    public static final class Recorder {
+        private final ArrayList<LookupResult> lookups = new ArrayList<>();
+        private final ArrayList<Object> lookupValues = new ArrayList<>();
+        private MaterializedFrame tableFrame;
+        private Assumption tableVersion;
+        private final ArrayList<FrameSlot> tableSlots = new ArrayList<>();
+        private final ArrayList<Object> tableValues = new ArrayList<>();
+        private boolean cacheable = true;
+
+        private Recorder() {
+        }
+
+        /**
+         * Records that looking up the function {@code name} from {@code frame} in the enclosing
+         * frames yielded {@code result} ({@code null} if there was none).
+         */
+        @TruffleBoundary
+        public void recordRead(Frame frame, String name, Object result) {
+            if (!cacheable) {
+                return;
+            }
+            LookupResult lookup = FrameSlotChangeMonitor.lookup(frame, name);
+            if (lookup == null || getValue(lookup) != result) {
+                // e.g. a local variable of a function or a non-function binding hiding the result
+                cacheable = false;
+                return;
+            }
+            lookups.add(lookup);
+            lookupValues.add(result);
+        }
+
+        /**
+         * Records that looking up the function {@code name} in the methods table {@code frame}
+         * only yielded {@code result} ({@code null} if there was none).
+         */
+        @TruffleBoundary
+        public void recordTableRead(MaterializedFrame frame, String name, Object result) {
+            if (!cacheable) {
+                return;
+            }
+            FrameDescriptor descriptor = frame.getFrameDescriptor();
+            if (tableFrame == null) {
+                tableFrame = frame;
+                tableVersion = descriptor.getVersion();
+            } else if (tableFrame != frame) {
+                cacheable = false;
+                return;
+            }
+            FrameSlot slot = descriptor.findFrameSlot(name);
+            if (slot == null) {
+                // covered by the version of the descriptor
+                cacheable = result == null;
+                return;
+            }
+            Object value = unwrap(FrameSlotChangeMonitor.getValue(slot, frame));
+            if (value != result) {
+                cacheable = false;
+                return;
+            }
+            tableSlots.add(slot);
+            tableValues.add(value);
+        }
+    }
+
+    private static final class Entry {
+        private final LookupResult[] lookups;
+        private final Object[] lookupValues;
+        private final MaterializedFrame tableFrame;
+        private final Assumption tableVersion;
+        private final FrameSlot[] tableSlots;
+        private final Object[] tableValues;
+        private final Object result;
+
+        Entry(Recorder recorder, Object result) {
+            this.lookups = recorder.lookups.toArray(new LookupResult[recorder.lookups.size()]);
+            this.lookupValues = recorder.lookupValues.toArray();
+            this.tableFrame = recorder.tableFrame;
+            this.tableVersion = recorder.tableVersion;
+            this.tableSlots = recorder.tableSlots.toArray(new FrameSlot[recorder.tableSlots.size()]);
+            this.tableValues = recorder.tableValues.toArray();
+            this.result = result;
+        }
+
+        boolean isValid() {
+            for (int i = 0; i < lookups.length; i++) {
+                if (!lookups[i].isValid() || getValue(lookups[i]) != lookupValues[i]) {
+                    return false;
+                }
+            }
+            if (tableVersion != null && !tableVersion.isValid()) {
+                return false;
+            }
+            for (int i = 0; i < tableSlots.length; i++) {
+                if (unwrap(FrameSlotChangeMonitor.getValue(tableSlots[i], tableFrame)) != tableValues[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong invalidations = new AtomicLong();
+    private static final AtomicLong uncacheable = new AtomicLong();
+
+    private S3DispatchCache() {
+        // no instances
+    }
+
+    private static Object getValue(LookupResult lookup) {
+        try {
+            return unwrap(lookup.getValue());
+        } catch (InvalidAssumptionException e) {
+            return UNKNOWN;
+        }
+    }
+
+    private static Object unwrap(Object value) {
+        if (value instanceof RPromise) {
+            RPromise promise = (RPromise) value;
+            return promise.isEvaluated() ? promise.getValue() : UNKNOWN;
+        }
+        return value;
+    }
+
+    /**
+     * Creates the key of a lookup. The class vector's data is only copied when the key is stored.
+     */
+    @TruffleBoundary
+    public static Key createKey(String generic, String group, RStringVector type, boolean nextMethod, boolean defaultMethod, Frame callerFrame, Object methodsTable) {
+        return new Key(generic, group, type.getReadonlyStringData(), nextMethod, defaultMethod, callerFrame.getFrameDescriptor(), methodsTable);
+    }
+
+    public static final class ContextStateImpl implements RContext.ContextState {
+        /**
+         * Lookups in access order, guarded by {@code this}.
+         */
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private int cacheSize;
+
+        @Override
+        public RContext.ContextState initialize(RContext context) {
+            cacheSize = context.getNonNegativeIntOption(FastROptions.S3DispatchCacheSize);
+            return this;
+        }
+
+        public boolean isEnabled() {
+            return cacheSize > 0;
+        }
+
+        /**
+         * Returns the cached result of the lookup or {@code null} if there is no valid one, in
+         * which case the caller performs the lookup with a {@link #startRecording() recorder} and
+         * stores its result with {@link #put}.
+         */
+        @TruffleBoundary
+        public synchronized Object get(Key key) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.isValid()) {
+                    hits.incrementAndGet();
+                    return entry.result;
+                }
+                entries.remove(key);
+                invalidations.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+
+        public Recorder startRecording() {
+            return new Recorder();
+        }
+
+        @TruffleBoundary
+        public synchronized void put(Key key, Recorder recorder, Object result) {
+            if (!recorder.cacheable) {
+                uncacheable.incrementAndGet();
+                return;
+            }
+            entries.put(key.copy(), new Entry(recorder, result));
+            Iterator<Entry> iter = entries.values().iterator();
+            while (entries.size() > cacheSize) {
+                iter.next();
+                iter.remove();
+            }
+        }
+
+        @Override
+        public void beforeDispose(RContext context) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine(String.format("S3 dispatch cache: %d hits, %d misses, %d invalidations, %d uncacheable", hits.get(), misses.get(), invalidations.get(), uncacheable.get()));
+            }
+        }
+
+        public static ContextStateImpl newContextState() {
+            return new ContextStateImpl();
+        }
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static long getInvalidations() {
+        return invalidations.get();
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLanguage.Env;
+import com.oracle.truffle.api.interop.InteropException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RNull;
+
+/**
+ * Regular expression compiled by TRegex, the regular expression engine of Truffle. TRegex compiles
+ * the patterns to automata whose matchers are Truffle call targets, so repeated matching of the
+ * same pattern gets compiled by the JIT. It is used for the non-perl regular expressions of the
+ * {@code grep} family if {@link FastROptions#UseTRegex} is set or if the R option
+ * {@code fastr.tregex} is {@code TRUE} at the time of the call.
+ *
+ * The patterns are given in the Java syntax produced by {@link RegExp#checkPreDefinedClasses} and
+ * translated to the ECMAScript syntax of TRegex. Only the common subset is translated, any other
+ * construct (e.g. back-references, embedded flags or possessive quantifiers) makes
+ * {@link #compile} return {@code null} and the caller falls back to {@link java.util.regex}. Unlike
+ * in Java, {@code $} only matches at the very end of the input, like in TRE.
+ */
+public final class TRegexPattern {
+
+    private static final String OPTION = "fastr.tregex";
+    private static final String LANGUAGE = "regex";
+
+    /**
+     * Cached in place of patterns that TRegex cannot handle.
+     */
+    private static final Object UNSUPPORTED = new Object();
+
+    private final Object regex;
+    private final int groupCount;
+
+    private TRegexPattern(Object regex, int groupCount) {
+        this.regex = regex;
+        this.groupCount = groupCount;
+    }
+
+    /**
+     * Whether TRegex should be used for the current call.
+     */
+    @TruffleBoundary
+    public static boolean isEnabled() {
+        RContext context = RContext.getInstance();
+        Object value = context.stateROptions.getValue(OPTION);
+        if (value != null && value != RNull.instance) {
+            return RRuntime.fromLogical(RRuntime.asLogicalObject(value));
+        }
+        return context.getOption(FastROptions.UseTRegex);
+    }
+
+    /**
+     * Returns the compiled pattern or {@code null} if TRegex is not available or does not support
+     * the pattern.
+     */
+    @TruffleBoundary
+    public static TRegexPattern compile(String javaPattern, boolean ignoreCase, boolean dotAll) {
+        RContext context = RContext.getInstance();
+        int flags = (ignoreCase ? 1 : 0) | (dotAll ? 2 : 0);
+        RegExpCache.ContextStateImpl cache = context.stateRegExpCache;
+        Object result = cache.get(RegExpCache.Engine.TREGEX, javaPattern, flags, 0);
+        if (result == null) {
+            result = doCompile(context.getEnv(), javaPattern, ignoreCase, dotAll);
+            cache.put(RegExpCache.Engine.TREGEX, javaPattern, flags, 0, result == null ? UNSUPPORTED : result);
+        }
+        return result == UNSUPPORTED ? null : (TRegexPattern) result;
+    }
+
+    private static TRegexPattern doCompile(Env env, String javaPattern, boolean ignoreCase, boolean dotAll) {
+        if (!env.getInternalLanguages().containsKey(LANGUAGE)) {
+            return null;
+        }
+        String pattern = toECMAScript(javaPattern);
+        if (pattern == null) {
+            return null;
+        }
+        String flags = (ignoreCase ? "i" : "") + (dotAll ? "s" : "");
+        try {
+            Object regex = env.parseInternal(Source.newBuilder(LANGUAGE, "/" + pattern + "/" + flags, "<R pattern>").internal(true).build()).call();
+            InteropLibrary interop = InteropLibrary.getFactory().getUncached();
+            if (interop.isNull(regex)) {
+                return null;
+            }
+            return new TRegexPattern(regex, interop.asInt(interop.readMember(regex, "groupCount")));
+        } catch (InteropException | RuntimeException e) {
+            // syntax not supported by TRegex, java.util.regex will report real errors
+            return null;
+        }
+    }
+
+    /**
+     * Number of groups including the whole match as the group 0.
+     */
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    @TruffleBoundary
+    public boolean find(String text) {
+        try {
+            InteropLibrary interop = InteropLibrary.getFactory().getUncached();
+            Object result = interop.invokeMember(regex, "exec", text, 0);
+            return interop.asBoolean(interop.readMember(result, "isMatch"));
+        } catch (InteropException e) {
+            throw RInternalError.shouldNotReachHere(e);
+        }
+    }
+
+    /**
+     * Returns the start and end of all the groups of the first match at or after {@code from}
+     * (start of the group {@code i} at {@code 2 * i}, end at {@code 2 * i + 1}, -1 for groups that
+     * did not participate) or {@code null} if there is no match.
+     */
+    @TruffleBoundary
+    public int[] match(String text, int from) {
+        try {
+            InteropLibrary interop = InteropLibrary.getFactory().getUncached();
+            Object result = interop.invokeMember(regex, "exec", text, from);
+            if (!interop.asBoolean(interop.readMember(result, "isMatch"))) {
+                return null;
+            }
+            int[] positions = new int[groupCount * 2];
+            if (interop.isMemberInvocable(result, "getStart")) {
+                for (int i = 0; i < groupCount; i++) {
+                    positions[2 * i] = interop.asInt(interop.invokeMember(result, "getStart", i));
+                    positions[2 * i + 1] = interop.asInt(interop.invokeMember(result, "getEnd", i));
+                }
+            } else {
+                Object starts = interop.readMember(result, "start");
+                Object ends = interop.readMember(result, "end");
+                for (int i = 0; i < groupCount; i++) {
+                    positions[2 * i] = interop.asInt(interop.readArrayElement(starts, i));
+                    positions[2 * i + 1] = interop.asInt(interop.readArrayElement(ends, i));
+                }
+            }
+            return positions;
+        } catch (InteropException e) {
+            throw RInternalError.shouldNotReachHere(e);
+        }
+    }
+
+    private enum PosixClass {
+        Alnum("0-9A-Za-z"),
+        Alpha("A-Za-z"),
+        Blank(" \\t"),
+        Cntrl("\\x00-\\x1F\\x7F"),
+        Digit("0-9"),
+        Graph("\\x21-\\x7E"),
+        Lower("a-z"),
+        Print("\\x20-\\x7E"),
+        Punct("!-\\/:-@\\[-`{-~"),
+        Space(" \\t\\n\\x0B\\f\\r"),
+        Upper("A-Z"),
+        XDigit("0-9A-Fa-f");
+
+        private final String ranges;
+
+        PosixClass(String ranges) {
+            this.ranges = ranges;
+        }
+    }
+
+    /**
+     * Translates a Java regular expression to ECMAScript or returns {@code null} if it uses
+     * anything outside of the subset with the same meaning in both.
+     */
+    static String toECMAScript(String pattern) {
+        StringBuilder sb = new StringBuilder(pattern.length() + 8);
+        boolean inClass = false;
+        int i = 0;
+        int len = pattern.length();
+        while (i < len) {
+            char c = pattern.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= len) {
+                    return null;
+                }
+                char d = pattern.charAt(i + 1);
+                i += 2;
+                if (d == 'p') {
+                    int end = pattern.indexOf('}', i);
+                    if (i >= len || pattern.charAt(i) != '{' || end < 0) {
+                        return null;
+                    }
+                    PosixClass posix;
+                    try {
+                        posix = PosixClass.valueOf(pattern.substring(i + 1, end));
+                    } catch (IllegalArgumentException e) {
+                        return null;
+                    }
+                    sb.append(inClass ? posix.ranges : "[" + posix.ranges + "]");
+                    i = end + 1;
+                } else if ("dDwWsS".indexOf(d) >= 0 || (!inClass && (d == 'b' || d == 'B'))) {
+                    sb.append('\\').append(d);
+                } else if (d > ' ' && d < 0x7f && !Character.isLetterOrDigit(d)) {
+                    sb.append('\\').append(d);
+                } else {
+                    return null;
+                }
+                continue;
+            }
+            if (inClass) {
+                if (c == '[' || (c == '&' && i + 1 < len && pattern.charAt(i + 1) == '&')) {
+                    return null;
+                }
+                if (c == ']') {
+                    inClass = false;
+                }
+                sb.append(c == '/' ? "\\/" : String.valueOf(c));
+                i++;
+                continue;
+            }
+            switch (c) {
+                case '[':
+                    inClass = true;
+                    sb.append(c);
+                    i++;
+                    if (i < len && pattern.charAt(i) == '^') {
+                        sb.append('^');
+                        i++;
+                    }
+                    if (i < len && pattern.charAt(i) == ']') {
+                        // a leading ']' is a literal in Java, but an empty class in ECMAScript
+                        return null;
+                    }
+                    continue;
+                case '(':
+                    if (i + 1 < len && pattern.charAt(i + 1) == '?') {
+                        return null;
+                    }
+                    break;
+                case '{': {
+                    int j = i + 1;
+                    while (j < len && Character.isDigit(pattern.charAt(j))) {
+                        j++;
+                    }
+                    if (j == i + 1) {
+                        return null;
+                    }
+                    if (j < len && pattern.charAt(j) == ',') {
+                        j++;
+                        while (j < len && Character.isDigit(pattern.charAt(j))) {
+                            j++;
+                        }
+                    }
+                    if (j >= len || pattern.charAt(j) != '}') {
+                        return null;
+                    }
+                    sb.append(pattern, i, j + 1);
+                    i = j + 1;
+                    if (i < len && pattern.charAt(i) == '+') {
+                        // possessive quantifier
+                        return null;
+                    }
+                    continue;
+                }
+                case '}':
+                    return null;
+                case '*':
+                case '+':
+                case '?':
+                    if (i + 1 < len && pattern.charAt(i + 1) == '+') {
+                        return null;
+                    }
+                    break;
+                case '/':
+                    sb.append('\\');
+                    break;
+            }
+            sb.append(c);
+            i++;
+        }
+        return inClass ? null : sb.toString();
+    }
+}
@@ -346,6 +346,20 @@ public class ConnectionSupport {
         }
     }
 
+    /**
+     * Returns the path of the file if {@code conn} reads an uncompressed file in binary mode,
+     * otherwise {@code null}.
+     */
+    public static String getUncompressedFilePath(RConnection conn) {
+        if (conn instanceof BaseRConnection) {
+            DelegateRConnection delegate = ((BaseRConnection) conn).theConnection;
+            if (delegate != null && delegate.getClass() == FileConnections.FileReadBinaryRConnection.class && delegate.base instanceof BasePathRConnection) {
+                return ((BasePathRConnection) delegate.base).path;
+            }
+        }
+        return null;
+    }
+
     public static final String FILE_URL_PREFIX = "file://";
 
     public static String removeFileURLPrefix(String path) {
@@ -641,12 +641,13 @@ abstract class DelegateRConnection extends RBaseObject implements RConnection, B
 
     static DelegateRConnection createGZIPDelegateOutputConnection(BaseRConnection base, OutputStream os) throws IOException {
         assert base.getOpenMode().canWrite();
-        return new CompressedOutputRConnection(base, new GZIPOutputStream(os, GZIP_BUFFER_SIZE), true);
+        OutputStream gzos = ParallelGZIPOutputStream.isUseful() ? new ParallelGZIPOutputStream(os) : new GZIPOutputStream(os, GZIP_BUFFER_SIZE);
+        return new CompressedOutputRConnection(base, gzos, true);
     }
 
     static DelegateRConnection createGZIPDelegateInputConnection(BaseRConnection base, InputStream is) throws IOException {
         assert base.getOpenMode().canRead();
-        return new CompressedInputRConnection(base, new GZIPInputStream(is, GZIP_BUFFER_SIZE));
+        return new CompressedInputRConnection(base, ReadAheadInputStream.wrap(new GZIPInputStream(is, GZIP_BUFFER_SIZE), base, "gzip"));
     }
 
     static class CompressedOutputRConnection extends DelegateWriteRConnection {
@@ -22,7 +22,6 @@
  */
 package com.oracle.truffle.r.runtime.conn;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
@@ -222,7 +221,7 @@ public class FileConnections {
         switch (base.getOpenMode().abstractOpenMode) {
             case Read:
             case ReadBinary:
-                return new CompressedInputRConnection(base, new XZInputStream(RContext.getInstance().getEnv().getTruffleFile(base.path).newInputStream()));
+                return new CompressedInputRConnection(base, ReadAheadInputStream.wrap(new XZInputStream(RContext.getInstance().getEnv().getTruffleFile(base.path).newInputStream()), base, "xz"));
             case Append:
             case AppendBinary:
                 return new CompressedOutputRConnection(base,
@@ -241,8 +240,7 @@ public class FileConnections {
         switch (base.getOpenMode().abstractOpenMode) {
             case Read:
             case ReadBinary:
-                byte[] bzipUdata = RCompression.bzipUncompressFromFile(base.path);
-                return new ByteStreamCompressedInputRConnection(base, new ByteArrayInputStream(bzipUdata));
+                return new CompressedInputRConnection(base, ReadAheadInputStream.wrap(RCompression.bzipUncompressStreamFromFile(base.path), base, "bzip2"));
             case Append:
             case AppendBinary:
                 return new BZip2OutputRConnection(base, new ByteArrayOutputStream(), true);
@@ -765,12 +763,6 @@ public class FileConnections {
         }
     }
 
-    private static class ByteStreamCompressedInputRConnection extends CompressedInputRConnection {
-        ByteStreamCompressedInputRConnection(BasePathRConnection base, ByteArrayInputStream is) {
-            super(base, is);
-        }
-    }
-
     private static class BZip2OutputRConnection extends CompressedOutputRConnection {
         private final ByteArrayOutputStream bos;
         private final boolean append;
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * GZIP output stream that compresses blocks of the data in parallel in the common fork-join pool,
+ * like {@code pigz}. Each block is deflated independently, primed with the last 32KB of the
+ * preceding block as the dictionary, and ends with a sync flush (the last one with the final
+ * block), so that the concatenation of the compressed blocks is a single regular deflate stream.
+ * The number of blocks being compressed is bounded, so the memory use does not depend on the size
+ * of the data.
+ */
+final class ParallelGZIPOutputStream extends OutputStream {
+
+    private static final int BLOCK_SIZE = 1 << 20;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final byte[] HEADER = {(byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final OutputStream out;
+    private final int maxPending;
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private long size;
+
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private byte[] dictionary;
+    private boolean closed;
+
+    ParallelGZIPOutputStream(OutputStream out) throws IOException {
+        this.out = out;
+        this.maxPending = 2 * ForkJoinPool.getCommonPoolParallelism();
+        out.write(HEADER);
+    }
+
+    /**
+     * Whether compressing in parallel makes sense on this machine.
+     */
+    static boolean isUseful() {
+        return ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        block[blockLength++] = (byte) b;
+        if (blockLength == BLOCK_SIZE) {
+            submitBlock(false);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int pos = off;
+        int remaining = len;
+        while (remaining > 0) {
+            int n = Math.min(remaining, BLOCK_SIZE - blockLength);
+            System.arraycopy(b, pos, block, blockLength, n);
+            blockLength += n;
+            pos += n;
+            remaining -= n;
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        byte[] data = block;
+        int length = blockLength;
+        byte[] dict = dictionary;
+        crc.update(data, 0, length);
+        size += length;
+        // only the last block can be shorter than the dictionary
+        if (length >= DICTIONARY_SIZE) {
+            byte[] newDictionary = new byte[DICTIONARY_SIZE];
+            System.arraycopy(data, length - DICTIONARY_SIZE, newDictionary, 0, DICTIONARY_SIZE);
+            dictionary = newDictionary;
+        }
+        pending.add(ForkJoinPool.commonPool().submit(() -> deflate(data, length, dict, last)));
+        block = last ? null : new byte[BLOCK_SIZE];
+        blockLength = 0;
+        while (pending.size() > maxPending) {
+            writeNext();
+        }
+    }
+
+    private static byte[] deflate(byte[] data, int length, byte[] dict, boolean last) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (dict != null) {
+                deflater.setDictionary(dict);
+            }
+            deflater.setInput(data, 0, length);
+            ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buf = new byte[64 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buf);
+                    result.write(buf, 0, n);
+                }
+            } else {
+                int n;
+                do {
+                    n = deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+                    result.write(buf, 0, n);
+                } while (n == buf.length || !deflater.needsInput());
+            }
+            return result.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        try {
+            out.write(pending.poll().get());
+        } catch (InterruptedException ex) {
+            throw new IOException("interrupted while compressing");
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // the current block is not flushed, that would make the compression less efficient
+        while (!pending.isEmpty() && pending.peek().isDone()) {
+            writeNext();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            submitBlock(true);
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+            writeIntLE((int) crc.getValue());
+            writeIntLE((int) size);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeIntLE(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import com.oracle.truffle.r.runtime.conn.ConnectionSupport.BaseRConnection;
+
+/**
+ * Input stream that reads (and thereby decompresses) the wrapped stream ahead of the reader in the
+ * common fork-join pool, at most {@link #MAX_CHUNKS} chunks ahead. This is used for compressed
+ * file connections opened in binary mode, so that e.g. {@code readRDS} decodes the data while the
+ * next part is being inflated, without having the whole uncompressed data in memory.
+ *
+ * The first chunk is read by the reader itself, so data shorter than a chunk is never read ahead.
+ * Each task reads a single chunk and the next one is only scheduled while the queue has room, so
+ * no pool thread ever waits for the reader and a connection that is not closed holds no thread,
+ * only the queued chunks.
+ */
+final class ReadAheadInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final int MAX_CHUNKS = 4;
+
+    /**
+     * The end of the wrapped stream after an error.
+     */
+    private static final Chunk EOF = new Chunk(new byte[0], 0, null, true);
+
+    private static final class Chunk {
+        private final byte[] data;
+        private final int length;
+        private final IOException error;
+        /**
+         * Whether this is the last chunk of the wrapped stream.
+         */
+        private final boolean last;
+
+        Chunk(byte[] data, int length, IOException error, boolean last) {
+            this.data = data;
+            this.length = length;
+            this.error = error;
+            this.last = last;
+        }
+    }
+
+    private final InputStream in;
+    private final String name;
+    private final ArrayBlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(MAX_CHUNKS);
+
+    /**
+     * Whether a task reading {@link #in} is scheduled or running, guarded by {@code this}.
+     */
+    private boolean scheduled;
+    /**
+     * Whether the last chunk has been read from {@link #in}, guarded by {@code this}.
+     */
+    private boolean finished;
+    private volatile boolean closed;
+
+    private Chunk current;
+    private int pos;
+
+    private ReadAheadInputStream(InputStream in, String name) {
+        this.in = in;
+        this.name = name;
+    }
+
+    /**
+     * Wraps the decompressing stream {@code in} of {@code base} if reading ahead is useful, i.e.
+     * for binary reads on a machine with more than one processor.
+     */
+    static InputStream wrap(InputStream in, BaseRConnection base, String name) {
+        if (base.getOpenMode().isText() || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            return in;
+        }
+        return new ReadAheadInputStream(in, name);
+    }
+
+    private Chunk readChunk() {
+        byte[] data = new byte[CHUNK_SIZE];
+        int n = 0;
+        try {
+            int nread = 0;
+            while (n < CHUNK_SIZE && (nread = in.read(data, n, CHUNK_SIZE - n)) != -1) {
+                n += nread;
+            }
+            return new Chunk(data, n, null, nread == -1);
+        } catch (IOException ex) {
+            return new Chunk(null, 0, ex, true);
+        }
+    }
+
+    private void schedule() {
+        synchronized (this) {
+            if (scheduled || finished || closed || chunks.remainingCapacity() == 0) {
+                return;
+            }
+            scheduled = true;
+        }
+        ForkJoinPool.commonPool().execute(this::readAhead);
+    }
+
+    private void readAhead() {
+        Chunk chunk = closed ? null : readChunk();
+        if (chunk != null) {
+            // cannot fail, this is the only task adding and there was room when it was scheduled
+            chunks.add(chunk);
+        }
+        synchronized (this) {
+            scheduled = false;
+            finished |= chunk == null || chunk.last;
+            notifyAll();
+        }
+        schedule();
+    }
+
+    /**
+     * Makes {@link #current} a chunk with available data, returns {@code false} at the end of the
+     * stream.
+     */
+    private boolean nextChunk() throws IOException {
+        while (current == null || pos == current.length) {
+            if (current != null && current.last) {
+                return false;
+            }
+            if (closed) {
+                throw new IOException("stream closed");
+            }
+            if (current == null) {
+                current = readChunk();
+                synchronized (this) {
+                    finished = current.last;
+                }
+            } else {
+                try {
+                    current = chunks.take();
+                } catch (InterruptedException ex) {
+                    throw new InterruptedIOException("interrupted while reading " + name);
+                }
+            }
+            pos = 0;
+            schedule();
+            if (current.error != null) {
+                IOException error = current.error;
+                current = EOF;
+                throw error;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextChunk()) {
+            return -1;
+        }
+        return current.data[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int total = 0;
+        while (total < len && nextChunk()) {
+            int n = Math.min(len - total, current.length - pos);
+            System.arraycopy(current.data, pos, b, off + total, n);
+            pos += n;
+            total += n;
+            if (chunks.isEmpty()) {
+                // do not wait for more data if we already have some
+                break;
+            }
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean interrupted = false;
+        synchronized (this) {
+            closed = true;
+            // a running task still reads from the wrapped stream
+            while (scheduled) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        chunks.clear();
+        in.close();
+    }
+}
@@ -214,7 +214,8 @@ public interface Engine {
 
     /**
      * Parse an R expression and return an {@link RExpression} object representing the Truffle ASTs
-     * for the components.
+     * for the components. Unless {@code keepSource} is {@code true}, the ASTs may come from the
+     * parse cache and no parse data is returned.
      */
     ParsedExpression parse(Source source, boolean keepSource) throws ParseException;
 
@@ -244,6 +245,13 @@ public interface Engine {
      */
     Object parseAndEval(Source sourceDesc, MaterializedFrame frame, boolean printResult) throws ParseException;
 
+    /**
+     * Like {@link #parseAndEval(Source, MaterializedFrame, boolean)}, which restores the AST from
+     * the parse cache if the same text was parsed before (see {@link FastROptions#ParseCacheSize}),
+     * but the cache is bypassed if {@code useParseCache} is {@code false}.
+     */
+    Object parseAndEval(Source sourceDesc, MaterializedFrame frame, boolean printResult, boolean useParseCache) throws ParseException;
+
     default Object eval(RExpression expr, REnvironment envir, RCaller caller) {
         return eval(expr, envir, null, caller, null);
     }
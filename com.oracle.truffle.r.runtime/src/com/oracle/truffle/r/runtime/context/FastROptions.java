@@ -121,6 +121,32 @@ public class FastROptions {
     public static final OptionKey<Boolean> RestrictForceSplitting = new OptionKey<>(true);
     @Option(category = OptionCategory.INTERNAL, help = "Turn on explicit GC via the gc built-in. Otherwise calls to gc are ignored.") //
     public static final OptionKey<Boolean> EnableExplicitGC = new OptionKey<>(false);
+    @Option(category = OptionCategory.EXPERT, help = "Minimal length of vectors ordered by multiple keys in parallel, 0 disables the parallel order") //
+    public static final OptionKey<Integer> ParallelOrderThreshold = new OptionKey<>(100000);
+    @Option(category = OptionCategory.EXPERT, help = "Minimal length of complete double or integer vectors whose arithmetic and comparisons are computed in parallel, 0 disables the parallel map. Values below 131072 are raised to it, shorter vectors are not worth splitting") //
+    public static final OptionKey<Integer> ParallelArithmeticThreshold = new OptionKey<>(1000000);
+    @Option(category = OptionCategory.EXPERT, help = "Maximal total size in MB of the memory mapped lazy-load databases of packages shared by all contexts, the value of the first context applies to all of them") //
+    public static final OptionKey<Integer> LazyDBCacheSize = new OptionKey<>(256);
+    @Option(category = OptionCategory.EXPERT, help = "Minimal size in KB of integer and double vectors without attributes that are memory mapped rather than read when unserialized from uncompressed files, 0 disables the mapping. The files must not be overwritten or truncated while the vectors are in use, the vectors would show the new data or the process may crash") //
+    public static final OptionKey<Integer> MappedVectorThreshold = new OptionKey<>(0);
+    @Option(category = OptionCategory.EXPERT, help = "Maximal number of compiled regular expressions of the grep family of builtins cached per context, 0 disables the cache") //
+    public static final OptionKey<Integer> RegExpCacheSize = new OptionKey<>(256);
+    @Option(category = OptionCategory.EXPERT, help = "Use TRegex for the regular expressions of grep, grepl, regexpr, gregexpr, sub and gsub without perl=TRUE, can be overridden by options(fastr.tregex=)") //
+    public static final OptionKey<Boolean> UseTRegex = new OptionKey<>(false);
+    @Option(category = OptionCategory.EXPERT, help = "Minimal length of character vectors processed in parallel by string builtins like grepl, gsub, nchar or substr, 0 disables the parallel processing") //
+    public static final OptionKey<Integer> ParallelStringThreshold = new OptionKey<>(100000);
+    @Option(category = OptionCategory.EXPERT, help = "Minimal number of multiply-adds (rows x inner dimension x columns) of double matrix products computed in parallel by %*%, crossprod and tcrossprod, 0 disables the parallel computation") //
+    public static final OptionKey<Integer> ParallelMatMultThreshold = new OptionKey<>(1000000);
+    @Option(category = OptionCategory.EXPERT, help = "Number of bindings from which an environment created by new.env(hash = TRUE) keeps them in a hash table instead of frame slots while it is only accessed by assign, get, exists, ls and similar builtins, 0 disables the hash table") //
+    public static final OptionKey<Integer> EnvHashThreshold = new OptionKey<>(4096);
+    @Option(category = OptionCategory.EXPERT, help = "Maximal number of S3 method lookups of megamorphic dispatch sites cached per context, 0 disables the cache") //
+    public static final OptionKey<Integer> S3DispatchCacheSize = new OptionKey<>(4096);
+    @Option(category = OptionCategory.EXPERT, help = "Directory of the on-disk cache of parsed R files and base package sources, empty for ~/.cache/fastr/parse, 'none' disables the on-disk cache") //
+    public static final OptionKey<String> ParseCacheDir = new OptionKey<>("");
+    @Option(category = OptionCategory.EXPERT, help = "Maximal total size in MB of the on-disk parse cache, the least recently used files are removed beyond it, 0 disables the on-disk cache") //
+    public static final OptionKey<Integer> ParseCacheDirSize = new OptionKey<>(64);
+    @Option(category = OptionCategory.EXPERT, help = "Maximal size in MB of the parsed sources kept in memory by the parse cache shared by all contexts, the value of the first context applies to all of them, 0 disables the in-memory cache") //
+    public static final OptionKey<Integer> ParseCacheSize = new OptionKey<>(32);
 
     // Discontinued since rc12
     // only a warning is printed to use the default logger mechanism
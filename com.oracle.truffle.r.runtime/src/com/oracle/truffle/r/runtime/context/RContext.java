@@ -87,6 +87,8 @@ import com.oracle.truffle.r.runtime.RProfile;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RRuntimeASTAccess;
 import com.oracle.truffle.r.runtime.RSerialize;
+import com.oracle.truffle.r.runtime.RegExpCache;
+import com.oracle.truffle.r.runtime.S3DispatchCache;
 import com.oracle.truffle.r.runtime.SuppressFBWarnings;
 import com.oracle.truffle.r.runtime.TempPathName;
 import com.oracle.truffle.r.runtime.Utils;
@@ -100,6 +102,7 @@ import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RFunction;
 import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 import com.oracle.truffle.r.runtime.ffi.DLL;
 import com.oracle.truffle.r.runtime.ffi.RFFIContext;
 import com.oracle.truffle.r.runtime.ffi.RFFIFactory;
@@ -357,6 +360,8 @@ public final class RContext {
     public final RRNG.ContextStateImpl stateRNG;
     public final RSerialize.ContextStateImpl stateRSerialize;
     public final LazyDBCache.ContextStateImpl stateLazyDBCache;
+    public final RegExpCache.ContextStateImpl stateRegExpCache;
+    public final S3DispatchCache.ContextStateImpl stateS3DispatchCache;
     public final InstrumentationState stateInstrumentation;
     public final ContextStateImpl stateInternalCode;
     public final DLL.ContextStateImpl stateDLL;
@@ -387,7 +392,7 @@ public final class RContext {
     private ContextState[] contextStates() {
         return new ContextState[]{stateREnvVars, stateRLocale, stateRProfile, stateTempPath, stateROptions, stateREnvironment, stateRErrorHandling, stateRConnection, stateStdConnections, stateRNG,
                         stateRFFI,
-                        stateRSerialize, stateLazyDBCache, stateInstrumentation, stateDLL, stateRNullMR};
+                        stateRSerialize, stateLazyDBCache, stateRegExpCache, stateS3DispatchCache, stateInstrumentation, stateDLL, stateRNullMR};
     }
 
     public static void setEmbedded() {
@@ -472,6 +477,8 @@ public final class RContext {
         this.stateRNG = RRNG.ContextStateImpl.newContextState();
         this.stateRSerialize = RSerialize.ContextStateImpl.newContextState();
         this.stateLazyDBCache = LazyDBCache.ContextStateImpl.newContextState();
+        this.stateRegExpCache = RegExpCache.ContextStateImpl.newContextState();
+        this.stateS3DispatchCache = S3DispatchCache.ContextStateImpl.newContextState();
         this.stateInstrumentation = InstrumentationState.newContextState(instrumenter);
         this.stateInternalCode = ContextStateImpl.newContextState();
         this.stateDLL = DLL.ContextStateImpl.newContextState();
@@ -556,6 +563,8 @@ public final class RContext {
         stateRNG.initialize(this);
         stateRSerialize.initialize(this);
         stateLazyDBCache.initialize(this);
+        stateRegExpCache.initialize(this);
+        stateS3DispatchCache.initialize(this);
         stateInstrumentation.initialize(this);
         stateInternalCode.initialize(this);
         stateRNullMR.initialize(this);
@@ -640,6 +649,9 @@ public final class RContext {
             state = EnumSet.of(State.DISPOSED);
 
             assert !initial || EvalThread.threadCnt.get() == 0 : "Did not close all children contexts";
+            if (initial) {
+                FrameSlotChangeMonitor.logStatistics();
+            }
 
             this.allocationReporter.removeActiveListener(ALLOCATION_ACTIVATION_LISTENER);
         }
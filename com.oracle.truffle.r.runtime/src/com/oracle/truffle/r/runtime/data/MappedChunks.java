@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.RMaterializedVector;
+
+/**
+ * The state shared by the {@link RMappedVector} implementations: the mapped regions, the length
+ * and the cached materialized vector. The implementations extend different abstract vector
+ * classes, so they delegate to this class rather than extend a common one.
+ */
+final class MappedChunks<T extends RMaterializedVector> {
+
+    private static final int INT_SHIFT = Integer.numberOfTrailingZeros(RMappedVector.CHUNK_SIZE) - 2;
+    private static final int INT_MASK = (1 << INT_SHIFT) - 1;
+    private static final int DOUBLE_SHIFT = Integer.numberOfTrailingZeros(RMappedVector.CHUNK_SIZE) - 3;
+    private static final int DOUBLE_MASK = (1 << DOUBLE_SHIFT) - 1;
+
+    private final ByteBuffer[] chunks;
+    private final int length;
+    private final AtomicReference<T> materialized = new AtomicReference<>();
+
+    MappedChunks(ByteBuffer[] chunks, int length, int elementSize) {
+        long size = length * (long) elementSize;
+        assert chunks.length == size / RMappedVector.CHUNK_SIZE + (size % RMappedVector.CHUNK_SIZE == 0 ? 0 : 1);
+        this.chunks = chunks;
+        this.length = length;
+    }
+
+    ByteBuffer[] getChunks() {
+        return chunks;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    int getInt(int index) {
+        assert index >= 0 && index < length;
+        return chunks[index >>> INT_SHIFT].getInt((index & INT_MASK) << 2);
+    }
+
+    double getDouble(int index) {
+        assert index >= 0 && index < length;
+        return chunks[index >>> DOUBLE_SHIFT].getDouble((index & DOUBLE_MASK) << 3);
+    }
+
+    @TruffleBoundary
+    int[] copyInts() {
+        int[] result = new int[length];
+        int pos = 0;
+        for (ByteBuffer chunk : chunks) {
+            int count = chunk.capacity() >> 2;
+            chunk.duplicate().asIntBuffer().get(result, pos, count);
+            pos += count;
+        }
+        return result;
+    }
+
+    @TruffleBoundary
+    double[] copyDoubles() {
+        double[] result = new double[length];
+        int pos = 0;
+        for (ByteBuffer chunk : chunks) {
+            int count = chunk.capacity() >> 3;
+            chunk.duplicate().asDoubleBuffer().get(result, pos, count);
+            pos += count;
+        }
+        return result;
+    }
+
+    T cachedMaterialize(Supplier<T> materialize) {
+        if (materialized.get() == null) {
+            materialized.compareAndSet(null, materialize.get());
+        }
+        return materialized.get();
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -29,6 +29,7 @@ import java.util.concurrent.ConcurrentLinkedDeque;
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 
@@ -44,6 +45,43 @@ public final class MemoryCopyTracer {
 
     private static final Assumption noMemoryCopyTracingAssumption = Truffle.getRuntime().createAssumption("data copy tracing");
 
+    /**
+     * Why the data were copied.
+     */
+    public enum Reason {
+        /**
+         * Copy of a vector, e.g. before modifying a shared vector.
+         */
+        COPY("copy"),
+        DEEP_COPY("deep copy"),
+        /**
+         * Copy into a vector of different length or dimensions.
+         */
+        RESIZE("resize"),
+        /**
+         * Materialization of a scalar, sequence or other vector without its own data array.
+         */
+        MATERIALIZE("materialize"),
+        /**
+         * Copy of the data of a vector from its native mirror.
+         */
+        FROM_NATIVE("from native"),
+        /**
+         * Copy of the data of a vector into its native mirror.
+         */
+        TO_NATIVE("to native");
+
+        private final String description;
+
+        Reason(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
     private MemoryCopyTracer() {
         // only static methods
     }
@@ -55,6 +93,10 @@ public final class MemoryCopyTracer {
         listeners.addLast(listener);
     }
 
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * After calling this method memory related events will be reported to the listener. This
      * invalidates global assumption and should be used with caution.
@@ -73,20 +115,49 @@ public final class MemoryCopyTracer {
      * no-op.
      */
     public static void reportCopying(RAbstractVector source, RAbstractVector dest) {
+        reportCopying(source, dest, Reason.COPY);
+    }
+
+    public static void reportCopying(RAbstractVector source, RAbstractVector dest, Reason reason) {
         assert RContext.getInstance() != null : "valid context needed whenever copying could be reported";
         if (!noMemoryCopyTracingAssumption.isValid() && enabled) {
-            notifyListeners(source, dest);
+            notifyListeners(source, dest, reason);
+        }
+    }
+
+    /**
+     * Reports a copy between a vector and its native mirror, of which only the size is known.
+     */
+    public static void reportNativeCopying(Reason reason, RType type, long bytes) {
+        if (!noMemoryCopyTracingAssumption.isValid() && enabled) {
+            notifyListeners(reason, type, bytes);
+        }
+    }
+
+    @TruffleBoundary
+    private static void notifyListeners(RAbstractVector source, RAbstractVector dest, Reason reason) {
+        for (Listener listener : listeners) {
+            listener.reportCopying(source, dest, reason);
         }
     }
 
     @TruffleBoundary
-    private static void notifyListeners(RAbstractVector source, RAbstractVector dest) {
+    private static void notifyListeners(Reason reason, RType type, long bytes) {
         for (Listener listener : listeners) {
-            listener.reportCopying(source, dest);
+            listener.reportNativeCopying(reason, type, bytes);
         }
     }
 
     public interface Listener {
         void reportCopying(RAbstractVector source, RAbstractVector dest);
+
+        default void reportCopying(RAbstractVector source, RAbstractVector dest, @SuppressWarnings("unused") Reason reason) {
+            reportCopying(source, dest);
+        }
+
+        @SuppressWarnings("unused")
+        default void reportNativeCopying(Reason reason, RType type, long bytes) {
+            // only interesting for some listeners
+        }
     }
 }
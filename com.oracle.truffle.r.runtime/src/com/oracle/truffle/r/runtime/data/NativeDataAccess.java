@@ -54,6 +54,7 @@ import com.oracle.truffle.api.source.SourceSection;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RLogger;
 import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.Utils;
 import com.oracle.truffle.r.runtime.context.FastROptions;
 import com.oracle.truffle.r.runtime.context.RContext;
@@ -103,7 +104,9 @@ class UnsafeAdapter {
  * allocated using e.g. {@link #allocateNativeContents(RIntVector, int[], int)} .
  *
  * There is a registry of weak references to all native mirrors ever assigned to some vector object.
- * We use the finalizer to free the native memory (if allocated).
+ * We use the finalizer to free the native memory (if allocated). The data of the mirrors is
+ * allocated from {@link NativeMemoryPool}, and the memory of collected mirrors is also released
+ * when the outermost native call returns, see {@link #releaseCollected()}.
  */
 public final class NativeDataAccess {
     private NativeDataAccess() {
@@ -182,6 +185,29 @@ public final class NativeDataAccess {
         return nativeRefQueue;
     }
 
+    /**
+     * Maximum number of references released by one call to {@link #releaseCollected()}.
+     */
+    private static final int MAX_RELEASED_ON_CALL_EXIT = 1024;
+
+    /**
+     * Releases the native memory of mirrors whose vectors have already been collected, so that it
+     * can be reused by the next allocation without waiting for the reference queue thread. Called
+     * when the outermost native call returns.
+     */
+    @TruffleBoundary
+    public static void releaseCollected() {
+        for (int i = 0; i < MAX_RELEASED_ON_CALL_EXIT; i++) {
+            Reference<?> ref = nativeRefQueue.poll();
+            if (ref == null) {
+                return;
+            }
+            if (ref instanceof Releasable) {
+                ((Releasable) ref).release();
+            }
+        }
+    }
+
     private static final class NativeMirror extends WeakReference<RBaseObject> implements Releasable {
         /**
          * ID of the mirror, this will be used as the value for SEXP. When native up-calls to Java,
@@ -227,6 +253,12 @@ public final class NativeDataAccess {
          */
         private boolean external;
 
+        /**
+         * The size requested from {@link NativeMemoryPool} for the data, zero if the data was not
+         * allocated from the pool.
+         */
+        private long allocatedBytes;
+
         NativeMirror(RBaseObject owner) {
             super(owner, nativeReferenceQueue());
             this.id = counter.addAndGet(2);
@@ -261,7 +293,7 @@ public final class NativeDataAccess {
             assert dataAddress == 0;
             if (len != 0) {
                 long bytesCount = trueLen * (long) elementSize;
-                setDataAddress(allocateNativeMemory(bytesCount));
+                setDataAddress(allocatePooled(bytesCount));
                 UnsafeAdapter.UNSAFE.copyMemory(source, elementBase, null, dataAddress, bytesCount);
             } else {
                 setDataAddress(getEmptyDataAddress());
@@ -275,7 +307,7 @@ public final class NativeDataAccess {
         @TruffleBoundary
         void allocateNativeString(byte[] bytes) {
             assert dataAddress == 0;
-            setDataAddress(allocateNativeMemory(bytes.length + 1));
+            setDataAddress(allocatePooled(bytes.length + 1));
             UnsafeAdapter.UNSAFE.copyMemory(bytes, Unsafe.ARRAY_BYTE_BASE_OFFSET, null, dataAddress, bytes.length);
             UnsafeAdapter.UNSAFE.putByte(dataAddress + bytes.length, (byte) 0); // C strings
                                                                                 // terminator
@@ -290,7 +322,7 @@ public final class NativeDataAccess {
             if (wrappers.length == 0) {
                 setDataAddress(getEmptyDataAddress());
             } else {
-                long addr = setDataAddress(allocateNativeMemory(wrappers.length * (long) Long.BYTES));
+                long addr = setDataAddress(allocatePooled(wrappers.length * (long) Long.BYTES));
                 for (int i = 0; i < wrappers.length; i++) {
                     UnsafeAdapter.UNSAFE.putLong(addr + (long) i * Long.BYTES, getPointer(wrappers[i]));
                 }
@@ -302,7 +334,7 @@ public final class NativeDataAccess {
             if (elements.length == 0) {
                 setDataAddress(getEmptyDataAddress());
             } else {
-                long addr = setDataAddress(allocateNativeMemory(elements.length * (long) Long.BYTES));
+                long addr = setDataAddress(allocatePooled(elements.length * (long) Long.BYTES));
                 for (int i = 0; i < elements.length; i++) {
                     Object element = elements[i];
                     Object materialized = FFIMaterializeNode.executeUncached(element);
@@ -318,6 +350,24 @@ public final class NativeDataAccess {
             }
         }
 
+        private long allocatePooled(long bytes) {
+            allocatedBytes = bytes;
+            return NativeMemoryPool.allocate(bytes);
+        }
+
+        /**
+         * Returns the data to {@link NativeMemoryPool} if it was allocated from there.
+         */
+        private void freePooled() {
+            if (allocatedBytes != 0) {
+                NativeMemoryPool.free(dataAddress, allocatedBytes);
+                allocatedBytes = 0;
+                if (dataAddressToNativeMirrors != null) {
+                    dataAddressToNativeMirrors.remove(dataAddress);
+                }
+            }
+        }
+
         @Override
         public void release() {
             if (id != 0) {
@@ -333,9 +383,13 @@ public final class NativeDataAccess {
                 assert (setDataAddress(0xbadbad)) != 0;
             } else if (dataAddress != 0 && !external) {
                 // System.err.printf("2. freeing data at %16x (id=%16x)\n", dataAddress, id);
-                freeNativeMemory(dataAddress);
-                if (dataAddressToNativeMirrors != null) {
-                    dataAddressToNativeMirrors.remove(dataAddress);
+                if (allocatedBytes != 0) {
+                    freePooled();
+                } else {
+                    freeNativeMemory(dataAddress);
+                    if (dataAddressToNativeMirrors != null) {
+                        dataAddressToNativeMirrors.remove(dataAddress);
+                    }
                 }
                 assert (setDataAddress(0xbadbad)) != 0;
             }
@@ -602,6 +656,7 @@ public final class NativeDataAccess {
         assert address != 0;
         double[] data = new double[(int) mirror.length];
         UnsafeAdapter.UNSAFE.copyMemory(null, address, data, Unsafe.ARRAY_DOUBLE_BASE_OFFSET, data.length * Unsafe.ARRAY_DOUBLE_INDEX_SCALE);
+        MemoryCopyTracer.reportNativeCopying(MemoryCopyTracer.Reason.FROM_NATIVE, RType.Double, (long) data.length * Unsafe.ARRAY_DOUBLE_INDEX_SCALE);
         return data;
     }
 
@@ -611,6 +666,7 @@ public final class NativeDataAccess {
         assert address != 0;
         double[] data = new double[(int) (mirror.length << 1)];
         UnsafeAdapter.UNSAFE.copyMemory(null, address, data, Unsafe.ARRAY_DOUBLE_BASE_OFFSET, data.length * Unsafe.ARRAY_DOUBLE_INDEX_SCALE);
+        MemoryCopyTracer.reportNativeCopying(MemoryCopyTracer.Reason.FROM_NATIVE, RType.Complex, (long) data.length * Unsafe.ARRAY_DOUBLE_INDEX_SCALE);
         return data;
     }
 
@@ -620,6 +676,7 @@ public final class NativeDataAccess {
         assert address != 0;
         int[] data = new int[(int) mirror.length];
         UnsafeAdapter.UNSAFE.copyMemory(null, address, data, Unsafe.ARRAY_INT_BASE_OFFSET, data.length * Unsafe.ARRAY_INT_INDEX_SCALE);
+        MemoryCopyTracer.reportNativeCopying(MemoryCopyTracer.Reason.FROM_NATIVE, RType.Integer, (long) data.length * Unsafe.ARRAY_INT_INDEX_SCALE);
         return data;
     }
 
@@ -630,6 +687,7 @@ public final class NativeDataAccess {
         assert address != 0;
         byte[] data = new byte[(int) mirror.length];
         UnsafeAdapter.UNSAFE.copyMemory(null, address, data, Unsafe.ARRAY_BYTE_BASE_OFFSET, data.length * Unsafe.ARRAY_BYTE_INDEX_SCALE);
+        MemoryCopyTracer.reportNativeCopying(MemoryCopyTracer.Reason.FROM_NATIVE, RType.Raw, data.length);
         return data;
     }
 
@@ -1152,6 +1210,7 @@ public final class NativeDataAccess {
             }
             noLogicalNative.invalidate();
             mirror.allocateNative(intArray, length, data.length, Unsafe.ARRAY_INT_BASE_OFFSET, Unsafe.ARRAY_INT_INDEX_SCALE);
+            MemoryCopyTracer.reportNativeCopying(MemoryCopyTracer.Reason.TO_NATIVE, RType.Logical, (long) data.length * Unsafe.ARRAY_INT_INDEX_SCALE);
         }
         return mirror.dataAddress;
     }
@@ -1164,6 +1223,7 @@ public final class NativeDataAccess {
             assert mirror.length == 0 && mirror.truelength == 0 : "mirror.length=" + mirror.length + ", mirror.truelength=" + mirror.truelength;
             noIntNative.invalidate();
             mirror.allocateNative(data, length, data.length, Unsafe.ARRAY_INT_BASE_OFFSET, Unsafe.ARRAY_INT_INDEX_SCALE);
+            MemoryCopyTracer.reportNativeCopying(MemoryCopyTracer.Reason.TO_NATIVE, RType.Integer, (long) data.length * Unsafe.ARRAY_INT_INDEX_SCALE);
         }
         return mirror.dataAddress;
     }
@@ -1176,6 +1236,7 @@ public final class NativeDataAccess {
             assert mirror.length == 0 && mirror.truelength == 0 : "mirror.length=" + mirror.length + ", mirror.truelength=" + mirror.truelength;
             noRawNative.invalidate();
             mirror.allocateNative(data, length, data.length, Unsafe.ARRAY_BYTE_BASE_OFFSET, Unsafe.ARRAY_BYTE_INDEX_SCALE);
+            MemoryCopyTracer.reportNativeCopying(MemoryCopyTracer.Reason.TO_NATIVE, RType.Raw, data.length);
         }
         return mirror.dataAddress;
     }
@@ -1188,6 +1249,7 @@ public final class NativeDataAccess {
             assert mirror.length == 0 && mirror.truelength == 0 : "mirror.length=" + mirror.length + ", mirror.truelength=" + mirror.truelength;
             noDoubleNative.invalidate();
             mirror.allocateNative(data, length, data.length, Unsafe.ARRAY_DOUBLE_BASE_OFFSET, Unsafe.ARRAY_DOUBLE_INDEX_SCALE);
+            MemoryCopyTracer.reportNativeCopying(MemoryCopyTracer.Reason.TO_NATIVE, RType.Double, (long) data.length * Unsafe.ARRAY_DOUBLE_INDEX_SCALE);
         }
         return mirror.dataAddress;
     }
@@ -1200,6 +1262,7 @@ public final class NativeDataAccess {
             assert mirror.length == 0 && mirror.truelength == 0 : "mirror.length=" + mirror.length + ", mirror.truelength=" + mirror.truelength;
             noComplexNative.invalidate();
             mirror.allocateNative(data, length, data.length, Unsafe.ARRAY_DOUBLE_BASE_OFFSET, Unsafe.ARRAY_DOUBLE_INDEX_SCALE * 2);
+            MemoryCopyTracer.reportNativeCopying(MemoryCopyTracer.Reason.TO_NATIVE, RType.Complex, (long) data.length * Unsafe.ARRAY_DOUBLE_INDEX_SCALE);
         }
         return mirror.dataAddress;
     }
@@ -1310,6 +1373,10 @@ public final class NativeDataAccess {
             noStringNative.invalidate();
         }
         NativeMirror mirror = (NativeMirror) obj.getNativeMirror();
+        if (mirror.dataAddress != address) {
+            // the mirror will not free the external data, but it still owns its pooled block
+            mirror.freePooled();
+        }
         mirror.setDataAddress(address);
         mirror.length = length;
 
@@ -1365,6 +1432,16 @@ public final class NativeDataAccess {
         String getAttribute(String idString, String attrName);
 
         String getNativeIdFromAddress(String dataAddressString);
+
+        long getLiveNativeBytes();
+
+        long getPooledNativeBytes();
+
+        long getPoolHits();
+
+        long getPoolMisses();
+
+        int getCleanerBacklog();
     }
 
     public static class NativeDataInspector implements NativeDataInspectorMBean {
@@ -1396,6 +1473,41 @@ public final class NativeDataAccess {
             return nativeMirror == null ? "" : String.format("%16x", nativeMirror.id);
         }
 
+        @Override
+        public long getLiveNativeBytes() {
+            return NativeMemoryPool.getLiveBytes();
+        }
+
+        @Override
+        public long getPooledNativeBytes() {
+            return NativeMemoryPool.getPooledBytes();
+        }
+
+        @Override
+        public long getPoolHits() {
+            return NativeMemoryPool.getHits();
+        }
+
+        @Override
+        public long getPoolMisses() {
+            return NativeMemoryPool.getMisses();
+        }
+
+        /**
+         * Number of mirrors whose vector has been collected, but whose native memory has not been
+         * released yet.
+         */
+        @Override
+        public int getCleanerBacklog() {
+            int result = 0;
+            for (NativeMirror mirror : NativeDataAccess.nativeMirrors.values()) {
+                if (mirror.get() == null) {
+                    result++;
+                }
+            }
+            return result;
+        }
+
     }
 
     static void initMBean() {
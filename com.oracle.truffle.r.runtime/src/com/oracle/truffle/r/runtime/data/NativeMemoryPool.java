@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Off-heap allocator for the data of native mirrors. Small blocks are rounded up to a power of two
+ * size class and, when freed, kept in a bounded per-class free list, so that the native memory of
+ * short-lived vectors passed to native code (e.g. {@code DATAPTR} on temporaries) is recycled
+ * instead of going through {@code malloc}/{@code free} every time. Blocks larger than the biggest
+ * size class are allocated and freed directly.
+ */
+final class NativeMemoryPool {
+
+    private static final int MIN_SHIFT = 4;
+    private static final int MAX_SHIFT = 16;
+
+    /**
+     * Upper bound of the bytes kept in the free list of each size class.
+     */
+    private static final int MAX_POOLED_BYTES_PER_CLASS = 1 << 20;
+    private static final int MAX_POOLED_BLOCKS_PER_CLASS = 1024;
+
+    private static final FreeList[] freeLists = new FreeList[MAX_SHIFT - MIN_SHIFT + 1];
+
+    static {
+        for (int i = 0; i < freeLists.length; i++) {
+            int blockSize = 1 << (i + MIN_SHIFT);
+            freeLists[i] = new FreeList(Math.min(MAX_POOLED_BLOCKS_PER_CLASS, MAX_POOLED_BYTES_PER_CLASS / blockSize));
+        }
+    }
+
+    private static final AtomicLong liveBytes = new AtomicLong();
+    private static final AtomicLong pooledBytes = new AtomicLong();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Stack of free blocks of one size class.
+     */
+    private static final class FreeList {
+        private final long[] blocks;
+        private int size;
+
+        FreeList(int capacity) {
+            blocks = new long[capacity];
+        }
+
+        synchronized long pop() {
+            return size == 0 ? 0 : blocks[--size];
+        }
+
+        synchronized boolean push(long address) {
+            if (size == blocks.length) {
+                return false;
+            }
+            blocks[size++] = address;
+            return true;
+        }
+    }
+
+    private NativeMemoryPool() {
+        // no instances
+    }
+
+    /**
+     * Returns the number of bytes actually reserved for a request of {@code bytes}, this is the
+     * value that has to be passed to {@link #free(long, long)}.
+     */
+    static long blockSize(long bytes) {
+        if (bytes > (1 << MAX_SHIFT)) {
+            return bytes;
+        }
+        return 1L << (sizeClass(bytes) + MIN_SHIFT);
+    }
+
+    private static int sizeClass(long bytes) {
+        if (bytes <= (1 << MIN_SHIFT)) {
+            return 0;
+        }
+        return 64 - Long.numberOfLeadingZeros(bytes - 1) - MIN_SHIFT;
+    }
+
+    static long allocate(long bytes) {
+        long blockSize = blockSize(bytes);
+        liveBytes.addAndGet(blockSize);
+        if (blockSize > (1 << MAX_SHIFT)) {
+            return UnsafeAdapter.UNSAFE.allocateMemory(blockSize);
+        }
+        long address = freeLists[sizeClass(blockSize)].pop();
+        if (address != 0) {
+            hits.incrementAndGet();
+            pooledBytes.addAndGet(-blockSize);
+            return address;
+        }
+        misses.incrementAndGet();
+        return UnsafeAdapter.UNSAFE.allocateMemory(blockSize);
+    }
+
+    /**
+     * Frees a block returned by {@link #allocate(long)} for a request of {@code bytes}.
+     */
+    static void free(long address, long bytes) {
+        long blockSize = blockSize(bytes);
+        liveBytes.addAndGet(-blockSize);
+        if (blockSize <= (1 << MAX_SHIFT) && freeLists[sizeClass(blockSize)].push(address)) {
+            pooledBytes.addAndGet(blockSize);
+            return;
+        }
+        UnsafeAdapter.UNSAFE.freeMemory(address);
+    }
+
+    /**
+     * Bytes allocated for native mirrors that are currently in use.
+     */
+    static long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    /**
+     * Bytes kept in the free lists.
+     */
+    static long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    static long getHits() {
+        return hits.get();
+    }
+
+    static long getMisses() {
+        return misses.get();
+    }
+}
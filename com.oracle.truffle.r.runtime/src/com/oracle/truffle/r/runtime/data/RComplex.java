@@ -69,7 +69,7 @@ public final class RComplex extends RAbstractComplexVector implements RScalarVec
     @Override
     public RComplexVector materialize() {
         RComplexVector result = RDataFactory.createComplexVector(new double[]{realPart, imaginaryPart}, isComplete());
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
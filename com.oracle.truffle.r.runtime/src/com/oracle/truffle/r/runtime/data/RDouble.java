@@ -70,7 +70,7 @@ public final class RDouble extends RAbstractDoubleVector implements RScalarVecto
     @Override
     public RDoubleVector materialize() {
         RDoubleVector result = RDataFactory.createDoubleVector(new double[]{getValue()}, isComplete());
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
@@ -97,6 +97,7 @@ public final class RDoubleVector extends RAbstractDoubleVector implements RMater
     public void setDataAt(Object store, int index, double value) {
         assert data == store;
         NativeDataAccess.setData(this, (double[]) store, index, value);
+        setSortedness(Sortedness.UNKNOWN);
     }
 
     @Override
@@ -117,6 +118,7 @@ public final class RDoubleVector extends RAbstractDoubleVector implements RMater
         } finally {
             data = null;
             complete = false;
+            setSortedness(Sortedness.UNKNOWN);
         }
     }
 
@@ -156,6 +158,7 @@ public final class RDoubleVector extends RAbstractDoubleVector implements RMater
     private RDoubleVector updateDataAt(int index, double value, NACheck valueNACheck) {
         assert !this.isShared();
         NativeDataAccess.setData(this, data, index, value);
+        setSortedness(Sortedness.UNKNOWN);
         if (valueNACheck.check(value)) {
             complete = false;
         }
@@ -176,6 +179,7 @@ public final class RDoubleVector extends RAbstractDoubleVector implements RMater
     @Override
     public void transferElementSameType(int toIndex, RAbstractVector fromVector, int fromIndex) {
         NativeDataAccess.setData(this, data, toIndex, ((RAbstractDoubleVector) fromVector).getDataAt(fromIndex));
+        setSortedness(Sortedness.UNKNOWN);
     }
 
     @Override
@@ -102,6 +102,7 @@ public final class RIntVector extends RAbstractIntVector implements RMaterialize
     public void setDataAt(Object store, int index, int value) {
         assert data == store;
         NativeDataAccess.setData(this, (int[]) store, index, value);
+        setSortedness(Sortedness.UNKNOWN);
     }
 
     public RIntVector copyResetData(int[] newData) {
@@ -129,6 +130,7 @@ public final class RIntVector extends RAbstractIntVector implements RMaterialize
         } finally {
             data = null;
             complete = false;
+            setSortedness(Sortedness.UNKNOWN);
         }
     }
 
@@ -169,6 +171,7 @@ public final class RIntVector extends RAbstractIntVector implements RMaterialize
         assert !this.isShared();
 
         NativeDataAccess.setData(this, data, index, value);
+        setSortedness(Sortedness.UNKNOWN);
         if (valueNACheck.check(value)) {
             setComplete(false);
         }
@@ -189,6 +192,7 @@ public final class RIntVector extends RAbstractIntVector implements RMaterialize
     @Override
     public void transferElementSameType(int toIndex, RAbstractVector fromVector, int fromIndex) {
         NativeDataAccess.setData(this, data, toIndex, ((RAbstractIntVector) fromVector).getDataAt(fromIndex));
+        setSortedness(Sortedness.UNKNOWN);
     }
 
     @Override
@@ -199,6 +203,7 @@ public final class RIntVector extends RAbstractIntVector implements RMaterialize
     @Override
     public void setElement(int index, Object value) {
         NativeDataAccess.setData(this, data, index, (int) value);
+        setSortedness(Sortedness.UNKNOWN);
     }
 
     public long allocateNativeContents() {
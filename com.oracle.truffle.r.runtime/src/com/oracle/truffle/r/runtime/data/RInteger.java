@@ -56,7 +56,7 @@ public final class RInteger extends RAbstractIntVector implements RScalarVector
     @Override
     public RIntVector materialize() {
         RIntVector result = RDataFactory.createIntVector(new int[]{getValue()}, isComplete());
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
@@ -72,7 +72,7 @@ public final class RLogical extends RAbstractLogicalVector implements RScalarVec
     @Override
     public RLogicalVector materialize() {
         RLogicalVector result = RDataFactory.createLogicalVector(new byte[]{getValue()}, isComplete());
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
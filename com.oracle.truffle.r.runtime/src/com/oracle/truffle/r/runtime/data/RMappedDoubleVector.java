@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.nio.ByteBuffer;
+
+import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.nodes.FastPathVectorAccess.FastPathFromDoubleAccess;
+import com.oracle.truffle.r.runtime.data.nodes.SlowPathVectorAccess.SlowPathFromDoubleAccess;
+import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
+
+/**
+ * {@link RMappedVector} of {@code double} elements. The elements are read from the mapped file on
+ * every access, see {@link RMappedVector} for what happens if the file changes.
+ */
+public final class RMappedDoubleVector extends RAbstractDoubleVector implements RMappedVector {
+
+    private final MappedChunks<RDoubleVector> data;
+
+    RMappedDoubleVector(ByteBuffer[] chunks, int length) {
+        super(RDataFactory.INCOMPLETE_VECTOR);
+        this.data = new MappedChunks<>(chunks, length, Double.BYTES);
+    }
+
+    @Override
+    public RDoubleVector cachedMaterialize() {
+        return data.cachedMaterialize(this::materialize);
+    }
+
+    @Override
+    public ByteBuffer[] getChunks() {
+        return data.getChunks();
+    }
+
+    @Override
+    public int getLength() {
+        return data.getLength();
+    }
+
+    @Override
+    public double getDataAt(int index) {
+        return data.getDouble(index);
+    }
+
+    @Override
+    public double[] getDataCopy() {
+        return data.copyDoubles();
+    }
+
+    private static final class FastPathAccess extends FastPathFromDoubleAccess {
+
+        FastPathAccess(RAbstractContainer value) {
+            super(value);
+        }
+
+        @Override
+        protected double getDoubleImpl(AccessIterator accessIter, int index) {
+            return ((RMappedDoubleVector) accessIter.getStore()).getDataAt(index);
+        }
+    }
+
+    @Override
+    public VectorAccess access() {
+        return new FastPathAccess(this);
+    }
+
+    private static final SlowPathFromDoubleAccess SLOW_PATH_ACCESS = new SlowPathFromDoubleAccess() {
+        @Override
+        protected double getDoubleImpl(AccessIterator accessIter, int index) {
+            return ((RMappedDoubleVector) accessIter.getStore()).getDataAt(index);
+        }
+    };
+
+    @Override
+    public VectorAccess slowPathAccess() {
+        return SLOW_PATH_ACCESS;
+    }
+}
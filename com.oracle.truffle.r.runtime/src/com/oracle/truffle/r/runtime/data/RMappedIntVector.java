@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.nio.ByteBuffer;
+
+import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.nodes.FastPathVectorAccess.FastPathFromIntAccess;
+import com.oracle.truffle.r.runtime.data.nodes.SlowPathVectorAccess.SlowPathFromIntAccess;
+import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
+
+/**
+ * {@link RMappedVector} of {@code int} elements. The elements are read from the mapped file on
+ * every access, see {@link RMappedVector} for what happens if the file changes.
+ */
+public final class RMappedIntVector extends RAbstractIntVector implements RMappedVector {
+
+    private final MappedChunks<RIntVector> data;
+
+    RMappedIntVector(ByteBuffer[] chunks, int length) {
+        super(RDataFactory.INCOMPLETE_VECTOR);
+        this.data = new MappedChunks<>(chunks, length, Integer.BYTES);
+    }
+
+    @Override
+    public RIntVector cachedMaterialize() {
+        return data.cachedMaterialize(this::materialize);
+    }
+
+    @Override
+    public ByteBuffer[] getChunks() {
+        return data.getChunks();
+    }
+
+    @Override
+    public int getLength() {
+        return data.getLength();
+    }
+
+    @Override
+    public int getDataAt(int index) {
+        return data.getInt(index);
+    }
+
+    @Override
+    public int[] getDataCopy() {
+        return data.copyInts();
+    }
+
+    private static final class FastPathAccess extends FastPathFromIntAccess {
+
+        FastPathAccess(RAbstractContainer value) {
+            super(value);
+        }
+
+        @Override
+        protected int getIntImpl(AccessIterator accessIter, int index) {
+            return ((RMappedIntVector) accessIter.getStore()).getDataAt(index);
+        }
+    }
+
+    @Override
+    public VectorAccess access() {
+        return new FastPathAccess(this);
+    }
+
+    private static final SlowPathFromIntAccess SLOW_PATH_ACCESS = new SlowPathFromIntAccess() {
+        @Override
+        protected int getIntImpl(AccessIterator accessIter, int index) {
+            return ((RMappedIntVector) accessIter.getStore()).getDataAt(index);
+        }
+    };
+
+    @Override
+    public VectorAccess slowPathAccess() {
+        return SLOW_PATH_ACCESS;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.nio.ByteBuffer;
+
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.RMaterializedVector;
+
+/**
+ * A read-only atomic vector whose elements are decoded on access from big-endian (i.e., XDR) data
+ * in memory mapped regions of a file, see {@code RSerialize}. Like {@link RSequence}-s, these
+ * vectors have no attributes and any update materializes them first.
+ *
+ * The file must not change while such a vector is reachable. The mapping is not a snapshot: if the
+ * file is overwritten in place, the vector silently shows the new contents, and if it is truncated,
+ * accessing the elements beyond its end raises {@code SIGBUS}, which the JVM reports as an
+ * {@link InternalError} or which may even crash the process. Replacing the file by a new one,
+ * i.e. writing a temporary file and renaming it, is safe on POSIX systems because the mapping keeps
+ * the old file alive. Note that {@code saveRDS} writes the file in place.
+ */
+public interface RMappedVector {
+
+    /**
+     * Regions are mapped in chunks of at most this many bytes.
+     */
+    int CHUNK_SIZE = 1 << 30;
+
+    /**
+     * Materializes the vector and remembers the materialized value for later use.
+     */
+    RMaterializedVector cachedMaterialize();
+
+    RAbstractVector materialize();
+
+    /**
+     * The mapped regions, each {@link #CHUNK_SIZE} bytes long except for the last one.
+     */
+    ByteBuffer[] getChunks();
+}
@@ -61,7 +61,7 @@ public final class RRaw extends RAbstractRawVector implements RScalarVector {
     @Override
     public RRawVector materialize() {
         RRawVector result = RDataFactory.createRawVector(new byte[]{getValue()});
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
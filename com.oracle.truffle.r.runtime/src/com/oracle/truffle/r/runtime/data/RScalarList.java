@@ -74,7 +74,7 @@ public final class RScalarList extends RAbstractListVector implements RScalarVec
     @Override
     public RList materialize() {
         RList result = RDataFactory.createList(new Object[]{getValue()});
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
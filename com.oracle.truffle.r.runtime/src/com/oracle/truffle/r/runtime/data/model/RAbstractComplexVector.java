@@ -120,7 +120,7 @@ public abstract class RAbstractComplexVector extends RAbstractAtomicVector {
     public RComplexVector materialize() {
         RComplexVector result = RDataFactory.createComplexVector(getDataCopy(), isComplete());
         copyAttributes(result);
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
@@ -63,7 +63,7 @@ public abstract class RAbstractDoubleVector extends RAbstractNumericVector {
     public RDoubleVector materialize() {
         RDoubleVector result = RDataFactory.createDoubleVector(getDataCopy(), isComplete());
         copyAttributes(result);
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
@@ -63,7 +63,7 @@ public abstract class RAbstractIntVector extends RAbstractNumericVector {
     public RIntVector materialize() {
         RIntVector result = RDataFactory.createIntVector(getDataCopy(), isComplete());
         copyAttributes(result);
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
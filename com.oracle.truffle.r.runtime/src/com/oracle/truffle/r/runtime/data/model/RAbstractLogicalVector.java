@@ -98,7 +98,7 @@ public abstract class RAbstractLogicalVector extends RAbstractAtomicVector {
     public RLogicalVector materialize() {
         RLogicalVector result = RDataFactory.createLogicalVector(getDataCopy(), isComplete());
         copyAttributes(result);
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
@@ -63,7 +63,7 @@ public abstract class RAbstractRawVector extends RAbstractNumericVector {
     @Override
     public RRawVector materialize() {
         RRawVector result = RDataFactory.createRawVector(getDataCopy());
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
@@ -99,7 +99,7 @@ public abstract class RAbstractStringVector extends RAbstractAtomicVector {
     public RStringVector materialize() {
         RStringVector result = RDataFactory.createStringVector(getDataCopy(), isComplete());
         copyAttributes(result);
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.MATERIALIZE);
         return result;
     }
 
@@ -70,6 +70,18 @@ public abstract class RAbstractVector extends RAbstractContainer implements RFFI
 
     protected boolean complete; // "complete" means: does not contain NAs
 
+    private Sortedness sortedness = Sortedness.UNKNOWN;
+
+    /**
+     * Sortedness of the vector data, see {@link RAbstractVector#getSortedness()}. A known
+     * sortedness also implies that the data contain no {@code NA} (or {@code NaN}) values.
+     */
+    public enum Sortedness {
+        UNKNOWN,
+        ASCENDING,
+        DESCENDING
+    }
+
     protected RAbstractVector(boolean complete) {
         this.complete = complete;
     }
@@ -162,7 +174,11 @@ public abstract class RAbstractVector extends RAbstractContainer implements RFFI
      * @return vector data
      */
     public final Object getDataNonShared() {
-        return !isShared() ? getReadonlyData() : getDataCopy();
+        if (!isShared()) {
+            sortedness = Sortedness.UNKNOWN;
+            return getReadonlyData();
+        }
+        return getDataCopy();
     }
 
     /**
@@ -174,7 +190,11 @@ public abstract class RAbstractVector extends RAbstractContainer implements RFFI
      * @return vector data
      */
     public Object getDataTemp() {
-        return isTemporary() ? getReadonlyData() : getDataCopy();
+        if (isTemporary()) {
+            sortedness = Sortedness.UNKNOWN;
+            return getReadonlyData();
+        }
+        return getDataCopy();
     }
 
     public void setComplete(boolean complete) {
@@ -182,6 +202,25 @@ public abstract class RAbstractVector extends RAbstractContainer implements RFFI
         assert RAbstractVector.verifyVector(this);
     }
 
+    /**
+     * Returns the sortedness recorded by the producer of this vector (e.g. {@code sort}). The
+     * information is dropped whenever the vector is modified in place and is never reported for
+     * vectors that have a native mirror, because native code may write into their data.
+     */
+    public final Sortedness getSortedness() {
+        return getNativeMirror() == null ? sortedness : Sortedness.UNKNOWN;
+    }
+
+    /**
+     * Records the sortedness of this vector. Only to be used for vectors whose data are known to be
+     * sorted and {@code NA}-free, and with {@link Sortedness#UNKNOWN} by any code that writes into
+     * the vector data other than via the vector's own setters.
+     */
+    public final void setSortedness(Sortedness sortedness) {
+        this.sortedness = sortedness;
+        assert sortedness == Sortedness.UNKNOWN || verifySortedness(this);
+    }
+
     /*
      * Version without profiles is used by RDeparse and for internal attribute copying (both are not
      * performance-critical)
@@ -571,7 +610,7 @@ public abstract class RAbstractVector extends RAbstractContainer implements RFFI
         RAbstractVector materialized = materialize();
         assert materialized.isMaterialized();
         RAbstractVector result = materialized.internalCopyResized(size, fillNA, null);
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.RESIZE);
         return result;
     }
 
@@ -581,7 +620,7 @@ public abstract class RAbstractVector extends RAbstractContainer implements RFFI
         // TODO support for higher dimensions
         assert newDimensions.length == 2;
         RAbstractVector result = materialized.internalCopyResized(newDimensions[0] * newDimensions[1], fillNA, newDimensions);
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.RESIZE);
         return result;
     }
 
@@ -600,7 +639,7 @@ public abstract class RAbstractVector extends RAbstractContainer implements RFFI
 
     private RAbstractVector internalDeepCopyAndReport() {
         RAbstractVector result = internalDeepCopy();
-        MemoryCopyTracer.reportCopying(this, result);
+        MemoryCopyTracer.reportCopying(this, result, MemoryCopyTracer.Reason.DEEP_COPY);
         return result;
     }
 
@@ -957,6 +996,30 @@ public abstract class RAbstractVector extends RAbstractContainer implements RFFI
         return true;
     }
 
+    /**
+     * Verifies that a vector with a known {@link #getSortedness()} is sorted and {@code NA}-free.
+     */
+    public static boolean verifySortedness(RAbstractVector vector) {
+        CompilerAsserts.neverPartOfCompilation();
+        VectorAccess access = vector.slowPathAccess();
+        RType type = access.getType();
+        assert type == RType.Integer || type == RType.Double : "sortedness of " + type + " vector";
+        boolean ascending = vector.sortedness == Sortedness.ASCENDING;
+        access.na.enable(true);
+        try (SequentialIterator iter = access.access(vector)) {
+            double last = 0;
+            while (access.next(iter)) {
+                assert !access.isNA(iter) : "element " + iter.getIndex() + " of sorted vector " + vector + " is NA";
+                double d = access.getDouble(iter);
+                assert !Double.isNaN(d) : "element " + iter.getIndex() + " of sorted vector " + vector + " is NaN";
+                boolean inOrder = iter.getIndex() == 0 || (ascending ? last <= d : last >= d);
+                last = d;
+                assert inOrder : "element " + iter.getIndex() + " of vector " + vector + " is not sorted";
+            }
+        }
+        return true;
+    }
+
     @Override
     public void setLength(int l) {
         throw RInternalError.shouldNotReachHere();
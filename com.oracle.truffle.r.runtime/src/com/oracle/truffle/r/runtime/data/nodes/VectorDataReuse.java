@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2017, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -35,6 +35,7 @@ import com.oracle.truffle.r.runtime.data.RComplexVector;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 import java.util.Arrays;
 
 /**
@@ -50,6 +51,7 @@ public class VectorDataReuse {
 
         @Specialization(guards = {"!vec.hasNativeMemoryData()", "vec.isTemporary()"})
         protected int[] doManagedTempRVector(RIntVector vec) {
+            vec.setSortedness(Sortedness.UNKNOWN);
             return vec.getInternalManagedData();
         }
 
@@ -75,6 +77,7 @@ public class VectorDataReuse {
 
         @Specialization(guards = {"!vec.hasNativeMemoryData()", "vec.isTemporary()"})
         protected double[] doManagedTempRVector(RDoubleVector vec) {
+            vec.setSortedness(Sortedness.UNKNOWN);
             return vec.getInternalManagedData();
         }
 
@@ -31,6 +31,7 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractVector.RMaterializedVect
 import com.oracle.truffle.r.runtime.data.RSharingAttributeStorage;
 import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector.Sortedness;
 
 /**
  * Node that should be used whenever you want to alter some vector: if the vector is shared, then it
@@ -108,7 +109,7 @@ public final class VectorReuse extends Node {
         RAbstractContainer result;
         if (isGeneric) {
             if (RSharingAttributeStorage.isShareable(vector) && isTempOrNonShared(vector)) {
-                result = vector;
+                result = invalidateSortedness(vector);
             } else {
                 result = copyVector(vector);
             }
@@ -116,7 +117,7 @@ public final class VectorReuse extends Node {
             if (!isShareableClass || !isTempOrNonShared) {
                 result = cast(vector).copy();
             } else {
-                result = cast(vector);
+                result = invalidateSortedness(cast(vector));
             }
         }
         return (T) result;
@@ -127,7 +128,7 @@ public final class VectorReuse extends Node {
         RAbstractContainer result;
         if (isGeneric) {
             if (RSharingAttributeStorage.isShareable(vector) && isTempOrNonShared(vector)) {
-                result = vector.materialize();
+                result = invalidateSortedness(vector.materialize());
             } else {
                 result = copyVector(vector).materialize();
             }
@@ -142,12 +143,22 @@ public final class VectorReuse extends Node {
                     result = profileCopiedValue(cast(vector).copy()).materialize();
                 }
             } else {
-                result = cast(vector).materialize();
+                result = invalidateSortedness(cast(vector).materialize());
             }
         }
         return (T) result;
     }
 
+    /**
+     * The reused vector is going to be written into, so any recorded sortedness becomes stale.
+     */
+    private static RAbstractContainer invalidateSortedness(RAbstractContainer vector) {
+        if (vector instanceof RAbstractVector) {
+            ((RAbstractVector) vector).setSortedness(Sortedness.UNKNOWN);
+        }
+        return vector;
+    }
+
     private RAbstractContainer profileCopiedValue(RAbstractContainer vec) {
         if (copiedValueProfile == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -57,6 +57,7 @@ import com.oracle.truffle.r.runtime.RSuicide;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.Utils;
 import com.oracle.truffle.r.runtime.VirtualEvalFrame;
+import com.oracle.truffle.r.runtime.context.FastROptions;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
 import com.oracle.truffle.r.runtime.data.RAttributable;
@@ -71,6 +72,7 @@ import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 import com.oracle.truffle.r.runtime.env.frame.NSBaseMaterializedFrame;
 import com.oracle.truffle.r.runtime.env.frame.REnvEmptyFrameAccess;
 import com.oracle.truffle.r.runtime.env.frame.REnvFrameAccess;
+import com.oracle.truffle.r.runtime.env.frame.REnvHashFrameAccess;
 import com.oracle.truffle.r.runtime.env.frame.REnvTruffleFrameAccess;
 import com.oracle.truffle.r.runtime.interop.Foreign2R;
 import com.oracle.truffle.r.runtime.interop.R2Foreign;
@@ -886,14 +888,18 @@ public abstract class REnvironment extends RAttributable {
      * An environment associated with an already materialized frame.
      */
     private REnvironment(String name, MaterializedFrame frame) {
-        this(name, new REnvTruffleFrameAccess(frame));
+        this(name, frame, new REnvTruffleFrameAccess(frame));
+    }
+
+    private REnvironment(String name, MaterializedFrame frame, REnvFrameAccess frameAccess) {
+        this(name, frameAccess);
 
         // Associate frame with the environment
         RArguments.setEnvironment(frame, this);
     }
 
     public REnvironment getParent() {
-        MaterializedFrame enclosingFrame = RArguments.getEnclosingFrame(getFrame());
+        MaterializedFrame enclosingFrame = RArguments.getEnclosingFrame(frameAccess.getArgumentsFrame());
         return enclosingFrame == null ? emptyEnv : frameToEnvironment(enclosingFrame);
     }
 
@@ -903,10 +909,18 @@ public abstract class REnvironment extends RAttributable {
      */
     public void setParent(REnvironment env) {
         if (getParent() != env) {
-            RArguments.setEnclosingFrame(getFrame(), env.getFrame(), true);
+            RArguments.setEnclosingFrame(frameAccess.getArgumentsFrame(), env.getFrame(), true);
         }
     }
 
+    /**
+     * Sets the parent of an environment that has just been created, see
+     * {@link RArguments#initializeEnclosingFrame}.
+     */
+    public void initializeParent(REnvironment env) {
+        RArguments.initializeEnclosingFrame(frameAccess.getArgumentsFrame(), env.getFrame());
+    }
+
     /**
      * The "simple" name of the environment. This is the value returned by the R
      * {@code environmentName} function.
@@ -963,6 +977,26 @@ public abstract class REnvironment extends RAttributable {
         return frameAccessProfile.profile(frameAccess).getFrame();
     }
 
+    /**
+     * Whether nodes may access the bindings directly in the slots of
+     * {@link #getBindingsFrame(ValueProfile)}, caching its frame descriptor. This is not the case
+     * while a {@link NewEnv} environment keeps its bindings in a hash table, see
+     * {@link REnvHashFrameAccess}. Since any update of the environment may move the bindings to the
+     * table, this has to be checked on every access.
+     */
+    public boolean isFrameAccessible() {
+        return frameAccess.hasBindingsInFrame();
+    }
+
+    /**
+     * Returns the frame holding the bindings while {@link #isFrameAccessible()}. Unlike
+     * {@link #getFrame()}, this does not make a {@link REnvHashFrameAccess} keep the bindings in the
+     * frame for good.
+     */
+    public MaterializedFrame getBindingsFrame(ValueProfile frameAccessProfile) {
+        return frameAccessProfile.profile(frameAccess).getArgumentsFrame();
+    }
+
     public void lock(boolean bindings) {
         locked = true;
         if (bindings) {
@@ -1235,6 +1269,27 @@ public abstract class REnvironment extends RAttributable {
             }
         }
 
+        /**
+         * An environment created by {@code new.env}, whose bindings are kept in a hash table once
+         * there are many of them if {@code hashed}, see {@link REnvHashFrameAccess}.
+         */
+        public NewEnv(MaterializedFrame frame, String name, boolean hashed, int initialSize) {
+            super(UNNAMED, frame, createFrameAccess(frame, hashed, initialSize));
+            if (name != null) {
+                setAttr(NAME_ATTR_KEY, name);
+            }
+            this.hashed = hashed;
+            this.initialSize = initialSize;
+        }
+
+        private static REnvFrameAccess createFrameAccess(MaterializedFrame frame, boolean hashed, int initialSize) {
+            int threshold = RContext.getInstance().getNonNegativeIntOption(FastROptions.EnvHashThreshold);
+            if (hashed && threshold > 0) {
+                return new REnvHashFrameAccess(frame, threshold, initialSize);
+            }
+            return new REnvTruffleFrameAccess(frame);
+        }
+
         public boolean isHashed() {
             return hashed;
         }
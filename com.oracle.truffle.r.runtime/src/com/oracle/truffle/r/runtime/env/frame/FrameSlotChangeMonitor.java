@@ -30,6 +30,9 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
 
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
@@ -37,6 +40,7 @@ import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.TruffleLogger;
 import com.oracle.truffle.api.frame.Frame;
 import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.FrameSlot;
@@ -49,6 +53,7 @@ import static com.oracle.truffle.r.runtime.context.FastROptions.SearchPathForceP
 
 import com.oracle.truffle.r.runtime.RArguments;
 import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RLogger;
 import com.oracle.truffle.r.runtime.StableValue;
 import com.oracle.truffle.r.runtime.context.ChildContextInfo;
 import com.oracle.truffle.r.runtime.context.FastROptions;
@@ -61,9 +66,19 @@ import com.oracle.truffle.r.runtime.data.RSharingAttributeStorage;
  * This class maintains information about the current hierarchy of environments in the system. This
  * information is described as assumptions that will be invalidated if the layout changes, and thus
  * make sure that code is properly deoptimized.
+ *
+ * The information is shared by all contexts in the VM. Lookups that can be answered from the
+ * results cached in the starting frame descriptor do not take any global lock. Other lookups take
+ * the shared side of {@link #hierarchyLock}, so that they can run concurrently, while changes of
+ * the hierarchy and new frame slots, which invalidate lookups, take the exclusive side. The
+ * collections of a {@link FrameDescriptorMetaData} that are updated by lookups are additionally
+ * guarded by the metadata object itself, and the mapping from frame descriptors to their metadata
+ * is striped.
  */
 public final class FrameSlotChangeMonitor {
 
+    private static final TruffleLogger LOGGER = RLogger.getLogger(FrameSlotChangeMonitor.class.getName());
+
     /*
      * The following classes describe the result of a previous lookup that successfully delivered a
      * result based on the system's knowledge about the hierarchy of environments and the stable
@@ -183,16 +198,16 @@ public final class FrameSlotChangeMonitor {
         /**
          * This set contains all lookups that have been performed "across" this frame descriptor. If
          * a binding with one of these names is modified, then the lookups in this frame descriptor
-         * and all child frame descriptors need to be checked.
+         * and all child frame descriptors need to be checked. Guarded by this object.
          */
         private final Set<Object> previousLookups = new HashSet<>();
         /**
-         * A set of all lookups that started in this frame descriptor.
+         * A set of all lookups that started in this frame descriptor. Guarded by this object.
          */
         private final WeakHashMap<Object, WeakReference<LookupResult>> lookupResults = new WeakHashMap<>(2);
 
-        private WeakReference<FrameDescriptor> enclosingFrameDescriptor = new WeakReference<>(null);
-        private Assumption enclosingFrameDescriptorAssumption = Truffle.getRuntime().createAssumption("enclosing frame descriptor");
+        private volatile WeakReference<FrameDescriptor> enclosingFrameDescriptor = new WeakReference<>(null);
+        private volatile Assumption enclosingFrameDescriptorAssumption = Truffle.getRuntime().createAssumption("enclosing frame descriptor");
         private final Assumption containsNoActiveBindingAssumption = Truffle.getRuntime().createAssumption("contains no active binding");
 
         private FrameDescriptorMetaData(String name, MaterializedFrame singletonFrame) {
@@ -222,23 +237,154 @@ public final class FrameSlotChangeMonitor {
         public Assumption getContainsNoActiveBindingAssumption() {
             return containsNoActiveBindingAssumption;
         }
+
+        synchronized LookupResult getLookupResult(Object identifier) {
+            WeakReference<LookupResult> weakResult = lookupResults.get(identifier);
+            return weakResult == null ? null : weakResult.get();
+        }
+
+        /**
+         * Registers a new lookup result unless a concurrent lookup registered a valid one first,
+         * returns the registered result. Results that are not registered would never be
+         * invalidated.
+         */
+        synchronized LookupResult addLookupResult(Object identifier, LookupResult result) {
+            LookupResult existing = getLookupResult(identifier);
+            if (existing != null && existing.isValid()) {
+                return existing;
+            }
+            lookupResults.put(identifier, new WeakReference<>(result));
+            return result;
+        }
+
+        synchronized void addPreviousLookup(Object identifier) {
+            previousLookups.add(identifier);
+        }
     }
 
-    private static final WeakHashMap<FrameDescriptor, FrameDescriptorMetaData> frameDescriptors = new WeakHashMap<>();
+    private static final int REGISTRY_STRIPES = 16;
+
+    /**
+     * Metadata of all frame descriptors, striped by the identity hash code of the descriptor. Each
+     * stripe is guarded by itself.
+     */
+    @SuppressWarnings("unchecked") private static final WeakHashMap<FrameDescriptor, FrameDescriptorMetaData>[] frameDescriptors = new WeakHashMap[REGISTRY_STRIPES];
+
+    static {
+        for (int i = 0; i < REGISTRY_STRIPES; i++) {
+            frameDescriptors[i] = new WeakHashMap<>();
+        }
+    }
+
+    private static final ReentrantReadWriteLock hierarchyLock = new ReentrantReadWriteLock();
+
+    private static final AtomicLong cachedLookups = new AtomicLong();
+    private static final AtomicLong sharedLocks = new AtomicLong();
+    private static final AtomicLong exclusiveLocks = new AtomicLong();
+    private static final AtomicLong contendedLocks = new AtomicLong();
+
+    private static void lockShared() {
+        sharedLocks.incrementAndGet();
+        if (!hierarchyLock.readLock().tryLock()) {
+            contendedLocks.incrementAndGet();
+            hierarchyLock.readLock().lock();
+        }
+    }
+
+    private static void unlockShared() {
+        hierarchyLock.readLock().unlock();
+    }
+
+    private static void lockExclusive() {
+        exclusiveLocks.incrementAndGet();
+        if (!hierarchyLock.writeLock().tryLock()) {
+            contendedLocks.incrementAndGet();
+            hierarchyLock.writeLock().lock();
+        }
+    }
+
+    private static void unlockExclusive() {
+        hierarchyLock.writeLock().unlock();
+    }
+
+    private static WeakHashMap<FrameDescriptor, FrameDescriptorMetaData> getStripe(FrameDescriptor descriptor) {
+        return frameDescriptors[System.identityHashCode(descriptor) & (REGISTRY_STRIPES - 1)];
+    }
+
+    private static FrameDescriptorMetaData getMetaDataOrNull(FrameDescriptor descriptor) {
+        WeakHashMap<FrameDescriptor, FrameDescriptorMetaData> stripe = getStripe(descriptor);
+        synchronized (stripe) {
+            return stripe.get(descriptor);
+        }
+    }
+
+    private static void putMetaData(FrameDescriptor descriptor, FrameDescriptorMetaData metaData) {
+        WeakHashMap<FrameDescriptor, FrameDescriptorMetaData> stripe = getStripe(descriptor);
+        synchronized (stripe) {
+            stripe.put(descriptor, metaData);
+        }
+    }
+
+    /**
+     * Number of lookups answered from the cache of the starting frame descriptor without any
+     * global lock.
+     */
+    public static long getCachedLookups() {
+        return cachedLookups.get();
+    }
+
+    /**
+     * Number of acquisitions of the shared side of the hierarchy lock, i.e., lookups not answered
+     * from the cache.
+     */
+    public static long getSharedLocks() {
+        return sharedLocks.get();
+    }
+
+    /**
+     * Number of acquisitions of the exclusive side of the hierarchy lock, i.e., changes of the
+     * hierarchy and new frame slots.
+     */
+    public static long getExclusiveLocks() {
+        return exclusiveLocks.get();
+    }
+
+    /**
+     * Number of acquisitions of the hierarchy lock that had to wait for another thread.
+     */
+    public static long getContendedLocks() {
+        return contendedLocks.get();
+    }
+
+    public static void logStatistics() {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(String.format("frame slot change monitor: %d cached lookups, %d shared locks, %d exclusive locks, %d contended", cachedLookups.get(), sharedLocks.get(),
+                            exclusiveLocks.get(), contendedLocks.get()));
+        }
+    }
 
     /**
      * This function tries to fulfill the lookup for the given name in the given frame based only on
      * the static knowledge about the frame descriptor hierarchy and stable bindings. Returns
      * {@code null} in case this was not possible.
      */
-    public static synchronized LookupResult lookup(Frame frame, Object identifier) {
+    public static LookupResult lookup(Frame frame, Object identifier) {
         CompilerAsserts.neverPartOfCompilation();
         FrameDescriptorMetaData metaData = getMetaData(frame);
-        WeakReference<LookupResult> weakResult = metaData.lookupResults.get(identifier);
-        LookupResult result = weakResult == null ? null : weakResult.get();
+        LookupResult result = metaData.getLookupResult(identifier);
         if (result != null && result.isValid()) {
+            cachedLookups.incrementAndGet();
             return result;
         }
+        lockShared();
+        try {
+            return lookupShared(frame, identifier, metaData);
+        } finally {
+            unlockShared();
+        }
+    }
+
+    private static LookupResult lookupShared(Frame frame, Object identifier, FrameDescriptorMetaData metaData) {
         Frame current = frame;
         while (true) {
             FrameSlot slot = current.getFrameDescriptor().findFrameSlot(identifier);
@@ -258,8 +404,7 @@ public final class FrameSlotChangeMonitor {
                     }
                 }
                 addPreviousLookups(frame, current, identifier);
-                metaData.lookupResults.put(identifier, new WeakReference<>(lookupResult));
-                return lookupResult;
+                return metaData.addLookupResult(identifier, lookupResult);
             }
             Frame next = RArguments.getEnclosingFrame(current);
             assert isEnclosingFrameDescriptor(current, next) : "the enclosing frame descriptor assumptions do not match the actual enclosing frame descriptor: " + getMetaData(current).name + " -> " +
@@ -272,16 +417,14 @@ public final class FrameSlotChangeMonitor {
         }
         // not frame slot found: missing value
         addPreviousLookups(frame, current, identifier);
-        LookupResult lookupResult = new MissingLookupResult(identifier.toString());
-        metaData.lookupResults.put(identifier, new WeakReference<>(lookupResult));
-        return lookupResult;
+        return metaData.addLookupResult(identifier, new MissingLookupResult(identifier.toString()));
     }
 
     private static void addPreviousLookups(Frame from, Frame to, Object identifier) {
         Frame mark = from;
         while (true) {
             FrameDescriptorMetaData lookupMetaData = getMetaData(mark);
-            lookupMetaData.previousLookups.add(identifier);
+            lookupMetaData.addPreviousLookup(identifier);
             if (mark == to) {
                 break;
             }
@@ -296,17 +439,27 @@ public final class FrameSlotChangeMonitor {
         return metaData.getEnclosingFrameDescriptor() == nextDesc;
     }
 
-    private static synchronized void invalidateNames(FrameDescriptorMetaData metaData, Collection<Object> identifiers) {
-        if (metaData.previousLookups.removeAll(identifiers)) {
-            for (Object identifier : identifiers) {
-                WeakReference<LookupResult> result = metaData.lookupResults.remove(identifier);
-                if (result != null) {
-                    LookupResult lookup = result.get();
-                    if (lookup != null) {
-                        lookup.invalidate();
+    /**
+     * Must be called with the exclusive hierarchy lock.
+     */
+    private static void invalidateNames(FrameDescriptorMetaData metaData, Collection<Object> identifiers) {
+        assert hierarchyLock.isWriteLockedByCurrentThread();
+        boolean removed;
+        synchronized (metaData) {
+            removed = metaData.previousLookups.removeAll(identifiers);
+            if (removed) {
+                for (Object identifier : identifiers) {
+                    WeakReference<LookupResult> result = metaData.lookupResults.remove(identifier);
+                    if (result != null) {
+                        LookupResult lookup = result.get();
+                        if (lookup != null) {
+                            lookup.invalidate();
+                        }
                     }
                 }
             }
+        }
+        if (removed) {
             for (FrameDescriptor descriptor : metaData.subDescriptors) {
                 FrameDescriptorMetaData sub = getMetaData(descriptor);
                 invalidateNames(sub, identifiers);
@@ -321,9 +474,9 @@ public final class FrameSlotChangeMonitor {
         return frame == null ? null : frame instanceof NSBaseMaterializedFrame ? ((NSBaseMaterializedFrame) frame).getMarkerFrameDescriptor() : frame.getFrameDescriptor();
     }
 
-    private static synchronized FrameDescriptorMetaData getMetaData(FrameDescriptor descriptor) {
+    private static FrameDescriptorMetaData getMetaData(FrameDescriptor descriptor) {
         CompilerAsserts.neverPartOfCompilation();
-        FrameDescriptorMetaData result = frameDescriptors.get(descriptor);
+        FrameDescriptorMetaData result = getMetaDataOrNull(descriptor);
         assert result != null : "null metadata for " + descriptor;
         return result;
     }
@@ -339,15 +492,29 @@ public final class FrameSlotChangeMonitor {
         return target;
     }
 
-    public static synchronized boolean isEnclosingFrameDescriptor(FrameDescriptor descriptor, Frame newEnclosingFrame) {
+    public static boolean isEnclosingFrameDescriptor(FrameDescriptor descriptor, Frame newEnclosingFrame) {
         CompilerAsserts.neverPartOfCompilation();
-        FrameDescriptorMetaData target = getDescriptorMetaData(descriptor);
-        FrameDescriptor newEnclosingDescriptor = handleBaseNamespaceEnv(newEnclosingFrame);
-        return target.getEnclosingFrameDescriptor() == newEnclosingDescriptor;
+        lockShared();
+        try {
+            FrameDescriptorMetaData target = getDescriptorMetaData(descriptor);
+            FrameDescriptor newEnclosingDescriptor = handleBaseNamespaceEnv(newEnclosingFrame);
+            return target.getEnclosingFrameDescriptor() == newEnclosingDescriptor;
+        } finally {
+            unlockShared();
+        }
     }
 
-    public static synchronized void initializeEnclosingFrame(FrameDescriptor descriptor, Frame newEnclosingFrame) {
+    public static void initializeEnclosingFrame(FrameDescriptor descriptor, Frame newEnclosingFrame) {
         CompilerAsserts.neverPartOfCompilation();
+        lockExclusive();
+        try {
+            initializeEnclosingFrameExclusive(descriptor, newEnclosingFrame);
+        } finally {
+            unlockExclusive();
+        }
+    }
+
+    private static void initializeEnclosingFrameExclusive(FrameDescriptor descriptor, Frame newEnclosingFrame) {
         FrameDescriptorMetaData target = getDescriptorMetaData(descriptor);
 
         FrameDescriptor newEnclosingDescriptor = handleBaseNamespaceEnv(newEnclosingFrame);
@@ -365,12 +532,21 @@ public final class FrameSlotChangeMonitor {
         }
     }
 
-    public static synchronized void initializeEnclosingFrame(Frame frame, Frame newEnclosingFrame) {
+    public static void initializeEnclosingFrame(Frame frame, Frame newEnclosingFrame) {
         initializeEnclosingFrame(handleBaseNamespaceEnv(frame), newEnclosingFrame);
     }
 
-    private static synchronized void setEnclosingFrame(FrameDescriptor descriptor, MaterializedFrame newEnclosingFrame, MaterializedFrame oldEnclosingFrame) {
+    private static void setEnclosingFrame(FrameDescriptor descriptor, MaterializedFrame newEnclosingFrame, MaterializedFrame oldEnclosingFrame) {
         CompilerAsserts.neverPartOfCompilation();
+        lockExclusive();
+        try {
+            setEnclosingFrameExclusive(descriptor, newEnclosingFrame, oldEnclosingFrame);
+        } finally {
+            unlockExclusive();
+        }
+    }
+
+    private static void setEnclosingFrameExclusive(FrameDescriptor descriptor, MaterializedFrame newEnclosingFrame, MaterializedFrame oldEnclosingFrame) {
         FrameDescriptorMetaData target = getMetaData(descriptor);
         assert target != null : "frame descriptor wasn't registered properly for " + descriptor;
 
@@ -396,28 +572,45 @@ public final class FrameSlotChangeMonitor {
         }
     }
 
-    public static synchronized void setEnclosingFrame(Frame frame, MaterializedFrame newEnclosingFrame, MaterializedFrame oldEnclosingFrame) {
+    public static void setEnclosingFrame(Frame frame, MaterializedFrame newEnclosingFrame, MaterializedFrame oldEnclosingFrame) {
         setEnclosingFrame(handleBaseNamespaceEnv(frame), newEnclosingFrame, oldEnclosingFrame);
     }
 
+    /**
+     * Must be called with the exclusive hierarchy lock.
+     */
     private static void invalidateAllNames(FrameDescriptorMetaData target) {
-        for (Map.Entry<Object, WeakReference<LookupResult>> entry : target.lookupResults.entrySet()) {
-            LookupResult lookup = entry.getValue().get();
-            if (lookup != null) {
-                lookup.invalidate();
+        assert hierarchyLock.isWriteLockedByCurrentThread();
+        boolean hadPreviousLookups;
+        synchronized (target) {
+            for (Map.Entry<Object, WeakReference<LookupResult>> entry : target.lookupResults.entrySet()) {
+                LookupResult lookup = entry.getValue().get();
+                if (lookup != null) {
+                    lookup.invalidate();
+                }
             }
-        }
-        target.lookupResults.clear();
-        if (!target.previousLookups.isEmpty()) {
+            target.lookupResults.clear();
+            hadPreviousLookups = !target.previousLookups.isEmpty();
             target.previousLookups.clear();
+        }
+        if (hadPreviousLookups) {
             for (FrameDescriptor sub : target.subDescriptors) {
                 invalidateAllNames(getMetaData(sub));
             }
         }
     }
 
-    public static synchronized void detach(Frame frame) {
+    public static void detach(Frame frame) {
         CompilerAsserts.neverPartOfCompilation();
+        lockExclusive();
+        try {
+            detachExclusive(frame);
+        } finally {
+            unlockExclusive();
+        }
+    }
+
+    private static void detachExclusive(Frame frame) {
         FrameDescriptorMetaData position = getMetaData(frame);
         FrameDescriptor oldEnclosingDescriptor = position.getEnclosingFrameDescriptor();
         FrameDescriptorMetaData oldEnclosing = getMetaData(oldEnclosingDescriptor);
@@ -433,8 +626,17 @@ public final class FrameSlotChangeMonitor {
         newEnclosing.subDescriptors.add(frame.getFrameDescriptor());
     }
 
-    public static synchronized void attach(Frame frame, Frame newEnclosingFrame) {
+    public static void attach(Frame frame, Frame newEnclosingFrame) {
         CompilerAsserts.neverPartOfCompilation();
+        lockExclusive();
+        try {
+            attachExclusive(frame, newEnclosingFrame);
+        } finally {
+            unlockExclusive();
+        }
+    }
+
+    private static void attachExclusive(Frame frame, Frame newEnclosingFrame) {
         FrameDescriptorMetaData position = getMetaData(frame);
         FrameDescriptorMetaData newEnclosing = getMetaData(newEnclosingFrame);
         FrameDescriptor oldEnclosingDescriptor = position.getEnclosingFrameDescriptor();
@@ -757,17 +959,26 @@ public final class FrameSlotChangeMonitor {
         return findOrAddFrameSlot(fd, (Object) identifier, initialKind);
     }
 
-    private static synchronized FrameSlot findOrAddFrameSlot(FrameDescriptor fd, Object identifier, FrameSlotKind initialKind) {
+    private static FrameSlot findOrAddFrameSlot(FrameDescriptor fd, Object identifier, FrameSlotKind initialKind) {
         CompilerAsserts.neverPartOfCompilation();
         assert identifier instanceof String || identifier instanceof RFrameSlot;
         FrameSlot frameSlot = fd.findFrameSlot(identifier);
         if (frameSlot != null) {
             return frameSlot;
-        } else {
+        }
+        lockExclusive();
+        try {
+            // the slot may have been added while waiting for the lock
+            frameSlot = fd.findFrameSlot(identifier);
+            if (frameSlot != null) {
+                return frameSlot;
+            }
             FrameDescriptorMetaData metaData = getMetaData(fd);
             invalidateNames(metaData, Arrays.asList(identifier));
             return fd.addFrameSlot(identifier, new FrameSlotInfoImpl(metaData.singletonFrame != null, "global".equals(metaData.name), identifier, metaData.name.startsWith("<new-env-")),
                             initialKind);
+        } finally {
+            unlockExclusive();
         }
     }
 
@@ -930,28 +1141,28 @@ public final class FrameSlotChangeMonitor {
      * Initializes the internal data structures for a newly created frame descriptor that is
      * intended to be used for a non-function frame (and thus will only ever be used for one frame).
      */
-    public static synchronized void initializeNonFunctionFrameDescriptor(String name, MaterializedFrame frame) {
+    public static void initializeNonFunctionFrameDescriptor(String name, MaterializedFrame frame) {
         CompilerAsserts.neverPartOfCompilation();
-        frameDescriptors.put(handleBaseNamespaceEnv(frame), new FrameDescriptorMetaData(name, frame));
+        putMetaData(handleBaseNamespaceEnv(frame), new FrameDescriptorMetaData(name, frame));
     }
 
-    public static synchronized FrameDescriptor initializeFunctionFrameDescriptor(String name, FrameDescriptor frameDescriptor) {
+    public static FrameDescriptor initializeFunctionFrameDescriptor(String name, FrameDescriptor frameDescriptor) {
         CompilerAsserts.neverPartOfCompilation();
-        frameDescriptors.put(frameDescriptor, new FrameDescriptorMetaData(name, null));
+        putMetaData(frameDescriptor, new FrameDescriptorMetaData(name, null));
         return frameDescriptor;
     }
 
-    public static synchronized Assumption getEnclosingFrameDescriptorAssumption(FrameDescriptor descriptor) {
+    public static Assumption getEnclosingFrameDescriptorAssumption(FrameDescriptor descriptor) {
         CompilerAsserts.neverPartOfCompilation();
-        return frameDescriptors.get(descriptor).getEnclosingFrameDescriptorAssumption();
+        return getMetaDataOrNull(descriptor).getEnclosingFrameDescriptorAssumption();
     }
 
-    public static synchronized Assumption getContainsNoActiveBindingAssumption(FrameDescriptor descriptor) {
+    public static Assumption getContainsNoActiveBindingAssumption(FrameDescriptor descriptor) {
         CompilerAsserts.neverPartOfCompilation();
-        return frameDescriptors.get(descriptor).getContainsNoActiveBindingAssumption();
+        return getMetaDataOrNull(descriptor).getContainsNoActiveBindingAssumption();
     }
 
-    public static synchronized StableValue<Object> getStableValueAssumption(FrameDescriptor descriptor, FrameSlot frameSlot, Object value) {
+    public static StableValue<Object> getStableValueAssumption(FrameDescriptor descriptor, FrameSlot frameSlot, Object value) {
         CompilerAsserts.neverPartOfCompilation();
         StableValue<Object> stableValue = getFrameSlotInfo(frameSlot).getStableValue();
         if (stableValue != null) {
@@ -962,7 +1173,7 @@ public final class FrameSlotChangeMonitor {
         return stableValue;
     }
 
-    public static synchronized MaterializedFrame getSingletonFrame(FrameDescriptor descriptor) {
+    public static MaterializedFrame getSingletonFrame(FrameDescriptor descriptor) {
         WeakReference<MaterializedFrame> singleton = getMetaData(descriptor).singletonFrame;
         return singleton == null ? null : singleton.get();
     }
@@ -974,12 +1185,17 @@ public final class FrameSlotChangeMonitor {
     /*
      * This method should be called for frames of all environments on the search path.
      */
-    public static synchronized void handleAllMultiSlots(Frame frame, int[] indices, boolean replicate) {
-        // make a copy avoid potential updates to the array iterated over
-        FrameSlot[] slots = new FrameSlot[frame.getFrameDescriptor().getSlots().size()];
-        slots = frame.getFrameDescriptor().getSlots().toArray(slots);
-        for (int i = 0; i < slots.length; i++) {
-            FrameSlotInfoImpl.handleSearchPathMultiSlot(frame, slots[i], indices, replicate);
+    public static void handleAllMultiSlots(Frame frame, int[] indices, boolean replicate) {
+        lockExclusive();
+        try {
+            // make a copy avoid potential updates to the array iterated over
+            FrameSlot[] slots = new FrameSlot[frame.getFrameDescriptor().getSlots().size()];
+            slots = frame.getFrameDescriptor().getSlots().toArray(slots);
+            for (int i = 0; i < slots.length; i++) {
+                FrameSlotInfoImpl.handleSearchPathMultiSlot(frame, slots[i], indices, replicate);
+            }
+        } finally {
+            unlockExclusive();
         }
     }
 
@@ -1044,8 +1260,17 @@ public final class FrameSlotChangeMonitor {
      * Nullifies a set of slots in a {@link MultiSlotData} to avoid memory leaks. When providing
      * {@code null} as indices, all subslots except the first one are nullified.
      */
-    public static synchronized void cleanMultiSlots(Frame frame, int[] indices) {
+    public static void cleanMultiSlots(Frame frame, int[] indices) {
         CompilerAsserts.neverPartOfCompilation();
+        lockExclusive();
+        try {
+            cleanMultiSlotsExclusive(frame, indices);
+        } finally {
+            unlockExclusive();
+        }
+    }
+
+    private static void cleanMultiSlotsExclusive(Frame frame, int[] indices) {
         // make a copy avoid potential updates to the array iterated over
         FrameSlot[] slots = frame.getFrameDescriptor().getSlots().toArray(new FrameSlot[0]);
 
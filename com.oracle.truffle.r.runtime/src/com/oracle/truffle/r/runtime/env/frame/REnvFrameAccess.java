@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -79,4 +79,20 @@ public abstract class REnvFrameAccess {
 
     public abstract MaterializedFrame getFrame();
 
+    /**
+     * Returns the frame for accessing its arguments, e.g. the enclosing frame. Unlike
+     * {@link #getFrame()}, this does not require the bindings to be stored in the frame slots.
+     */
+    public MaterializedFrame getArgumentsFrame() {
+        return getFrame();
+    }
+
+    /**
+     * Whether the bindings are currently stored in the slots of {@link #getArgumentsFrame()}, so
+     * that they can be accessed there directly.
+     */
+    public boolean hasBindingsInFrame() {
+        return true;
+    }
+
 }
@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.env.frame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.runtime.env.REnvironment.PutException;
+
+/**
+ * Variant of {@link REnvFrameAccess} for environments created by {@code new.env(hash = TRUE)},
+ * which are often used as hash maps with many keys. Initially the bindings are stored in the frame
+ * like in {@link REnvTruffleFrameAccess}. Once the frame descriptor has
+ * {@link FastROptions#EnvHashThreshold} slots, or from the start if the {@code size} passed to
+ * {@code new.env} is at least that large, the bindings are moved to an open addressing hash table
+ * so that adding further keys neither grows the frame descriptor nor invalidates its assumptions.
+ *
+ * The table is only used while the frame itself has not been handed out by {@link #getFrame()},
+ * i.e. while the environment is only accessed through {@link REnvironment} by builtins like
+ * {@code assign}, {@code get}, {@code exists}, {@code mget}, {@code ls} or {@code rm}. Code that
+ * accesses the frame directly, e.g. evaluation in the environment, closures or child environments,
+ * obtains it by {@link #getFrame()}, which moves the bindings back to the frame for good.
+ */
+public final class REnvHashFrameAccess extends REnvFrameAccess {
+
+    private final MaterializedFrame frame;
+    private final REnvTruffleFrameAccess frameAccess;
+    private final int threshold;
+
+    /**
+     * Set once the frame was handed out or holds active bindings, the bindings are then kept in
+     * the frame.
+     */
+    private boolean frameOnly;
+
+    /**
+     * The bindings, or {@code null} if they are stored in the frame.
+     */
+    private BindingTable table;
+
+    /**
+     * Records which bindings are locked while they are stored in {@link #table}.
+     */
+    private Set<String> lockedBindings;
+
+    public REnvHashFrameAccess(MaterializedFrame frame, int threshold, int initialSize) {
+        assert threshold > 0;
+        this.frame = frame;
+        this.frameAccess = new REnvTruffleFrameAccess(frame);
+        this.threshold = threshold;
+        if (initialSize >= threshold) {
+            table = new BindingTable(initialSize);
+        }
+    }
+
+    @Override
+    public MaterializedFrame getFrame() {
+        if (!frameOnly) {
+            moveToFrame();
+        }
+        return frame;
+    }
+
+    @Override
+    public MaterializedFrame getArgumentsFrame() {
+        return frame;
+    }
+
+    @Override
+    public boolean hasBindingsInFrame() {
+        return table == null;
+    }
+
+    @Override
+    public Object get(String key) {
+        CompilerAsserts.neverPartOfCompilation();
+        return table == null ? frameAccess.get(key) : table.get(key);
+    }
+
+    @Override
+    public boolean isActiveBinding(String key) {
+        CompilerAsserts.neverPartOfCompilation();
+        // active bindings are never stored in the table
+        return table == null && frameAccess.isActiveBinding(key);
+    }
+
+    @Override
+    public void put(String key, Object value) throws PutException {
+        CompilerAsserts.neverPartOfCompilation();
+        assert key != null;
+        assert value != null;
+        if (table != null && ActiveBinding.isActiveBinding(value)) {
+            moveToFrame();
+        }
+        if (table == null) {
+            frameAccess.put(key, value);
+            if (!frameOnly && frame.getFrameDescriptor().getSize() >= threshold) {
+                moveToTable();
+            }
+        } else {
+            if (lockedBindings != null && lockedBindings.contains(key)) {
+                throw new PutException(RError.Message.ENV_CHANGE_BINDING, key);
+            }
+            table.put(key, value);
+        }
+    }
+
+    @Override
+    public void rm(String key) throws PutException {
+        CompilerAsserts.neverPartOfCompilation();
+        assert key != null;
+        if (table == null) {
+            frameAccess.rm(key);
+            return;
+        }
+        if (lockedBindings != null) {
+            lockedBindings.remove(key);
+        }
+        if (!table.remove(key)) {
+            throw new PutException(RError.Message.UNKNOWN_OBJECT, key);
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public RStringVector ls(boolean allNames, Pattern pattern, boolean sorted) {
+        if (table == null) {
+            return frameAccess.ls(allNames, pattern, sorted);
+        }
+        ArrayList<String> matchedNamesList = new ArrayList<>(table.size);
+        for (int i = 0; i < table.entryCount; i++) {
+            String name = table.keys[i];
+            if (name != null && REnvironment.includeName(name, allNames, pattern)) {
+                matchedNamesList.add(name);
+            }
+        }
+        return REnvTruffleFrameAccess.createNamesVector(matchedNamesList.toArray(new String[matchedNamesList.size()]), sorted);
+    }
+
+    @Override
+    @TruffleBoundary
+    public boolean bindingIsLocked(String key) {
+        if (table == null) {
+            return frameAccess.bindingIsLocked(key);
+        }
+        return lockedBindings != null && lockedBindings.contains(key);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void lockBindings() {
+        if (table == null) {
+            frameAccess.lockBindings();
+            return;
+        }
+        for (int i = 0; i < table.entryCount; i++) {
+            if (table.keys[i] != null) {
+                lockBinding(table.keys[i]);
+            }
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public void lockBinding(String key) {
+        if (table == null) {
+            frameAccess.lockBinding(key);
+            return;
+        }
+        if (lockedBindings == null) {
+            lockedBindings = new HashSet<>();
+        }
+        lockedBindings.add(key);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void unlockBinding(String key) {
+        if (table == null) {
+            frameAccess.unlockBinding(key);
+        } else if (lockedBindings != null) {
+            lockedBindings.remove(key);
+        }
+    }
+
+    /**
+     * Moves the bindings from the frame slots to a new table. The slots stay in the frame
+     * descriptor but are cleared.
+     */
+    @TruffleBoundary
+    private void moveToTable() {
+        if (!FrameSlotChangeMonitor.getContainsNoActiveBindingAssumption(frame.getFrameDescriptor()).isValid()) {
+            // active bindings are handled by the frame only
+            frameOnly = true;
+            return;
+        }
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<Object> values = new ArrayList<>();
+        REnvTruffleFrameAccess.getStringIdentifiersAndValues(frame, names, values);
+        BindingTable newTable = new BindingTable(names.size() * 2);
+        try {
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                if (frameAccess.bindingIsLocked(name)) {
+                    if (lockedBindings == null) {
+                        lockedBindings = new HashSet<>();
+                    }
+                    lockedBindings.add(name);
+                }
+                newTable.put(name, values.get(i));
+                frameAccess.rm(name);
+            }
+        } catch (PutException ex) {
+            throw RInternalError.shouldNotReachHere(ex);
+        }
+        table = newTable;
+    }
+
+    /**
+     * Moves the bindings from the table, if any, back to the frame and keeps them there from now
+     * on.
+     */
+    @TruffleBoundary
+    private void moveToFrame() {
+        frameOnly = true;
+        if (table == null) {
+            return;
+        }
+        BindingTable oldTable = table;
+        table = null;
+        try {
+            for (int i = 0; i < oldTable.entryCount; i++) {
+                if (oldTable.keys[i] != null) {
+                    frameAccess.put(oldTable.keys[i], oldTable.values[i]);
+                }
+            }
+        } catch (PutException ex) {
+            throw RInternalError.shouldNotReachHere(ex);
+        }
+        if (lockedBindings != null) {
+            for (String key : lockedBindings) {
+                frameAccess.lockBinding(key);
+            }
+            lockedBindings = null;
+        }
+    }
+
+    /**
+     * Map from names to values that keeps the insertion order like the frame slots do. The entries
+     * are stored in parallel arrays in insertion order and found through an index of entry
+     * positions with linear probing, whose load factor is kept at most 0.5.
+     */
+    private static final class BindingTable {
+
+        private static final int MIN_CAPACITY = 16;
+        private static final int MAX_INITIAL_CAPACITY = 1 << 20;
+
+        /**
+         * The entries in insertion order, removed entries have a {@code null} key.
+         */
+        private String[] keys;
+        private Object[] values;
+
+        /**
+         * Number of used entries in {@link #keys}, including removed ones.
+         */
+        private int entryCount;
+
+        /**
+         * Number of live entries.
+         */
+        private int size;
+
+        /**
+         * Entry positions plus one, {@code 0} denotes a free slot.
+         */
+        private int[] index;
+
+        BindingTable(int expectedSize) {
+            int capacity = MIN_CAPACITY;
+            while (capacity < expectedSize && capacity < MAX_INITIAL_CAPACITY) {
+                capacity <<= 1;
+            }
+            keys = new String[capacity];
+            values = new Object[capacity];
+            index = new int[capacity * 2];
+        }
+
+        private static int hash(String key) {
+            int h = key.hashCode() * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        /**
+         * Returns the index slot of {@code key} or {@code -1 - slot} of the free slot where it
+         * would be inserted.
+         */
+        private int find(String key) {
+            int mask = index.length - 1;
+            for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+                int entry = index[i];
+                if (entry == 0) {
+                    return -1 - i;
+                }
+                if (keys[entry - 1].equals(key)) {
+                    return i;
+                }
+            }
+        }
+
+        Object get(String key) {
+            int slot = find(key);
+            return slot < 0 ? null : values[index[slot] - 1];
+        }
+
+        void put(String key, Object value) {
+            int slot = find(key);
+            if (slot >= 0) {
+                values[index[slot] - 1] = value;
+                return;
+            }
+            if (entryCount == keys.length) {
+                rehash(size >= keys.length / 2 ? keys.length * 2 : keys.length);
+                slot = find(key);
+            }
+            keys[entryCount] = key;
+            values[entryCount] = value;
+            index[-1 - slot] = ++entryCount;
+            size++;
+        }
+
+        boolean remove(String key) {
+            int slot = find(key);
+            if (slot < 0) {
+                return false;
+            }
+            int entry = index[slot] - 1;
+            keys[entry] = null;
+            values[entry] = null;
+            size--;
+            // backward shift deletion keeps the probe sequences intact without tombstones
+            int mask = index.length - 1;
+            int hole = slot;
+            for (int i = (hole + 1) & mask; index[i] != 0; i = (i + 1) & mask) {
+                int home = hash(keys[index[i] - 1]) & mask;
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    index[hole] = index[i];
+                    hole = i;
+                }
+            }
+            index[hole] = 0;
+            return true;
+        }
+
+        /**
+         * Compacts the entries into arrays of the given capacity and rebuilds the index.
+         */
+        private void rehash(int capacity) {
+            String[] oldKeys = keys;
+            Object[] oldValues = values;
+            int oldCount = entryCount;
+            keys = new String[capacity];
+            values = new Object[capacity];
+            index = new int[capacity * 2];
+            entryCount = 0;
+            int mask = index.length - 1;
+            for (int i = 0; i < oldCount; i++) {
+                String key = oldKeys[i];
+                if (key != null) {
+                    keys[entryCount] = key;
+                    values[entryCount] = oldValues[i];
+                    int slot = hash(key) & mask;
+                    while (index[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    index[slot] = ++entryCount;
+                }
+            }
+        }
+    }
+}
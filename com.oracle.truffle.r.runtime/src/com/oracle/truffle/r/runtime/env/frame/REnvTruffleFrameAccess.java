@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -206,7 +206,14 @@ public final class REnvTruffleFrameAccess extends REnvFrameAccess {
                 matchedNamesList.add(name);
             }
         }
-        String[] data = matchedNamesList.toArray(new String[matchedNamesList.size()]);
+        return createNamesVector(matchedNamesList.toArray(new String[matchedNamesList.size()]), sorted);
+    }
+
+    /**
+     * Creates the result of {@link #ls}, sorting {@code data} in place according to the collation
+     * locale if {@code sorted}.
+     */
+    static RStringVector createNamesVector(String[] data, boolean sorted) {
         if (sorted) {
             Locale locale = RContext.getInstance().stateRLocale.getLocale(RLocale.COLLATE);
             Collator collator = locale == Locale.ROOT || locale == null ? null : RLocale.getOrderCollator(locale);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2014, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -27,6 +27,7 @@
  * {@link com.oracle.truffle.r.runtime.env.frame.REnvFrameAccess}, which provides default
  * implementations, most of which fail. The subclass
  * {@link com.oracle.truffle.r.runtime.env.frame.REnvTruffleFrameAccess} handles Truffle frames and
- * locking/unlocking bindings.
+ * locking/unlocking bindings, {@link com.oracle.truffle.r.runtime.env.frame.REnvHashFrameAccess}
+ * additionally keeps the bindings of large hashed environments in a hash table.
  */
 package com.oracle.truffle.r.runtime.env.frame;
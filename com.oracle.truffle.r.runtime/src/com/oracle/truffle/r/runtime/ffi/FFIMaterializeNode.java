@@ -32,6 +32,7 @@ import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDouble;
 import com.oracle.truffle.r.runtime.data.RInteger;
 import com.oracle.truffle.r.runtime.data.RLogical;
+import com.oracle.truffle.r.runtime.data.RMappedVector;
 import com.oracle.truffle.r.runtime.data.RRaw;
 import com.oracle.truffle.r.runtime.data.RScalarList;
 import com.oracle.truffle.r.runtime.data.RScalarVector;
@@ -123,6 +124,11 @@ public abstract class FFIMaterializeNode extends Node {
         return seq.cachedMaterialize();
     }
 
+    @Specialization
+    protected static Object wrap(RMappedVector vec) {
+        return vec.cachedMaterialize();
+    }
+
     // No need to wrap other RObjects than sequences or scalars
 
     @Specialization(guards = "!isRScalarVectorOrSequence(value)")
@@ -136,7 +142,7 @@ public abstract class FFIMaterializeNode extends Node {
     }
 
     protected static boolean isRScalarVectorOrSequence(RBaseObject value) {
-        return value instanceof RScalarVector || value instanceof RSequence;
+        return value instanceof RScalarVector || value instanceof RSequence || value instanceof RMappedVector;
     }
 
     public static FFIMaterializeNode create() {
@@ -38,6 +38,7 @@ import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDouble;
 import com.oracle.truffle.r.runtime.data.RInteger;
 import com.oracle.truffle.r.runtime.data.RLogical;
+import com.oracle.truffle.r.runtime.data.RMappedVector;
 import com.oracle.truffle.r.runtime.data.RRaw;
 import com.oracle.truffle.r.runtime.data.RScalar;
 import com.oracle.truffle.r.runtime.data.RScalarList;
@@ -142,6 +143,11 @@ public abstract class FFIWrapNode extends Node {
         return seq.cachedMaterialize();
     }
 
+    @Specialization
+    protected static Object wrap(RMappedVector vec) {
+        return vec.cachedMaterialize();
+    }
+
     // VectorRFFIWrapper: held by a field in NativeMirror of the corresponding vector
 
     @Specialization
@@ -182,7 +188,7 @@ public abstract class FFIWrapNode extends Node {
     }
 
     protected static boolean isRScalarVectorOrSequence(RBaseObject value) {
-        return value instanceof RScalarVector || value instanceof RSequence;
+        return value instanceof RScalarVector || value instanceof RSequence || value instanceof RMappedVector;
     }
 
     public static FFIWrapNode create() {
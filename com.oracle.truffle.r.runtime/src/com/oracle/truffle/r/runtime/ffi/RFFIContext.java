@@ -38,6 +38,7 @@ import com.oracle.truffle.r.runtime.Collections;
 import com.oracle.truffle.r.runtime.RArguments;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.NativeDataAccess;
 import com.oracle.truffle.r.runtime.data.RAttributable;
 import com.oracle.truffle.r.runtime.data.RBaseObject;
 import com.oracle.truffle.r.runtime.data.RForeignObjectWrapper;
@@ -188,6 +189,7 @@ public abstract class RFFIContext extends RFFI {
         rffiContextState.callDepth--;
         if (rffiContextState.callDepth == 0) {
             cooperativeGc();
+            NativeDataAccess.releaseCollected();
         }
     }
 
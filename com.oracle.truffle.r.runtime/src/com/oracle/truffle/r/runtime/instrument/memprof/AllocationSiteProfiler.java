@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.instrument.memprof;
+
+import java.io.PrintStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.runtime.RArguments;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.Utils;
+import com.oracle.truffle.r.runtime.data.RBaseObject;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.data.RObjectSize;
+
+/**
+ * Sampling profiler of allocations by allocation site, i.e. by the R function that allocates and
+ * the type of the allocated object. Unlike {@link MemAllocProfilerStacks}, which instruments every
+ * statement, it only listens to the allocations reported by {@link RDataFactory} and samples them
+ * by size: roughly one allocation per {@code sampleBytes} allocated bytes of each thread is
+ * attributed to its site, with its count and size scaled to the number of bytes it stands for. The
+ * expensive part, finding the current R function, is thus only done for the sampled allocations,
+ * which keeps the overhead low enough to leave the profiler on.
+ *
+ * The sampled objects are also tracked with weak references, which gives an estimate of the live
+ * heap by site. If an output stream is given, the sites that allocated or whose objects were
+ * collected since the previous report are periodically written to it as tab separated lines, see
+ * {@link #HEADER}. The lines contain the allocations since the previous report and the current
+ * live statistics.
+ *
+ * Like {@link MemAllocProfilerStacks}, there is at most one profiling session at any moment.
+ */
+public final class AllocationSiteProfiler implements RDataFactory.Listener {
+
+    public static final String HEADER = "time\tfunction\tlocation\ttype\tcount\tbytes\tlive.count\tlive.bytes";
+
+    private static AllocationSiteProfiler active;
+
+    /**
+     * Allocation statistics of a site.
+     */
+    public static final class Site {
+        private final String function;
+        private final String location;
+        private final String type;
+        private long count;
+        private long bytes;
+        private long liveCount;
+        private long liveBytes;
+        private long reportedCount;
+        private long reportedBytes;
+        private long reportedLiveCount;
+        private long reportedLiveBytes;
+
+        private Site(String function, String location, String type) {
+            this.function = function;
+            this.location = location;
+            this.type = type;
+        }
+
+        private Site(Site site) {
+            this(site.function, site.location, site.type);
+            this.count = site.count;
+            this.bytes = site.bytes;
+            this.liveCount = site.liveCount;
+            this.liveBytes = site.liveBytes;
+        }
+
+        public String getFunction() {
+            return function;
+        }
+
+        /**
+         * The source position of the function, or {@code null} if it has none.
+         */
+        public String getLocation() {
+            return location;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * Estimated number of allocations.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Estimated number of allocated bytes.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getLiveCount() {
+            return liveCount;
+        }
+
+        public long getLiveBytes() {
+            return liveBytes;
+        }
+    }
+
+    private static final class SiteKey {
+        private final RootNode root;
+        private final RType type;
+
+        SiteKey(RootNode root, RType type) {
+            this.root = root;
+            this.type = type;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(root) * 31 + type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof SiteKey && ((SiteKey) obj).root == root && ((SiteKey) obj).type == type;
+        }
+    }
+
+    /**
+     * Weak reference to a sampled object, which accounts for the estimated count and bytes of the
+     * sample in the live heap of its site until the object is collected.
+     */
+    private static final class LiveReference extends WeakReference<RBaseObject> {
+        private final Site site;
+        private final long count;
+        private final long bytes;
+
+        LiveReference(RBaseObject referent, ReferenceQueue<RBaseObject> queue, Site site, long count, long bytes) {
+            super(referent, queue);
+            this.site = site;
+            this.count = count;
+            this.bytes = bytes;
+        }
+    }
+
+    private final long sampleBytes;
+    private final ThreadLocal<long[]> bytesUntilSample;
+    /**
+     * Guarded by {@code this}, like the statistics of the sites.
+     */
+    private final HashMap<SiteKey, Site> sites = new HashMap<>();
+    private final HashSet<LiveReference> liveReferences = new HashSet<>();
+    private final ReferenceQueue<RBaseObject> collected = new ReferenceQueue<>();
+    private final PrintStream out;
+    private final Thread reportThread;
+    private volatile boolean running = true;
+
+    private AllocationSiteProfiler(long sampleBytes, PrintStream out, long intervalInMillis) {
+        this.sampleBytes = sampleBytes;
+        this.bytesUntilSample = ThreadLocal.withInitial(() -> new long[]{sampleBytes});
+        this.out = out;
+        if (out != null) {
+            out.println(HEADER);
+            reportThread = new Thread(() -> report(Math.max(1, intervalInMillis)), "allocation site profiler");
+            reportThread.setDaemon(true);
+            reportThread.start();
+        } else {
+            reportThread = null;
+        }
+    }
+
+    /**
+     * Starts a profiling session, ending the current one if any.
+     *
+     * @param sampleBytes average number of bytes between sampled allocations, every allocation is
+     *            recorded if it is {@code 1} or less
+     * @param out the stream the changes are written to or {@code null}
+     * @param intervalInMillis the interval of writing the changes to {@code out}
+     */
+    public static synchronized void start(long sampleBytes, PrintStream out, long intervalInMillis) {
+        stop();
+        active = new AllocationSiteProfiler(sampleBytes, out, intervalInMillis);
+        RDataFactory.addListener(active);
+    }
+
+    /**
+     * Ends the current profiling session, if any, and returns its final statistics.
+     */
+    public static synchronized List<Site> stop() {
+        if (active == null) {
+            return null;
+        }
+        AllocationSiteProfiler profiler = active;
+        active = null;
+        RDataFactory.removeListener(profiler);
+        profiler.running = false;
+        if (profiler.reportThread != null) {
+            profiler.reportThread.interrupt();
+            try {
+                profiler.reportThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            profiler.writeChanges();
+            profiler.out.close();
+        }
+        return profiler.getSites();
+    }
+
+    /**
+     * Returns the statistics of the current session or {@code null} if there is none.
+     */
+    public static synchronized List<Site> getActiveSites() {
+        return active == null ? null : active.getSites();
+    }
+
+    @Override
+    @TruffleBoundary
+    public void reportAllocation(RBaseObject data) {
+        long size = RObjectSize.getObjectSize(data);
+        long count = 1;
+        long bytes = size;
+        if (sampleBytes > 1) {
+            long[] remaining = bytesUntilSample.get();
+            long left = remaining[0] - size;
+            if (left > 0) {
+                remaining[0] = left;
+                return;
+            }
+            // the sample stands for all the sample intervals it completed
+            long intervals = -left / sampleBytes + 1;
+            remaining[0] = left + intervals * sampleBytes;
+            if (size < sampleBytes) {
+                bytes = intervals * sampleBytes;
+                count = Math.max(1, bytes / Math.max(1, size));
+            }
+        }
+        record(data, getRoot(), count, bytes);
+    }
+
+    static RootNode getRoot() {
+        Frame frame = Utils.getActualCurrentFrame();
+        if (frame == null) {
+            return null;
+        }
+        RFunction function = RArguments.getFunction(frame);
+        return function == null ? null : function.getRootNode();
+    }
+
+    private synchronized void record(RBaseObject data, RootNode root, long count, long bytes) {
+        expungeCollected();
+        SiteKey key = new SiteKey(root, data.getRType());
+        Site site = sites.get(key);
+        if (site == null) {
+            site = new Site(getFunctionName(root), getLocation(root), key.type.getName());
+            sites.put(key, site);
+        }
+        site.count += count;
+        site.bytes += bytes;
+        site.liveCount += count;
+        site.liveBytes += bytes;
+        liveReferences.add(new LiveReference(data, collected, site, count, bytes));
+    }
+
+    private void expungeCollected() {
+        LiveReference ref;
+        while ((ref = (LiveReference) collected.poll()) != null) {
+            if (liveReferences.remove(ref)) {
+                ref.site.liveCount -= ref.count;
+                ref.site.liveBytes -= ref.bytes;
+            }
+        }
+    }
+
+    private synchronized List<Site> getSites() {
+        expungeCollected();
+        ArrayList<Site> result = new ArrayList<>(sites.size());
+        for (Site site : sites.values()) {
+            result.add(new Site(site));
+        }
+        return result;
+    }
+
+    private void report(long intervalInMillis) {
+        while (running) {
+            try {
+                Thread.sleep(intervalInMillis);
+            } catch (InterruptedException e) {
+                // stopped
+            }
+            if (running) {
+                writeChanges();
+            }
+        }
+    }
+
+    private synchronized void writeChanges() {
+        expungeCollected();
+        long time = System.currentTimeMillis();
+        for (Site site : sites.values()) {
+            // collected objects change only the live statistics
+            if (site.count != site.reportedCount || site.liveCount != site.reportedLiveCount || site.liveBytes != site.reportedLiveBytes) {
+                out.printf("%d\t%s\t%s\t%s\t%d\t%d\t%d\t%d\n", time, site.function, site.location == null ? "" : site.location, site.type, site.count - site.reportedCount,
+                                site.bytes - site.reportedBytes, site.liveCount, site.liveBytes);
+                site.reportedCount = site.count;
+                site.reportedBytes = site.bytes;
+                site.reportedLiveCount = site.liveCount;
+                site.reportedLiveBytes = site.liveBytes;
+            }
+        }
+        out.flush();
+    }
+
+    static String getFunctionName(RootNode root) {
+        if (root == null) {
+            return "<toplevel>";
+        }
+        String name = root.getName();
+        return name == null ? "<anonymous>" : name;
+    }
+
+    static String getLocation(RootNode root) {
+        SourceSection section = root == null ? null : root.getSourceSection();
+        if (section == null || !section.isAvailable()) {
+            return null;
+        }
+        String path = RSource.getPath(section.getSource());
+        return (path != null ? path : section.getSource().getName()) + ':' + section.getStartLine();
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.instrument.memprof;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.MemoryCopyTracer;
+import com.oracle.truffle.r.runtime.data.MemoryCopyTracer.Reason;
+import com.oracle.truffle.r.runtime.data.RObjectSize;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.instrument.InstrumentationState;
+
+/**
+ * Profiler of the data copies reported to {@link MemoryCopyTracer}, i.e. copies of shared vectors,
+ * resizing, materialization of scalars and sequences and copies from and to native mirrors. Every
+ * copy is attributed to the R function executing it, its {@link Reason} and the type of the data,
+ * which points at the hidden {@code O(n)} copies in hot loops.
+ *
+ * Like {@link AllocationSiteProfiler}, there is at most one profiling session at any moment.
+ */
+public final class CopySiteProfiler implements MemoryCopyTracer.Listener {
+
+    private static CopySiteProfiler active;
+
+    /**
+     * Copy statistics of a site.
+     */
+    public static final class Site {
+        private final String function;
+        private final String location;
+        private final Reason reason;
+        private final String type;
+        private long count;
+        private long bytes;
+
+        private Site(String function, String location, Reason reason, String type) {
+            this.function = function;
+            this.location = location;
+            this.reason = reason;
+            this.type = type;
+        }
+
+        private Site(Site site) {
+            this(site.function, site.location, site.reason, site.type);
+            this.count = site.count;
+            this.bytes = site.bytes;
+        }
+
+        public String getFunction() {
+            return function;
+        }
+
+        /**
+         * The source position of the function, or {@code null} if it has none.
+         */
+        public String getLocation() {
+            return location;
+        }
+
+        public Reason getReason() {
+            return reason;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Size of the copies.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    private static final class SiteKey {
+        private final RootNode root;
+        private final Reason reason;
+        private final RType type;
+
+        SiteKey(RootNode root, Reason reason, RType type) {
+            this.root = root;
+            this.reason = reason;
+            this.type = type;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(root) * 31 + reason.hashCode()) * 31 + Objects.hashCode(type);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SiteKey)) {
+                return false;
+            }
+            SiteKey other = (SiteKey) obj;
+            return other.root == root && other.reason == reason && other.type == type;
+        }
+    }
+
+    /**
+     * Guarded by {@code this}, like the statistics of the sites.
+     */
+    private final HashMap<SiteKey, Site> sites = new HashMap<>();
+
+    private CopySiteProfiler() {
+    }
+
+    /**
+     * Starts a profiling session, ending the current one if any.
+     */
+    public static synchronized void start() {
+        stop();
+        active = new CopySiteProfiler();
+        MemoryCopyTracer.addListener(active);
+        MemoryCopyTracer.setTracingState(true);
+    }
+
+    /**
+     * Ends the current profiling session, if any, and returns its final statistics.
+     */
+    public static synchronized List<Site> stop() {
+        if (active == null) {
+            return null;
+        }
+        CopySiteProfiler profiler = active;
+        active = null;
+        MemoryCopyTracer.removeListener(profiler);
+        if (!isTracingNeeded()) {
+            MemoryCopyTracer.setTracingState(false);
+        }
+        return profiler.getSites();
+    }
+
+    /**
+     * The tracing state of {@link MemoryCopyTracer} is global and shared with {@code tracemem} and
+     * the memory profiling of {@code Rprof}, so the copies must still be reported while any of
+     * them is active in the current context.
+     */
+    private static boolean isTracingNeeded() {
+        RContext context = RContext.getInstance();
+        if (context == null) {
+            return false;
+        }
+        InstrumentationState state = context.getInstrumentationState();
+        if (state.getTracingState() && !state.getTracemem().getTracedObjects().isEmpty()) {
+            return true;
+        }
+        InstrumentationState.RprofState rprofState = state.getRprofState("prof");
+        return rprofState != null && rprofState.out() != null;
+    }
+
+    /**
+     * Returns the statistics of the current session or {@code null} if there is none.
+     */
+    public static synchronized List<Site> getActiveSites() {
+        return active == null ? null : active.getSites();
+    }
+
+    @Override
+    @TruffleBoundary
+    public void reportCopying(RAbstractVector source, RAbstractVector dest) {
+        reportCopying(source, dest, Reason.COPY);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void reportCopying(RAbstractVector source, RAbstractVector dest, Reason reason) {
+        record(AllocationSiteProfiler.getRoot(), reason, dest.getRType(), RObjectSize.getObjectSize(dest));
+    }
+
+    @Override
+    @TruffleBoundary
+    public void reportNativeCopying(Reason reason, RType type, long bytes) {
+        record(AllocationSiteProfiler.getRoot(), reason, type, bytes);
+    }
+
+    private synchronized void record(RootNode root, Reason reason, RType type, long bytes) {
+        SiteKey key = new SiteKey(root, reason, type);
+        Site site = sites.get(key);
+        if (site == null) {
+            site = new Site(AllocationSiteProfiler.getFunctionName(root), AllocationSiteProfiler.getLocation(root), reason, type == null ? "unknown" : type.getName());
+            sites.put(key, site);
+        }
+        site.count++;
+        site.bytes += bytes;
+    }
+
+    private synchronized List<Site> getSites() {
+        ArrayList<Site> result = new ArrayList<>(sites.size());
+        for (Site site : sites.values()) {
+            result.add(new Site(site));
+        }
+        return result;
+    }
+}
@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -90,4 +90,11 @@ public class TestBuiltin_crossprod extends TestBase {
     public void testCrossprodDimnames() {
         assertEval("{ crossprod(structure(1:9, .Dim=c(3L,3L), .Dimnames=list(c('a', 'b', 'c'), c('A', 'B', 'C'))), structure(1:9, .Dim=c(3L,3L), .Dimnames=list(c('d', 'e', 'f'), c('D', 'E', 'F')))) }");
     }
+
+    @Test
+    public void testCrossprodLarge() {
+        assertEval("a <- matrix(as.double(1:40000 %% 7), 200); b <- matrix(as.double(1:50000 %% 5), 200); r <- crossprod(a); c(dim(r), sum(r), isSymmetric(r), r[1:3, 1:3])");
+        assertEval("a <- matrix(as.double(1:40000 %% 7), 200); b <- matrix(as.double(1:50000 %% 5), 200); r <- crossprod(a, b); c(dim(r), sum(r), r[200, 250])");
+        assertEval("a <- matrix(as.double(1:40000 %% 7), 200); b <- matrix(as.double(1:50000 %% 5), 200); r <- tcrossprod(t(a), t(b)); c(dim(r), sum(r), identical(r, t(a) %*% b), identical(r, sapply(1:250, function(j) colSums(a * b[, j]))))");
+    }
 }
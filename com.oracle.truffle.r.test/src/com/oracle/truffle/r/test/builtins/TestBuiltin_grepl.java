@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -94,4 +94,29 @@ public class TestBuiltin_grepl extends TestBase {
         // the dot matches the new line in a Perl regexp
         assertEval("{ .Internal(grepl('.+X', 'a\nXb', F, F, T, F, F, F)) }");
     }
+
+    @Test
+    public void testGreplCachedPattern() {
+        // the same pattern compiled with different flags and engines must not be confused
+        assertEval("{ x <- c('Abc', 'abc', NA, 'xyz'); list(grepl('^a', x), grepl('^a', x, ignore.case=TRUE), grepl('^a', x, perl=TRUE), grepl('^a', x, ignore.case=TRUE, perl=TRUE), grepl('^a', x)) }");
+        assertEval("{ x <- c('a.c', 'abc'); list(grepl('.', x, fixed=TRUE), grepl('.', x), sub('.', '-', x, fixed=TRUE), sub('.', '-', x), gsub('.', '-', x, fixed=TRUE)) }");
+    }
+
+    @Test
+    public void testGreplTRegex() {
+        // options(fastr.tregex=TRUE) selects TRegex in FastR and is ignored by GNU R
+        assertEval("{ options(fastr.tregex=TRUE); x <- c('abc', 'aXbXc', NA, 'a/b'); r <- list(grepl('X', x), grepl('^a.c$', x), grepl('A', x, ignore.case=TRUE), regexpr('b', x), gregexpr('[[:upper:]]', x), " +
+                        "gsub('(a)(.)', '\\\\2\\\\1', x), sub('/', '-', x), grepl('x{2,3}', c('x', 'xxx'))); options(fastr.tregex=NULL); r }");
+    }
+
+    @Test
+    public void testGreplLongVector() {
+        // x is long enough to be matched in parallel, u is matched sequentially
+        assertEval("{ u <- c('abc', 'ABC', NA, '', 'a.b', 'x\\u00e4b'); x <- rep(u, 20000); identical(grepl('^a', x, ignore.case=TRUE), rep(grepl('^a', u, ignore.case=TRUE), 20000)) }");
+        assertEval("{ u <- c('abc', 'ABC', NA, '', 'a.b', 'x\\u00e4b'); x <- rep(u, 20000); identical(grepl('.', x, fixed=TRUE), rep(grepl('.', u, fixed=TRUE), 20000)) }");
+        assertEval("{ u <- c('abc', 'ABC', NA, '', 'a.b', 'x\\u00e4b'); x <- rep(u, 20000); identical(grep('[[:upper:]]|\\u00e4', x), as.vector(outer(grep('[[:upper:]]|\\u00e4', u), 6L * 0:19999, '+'))) }");
+        assertEval("{ u <- c('abc', 'ABC', NA, '', 'a.b', 'x\\u00e4b'); x <- rep(u, 20000); identical(grep('b', x, value=TRUE, invert=TRUE), rep(grep('b', u, value=TRUE, invert=TRUE), 20000)) }");
+        assertEval("{ u <- c('abc', 'ABC', NA, '', 'a.b', 'x\\u00e4b'); x <- rep(u, 20000); identical(startsWith(x, c('a', '')), rep(startsWith(u, c('a', '')), 20000)) }");
+        assertEval("{ u <- c('abc', 'ABC', NA, '', 'a.b', 'x\\u00e4b'); x <- rep(u, 20000); identical(endsWith(x, c('c', '\\u00e4b', NA)), rep(endsWith(u, c('c', '\\u00e4b', NA)), 20000)) }");
+    }
 }
@@ -239,4 +239,13 @@ public class TestBuiltin_gsub extends TestBase {
         assertEval("gsub('b','\\\\1m','Abb')");
         assertEval("gsub('@CXX11@', '$(CXX11)', '    CPLUS=\"@CXX11@\"                           \\'', fixed=FALSE)");
     }
+
+    @Test
+    public void testGsubLongVector() {
+        // the long x is processed in parallel
+        assertEval("{ u <- c('aaa', 'abab', NA, '', 'a.b.', 'B\\u00e4b'); x <- rep(u, 20000); identical(gsub('(a)|b', '<\\\\1>', x), rep(gsub('(a)|b', '<\\\\1>', u), 20000)) }");
+        assertEval("{ u <- c('aaa', 'abab', NA, '', 'a.b.', 'B\\u00e4b'); x <- rep(u, 20000); identical(sub('a*', '-', x), rep(sub('a*', '-', u), 20000)) }");
+        assertEval("{ u <- c('aaa', 'abab', NA, '', 'a.b.', 'B\\u00e4b'); x <- rep(u, 20000); identical(gsub('b', '\\u00f6', x, ignore.case=TRUE), rep(gsub('b', '\\u00f6', u, ignore.case=TRUE), 20000)) }");
+        assertEval("{ u <- c('aaa', 'abab', NA, '', 'a.b.', 'B\\u00e4b'); x <- rep(u, 20000); identical(gsub('.', '\\\\', x, fixed=TRUE), rep(gsub('.', '\\\\', u, fixed=TRUE), 20000)) }");
+    }
 }
@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -120,5 +120,12 @@ public class TestBuiltin_isunsorted extends TestBase {
         assertEval("{ is.unsorted(c(1+1i,2+1i,2+1i), strictly=FALSE) }");
         assertEval("{ is.unsorted(c(1+1i,2+1i,2+1i), strictly=TRUE) }");
         assertEval("{ is.unsorted(c(1,2,2), strictly=NA) }");
+        assertEval("{ x <- sort(c(3,1,2,2)); is.unsorted(x) }");
+        assertEval("{ x <- sort(c(3,1,2,2)); is.unsorted(x, strictly=TRUE) }");
+        assertEval("{ x <- sort(c(3L,1L,2L)); x[[1]] <- 5L; is.unsorted(x) }");
+        assertEval("{ is.unsorted(-.Internal(sort(c(3,1,2), FALSE))) }");
+        assertEval("{ is.unsorted(-.Internal(sort(c(3L,1L,2L), FALSE))) }");
+        assertEval("{ is.unsorted(10 - .Internal(sort(c(3,1,2), FALSE))) }");
+        assertEval("{ is.unsorted(.Internal(sort(c(3,1,2), FALSE)) * -1) }");
     }
 }
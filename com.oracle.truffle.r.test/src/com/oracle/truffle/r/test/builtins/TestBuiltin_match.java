@@ -427,6 +427,22 @@ public class TestBuiltin_match extends TestBase {
         assertEval("match(1:3, numeric(0))");
     }
 
+    @Test
+    public void testMatchSortedTable() {
+        assertEval("{ t <- sort(c(5L, 3L, 3L, 9L, 1L)); match(c(3L, 4L, NA, 9L, 1L), t) }");
+        assertEval("{ t <- sort(c(5L, 3L, 3L, 9L, 1L)); match(sort(c(9L, 3L, 0L, 5L)), t) }");
+        assertEval("{ t <- sort(c(5L, 3L, 3L, 9L, 1L), decreasing=TRUE); match(c(3L, 4L, NA, 9L, 1L), t) }");
+        assertEval("{ t <- sort(c(5L, 3L, 3L, 9L, 1L), decreasing=TRUE); match(sort(c(9L, 3L, 0L, 5L), decreasing=TRUE), t) }");
+        assertEval("{ t <- sort(c(2.5, -0, 1, 1, 7)); match(c(0, 1, NaN, NA, 7, 3), t) }");
+        assertEval("{ t <- sort(c(2.5, 0, 1, 1, 7), decreasing=TRUE); match(sort(c(0, 1, 7, 3), decreasing=TRUE), t, nomatch=0L) }");
+        assertEval("{ t <- sort(c(5L, 3L, 9L, 1L)); t[[1]] <- 10L; match(c(10L, 3L), t) }");
+        // arithmetic reuses the sorted temporary for its result
+        assertEval("{ t <- -.Internal(sort(c(3, 1, 2), FALSE)); match(c(-1, -3), t) }");
+        assertEval("{ t <- -.Internal(sort(c(3L, 1L, 2L), FALSE)); match(c(-1L, -3L), t) }");
+        assertEval("{ t <- 10 - .Internal(sort(c(3, 1, 2), FALSE)); match(c(9, 7), t) }");
+        assertEval("{ t <- .Internal(sort(c(3L, 1L, 2L), FALSE)) * -2L; match(c(-2L, -6L), t) }");
+    }
+
     private void testMatchStringSequence(String preffix, String suffix) {
         String x = String.format("c('%1$s-2%2$s', '%1$s-1%2$s', '%1$s0%2$s', '%1$s1%2$s', '%1$s10%2$s', '%1$s11%2$s')", preffix, suffix);
         String table = String.format("paste('%1$s', -1:10, '%2$s', sep='')", preffix, suffix);
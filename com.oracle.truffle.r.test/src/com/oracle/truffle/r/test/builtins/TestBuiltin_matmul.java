@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -41,4 +41,10 @@ public class TestBuiltin_matmul extends TestBase {
         assertEval("c(NA+2i) %*% c(3,4,5,6)");
         assertEval("c(1+2i) %*% c(3,4,5,6)");
     }
+
+    @Test
+    public void testMatmulLarge() {
+        assertEval("a <- matrix(as.double(1:40000 %% 7), 200); b <- matrix(as.double(1:50000 %% 5), 200); r <- a %*% b; c(dim(r), sum(r), r[1:3, 1:3], r[200, 250])");
+        assertEval("a <- matrix(as.double(1:40000 %% 7), 200); b <- matrix(as.double(1:50000 %% 5), 200); a[3, 5] <- NA; b[7, 11] <- NaN; r <- a %*% b; c(sum(is.na(r)), sum(is.nan(r)), sum(r[-3, -11]))");
+    }
 }
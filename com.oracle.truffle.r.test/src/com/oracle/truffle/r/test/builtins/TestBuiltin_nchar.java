@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -122,4 +122,12 @@ public class TestBuiltin_nchar extends TestBase {
         assertEval("nchar(wrongArg=\"a\")");
         assertEval("nchar(wrongArg='a')");
     }
+
+    @Test
+    public void testNCharLongVector() {
+        // the counts of the long x are computed in parallel
+        assertEval("{ u <- c('abc', NA, '', 'd\\u00e4\\u00f6', '\\u4e2d\\u6587', 'a b'); x <- rep(u, 20000); identical(nchar(x), rep(nchar(u), 20000)) }");
+        assertEval("{ u <- c('abc', NA, '', 'd\\u00e4\\u00f6', '\\u4e2d\\u6587', 'a b'); x <- rep(u, 20000); identical(nchar(x, 'bytes'), rep(nchar(u, 'bytes'), 20000)) }");
+        assertEval("{ u <- c('abc', NA, '', 'd\\u00e4\\u00f6', '\\u4e2d\\u6587', 'a b'); x <- rep(u, 20000); identical(nchar(x, 'width', keepNA=FALSE), rep(nchar(u, 'width', keepNA=FALSE), 20000)) }");
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -37,4 +37,12 @@ public class TestBuiltin_newenv extends TestBase {
         assertEval(Output.ContainsReferences, "parent.env(new.env())");
         assertEval(Output.ContainsReferences, "e <- new.env(); e; parent.env(new.env(TRUE, e))");
     }
+
+    @Test
+    public void testNewenvManyBindings() {
+        assertEval("e <- new.env(hash=TRUE); for (i in 1:10000) assign(paste0('k', i), i, envir=e); length(ls(e)); e$k42; get('k10000', envir=e); exists('k0', envir=e); exists('k1', envir=e, inherits=FALSE)");
+        assertEval("e <- new.env(hash=TRUE, size=10000L); for (i in 1:10000) assign(paste0('k', i), i, envir=e); rm('k2', envir=e); head(ls(e)); setequal(ls(e, sorted=FALSE), ls(e)); unlist(mget(c('k1', 'k3'), envir=e)); length(as.list(e)); e[['k2']]");
+        assertEval("e <- new.env(hash=TRUE); for (i in 1:10000) e[[paste0('k', i)]] <- i; lockBinding('k1', e); tryCatch(assign('k1', 0, envir=e), error=function(err) 'locked'); lockEnvironment(e); tryCatch(assign('new', 0, envir=e), error=function(err) 'no new bindings'); e$k5 <- 0; e$k5");
+        assertEval("e <- new.env(hash=TRUE); for (i in 1:10000) assign(paste0('k', i), i, envir=e); evalq(k1 + k9999, e); f <- function() k7; environment(f) <- e; f(); local(k8 <- -8, e); e$k8");
+    }
 }
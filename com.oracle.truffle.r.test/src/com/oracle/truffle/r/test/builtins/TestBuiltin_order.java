@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -180,4 +180,33 @@ public class TestBuiltin_order extends TestBase {
         assertEval("order(NULL)");
         assertEval("order(c(NULL, c(1,2,0)))");
     }
+
+    @Test
+    public void testOrderRadix() {
+        assertEval("{ x <- c(3L, NA, -2L, 3L, .Machine$integer.max, 0L, -.Machine$integer.max); order(x, method='radix') }");
+        assertEval("{ x <- c(3L, NA, -2L, 3L, .Machine$integer.max, 0L, -.Machine$integer.max); order(x, method='radix', decreasing=TRUE, na.last=FALSE) }");
+        assertEval("{ x <- c(0.5, -0, 0, NaN, -Inf, NA, Inf, -1e300, 0.5); order(x, method='radix') }");
+        assertEval("{ x <- c(0.5, -0, 0, NaN, -Inf, NA, Inf, -1e300, 0.5); order(x, method='radix', na.last=NA, decreasing=TRUE) }");
+        assertEval("{ x <- factor(c('b', 'a', NA, 'c', 'a')); order(x, method='radix') }");
+        assertEval("{ x <- c(TRUE, NA, FALSE, TRUE); order(x, method='radix', na.last=FALSE) }");
+        assertEval("{ order(c(2L, 1L, 2L, 1L), c(0.5, NA, -1, 0.5), c(TRUE, FALSE, NA, TRUE), method='radix') }");
+        assertEval("{ order(c(2L, 1L, 2L, 1L), c(0.5, NA, -1, 0.5), decreasing=TRUE, method='radix') }");
+        assertEval("{ sort.list(c(5L, 1L, 3L, 1L), method='radix') }");
+
+        // long enough to use the radix sort also without method='radix'
+        assertEval("{ set.seed(42); x <- sample(c(NA, 1:100), 5000, replace=TRUE); identical(order(x), order(x, method='shell')) }");
+        assertEval("{ set.seed(42); x <- c(NA, NaN, rnorm(5000)); identical(order(x, decreasing=TRUE), order(x, decreasing=TRUE, method='shell')) }");
+        assertEval("{ set.seed(42); x <- sample(1e6, 5000, replace=TRUE); y <- runif(5000); identical(order(x %% 10L, y), order(x %% 10L, y, method='shell')) }");
+        assertEval("{ set.seed(42); x <- sample(10, 5000, replace=TRUE); r <- rank(x); all(diff(r[order(x, method='shell')]) >= 0) }");
+
+        // long enough to be ordered in parallel, compared with the radix sort of the equivalent factor
+        assertEval("{ set.seed(42); x <- sample(letters, 2e5, replace=TRUE); y <- sample(c(NA, 1:1000), 2e5, replace=TRUE); identical(order(x, y), order(factor(x), y)) }");
+        assertEval("{ set.seed(42); x <- sample(c(NA, letters), 2e5, replace=TRUE); y <- sample(c(NA, NaN, 1:10 / 3), 2e5, replace=TRUE); identical(order(x, y, decreasing=TRUE, na.last=FALSE), order(factor(x), y, decreasing=TRUE, na.last=FALSE)) }");
+        assertEval("{ x <- sort(c(3, 1, 2, 2, 1)); order(x) }");
+        assertEval("{ x <- sort(c(3, 1, 2, 2, 1)); order(x, decreasing=TRUE) }");
+        assertEval("{ x <- sort(c('b', 'a', 'b'), decreasing=TRUE); order(x, decreasing=TRUE) }");
+        // sorted strings are ordered with the collator, the copy has no sortedness
+        assertEvalFastR("{ x <- sort(c('B', 'a', 'C', 'b')); identical(order(x), order(c(x[1], x[-1]))) }", "TRUE");
+        assertEvalFastR("{ x <- sort(c('B', 'a', 'C', 'b'), decreasing=TRUE); identical(order(x, decreasing=TRUE), order(c(x[1], x[-1]), decreasing=TRUE)) }", "TRUE");
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -117,6 +117,14 @@ public class TestBuiltin_serialize extends TestBase {
         assertEval(Ignored.ImplementationError, "serialize('foo', NULL, version=3)");
     }
 
+    @Test
+    public void testSerializeLargeVectors() {
+        // materialized vectors are written in bulk, gzip output spans several compressed blocks
+        assertEval("x <- list(as.integer((1:500000) %% 1000L), (1:500000) / 7, c(TRUE, NA, FALSE)); identical(unserialize(serialize(x, NULL)), x)");
+        assertEval(template("x <- list(as.integer((1:500000) %% 1000L), (1:500000) / 7); f <- tempfile(); saveRDS(x, f, compress=%0); y <- readRDS(f); unlink(f); identical(y, x)",
+                        new String[]{"FALSE", "TRUE", "'xz'"}));
+    }
+
     @Test
     public void testSerializeWithPromises() {
         assertEval("{ f <- function(...) serialize(mget('...'),NULL); length(unserialize(f(a=3,b=2,c=1))[[1]]); }");
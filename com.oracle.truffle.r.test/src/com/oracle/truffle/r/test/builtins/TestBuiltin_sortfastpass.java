@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -45,4 +45,15 @@ public class TestBuiltin_sortfastpass extends TestBase {
         assertEval("argv <- list(1:10, FALSE, FALSE); argv2 <- argv[[1]] + 1; .Internal(sorted_fpass(argv2[[1]], argv2[[2]], argv2[[3]]))");
         assertEval("argv <- list(c(1,2,3,4,5,6,7,8), FALSE, FALSE); argv2 <- argv[[1]] + 1; .Internal(sorted_fpass(argv2[[1]], argv2[[2]], argv2[[3]]))");
     }
+
+    @Test
+    public void testsortfastpassSorted() {
+        assertEval(".Internal(sorted_fpass(sort(c(3L, 1L, 2L)), FALSE, TRUE))");
+        assertEval(".Internal(sorted_fpass(sort(c(3L, 1L, 2L)), TRUE, TRUE))");
+        assertEval(".Internal(sorted_fpass(sort(c(3, 1, 2), decreasing=TRUE), TRUE, TRUE))");
+        assertEval(".Internal(sorted_fpass(sort(c(3, 1, 2), decreasing=TRUE), FALSE, TRUE))");
+        assertEval("x <- sort(c(3, 1, 2)); x[[2]] <- 10; .Internal(sorted_fpass(x, FALSE, TRUE))");
+        assertEval("x <- sort(c(3L, 1L, 2L)); x[2:3] <- 0L; .Internal(sorted_fpass(x, FALSE, TRUE))");
+        assertEval("x <- sort(c(3, 1, NA, 2)); sort(x); x");
+    }
 }
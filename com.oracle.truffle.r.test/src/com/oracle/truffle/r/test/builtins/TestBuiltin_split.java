@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -138,5 +138,6 @@ public class TestBuiltin_split extends TestBase {
     public void testSplitWithNames() {
         assertEval("{ split(list(q=1, w=2L, e='x', r=T), as.factor(c('a', 'b', 'a')); }");
         assertEval(Ignored.Unimplemented, "{ tmp <- c(1,2,3); names(tmp) <- c('x','y','z'); split(tmp, as.factor(c('a','b'))); }");
+        assertEvalFastR("{ split(c(a = 1, b = 2, c = 3, d = 4), factor(c('x', NA, 'y', 'x'))) }", "list(x = c(a = 1, d = 4), y = c(c = 3))");
     }
 }
@@ -160,4 +160,11 @@ public class TestBuiltin_strsplit extends TestBase {
 
         assertEval("strsplit('/some/path/to/somewhere' , '^(?=/)(?!//)|(?<!^)(?<!^/)/', perl = TRUE)");
     }
+
+    @Test
+    public void testStrsplitLongVector() {
+        // the long x is split in parallel
+        assertEval("{ u <- c('a,b,', ',a', NA, '', 'a,,b', '\\u00e4,\\u00f6'); x <- rep(u, 20000); identical(strsplit(x, ',', fixed=TRUE), rep(strsplit(u, ',', fixed=TRUE), 20000)) }");
+        assertEval("{ u <- c('a,b,', ',a', NA, '', 'a,,b', '\\u00e4,\\u00f6'); x <- rep(u, 20000); identical(strsplit(x, c(',*', '')), rep(strsplit(u, c(',*', '')), 20000)) }");
+    }
 }
@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -121,4 +121,11 @@ public class TestBuiltin_substr extends TestBase {
 
         assertEval("{ x<-c(\"abcdef\"); substr(x[1], 2, 3)<-\"0\"; x }");
     }
+
+    @Test
+    public void testSubstrLongVector() {
+        // the long x is processed in parallel, recycling start and stop
+        assertEval("{ u <- c('abcdef', NA, '', 'x\\u00e4\\u00f6z', 'ab', 'abc'); x <- rep(u, 20000); identical(substr(x, 2, 4), rep(substr(u, 2, 4), 20000)) }");
+        assertEval("{ u <- c('abcdef', NA, '', 'x\\u00e4\\u00f6z', 'ab', 'abc'); x <- rep(u, 20000); identical(substr(x, c(-1, 3, 10), c(2, 1, 12)), rep(substr(u, c(-1, 3, 10), c(2, 1, 12)), 20000)) }");
+    }
 }
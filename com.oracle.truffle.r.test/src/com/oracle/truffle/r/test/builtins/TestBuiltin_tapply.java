@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.builtins;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestBuiltin_tapply extends TestBase {
+
+    private static final String DATA = "x <- c(3, 1, NA, 7, NaN, 2.5, -1, 4, 0.1); xi <- c(3L, 1L, NA, 7L, 5L, 2L, -1L, 4L, 0L); xl <- c(TRUE, FALSE, NA, TRUE, TRUE, FALSE, TRUE, FALSE, TRUE); f <- factor(c('a', 'b', 'a', 'c', 'b', 'a', NA, 'c', 'c'), levels = c('a', 'b', 'c', 'd')); ";
+
+    @Test
+    public void testTapplyFastPath() {
+        // the common reducers are computed by the tapply fast path, wrapping them in a closure
+        // disables it
+        for (String fun : new String[]{"sum", "mean", "min", "max", "length", "var"}) {
+            String naRm = "length".equals(fun) ? "" : ", na.rm = TRUE";
+            assertEvalFastR("{ " + DATA + "slow <- function(v, ...) " + fun + "(v, ...); identical(tapply(x, f, " + fun + "), tapply(x, f, slow)) && identical(tapply(xi, f, " + fun + "), tapply(xi, f, slow)) && " +
+                            "identical(tapply(xl, f, " + fun + "), tapply(xl, f, slow)) && identical(tapply(x, f, " + fun + naRm + "), tapply(x, f, slow" + naRm + ")) }", "TRUE");
+        }
+        assertEvalFastR("{ " + DATA + "tapply(x, f, sum, na.rm = TRUE) }", "structure(c(5.5, 1, 11.1, NA), .Dim = 4L, .Dimnames = list(c('a', 'b', 'c', 'd')))");
+        // falls back to the R implementation
+        assertEvalFastR("{ x <- c(.Machine$integer.max, 1L); f <- factor(c('a', 'a')); identical(suppressWarnings(tapply(x, f, sum)), suppressWarnings(tapply(x, f, function(v) sum(v)))) }", "TRUE");
+        assertEvalFastR("{ suppressWarnings(tapply(c(NA, 1), factor(c('a', 'b')), min, na.rm = TRUE)) }", "structure(c(Inf, 1), .Dim = 2L, .Dimnames = list(c('a', 'b')))");
+        assertEvalFastR("{ tapply(1:3, factor(c(NA, NA, NA), levels = 'a'), sum) }", "structure(NA, .Dim = 1L, .Dimnames = list('a'))");
+    }
+
+    @Test
+    public void testGroupReduce() {
+        assertEvalFastR("{ .Internal(.fastr.groupReduce(c(1, 2, 3, NA), c(1L, 2L, 1L, NA), 3L, 'sum', FALSE)) }", "c(4, 2, NA)");
+        assertEvalFastR("{ .Internal(.fastr.groupReduce(c(1L, 2L, 3L), c(1L, 1L, 2L), 2L, 'max', FALSE)) }", "c(2L, 3L)");
+        assertEvalFastR("{ .Internal(.fastr.groupReduce(c(1L, NA), c(1L, 1L), 1L, 'min', TRUE)) }", "1L");
+        assertEvalFastR("{ .Internal(.fastr.groupReduce(c(NA, 1), c(1L, 2L), 2L, 'min', TRUE)) }", "NULL");
+        assertEvalFastR("{ .Internal(.fastr.groupReduce(c(1, 2, 4), c(1L, 1L, 1L), 1L, 'var', FALSE)) }", "var(c(1, 2, 4))");
+    }
+}
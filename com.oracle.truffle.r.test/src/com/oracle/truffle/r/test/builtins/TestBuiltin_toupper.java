@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -63,4 +63,12 @@ public class TestBuiltin_toupper extends TestBase {
         assertEval("{ toupper(c(a=\"hi\", \"hello\")) }");
         assertEval("a <- structure(c('x', 'y'), names=c('a1','a2')); b<-toupper(a); names(b)[1]<-'bb'; a; ");
     }
+
+    @Test
+    public void testToupperLongVector() {
+        // the long x is processed in parallel
+        assertEval("{ u <- c('abc', NA, '', 'Stra\\u00dfe', '\\u00e4\\u00d6', 'MiXeD'); x <- rep(u, 20000); identical(toupper(x), rep(toupper(u), 20000)) }");
+        assertEval("{ u <- c('abc', NA, '', 'Stra\\u00dfe', '\\u00e4\\u00d6', 'MiXeD'); x <- rep(u, 20000); identical(tolower(x), rep(tolower(u), 20000)) }");
+        assertEval("{ u <- c('abc', NA, '', 'Stra\\u00dfe', '\\u00e4\\u00d6', 'MiXeD'); x <- rep(u, 20000); identical(strtrim(x, c(0, 5, 1)), rep(strtrim(u, c(0, 5, 1)), 20000)) }");
+    }
 }
@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -207,5 +207,10 @@ public class TestBuiltin_unique extends TestBase {
         assertEval("unique(c(1, NA, NA))");
         assertEval("unique(c(1+1i, NA, NA))");
 
+        assertEval("unique(sort(c(3L, 1L, 2L, 3L, 1L, 1L)))");
+        assertEval("unique(sort(c(3, 1, 2, 3, 1, 1, NA), decreasing=TRUE))");
+        assertEval("unique(sort(c(0, -0, 1, 1)), fromLast=TRUE)");
+        assertEval("x <- sort(c(3L, 1L, 2L, 1L)); x[[4]] <- 1L; unique(x)");
+
     }
 }
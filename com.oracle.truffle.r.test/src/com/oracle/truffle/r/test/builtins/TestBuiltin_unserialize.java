@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2016, 2019, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -38,6 +38,20 @@ public class TestBuiltin_unserialize extends TestBase {
         assertEval(template("unserialize(serialize(%0, NULL))", BASIC_TYPE_VALUES));
     }
 
+    @Test
+    public void testLargeVectors() {
+        // vectors larger than the read buffer, from memory and through compressed files
+        assertEval("x <- list(1:100000, c(NA, (1:100000) / 3), c(3+2i, NA, 1:100000 * 1i)); identical(unserialize(serialize(x, NULL)), x)");
+        assertEval(template("x <- list(1:100000, c(NA, (1:100000) / 3), c(3+2i, NA, 1:100000 * 1i)); f <- tempfile(); saveRDS(x, f, compress=%0); y <- readRDS(f); unlink(f); identical(y, x)",
+                        new String[]{"FALSE", "'gzip'", "'bzip2'", "'xz'"}));
+        // several objects on one connection, which is closed before the end of the data
+        assertEval(template("f <- tempfile(); con <- %0(f, 'wb'); serialize(1:1000000, con); serialize(letters, con); serialize(2:1000000, con); close(con); " +
+                        "con <- %0(f, 'rb'); x <- unserialize(con); y <- unserialize(con); close(con); unlink(f); identical(list(x, y), list(1:1000000, letters))",
+                        new String[]{"gzfile", "bzfile", "xzfile"}));
+        // text reads are not read ahead
+        assertEval("f <- tempfile(); writeLines(as.character(1:200000), gzfile(f)); l <- readLines(gzfile(f)); unlink(f); identical(l, as.character(1:200000))");
+    }
+
     @Test
     public void testserializeAndUnserializeClosure() {
         // N.B.: FastR does not preserve code formatting like GNU R does
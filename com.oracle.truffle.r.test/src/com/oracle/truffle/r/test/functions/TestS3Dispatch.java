@@ -14,7 +14,7 @@
  * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
  *
  * Copyright (c) 2012-2014, Purdue University
- * Copyright (c) 2013, 2018, Oracle and/or its affiliates
+ * Copyright (c) 2013, 2019, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -169,6 +169,14 @@ public class TestS3Dispatch extends TestRBase {
         assertEval("{ fun <- function(x) UseMethod('fun'); fun.NULL <- function(x) 'integer'; fun(); }");
     }
 
+    @Test
+    public void testMegamorphicDispatch() {
+        assertEval("{ fun <- function(x) UseMethod('fun'); fun.default <- function(x) 'default'; for (i in 1:10) assign(paste0('fun.c', i), eval(bquote(function(x) .(i)))); sapply(1:12, function(i) fun(structure(1, class=paste0('c', i)))) }");
+        assertEval("{ fun <- function(x) UseMethod('fun'); fun.default <- function(x) 'default'; for (i in 1:10) assign(paste0('fun.c', i), eval(bquote(function(x) .(i)))); f <- function() sapply(1:10, function(i) fun(structure(1, class=c(paste0('c', i), 'b')))); r1 <- f(); fun.c3 <- function(x) 'new'; rm(fun.c5); fun.b <- function(x) 'b'; list(r1, f()) }");
+        assertEval("{ fun <- function(x) UseMethod('fun'); fun.b <- function(x) paste('b', NextMethod()); fun.default <- function(x) 'default'; for (i in 1:10) assign(paste0('fun.c', i), eval(bquote(function(x) paste(.(i), NextMethod())))); sapply(1:10, function(i) fun(structure(1, class=c(paste0('c', i), 'b')))) }");
+        assertEval("{ fun <- function(x) UseMethod('fun'); fun.default <- function(x) 'default'; g <- function(i) { fun.c1 <- function(x) 'local'; fun(structure(1, class=paste0('c', i))) }; for (i in 1:10) assign(paste0('fun.c', i), eval(bquote(function(x) .(i)))); sapply(1:10, g) }");
+    }
+
     @Override
     public String getTestDir() {
         return "S3";
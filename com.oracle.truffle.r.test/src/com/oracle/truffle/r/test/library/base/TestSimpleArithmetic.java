@@ -792,4 +792,18 @@ public class TestSimpleArithmetic extends TestBase {
         assertEval("{ a <- c(1, 2, 4); foo <- function() { a[[1]] <<- 42; 33; }; a + foo() }");
 
     }
+
+    @Test
+    public void testLongVectors() {
+        // long complete vectors are mapped in parallel, the short subsets sequentially; sample
+        // materializes the operands, the parallel map does not handle sequences
+        assertEvalFastR("{ x <- sample(2e6) / 7; y <- rev(x); i <- c(1, 1e6, 2e6); identical(list((x - y)[i], (x / 3)[i], (2 * y)[i], (x >= y)[i]), list(x[i] - y[i], x[i] / 3, 2 * y[i], x[i] >= y[i])) }", "TRUE");
+        assertEvalFastR("{ x <- sample(2e6); y <- rev(x); i <- c(1L, 1000000L, 2000000L); identical(list((x + y)[i], (x * 3L)[i], (5L - x)[i], (x != y)[i], (x < y)[i]), list(x[i] + y[i], x[i] * 3L, 5L - x[i], x[i] != y[i], x[i] < y[i])) }", "TRUE");
+        // x > y is computed as y < x, every operation has its own loop per shape of the operands
+        assertEvalFastR("{ x <- sample(2e6) / 7; y <- rev(x); i <- c(1, 1e6, 2e6); identical(list((x > y)[i], (3 >= x)[i], (x > 3)[i], (x <= y)[i], (4 == x)[i]), list(x[i] > y[i], 3 >= x[i], x[i] > 3, x[i] <= y[i], 4 == x[i])) }", "TRUE");
+        assertEvalFastR("{ x <- sample(2e6); z <- NaN > x; c(all(is.na(z)), length(z)) }", "c(TRUE, 2000000)");
+        assertEvalFastR("{ x <- as.double(1:2e6); x[5] <- NaN; z <- x < 3; c(is.na(z[5]), anyNA(z[-5]), sum(z[-5])) }", "c(TRUE, FALSE, 2)");
+        assertEvalFastR("{ x <- rep(.Machine$integer.max - 1L, 2e6); tryCatch(x + 2L, warning = function(w) conditionMessage(w)) }", "'NAs produced by integer overflow'");
+        assertEvalFastR("{ x <- rep(.Machine$integer.max - 1L, 2e6); z <- suppressWarnings(x + 2L); c(anyNA(z), all(is.na(z))) }", "c(TRUE, TRUE)");
+    }
 }
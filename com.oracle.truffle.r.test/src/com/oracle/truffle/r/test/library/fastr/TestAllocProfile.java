@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+import com.oracle.truffle.r.test.TestBase;
+import com.oracle.truffle.r.test.generate.FastRContext;
+import com.oracle.truffle.r.test.generate.FastRSession;
+
+// Checkstyle: stop line length check
+public class TestAllocProfile extends TestBase {
+
+    // the profiled functions only call primitives, whose allocations are attributed to the caller,
+    // unlike those of closures such as numeric()
+    private static final String F = "f <- function(n) rep(0.5, n) * 2; ";
+
+    private static FastRContext context;
+
+    @BeforeClass
+    public static void setupClass() {
+        FastRSession session = FastRSession.create();
+        context = session.createContext(ContextKind.SHARE_PARENT_RW);
+        // gc() only runs the Java GC with this option
+        FastRSession.execInContext(context, () -> {
+            RContext.getInstance().setOption(FastROptions.EnableExplicitGC, true);
+            return null;
+        });
+    }
+
+    @AfterClass
+    public static void finishClass() {
+        context.close();
+    }
+
+    @Test
+    public void testAllocSites() {
+        assertEvalFastR("{ .fastr.allocprof(sampleBytes=0); " + F + "for (i in 1:10) f(1000); s <- .fastr.allocprof(FALSE); any(s$function == 'f' & s$type == 'double' & s$count >= 10) }",
+                        "TRUE");
+        assertEvalFastR("{ .fastr.allocprof(sampleBytes=0); " + F + "x <- f(1000); s <- .fastr.allocsites(live=TRUE); .fastr.allocprof(FALSE); any(s$function == 'f' & s$bytes >= 8000) }",
+                        "TRUE");
+        assertEvalFastR("{ .fastr.allocsites() }", "NULL");
+    }
+
+    @Test
+    public void testSampling() {
+        // each sample stands for the bytes allocated since the previous one, so the estimated count
+        // of the 20000 allocations is close to the real one although only about every 50th is sampled
+        assertEvalFastR("{ " + F + ".fastr.allocprof(sampleBytes=0); f(100); s <- .fastr.allocprof(FALSE); w <- s$function == 'f' & s$type == 'double'; size <- sum(s$bytes[w]) / sum(s$count[w]); " +
+                        ".fastr.allocprof(sampleBytes=50 * size); for (i in 1:10000) f(100); s <- .fastr.allocprof(FALSE); w <- s$function == 'f' & s$type == 'double'; " +
+                        "c(sum(s$count[w]) > 10000, sum(s$count[w]) < 40000, sum(s$bytes[w]) / sum(s$count[w]) < 2 * size) }",
+                        "c(TRUE, TRUE, TRUE)");
+        // nothing is sampled before sampleBytes bytes have been allocated
+        assertEvalFastR("{ " + F + ".fastr.allocprof(sampleBytes=1e9); for (i in 1:100) f(100); s <- .fastr.allocprof(FALSE); any(s$function == 'f') }", "FALSE");
+    }
+
+    @Test
+    public void testStreamedChanges() {
+        // the file gets the changes since the previous report, so they add up to the totals
+        assertEvalFastR("{ file <- tempfile(); " + F + ".fastr.allocprof(file=file, sampleBytes=0, interval=0.05); for (i in 1:5) f(100); Sys.sleep(0.5); for (i in 1:5) f(100); s <- .fastr.allocprof(FALSE); " +
+                        "d <- read.delim(file, check.names=FALSE, stringsAsFactors=FALSE, quote=''); unlink(file); w <- d[['function']] == 'f' & d$type == 'double'; " +
+                        "c(identical(names(d), c('time', 'function', 'location', 'type', 'count', 'bytes', 'live.count', 'live.bytes')), sum(w) >= 2, " +
+                        "sum(d$count[w]) == s$count[s$function == 'f' & s$type == 'double'], sum(d$bytes[w]) == s$bytes[s$function == 'f' & s$type == 'double']) }",
+                        "c(TRUE, TRUE, TRUE, TRUE)");
+    }
+
+    @Test
+    public void testLiveAfterGC() {
+        String code = "{ .fastr.allocprof(sampleBytes=0); " + F + "live <- function() { s <- .fastr.allocsites(live=TRUE); sum(s$count[s$function == 'f' & s$type == 'double']) }; " +
+                        "x <- f(1e5); before <- live(); rm(x); for (i in 1:20) { gc(); Sys.sleep(0.05); if (live() == 0) break }; after <- live(); .fastr.allocprof(FALSE); " +
+                        "before >= 1 && after == 0 }";
+        Assert.assertTrue(context.eval("R", code).asBoolean());
+    }
+
+    @Test
+    public void testStreamedFrees() {
+        // a site whose objects were collected is reported although it did not allocate since
+        String code = "{ file <- tempfile(); " + F + ".fastr.allocprof(file=file, sampleBytes=0, interval=0.05); " +
+                        "live <- function() { s <- .fastr.allocsites(live=TRUE); sum(s$count[s$function == 'f' & s$type == 'double']) }; " +
+                        "x <- f(1e5); Sys.sleep(0.3); rm(x); for (i in 1:20) { gc(); Sys.sleep(0.05); if (live() == 0) break }; Sys.sleep(0.3); .fastr.allocprof(FALSE); " +
+                        "d <- read.delim(file, check.names=FALSE, stringsAsFactors=FALSE, quote=''); unlink(file); d <- d[d[['function']] == 'f' & d$type == 'double', ]; " +
+                        "nrow(d) >= 2 && d$live.count[1] >= 1 && d$count[nrow(d)] == 0 && d$live.count[nrow(d)] == 0 }";
+        Assert.assertTrue(context.eval("R", code).asBoolean());
+    }
+}
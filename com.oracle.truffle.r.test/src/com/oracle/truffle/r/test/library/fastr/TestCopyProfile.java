@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestCopyProfile extends TestBase {
+
+    @Test
+    public void testCopySites() {
+        assertEvalFastR("{ .fastr.copyprof(); f <- function(x) { x[1] <- 0; x }; y <- c(1, 2, 3); for (i in 1:5) f(y); s <- .fastr.copyprof(FALSE); any(s$function == 'f' & s$reason == 'copy' & s$count >= 5) }",
+                        "TRUE");
+        assertEvalFastR("{ .fastr.copyprof(); f <- function(n) { x <- 1:n; x[2] <- 0L; x }; f(10); s <- .fastr.copysites(1); .fastr.copyprof(FALSE); length(s$function) }", "1");
+        assertEvalFastR("{ .fastr.copysites() }", "NULL");
+    }
+
+    @Test
+    public void testCopyReasons() {
+        // growing a vector copies it into a longer one
+        assertEvalFastR("{ .fastr.copyprof(); f <- function(x) { x[length(x) + 1] <- 0; x }; f(c(1, 2, 3)); s <- .fastr.copyprof(FALSE); any(s$function == 'f' & s$reason == 'resize' & s$type == 'double') }",
+                        "TRUE");
+        // new() duplicates the prototype with its attributes
+        assertEvalFastR("{ setClass('CopyProfNum', contains='numeric'); .fastr.copyprof(); x <- new('CopyProfNum', 1); s <- .fastr.copyprof(FALSE); any(s$reason == 'deep copy' & s$type == 'double') }",
+                        "TRUE");
+        // native code works on a copy of the data in native memory
+        assertEvalFastR("{ .fastr.copyprof(); x <- as.double(1:100); y <- stats::filter(x, rep(1 / 3, 3)); s <- .fastr.copyprof(FALSE); any(s$reason == 'to native' & s$type == 'double' & s$bytes >= 800) }",
+                        "TRUE");
+    }
+
+    @Test
+    public void testTracememSurvivesStop() {
+        // the copy profiler must not switch off the copy tracing that tracemem relies on
+        assertEvalFastR("{ x <- c(1, 2, 3); invisible(tracemem(x)); .fastr.copyprof(); invisible(.fastr.copyprof(FALSE)); out <- capture.output({ y <- x; y[1] <- 0 }); untracemem(x); any(grepl('tracemem', out)) }",
+                        "TRUE");
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.utils;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestRprof extends TestBase {
+
+    private static final String PROFILE = "busy <- function() { t <- proc.time()[[3]] + 0.3; while (proc.time()[[3]] < t) {} }; outer <- function() busy(); ";
+
+    @Test
+    public void testCollapsed() {
+        assertEvalFastR("{ " + PROFILE + "f <- tempfile(); options(fastr.rprof.format='collapsed'); Rprof(f, interval=0.005); outer(); Rprof(NULL); options(fastr.rprof.format=NULL); " +
+                        "l <- readLines(f); unlink(f); length(l) > 0 && all(grepl('^[^ ]+ [0-9]+$', l)) && any(grepl('(^|;)outer;busy [0-9]+$', l)) }", "TRUE");
+    }
+
+    @Test
+    public void testPprof() {
+        // the profile is gzip compressed and its string table holds the function names
+        assertEvalFastR("{ " + PROFILE + "f <- tempfile(); options(fastr.rprof.format='pprof'); Rprof(f, interval=0.005); outer(); Rprof(NULL); options(fastr.rprof.format=NULL); " +
+                        "magic <- readBin(f, 'raw', 2); con <- gzfile(f, 'rb'); b <- readBin(con, 'raw', 1e6); close(con); unlink(f); s <- rawToChar(b[b != as.raw(0)]); " +
+                        "identical(magic, as.raw(c(0x1f, 0x8b))) && all(vapply(c('samples', 'cpu', 'nanoseconds', 'outer', 'busy'), grepl, TRUE, s, fixed=TRUE)) }", "TRUE");
+        // append is ignored, the file must hold a single gzip stream
+        assertEvalFastR("{ " + PROFILE + "f <- tempfile(); writeLines('junk', f); options(fastr.rprof.format='pprof'); w <- NULL; " +
+                        "withCallingHandlers(Rprof(f, append=TRUE, interval=0.005), warning=function(c) { w <<- conditionMessage(c); invokeRestart('muffleWarning') }); outer(); Rprof(NULL); options(fastr.rprof.format=NULL); " +
+                        "magic <- readBin(f, 'raw', 2); unlink(f); list(w, magic) }",
+                        "list(\"Rprof: 'append' is not supported in the pprof format, the file is overwritten\", as.raw(c(0x1f, 0x8b)))");
+    }
+
+    @Test
+    public void testInvalidFormat() {
+        assertEvalFastR("{ options(fastr.rprof.format='foo'); r <- tryCatch(Rprof(tempfile()), error=function(e) 'error'); options(fastr.rprof.format=NULL); r }", "'error'");
+    }
+}
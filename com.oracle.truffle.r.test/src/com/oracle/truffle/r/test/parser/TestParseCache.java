@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.parser;
+
+import static com.oracle.truffle.r.runtime.context.FastROptions.ParseCacheDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.graalvm.polyglot.Source;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.r.engine.ParseCache;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.context.Engine.ParsedExpression;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+import com.oracle.truffle.r.test.TestBase;
+import com.oracle.truffle.r.test.generate.FastRContext;
+import com.oracle.truffle.r.test.generate.FastRSession;
+
+/**
+ * Tests that the parse cache restores repeated parses from memory and, for files such as the
+ * scripts run by {@code Rscript}, from the on-disk cache in a new context. The texts contain the
+ * current time, so that entries left by earlier runs are not hit.
+ */
+public class TestParseCache extends TestBase {
+
+    private static FastRSession session;
+    private static Path dir;
+
+    @BeforeClass
+    public static void setupClass() throws IOException {
+        session = FastRSession.create();
+        dir = Files.createTempDirectory("fastrParseCache");
+    }
+
+    @AfterClass
+    public static void finishClass() throws IOException {
+        for (File file : dir.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(dir);
+    }
+
+    private static FastRContext createContext() {
+        FastRContext context = session.createContext(ContextKind.SHARE_PARENT_RW);
+        FastRSession.execInContext(context, () -> {
+            RContext.getInstance().setOption(ParseCacheDir, dir.toString());
+            return null;
+        });
+        return context;
+    }
+
+    @Test
+    public void testText() {
+        FastRContext context = createContext();
+        try {
+            String text = "f <- function(x) x + " + System.nanoTime() + "; g <- function(y = NA_character_) c(y, 0x10L, -Inf)";
+            FastRSession.execInContext(context, () -> {
+                long hits = ParseCache.getHits();
+                long misses = ParseCache.getMisses();
+                ParsedExpression first = RContext.getEngine().parse(RSource.fromText(text, "first"), false);
+                Assert.assertEquals(misses + 1, ParseCache.getMisses());
+                Assert.assertEquals(hits, ParseCache.getHits());
+                ParsedExpression second = RContext.getEngine().parse(RSource.fromText(text, "second"), false);
+                Assert.assertEquals(misses + 1, ParseCache.getMisses());
+                Assert.assertEquals(hits + 1, ParseCache.getHits());
+                Assert.assertEquals(first.getExpression().getLength(), second.getExpression().getLength());
+                return null;
+            });
+        } finally {
+            context.close();
+        }
+    }
+
+    @Test
+    public void testScriptFile() throws IOException {
+        StringBuilder text = new StringBuilder("# " + System.nanoTime() + "\n");
+        // only files of at least 512 characters are stored on disk
+        for (int i = 0; i < 32; i++) {
+            text.append("x").append(i).append(" <- c(").append(i).append("L, NA)\n");
+        }
+        text.append("sum(x31, na.rm = TRUE)\n");
+        File file = dir.resolve("script.R").toFile();
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        Source script = Source.newBuilder("R", file).build();
+
+        // the first run parses the script and stores the recording on disk
+        FastRContext context = createContext();
+        long misses = ParseCache.getMisses();
+        try {
+            Assert.assertEquals(31, context.eval(script).asInt());
+            Assert.assertEquals(misses + 1, ParseCache.getMisses());
+        } finally {
+            context.close();
+        }
+        Assert.assertTrue(dir.toFile().list((d, name) -> name.endsWith(".ast")).length > 0);
+
+        // without the in-memory entry, as in a new process, the recording is read from the file
+        long cacheSize = ParseCache.getCacheSize();
+        ParseCache.setCacheSize(0);
+        try {
+            context = createContext();
+            misses = ParseCache.getMisses();
+            long diskHits = ParseCache.getDiskHits();
+            try {
+                Assert.assertEquals(31, context.eval(script).asInt());
+                Assert.assertEquals(misses, ParseCache.getMisses());
+                Assert.assertEquals(diskHits + 1, ParseCache.getDiskHits());
+            } finally {
+                context.close();
+            }
+        } finally {
+            ParseCache.setCacheSize(cacheSize);
+        }
+    }
+}
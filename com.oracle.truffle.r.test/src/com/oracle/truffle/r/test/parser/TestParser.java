@@ -156,4 +156,14 @@ public class TestParser extends TestBase {
         assertEval("`%Š%` <- function(a,b) 1; 10 %Š% 20");
         assertEval("`%!@#$^&*()%` <- function(a,b) 1; 10 %!@#$^&*()% 20");
     }
+
+    @Test
+    public void testParseCache() {
+        // the second parse of the same text is restored from the parse cache, see TestParseCache
+        assertEvalFastR("{ t <- 'f <- function(x, y = NA_character_) if (is.na(y)) x + 1i else c(NA, NaN, NA_real_, -Inf, 0x10L, \"NA\")'; e1 <- parse(text = t, keep.source = FALSE); e2 <- parse(text = t, keep.source = FALSE); eval(e2[[1]]); " +
+                        "identical(deparse(e1), deparse(e2)) && identical(f(1), 1 + 1i) && identical(is.na(f(1, '')), c(TRUE, FALSE, TRUE, FALSE, FALSE, FALSE)) }", "TRUE");
+        // the warnings of the parser are raised by every parse of the text
+        assertEvalFastR("{ w <- function() { m <- 'none'; withCallingHandlers(parse(text = 'x <- 1.5L', keep.source = FALSE), warning = function(w) { m <<- conditionMessage(w); invokeRestart('muffleWarning') }); m }; c(w(), w()) }",
+                        "rep('integer literal 1.5L contains decimal; using numeric value', 2)");
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.runtime;
+
+import static com.oracle.truffle.r.runtime.context.FastROptions.EnvHashThreshold;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.test.TestBase;
+import com.oracle.truffle.r.test.generate.FastRContext;
+import com.oracle.truffle.r.test.generate.FastRSession;
+
+/**
+ * Tests that environments created by {@code new.env(hash = TRUE)} allow the cached frame accesses
+ * of {@code assign} and {@code get} (see {@link REnvironment#isFrameAccessible()}) while their
+ * bindings are stored in the frame, and that these accesses do not keep the bindings in the frame.
+ */
+public class TestEnvHashFrameAccess extends TestBase {
+
+    private static final int THRESHOLD = 10;
+
+    private static FastRContext context;
+
+    @BeforeClass
+    public static void setupClass() {
+        FastRSession session = FastRSession.create();
+        context = session.createContext(ContextKind.SHARE_PARENT_RW);
+        FastRSession.execInContext(context, () -> {
+            RContext.getInstance().setOption(EnvHashThreshold, THRESHOLD);
+            return null;
+        });
+        context.eval("R", "f <- function(e, v) { assign('x', v, envir = e); get('x', envir = e) }");
+    }
+
+    @AfterClass
+    public static void finishClass() {
+        context.close();
+    }
+
+    @Test
+    public void testCachedAccess() {
+        Assert.assertEquals(20, context.eval("R", "e <- new.env(); for (i in 1:20) r <- f(e, i); r").asInt());
+        FastRSession.execInContext(context, () -> {
+            REnvironment env = (REnvironment) REnvironment.globalEnv().get("e");
+            // a default new.env() is hashed, its few bindings are in the frame
+            Assert.assertTrue(env.isFrameAccessible());
+            for (int i = 0; i < THRESHOLD; i++) {
+                env.put("k" + i, i);
+            }
+            // the cached accesses above did not keep the bindings in the frame
+            Assert.assertFalse(env.isFrameAccessible());
+            return null;
+        });
+        // the uncached accesses use the table
+        Assert.assertEquals(42, context.eval("R", "f(e, 42L)").asInt());
+        Assert.assertTrue(context.eval("R", "length(ls(e)) == " + (THRESHOLD + 1) + " && identical(mget(c('x', 'k0'), envir = e), list(x = 42L, k0 = 0L))").asBoolean());
+        FastRSession.execInContext(context, () -> {
+            REnvironment env = (REnvironment) REnvironment.globalEnv().get("e");
+            env.getFrame();
+            // the bindings are in the frame for good
+            Assert.assertTrue(env.isFrameAccessible());
+            return null;
+        });
+        Assert.assertEquals(7, context.eval("R", "f(e, 7L)").asInt());
+        Assert.assertEquals(3, context.eval("R", "evalq(k3, e)").asInt());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.LazyDBCache;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+import com.oracle.truffle.r.test.TestBase;
+import com.oracle.truffle.r.test.generate.FastRContext;
+import com.oracle.truffle.r.test.generate.FastRSession;
+
+/**
+ * Tests the eviction and the staleness check of the memory mapped lazy-load databases. The
+ * databases are plain files, the cache does not interpret their contents.
+ */
+public class TestLazyDBCache extends TestBase {
+
+    private static final int SIZE = 1000;
+
+    private static FastRSession session;
+    private static FastRContext context;
+    private static Path dir;
+
+    @BeforeClass
+    public static void setupClass() throws IOException {
+        session = FastRSession.create();
+        context = session.createContext(ContextKind.SHARE_PARENT_RW);
+        dir = Files.createTempDirectory("fastrLazyDB");
+    }
+
+    @AfterClass
+    public static void finishClass() throws IOException {
+        context.close();
+        for (File file : dir.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testEviction() {
+        FastRSession.execInContext(context, () -> {
+            String a = createDB("a.rdb", 1, SIZE);
+            String b = createDB("b.rdb", 2, SIZE);
+            String c = createDB("c.rdb", 3, SIZE);
+            long cacheSize = LazyDBCache.getCacheSize();
+            try {
+                // evicts the databases of packages, only the last mapped file stays
+                LazyDBCache.setCacheSize(0);
+                assertData(a, 1);
+                Assert.assertEquals(SIZE, LazyDBCache.getMappedBytes());
+                LazyDBCache.setCacheSize(2 * SIZE + SIZE / 2);
+                long evictions = LazyDBCache.getEvictions();
+                assertData(b, 2);
+                Assert.assertEquals(evictions, LazyDBCache.getEvictions());
+                // a is the least recently used file
+                assertData(c, 3);
+                Assert.assertEquals(evictions + 1, LazyDBCache.getEvictions());
+                long hits = LazyDBCache.getHits();
+                long misses = LazyDBCache.getMisses();
+                assertData(b, 2);
+                Assert.assertEquals(hits + 1, LazyDBCache.getHits());
+                assertData(a, 1);
+                Assert.assertEquals(misses + 1, LazyDBCache.getMisses());
+                // a file larger than the limit is still mapped
+                LazyDBCache.setCacheSize(SIZE / 2);
+                Assert.assertEquals(SIZE, LazyDBCache.getMappedBytes());
+                assertData(c, 3);
+                Assert.assertEquals(SIZE, LazyDBCache.getMappedBytes());
+            } finally {
+                LazyDBCache.setCacheSize(cacheSize);
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testStaleness() throws IOException {
+        FastRSession.execInContext(context, () -> {
+            String db = createDB("stale.rdb", 4, SIZE);
+            assertData(db, 4);
+            replaceDB("stale.rdb", 5, 2 * SIZE);
+            // checked once per context, otherwise only after lazyLoadDBflush
+            assertData(db, 4);
+            RContext.getInstance().stateLazyDBCache.remove(db);
+            assertData(db, 5);
+            return null;
+        });
+        replaceDB("stale.rdb", 6, SIZE);
+        String db = dir.resolve("stale.rdb").toString();
+        // a new context checks the file again
+        FastRContext other = session.createContext(ContextKind.SHARE_PARENT_RW);
+        try {
+            FastRSession.execInContext(other, () -> {
+                assertData(db, 6);
+                return null;
+            });
+        } finally {
+            other.close();
+        }
+    }
+
+    private static String createDB(String name, int value, int size) throws IOException {
+        Path path = dir.resolve(name);
+        Files.write(path, content(value, size));
+        return path.toString();
+    }
+
+    /**
+     * Replaces the file rather than rewriting it in place, which would break the existing mapping.
+     */
+    private static void replaceDB(String name, int value, int size) throws IOException {
+        Path tmp = dir.resolve(name + ".tmp");
+        Files.write(tmp, content(value, size));
+        Files.move(tmp, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static byte[] content(int value, int size) {
+        byte[] result = new byte[size];
+        Arrays.fill(result, (byte) value);
+        return result;
+    }
+
+    private static void assertData(String db, int value) {
+        byte[] data = RContext.getInstance().stateLazyDBCache.getData(db, SIZE / 2, 10);
+        Assert.assertArrayEquals(content(value, 10), data);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.runtime;
+
+import static com.oracle.truffle.r.runtime.context.FastROptions.MappedVectorThreshold;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.RMappedDoubleVector;
+import com.oracle.truffle.r.runtime.data.RMappedIntVector;
+import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.test.TestBase;
+import com.oracle.truffle.r.test.generate.FastRContext;
+import com.oracle.truffle.r.test.generate.FastRSession;
+
+/**
+ * Tests unserializing uncompressed files with the {@code MappedVectorThreshold} option, which is
+ * off by default.
+ */
+public class TestMappedVectors extends TestBase {
+
+    private static FastRContext context;
+
+    @BeforeClass
+    public static void setupClass() {
+        FastRSession session = FastRSession.create();
+        context = session.createContext(ContextKind.SHARE_PARENT_RW);
+        context.eval("R", "x <- c(sample(1e5), NA); d <- c(runif(1e5), NA, NaN, Inf, -0)");
+    }
+
+    @AfterClass
+    public static void finishClass() {
+        context.close();
+    }
+
+    @Before
+    public void enableMapping() {
+        setThreshold(1);
+    }
+
+    @After
+    public void disableMapping() {
+        setThreshold(0);
+    }
+
+    @Test
+    public void testValues() {
+        Assert.assertTrue(eval("f <- tempfile(); saveRDS(x, f, compress=FALSE); y <- readRDS(f); unlink(f); identical(x, y)"));
+        assertGlobalClass("y", RMappedIntVector.class);
+        Assert.assertTrue(eval("f <- tempfile(); saveRDS(d, f, compress=FALSE); y <- readRDS(f); unlink(f); identical(d, y) && identical(1/y[length(y)], -Inf)"));
+        assertGlobalClass("y", RMappedDoubleVector.class);
+    }
+
+    @Test
+    public void testSeveralObjects() {
+        // the connection must be positioned after each mapped object
+        Assert.assertTrue(eval("f <- tempfile(); con <- file(f, 'wb'); serialize(x, con); serialize(1:3, con); serialize(d, con); close(con); " +
+                        "con <- file(f, 'rb'); y <- list(unserialize(con), unserialize(con), unserialize(con)); close(con); unlink(f); identical(y, list(x, 1:3, d))"));
+    }
+
+    @Test
+    public void testAttributes() {
+        // vectors with attributes are not mapped
+        Assert.assertTrue(eval("m <- matrix(d[1:1e5], 100, dimnames=list(NULL, paste0('c', 1:1000))); f <- tempfile(); saveRDS(m, f, compress=FALSE); y <- readRDS(f); unlink(f); identical(m, y)"));
+        assertGlobalClass("y", RDoubleVector.class);
+        Assert.assertTrue(eval("l <- list(a=x, b=structure(d, foo='bar')); f <- tempfile(); saveRDS(l, f, compress=FALSE); y <- readRDS(f); unlink(f); identical(l, y)"));
+    }
+
+    @Test
+    public void testCopyOnWrite() {
+        Assert.assertTrue(eval("f <- tempfile(); saveRDS(x, f, compress=FALSE); y <- readRDS(f); z <- y; z[1] <- -1L; y[2] <- -2L; " +
+                        "r <- z[1] == -1L && y[2] == -2L && identical(y[-2], x[-2]) && identical(z[-1], x[-1]) && identical(readRDS(f), x); unlink(f); r"));
+        Assert.assertTrue(eval("f <- tempfile(); saveRDS(d, f, compress=FALSE); y <- readRDS(f); z <- y * 2; y[1] <- 42; " +
+                        "r <- y[1] == 42 && identical(z, d * 2) && identical(y[-1], d[-1]) && identical(readRDS(f), d); unlink(f); r"));
+    }
+
+    @Test
+    public void testFallback() {
+        // compressed files are decoded as usual
+        Assert.assertTrue(eval("f <- tempfile(); saveRDS(x, f); y <- readRDS(f); unlink(f); identical(x, y)"));
+        assertGlobalClass("y", RIntVector.class);
+        // so are vectors below the threshold
+        Assert.assertTrue(eval("f <- tempfile(); saveRDS(x[1:100], f, compress=FALSE); y <- readRDS(f); unlink(f); identical(x[1:100], y)"));
+        assertGlobalClass("y", RIntVector.class);
+        // and everything if the threshold is 0
+        setThreshold(0);
+        Assert.assertTrue(eval("f <- tempfile(); saveRDS(d, f, compress=FALSE); y <- readRDS(f); unlink(f); identical(d, y)"));
+        assertGlobalClass("y", RDoubleVector.class);
+    }
+
+    private static boolean eval(String code) {
+        return context.eval("R", code).asBoolean();
+    }
+
+    private static void setThreshold(int kb) {
+        FastRSession.execInContext(context, () -> {
+            RContext.getInstance().setOption(MappedVectorThreshold, kb);
+            return null;
+        });
+    }
+
+    private static void assertGlobalClass(String name, Class<?> expected) {
+        FastRSession.execInContext(context, () -> {
+            Assert.assertEquals(expected, REnvironment.globalEnv().get(name).getClass());
+            return null;
+        });
+    }
+}
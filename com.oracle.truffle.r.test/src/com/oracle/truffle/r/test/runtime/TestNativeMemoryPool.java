@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.runtime;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+import com.oracle.truffle.r.runtime.data.NativeDataAccess;
+import com.oracle.truffle.r.runtime.data.NativeDataAccess.NativeDataInspector;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.test.TestBase;
+import com.oracle.truffle.r.test.generate.FastRContext;
+import com.oracle.truffle.r.test.generate.FastRSession;
+
+/**
+ * Tests that the native data of mirrors goes back to the pool. The vectors use the largest size
+ * class, so that other tests are unlikely to take the released blocks in between.
+ */
+public class TestNativeMemoryPool extends TestBase {
+
+    private static final int LENGTH = 10000;
+
+    private static FastRContext context;
+
+    @BeforeClass
+    public static void setupClass() {
+        FastRSession session = FastRSession.create();
+        context = session.createContext(ContextKind.SHARE_PARENT_RW);
+    }
+
+    @AfterClass
+    public static void finishClass() {
+        context.close();
+    }
+
+    @Test
+    public void testSetNativeContents() {
+        FastRSession.execInContext(context, () -> {
+            NativeDataInspector inspector = new NativeDataInspector();
+            RIntVector vector = createNative();
+            long pooled = vector.allocateNativeContents();
+            RIntVector other = createNative();
+            long external = other.allocateNativeContents();
+            long live = inspector.getLiveNativeBytes();
+            NativeDataAccess.setNativeContents(vector, external, LENGTH);
+            // the block of vector went back to the pool and is handed out again
+            Assert.assertTrue(inspector.getLiveNativeBytes() < live);
+            long hits = inspector.getPoolHits();
+            Assert.assertEquals(pooled, createNative().allocateNativeContents());
+            Assert.assertEquals(hits + 1, inspector.getPoolHits());
+            Assert.assertEquals(external, vector.allocateNativeContents());
+            return null;
+        });
+    }
+
+    @Test
+    public void testRelease() {
+        FastRSession.execInContext(context, () -> {
+            NativeDataInspector inspector = new NativeDataInspector();
+            RIntVector vector = createNative();
+            long address = vector.allocateNativeContents();
+            WeakReference<RIntVector> ref = new WeakReference<>(vector);
+            vector = null;
+            long pooledBytes = inspector.getPooledNativeBytes();
+            // the mirror is released either by the reference queue thread or on native call exit
+            for (int i = 0; i < 100 && inspector.getPooledNativeBytes() <= pooledBytes; i++) {
+                System.gc();
+                Thread.sleep(10);
+                NativeDataAccess.releaseCollected();
+            }
+            Assert.assertNull(ref.get());
+            Assert.assertEquals(address, createNative().allocateNativeContents());
+            return null;
+        });
+    }
+
+    private static RIntVector createNative() {
+        RIntVector result = RDataFactory.createIntVector(new int[LENGTH], true);
+        NativeDataAccess.toNative(result);
+        return result;
+    }
+}
@@ -559,6 +559,38 @@ def gnu_rtests(args, env=None):
     finally:
         shutil.rmtree(join(_fastr_suite.dir, 'deparse'), True)
 
+def r_jmh(args):
+    '''Runs the JMH micro-benchmarks of the com.oracle.truffle.r.benchmarks project
+
+    --alloc     Profiles the allocations of the benchmarks (JMH's "-prof gc")
+
+    All other arguments are passed to JMH, e.g. a regular expression selecting the benchmarks
+    or "-p n=1000" to override a parameter, see "mx r-jmh -h" for the JMH options.
+
+    Examples:
+
+        mx r-jmh Sorting
+        mx r-jmh --alloc -p op=readRDS Serialization
+    '''
+    jmhArgs = []
+    for arg in args:
+        if arg == '--alloc':
+            jmhArgs += ['-prof', 'gc']
+        else:
+            jmhArgs.append(arg)
+    setREnvironment()
+    jdk = get_default_jdk()
+    dists = ['FASTR']
+    if mx.suite("sulong", fatalIfMissing=False):
+        dists.append('SULONG')
+    vmArgs = mx.get_runtime_jvm_args(['com.oracle.truffle.r.benchmarks'] + dists, jdk=jdk)
+    vmArgs += set_graal_options()
+    vmArgs += _sulong_options()
+    vmArgs = _sanitize_vmArgs(jdk, vmArgs)
+    # the forked benchmark VMs inherit the class path and VM arguments
+    vmArgs.append('org.openjdk.jmh.Main')
+    return mx.run_java(vmArgs + jmhArgs, jdk=jdk)
+
 def run_codegen(main, args, **kwargs):
     '''
     Runs java with the com.oracle.truffle.r.ffi.codegen project on the class path and "main" as the entry point.
@@ -720,6 +752,7 @@ _commands = {
     'rembed' : [rembed, '[options]'],
     'rembedtest' : [rembedtest, '[options]'],
     'r-cp' : [r_classpath, '[options]'],
+    'r-jmh' : [r_jmh, '[--alloc] [JMH options]'],
     'pkgtest' : [pkgtest, ['options']],
     'r-pkgtest-analyze' : [r_pkgtest_analyze, ['options']],
     'r-findtop100' : [find_top100, ['options']],
@@ -357,6 +357,21 @@ suite = {
       "javaCompliance" : "1.8",
       "workingSets" : "FastR,Test",
     },
+
+    "com.oracle.truffle.r.benchmarks" : {
+      "sourceDirs" : ["src"],
+      "dependencies" : [
+        "mx:JMH_1_21",
+        "sdk:GRAAL_SDK",
+      ],
+      "annotationProcessors" : [
+        "mx:JMH_1_21",
+      ],
+      "checkstyle" : "com.oracle.truffle.r.runtime",
+      "javaCompliance" : "1.8",
+      "spotbugsIgnoresGenerated" : True,
+      "workingSets" : "FastR,Test",
+    },
   },
 
   "distributions" : {